@@ -3,6 +3,7 @@ package de.julielab.jcore.ae.annotationadder;
 
 import de.julielab.jcore.ae.annotationadder.annotationrepresentations.AnnotationData;
 import de.julielab.jcore.ae.annotationadder.annotationsources.AnnotationProvider;
+import de.julielab.jcore.types.casmultiplier.RowBatch;
 import de.julielab.jcore.utility.JCoReTools;
 import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_component.JCasAnnotator_ImplBase;
@@ -10,13 +11,17 @@ import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.fit.descriptor.ConfigurationParameter;
 import org.apache.uima.fit.descriptor.ExternalResource;
 import org.apache.uima.fit.descriptor.ResourceMetaData;
+import org.apache.uima.fit.util.JCasUtil;
 import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.cas.StringArray;
 import org.apache.uima.resource.ResourceAccessException;
 import org.apache.uima.resource.ResourceInitializationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -70,6 +75,14 @@ public class AnnotationAdderAnnotator extends JCasAnnotator_ImplBase {
 	@Override
 	public void process(final JCas aJCas) throws AnalysisEngineProcessException {
         try {
+            // the row batch type is only part of the type system in pipelines reading with a database multiplier
+            if (aJCas.getTypeSystem().getType(RowBatch.class.getCanonicalName()) != null) {
+                final Collection<RowBatch> rowBatches = JCasUtil.select(aJCas, RowBatch.class);
+                if (!rowBatches.isEmpty()) {
+                    prefetchAnnotations(rowBatches);
+                    return;
+                }
+            }
             final String docId = JCoReTools.getDocId(aJCas);
             if (docId == null)
                 log.error("The current document does not have a header. Cannot add external annotations.");
@@ -94,4 +107,39 @@ public class AnnotationAdderAnnotator extends JCasAnnotator_ImplBase {
         }
     }
 
+    @Override
+    public void destroy() {
+        // UIMA does not destroy shared resource objects, thus the open files and connections of the annotation
+        // source are released here
+        if (annotationProvider != null)
+            annotationProvider.destroy();
+        super.destroy();
+    }
+
+    /**
+     * Announces the documents of the given row batches to the annotation provider. This happens when the component
+     * is placed in front of a database CAS multiplier and thus receives the row batch CASes of the multiplier reader.
+     * The provider may then fetch the annotations of the whole batch at once before the multiplier emits the
+     * document CASes.
+     *
+     * @param rowBatches The row batches of the current CAS.
+     */
+    private void prefetchAnnotations(Collection<RowBatch> rowBatches) {
+        final List<String> docIds = new ArrayList<>();
+        for (RowBatch rowBatch : rowBatches) {
+            if (rowBatch.getIdentifiers() == null)
+                continue;
+            for (int i = 0; i < rowBatch.getIdentifiers().size(); i++) {
+                final StringArray primaryKey = (StringArray) rowBatch.getIdentifiers().get(i);
+                // arrays extended with JCoReTools#addToFSArray may have trailing null entries
+                if (primaryKey == null)
+                    continue;
+                // composite primary keys are set as document ID with the elements separated by dashes
+                docIds.add(String.join("-", primaryKey.toArray()));
+            }
+        }
+        log.debug("Prefetching the external annotations of {} documents of the current row batch.", docIds.size());
+        annotationProvider.prefetch(docIds);
+    }
+
 }
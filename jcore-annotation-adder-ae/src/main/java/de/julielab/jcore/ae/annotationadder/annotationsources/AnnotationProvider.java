@@ -3,6 +3,23 @@ package de.julielab.jcore.ae.annotationadder.annotationsources;
 import de.julielab.jcore.ae.annotationadder.annotationrepresentations.AnnotationData;
 import org.apache.uima.resource.SharedResourceObject;
 
+import java.util.Collection;
+
 public interface AnnotationProvider<T extends AnnotationData> extends SharedResourceObject {
     T getAnnotations(String id);
+
+    /**
+     * @param ids The IDs of documents whose annotations will be requested soon.
+     * @see AnnotationSource#prefetch(Collection)
+     */
+    default void prefetch(Collection<String> ids) {
+        // nothing to do for providers that do not benefit from prefetching
+    }
+
+    /**
+     * @see AnnotationSource#destroy()
+     */
+    default void destroy() {
+        // nothing to release for providers that only hold heap data
+    }
 }
@@ -5,10 +5,30 @@ import org.apache.uima.resource.DataResource;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.Collection;
 
 public interface AnnotationSource<T extends AnnotationData> {
     void loadAnnotations(URI annotationUri) throws IOException;
 
     void initialize(DataResource dataResource) throws IOException;
     T getAnnotations(String id);
+
+    /**
+     * Announces the IDs of documents whose annotations will be requested soon. Sources that retrieve their
+     * annotations from an external store may use this hint to fetch the annotations of multiple documents at once.
+     * The default implementation does nothing.
+     *
+     * @param ids The IDs of upcoming documents.
+     */
+    default void prefetch(Collection<String> ids) {
+        // nothing to do for sources that do not benefit from prefetching
+    }
+
+    /**
+     * Releases resources like files or database connections held by this source. The default implementation does
+     * nothing.
+     */
+    default void destroy() {
+        // nothing to release for sources that only hold heap data
+    }
 }
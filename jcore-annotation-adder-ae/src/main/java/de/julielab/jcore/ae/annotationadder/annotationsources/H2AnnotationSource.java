@@ -9,6 +9,7 @@ import de.julielab.jcore.ae.annotationadder.annotationrepresentations.ExternalTe
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.NotImplementedException;
 import org.apache.uima.resource.DataResource;
+import org.apache.uima.resource.metadata.ConfigurationParameterSettings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -20,17 +21,57 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static de.julielab.jcore.ae.annotationadder.annotationsources.TextAnnotationProvider.*;
 
+/**
+ * <p>An annotation source that stores the annotations in an H2 database file next to the annotation file instead of
+ * keeping them in memory.</p>
+ * <p>Annotations are retrieved for multiple documents at once with a prepared <tt>IN</tt> query, either for the IDs
+ * passed to {@link #prefetch(Collection)} or, on a cache miss, for the requested document and the documents directly
+ * following it in ID order. The retrieved annotations are kept in an LRU cache of bounded size.</p>
+ * <p>This class is thread safe. Each querying thread uses its own database connection. All these connections are
+ * closed by {@link #destroy()}.</p>
+ */
 public class H2AnnotationSource<T extends AnnotationData> implements AnnotationSource<AnnotationList<T>> {
+    /**
+     * The number of documents whose annotations are retrieved with a single query. Defaults to 100.
+     */
+    public static final String PARAM_PREFETCH_SIZE = "PrefetchSize";
+    /**
+     * The maximum number of documents whose annotations are cached. Defaults to 1000.
+     */
+    public static final String PARAM_CACHE_SIZE = "CacheSize";
     private final static Logger log = LoggerFactory.getLogger(H2AnnotationSource.class);
     private AnnotationFormat<T> format;
     private Path h2DbPath;
-    private Statement queryStmt;
-    private Class<?> annotationDataClass;
+    private final ThreadLocal<QueryStatements> queryStatements = new ThreadLocal<>();
+    /**
+     * The statements of all threads, to close their connections in {@link #destroy()}.
+     */
+    private final Set<QueryStatements> openStatements = ConcurrentHashMap.newKeySet();
+    /**
+     * The fetches currently running, by the IDs of the requested documents.
+     */
+    private final ConcurrentMap<String, CompletableFuture<AnnotationList<T>>> pendingFetches = new ConcurrentHashMap<>();
+    private int prefetchSize = 100;
+    private int cacheSize = 1000;
+    private final Map<String, AnnotationList<T>> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, AnnotationList<T>> eldest) {
+            return size() > cacheSize;
+        }
+    };
+    private volatile int[] columnIndexes;
+    private int docIdColumn;
+    private int beginColumn;
+    private int endColumn;
+    private int uimaTypeColumn;
 
     public H2AnnotationSource(AnnotationFormat<T> format) {
         this.format = format;
@@ -74,7 +115,6 @@ public class H2AnnotationSource<T extends AnnotationData> implements AnnotationS
                                     format.getHeader()[i] = COL_END;
                             }
                             IntStream.range(0, format.getHeader().length).forEach(i -> columnIndexes.put(format.getHeader()[i], i));
-                            annotationDataClass = annotationData.getClass();
                             createAnnotationTable(conn, annotationData);
                             String insertionSql = "INSERT INTO annotations VALUES (" + IntStream.range(0, format.getHeader().length).mapToObj(i -> "?").collect(Collectors.joining(",")) + ")";
                             ps = conn.prepareStatement(insertionSql);
@@ -174,56 +214,242 @@ public class H2AnnotationSource<T extends AnnotationData> implements AnnotationS
 
     @Override
     public void initialize(DataResource dataResource) throws IOException {
+        final ConfigurationParameterSettings parameterSettings = dataResource.getMetaData().getConfigurationParameterSettings();
+        prefetchSize = (int) Optional.ofNullable(parameterSettings.getParameterValue(PARAM_PREFETCH_SIZE)).orElse(prefetchSize);
+        cacheSize = (int) Optional.ofNullable(parameterSettings.getParameterValue(PARAM_CACHE_SIZE)).orElse(cacheSize);
+        if (prefetchSize < 1)
+            throw new IllegalArgumentException("The prefetch size must be at least 1 but is " + prefetchSize);
         log.info("Loading entity annotations from {}", dataResource.getUri());
         loadAnnotations(dataResource.getUri());
     }
 
+    /**
+     * <p>Fetches the annotations of the given documents with as few queries as possible and puts them into the cache.
+     * Documents without annotations are cached with an empty annotation list.</p>
+     * <p>Threads requesting one of the given documents via {@link #getAnnotations(String)} in the meantime wait for
+     * this fetch instead of querying the database themselves.</p>
+     *
+     * @param ids The IDs of the documents whose annotations will be requested soon.
+     */
+    @Override
+    public void prefetch(Collection<String> ids) {
+        final Map<String, CompletableFuture<AnnotationList<T>>> ownFetches = new LinkedHashMap<>();
+        for (String id : ids) {
+            if (ownFetches.containsKey(id) || getCached(id) != null)
+                continue;
+            final CompletableFuture<AnnotationList<T>> future = new CompletableFuture<>();
+            if (pendingFetches.putIfAbsent(id, future) == null)
+                ownFetches.put(id, future);
+        }
+        final List<String> missingIds = new ArrayList<>(ownFetches.keySet());
+        try {
+            for (int i = 0; i < missingIds.size(); i += prefetchSize) {
+                final List<String> batch = missingIds.subList(i, Math.min(i + prefetchSize, missingIds.size()));
+                final Map<String, AnnotationList<T>> annotationsById = fetchAnnotations(batch);
+                for (String id : batch) {
+                    final AnnotationList<T> annotationList = annotationsById.getOrDefault(id, new AnnotationList<>());
+                    putCached(id, annotationList);
+                    ownFetches.get(id).complete(annotationList);
+                    pendingFetches.remove(id, ownFetches.get(id));
+                }
+            }
+        } catch (RuntimeException e) {
+            ownFetches.values().forEach(f -> f.completeExceptionally(e));
+            throw e;
+        } finally {
+            ownFetches.forEach(pendingFetches::remove);
+        }
+    }
+
+    /**
+     * <p>Returns the annotations of the document with the given ID.</p>
+     * <p>If the annotations are not already cached due to a call to {@link #prefetch(Collection)} or an earlier
+     * read-ahead, the requested document and the next documents in the order of their IDs are fetched with
+     * a single query. Since documents are typically read in the order of their IDs, this lets subsequent calls be
+     * served from the cache.</p>
+     * <p>The database is not queried while holding a lock. Concurrent requests for the same document wait for the
+     * fetch of the first request; requests for other documents proceed independently.</p>
+     *
+     * @param id The document ID.
+     * @return The annotations for the document, possibly empty.
+     */
     @Override
     public AnnotationList<T> getAnnotations(String id) {
+        AnnotationList<T> annotationList = getCached(id);
+        if (annotationList != null)
+            return annotationList;
+        final CompletableFuture<AnnotationList<T>> future = new CompletableFuture<>();
+        final CompletableFuture<AnnotationList<T>> runningFetch = pendingFetches.putIfAbsent(id, future);
+        if (runningFetch != null)
+            return runningFetch.join();
         try {
-            if (queryStmt == null) {
-                Connection queryConn = DriverManager.
-                        getConnection("jdbc:h2:" + h2DbPath, "sa", "");
-                queryStmt = queryConn.createStatement();
+            // the fetch that has just finished might already have cached the annotations
+            annotationList = getCached(id);
+            if (annotationList == null) {
+                final Map<String, AnnotationList<T>> annotationsById = fetchAnnotationWindow(id);
+                for (String windowId : annotationsById.keySet())
+                    putCached(windowId, annotationsById.get(windowId));
+                annotationList = annotationsById.getOrDefault(id, new AnnotationList<>());
+                putCached(id, annotationList);
             }
+            future.complete(annotationList);
+            return annotationList;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            pendingFetches.remove(id, future);
+        }
+    }
+
+    private AnnotationList<T> getCached(String id) {
+        synchronized (cache) {
+            return cache.get(id);
+        }
+    }
+
+    private void putCached(String id, AnnotationList<T> annotationList) {
+        synchronized (cache) {
+            cache.put(id, annotationList);
+        }
+    }
+
+    /**
+     * Retrieves the annotations of the given document and of up to {@link #prefetchSize} - 1 directly following
+     * documents that have annotations in the database with a single query.
+     *
+     * @param id A document ID.
+     * @return The annotations of the retrieved documents by document ID.
+     */
+    private Map<String, AnnotationList<T>> fetchAnnotationWindow(String id) {
+        try {
+            final PreparedStatement ps = getQueryStatements().windowQueryStmt;
+            ps.setString(1, id);
+            return readAnnotations(ps);
         } catch (SQLException e) {
-            log.error("Could not connect to database at {}", h2DbPath, e);
+            log.error("Could not retrieve annotation values from the H2 database at {} for document ID {} and its following documents", h2DbPath, id, e);
             throw new IllegalStateException(e);
         }
-        final String sql = "SELECT * FROM annotations WHERE docId='" + id + "'";
+    }
+
+    private Map<String, AnnotationList<T>> fetchAnnotations(List<String> ids) {
         try {
-            final ResultSet rs = queryStmt.executeQuery(sql);
-            final AnnotationList<T> annotationList = new AnnotationList<>();
-            while (rs.next()) {
-                T textAnnotation = null;
-                if (annotationDataClass == null)
-                    throw new IllegalStateException("The annotation data class should have been recorded when data was read from file but it is null.");
-                try {
-                    if (annotationDataClass.equals(ExternalTextAnnotation.class))
-                        textAnnotation = (T) annotationDataClass.getConstructor(String.class, int.class, int.class, String.class).newInstance(rs.getString(COL_DOC_ID), rs.getInt(COL_BEGIN), rs.getInt(COL_END), rs.getString(COL_UIMA_TYPE));
-                    else
-                        throw new NotImplementedException("The annotation class " + annotationDataClass + " is currently not supported by the H2AnnotationSource.");
-                } catch (Exception e) {
-                    log.error("Could not create instance of annotation data class {}", annotationDataClass, e);
-                }
-                for (String columnName : format.getHeader()) {
-                        final Object value = rs.getObject(columnName);
-                    if (value != null && textAnnotation instanceof ExternalTextAnnotation && !columnName.equals(COL_UIMA_TYPE) && !columnName.equals(COL_DOC_ID)) {
-                        ExternalTextAnnotation a = (ExternalTextAnnotation) textAnnotation;
-                        String payLoadKey = columnName;
-                        if(payLoadKey.equals(COL_BEGIN))
-                            payLoadKey = "begin";
-                        else if (payLoadKey.equals(COL_END))
-                            payLoadKey = "end";
-                        a.addPayload(payLoadKey, value);
-                    }
-                }
-                annotationList.add(textAnnotation);
-            }
-            return annotationList;
+            final PreparedStatement ps = getQueryStatements().batchQueryStmt;
+            // Unused parameters are filled with the first ID so that a single statement serves all batch sizes.
+            for (int i = 0; i < prefetchSize; i++)
+                ps.setString(i + 1, ids.get(i < ids.size() ? i : 0));
+            return readAnnotations(ps);
         } catch (SQLException e) {
-            log.error("Could not retrieve annotation values from the H2 database via SQL query '{}'", sql);
+            log.error("Could not retrieve annotation values from the H2 database at {} for document IDs {}", h2DbPath, ids, e);
             throw new IllegalStateException(e);
         }
     }
+
+    private Map<String, AnnotationList<T>> readAnnotations(PreparedStatement ps) throws SQLException {
+        final Map<String, AnnotationList<T>> annotationsById = new HashMap<>();
+        try (ResultSet rs = ps.executeQuery()) {
+            if (columnIndexes == null)
+                resolveColumnIndexes(rs.getMetaData());
+            while (rs.next()) {
+                final ExternalTextAnnotation textAnnotation = createAnnotation(rs);
+                annotationsById.computeIfAbsent(textAnnotation.getDocumentId(), k -> new AnnotationList<>()).add((T) textAnnotation);
+            }
+        }
+        return annotationsById;
+    }
+
+    private ExternalTextAnnotation createAnnotation(ResultSet rs) throws SQLException {
+        final ExternalTextAnnotation textAnnotation = new ExternalTextAnnotation(rs.getString(columnIndexes[docIdColumn]), rs.getInt(columnIndexes[beginColumn]), rs.getInt(columnIndexes[endColumn]), rs.getString(columnIndexes[uimaTypeColumn]));
+        final String[] header = format.getHeader();
+        for (int i = 0; i < header.length; i++) {
+            final String columnName = header[i];
+            final Object value = rs.getObject(columnIndexes[i]);
+            if (value != null && !columnName.equals(COL_UIMA_TYPE) && !columnName.equals(COL_DOC_ID)) {
+                String payLoadKey = columnName;
+                if (payLoadKey.equals(COL_BEGIN))
+                    payLoadKey = "begin";
+                else if (payLoadKey.equals(COL_END))
+                    payLoadKey = "end";
+                textAnnotation.addPayload(payLoadKey, value);
+            }
+        }
+        return textAnnotation;
+    }
+
+    /**
+     * Resolves the result set column index of each header column once so that the rows can be read by index.
+     */
+    private synchronized void resolveColumnIndexes(ResultSetMetaData metaData) throws SQLException {
+        if (columnIndexes != null)
+            return;
+        final String[] header = format.getHeader();
+        final int[] indexes = new int[header.length];
+        for (int i = 0; i < header.length; i++) {
+            for (int j = 1; j <= metaData.getColumnCount(); j++) {
+                if (metaData.getColumnLabel(j).equalsIgnoreCase(header[i]))
+                    indexes[i] = j;
+            }
+            if (indexes[i] == 0)
+                throw new IllegalStateException("The column " + header[i] + " was not found in the H2 annotation table.");
+        }
+        docIdColumn = getHeaderIndex(COL_DOC_ID);
+        beginColumn = getHeaderIndex(COL_BEGIN);
+        endColumn = getHeaderIndex(COL_END);
+        uimaTypeColumn = getHeaderIndex(COL_UIMA_TYPE);
+        // written last, the volatile write publishes the other column indexes
+        columnIndexes = indexes;
+    }
+
+    private int getHeaderIndex(String columnName) {
+        final String[] header = format.getHeader();
+        for (int i = 0; i < header.length; i++) {
+            if (header[i].equals(columnName))
+                return i;
+        }
+        throw new IllegalStateException("The required column " + columnName + " is not contained in the header " + Arrays.toString(header));
+    }
+
+    private QueryStatements getQueryStatements() throws SQLException {
+        QueryStatements statements = queryStatements.get();
+        // the connection is closed when the source has been destroyed while still in use by another component
+        if (statements == null || statements.conn.isClosed()) {
+            statements = new QueryStatements(DriverManager.getConnection("jdbc:h2:" + h2DbPath, "sa", ""));
+            queryStatements.set(statements);
+            openStatements.add(statements);
+        }
+        return statements;
+    }
+
+    /**
+     * Closes the database connections of all threads that have queried this source.
+     */
+    @Override
+    public void destroy() {
+        for (Iterator<QueryStatements> it = openStatements.iterator(); it.hasNext(); ) {
+            final QueryStatements statements = it.next();
+            it.remove();
+            try {
+                statements.conn.close();
+            } catch (SQLException e) {
+                log.warn("Could not close a connection to the H2 database at {}", h2DbPath, e);
+            }
+        }
+    }
+
+    /**
+     * JDBC connections and statements must not be used by multiple threads at once. Thus, each thread querying the
+     * database gets its own connection to the H2 database.
+     */
+    private class QueryStatements {
+        private final Connection conn;
+        private final PreparedStatement batchQueryStmt;
+        private final PreparedStatement windowQueryStmt;
+
+        private QueryStatements(Connection conn) throws SQLException {
+            this.conn = conn;
+            final String placeholders = IntStream.range(0, prefetchSize).mapToObj(i -> "?").collect(Collectors.joining(","));
+            batchQueryStmt = conn.prepareStatement("SELECT * FROM annotations WHERE " + COL_DOC_ID + " IN (" + placeholders + ")");
+            windowQueryStmt = conn.prepareStatement("SELECT * FROM annotations WHERE " + COL_DOC_ID + " IN (SELECT DISTINCT " + COL_DOC_ID + " FROM annotations WHERE " + COL_DOC_ID + " >= ? ORDER BY " + COL_DOC_ID + " LIMIT " + prefetchSize + ")");
+        }
+    }
 }
@@ -0,0 +1,428 @@
+package de.julielab.jcore.ae.annotationadder.annotationsources;
+
+import de.julielab.java.utilities.UriUtilities;
+import de.julielab.jcore.ae.annotationadder.annotationformat.AnnotationFormat;
+import de.julielab.jcore.ae.annotationadder.annotationrepresentations.AnnotationData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * <p>A compiled annotation file that stores the lines of a textual annotation file grouped and sorted by document ID.
+ * The file is accessed via memory mapping so that lookups do not require the annotations to be held on the heap.</p>
+ * <p>The file consists of the following parts, all numbers being big endian:</p>
+ * <ol>
+ *     <li>A header of {@link #HEADER_SIZE} bytes: the magic number {@link #MAGIC}, the format version, the number of
+ *     documents as a long, the number of documents per block, the number of blocks and the position of the block
+ *     index as a long.</li>
+ *     <li>The header line of the source file as an int length followed by its UTF-8 bytes. The length is 0 if the
+ *     source file does not have a header line.</li>
+ *     <li>The document records, sorted by the unsigned UTF-8 bytes of the document IDs. Each record consists of the
+ *     length and bytes of the document ID, the number of annotation lines and the length and bytes of each line.</li>
+ *     <li>The block index: for every {@link #BLOCK_SIZE}th document record its position in the file as a long.</li>
+ * </ol>
+ * <p>A lookup is a binary search over the first document IDs of the blocks followed by a linear scan of at most
+ * {@link #BLOCK_SIZE} records. The original annotation lines are stored so that they can be parsed with the
+ * {@link AnnotationFormat} that was used for the compilation, e.g. the <tt>SimpleTSVEntityAnnotationFormat</tt>
+ * or the <tt>FeatureBasedTSVFormat</tt>.</p>
+ * <p>Instances may be used concurrently by multiple threads.</p>
+ */
+public class MappedAnnotationFile implements Closeable {
+    public static final int MAGIC = 0x4A414E4E;
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 32;
+    public static final int BLOCK_SIZE = 64;
+    private final static Logger log = LoggerFactory.getLogger(MappedAnnotationFile.class);
+    /**
+     * The number of annotation lines that are sorted in memory before they are written to a temporary run file.
+     */
+    private static final int RUN_SIZE = 500000;
+    private static final int CHUNK_BITS = 30;
+    private static final long CHUNK_SIZE = 1L << CHUNK_BITS;
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer[] chunks;
+    private final long numDocuments;
+    private final int numBlocks;
+    private final long blockIndexStart;
+    private final String headerLine;
+
+    private MappedAnnotationFile(Path file) throws IOException {
+        this.file = file;
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        long size = channel.size();
+        if (size < HEADER_SIZE)
+            throw new IOException("The file " + file + " is too short to be a compiled annotation file.");
+        chunks = new MappedByteBuffer[(int) ((size + CHUNK_SIZE - 1) >>> CHUNK_BITS)];
+        for (int i = 0; i < chunks.length; i++) {
+            long chunkStart = i * CHUNK_SIZE;
+            chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, chunkStart, Math.min(CHUNK_SIZE, size - chunkStart));
+        }
+        if (getInt(0) != MAGIC)
+            throw new IOException("The file " + file + " is not a compiled annotation file.");
+        if (getInt(4) != VERSION)
+            throw new IOException("The file " + file + " has the unsupported format version " + getInt(4));
+        numDocuments = getLong(8);
+        if (getInt(16) != BLOCK_SIZE)
+            throw new IOException("The file " + file + " has the unsupported block size " + getInt(16));
+        numBlocks = getInt(20);
+        blockIndexStart = getLong(24);
+        if (blockIndexStart + (long) numBlocks * Long.BYTES != size)
+            throw new IOException("The file " + file + " is corrupt: its size does not match the size given by its header.");
+        int headerLineLength = getInt(HEADER_SIZE);
+        headerLine = headerLineLength > 0 ? new String(getBytes(HEADER_SIZE + Integer.BYTES, headerLineLength), StandardCharsets.UTF_8) : null;
+    }
+
+    public static MappedAnnotationFile open(Path file) throws IOException {
+        return new MappedAnnotationFile(file);
+    }
+
+    /**
+     * <p>Compiles the annotation file at <tt>source</tt> into the file <tt>target</tt>.</p>
+     * <p>Each line is parsed with <tt>format</tt> to determine its document ID. Lines that are not parsed into an
+     * annotation, e.g. comments, are skipped except for the header line of the source file which is stored for later
+     * parsing. The lines are sorted with an external merge sort so that arbitrarily large annotation files can be
+     * compiled with limited memory. The order of the lines of the same document is preserved.</p>
+     *
+     * @param source The annotation file to compile.
+     * @param format The format of the annotation file.
+     * @param target The compiled file to write.
+     * @throws IOException If reading or writing fails.
+     */
+    public static <T extends AnnotationData> void compile(URI source, AnnotationFormat<T> format, Path target) throws IOException {
+        compile(source, format, target, RUN_SIZE);
+    }
+
+    static <T extends AnnotationData> void compile(URI source, AnnotationFormat<T> format, Path target, int runSize) throws IOException {
+        List<Path> runs = new ArrayList<>();
+        String headerLine = null;
+        long numLines = 0;
+        try (BufferedReader br = UriUtilities.getReaderFromUri(source)) {
+            List<SortEntry> entries = new ArrayList<>();
+            String line;
+            while ((line = br.readLine()) != null) {
+                boolean headerWasNull = format.getHeader() == null;
+                T annotationData = format.parse(line);
+                if (annotationData == null) {
+                    if (headerWasNull && format.getHeader() != null)
+                        headerLine = line;
+                    continue;
+                }
+                entries.add(new SortEntry(annotationData.getDocumentId().getBytes(StandardCharsets.UTF_8), line.getBytes(StandardCharsets.UTF_8), numLines++));
+                if (entries.size() == runSize) {
+                    runs.add(writeRun(entries, target, runs.size()));
+                    entries.clear();
+                }
+            }
+            if (!entries.isEmpty())
+                runs.add(writeRun(entries, target, runs.size()));
+        }
+        log.debug("Sorted {} annotation lines from {} in {} runs.", numLines, source, runs.size());
+        try {
+            mergeRuns(runs, headerLine, target);
+        } finally {
+            for (Path run : runs)
+                Files.deleteIfExists(run);
+        }
+    }
+
+    private static Path writeRun(List<SortEntry> entries, Path target, int runNumber) throws IOException {
+        entries.sort(null);
+        Path run = Path.of(target + ".run" + runNumber + ".tmp");
+        try (DataOutputStream os = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), 1 << 16))) {
+            for (SortEntry entry : entries) {
+                os.writeInt(entry.docId.length);
+                os.write(entry.docId);
+                os.writeInt(entry.line.length);
+                os.write(entry.line);
+                os.writeLong(entry.lineNumber);
+            }
+        }
+        return run;
+    }
+
+    private static void mergeRuns(List<Path> runs, String headerLine, Path target) throws IOException {
+        PriorityQueue<RunCursor> queue = new PriorityQueue<>();
+        List<RunCursor> cursors = new ArrayList<>();
+        List<Long> blockOffsets = new ArrayList<>();
+        long numDocuments = 0;
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Path run : runs) {
+                RunCursor cursor = new RunCursor(new DataInputStream(new BufferedInputStream(Files.newInputStream(run), 1 << 16)));
+                cursors.add(cursor);
+                if (cursor.advance())
+                    queue.add(cursor);
+            }
+            out.position(HEADER_SIZE);
+            CountingOutputStream counter = new CountingOutputStream(new BufferedOutputStream(Channels.newOutputStream(out), 1 << 16), HEADER_SIZE);
+            DataOutputStream os = new DataOutputStream(counter);
+            byte[] headerLineBytes = headerLine != null ? headerLine.getBytes(StandardCharsets.UTF_8) : new byte[0];
+            os.writeInt(headerLineBytes.length);
+            os.write(headerLineBytes);
+            byte[] currentDocId = null;
+            List<byte[]> currentLines = new ArrayList<>();
+            while (!queue.isEmpty()) {
+                RunCursor cursor = queue.poll();
+                if (currentDocId != null && !Arrays.equals(currentDocId, cursor.entry.docId)) {
+                    if (numDocuments % BLOCK_SIZE == 0)
+                        blockOffsets.add(counter.getPosition());
+                    writeRecord(os, currentDocId, currentLines);
+                    ++numDocuments;
+                    currentLines.clear();
+                }
+                currentDocId = cursor.entry.docId;
+                currentLines.add(cursor.entry.line);
+                if (cursor.advance())
+                    queue.add(cursor);
+            }
+            if (currentDocId != null) {
+                if (numDocuments % BLOCK_SIZE == 0)
+                    blockOffsets.add(counter.getPosition());
+                writeRecord(os, currentDocId, currentLines);
+                ++numDocuments;
+            }
+            long blockIndexStart = counter.getPosition();
+            for (long offset : blockOffsets)
+                os.writeLong(offset);
+            os.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC);
+            header.putInt(VERSION);
+            header.putLong(numDocuments);
+            header.putInt(BLOCK_SIZE);
+            header.putInt(blockOffsets.size());
+            header.putLong(blockIndexStart);
+            header.rewind();
+            long position = 0;
+            while (header.hasRemaining())
+                position += out.write(header, position);
+        } finally {
+            for (RunCursor cursor : cursors)
+                cursor.is.close();
+        }
+        log.debug("Wrote {} documents to the compiled annotation file {}.", numDocuments, target);
+    }
+
+    private static void writeRecord(DataOutputStream os, byte[] docId, List<byte[]> lines) throws IOException {
+        os.writeInt(docId.length);
+        os.write(docId);
+        os.writeInt(lines.size());
+        for (byte[] line : lines) {
+            os.writeInt(line.length);
+            os.write(line);
+        }
+    }
+
+    private int getInt(long position) {
+        int chunkPosition = (int) (position & (CHUNK_SIZE - 1));
+        MappedByteBuffer chunk = chunks[(int) (position >>> CHUNK_BITS)];
+        if (chunkPosition + Integer.BYTES <= chunk.limit())
+            return chunk.getInt(chunkPosition);
+        // the number crosses a chunk border
+        int value = 0;
+        for (int i = 0; i < Integer.BYTES; i++)
+            value = (value << 8) | (getByte(position + i) & 0xff);
+        return value;
+    }
+
+    private long getLong(long position) {
+        return ((long) getInt(position) << 32) | (getInt(position + Integer.BYTES) & 0xffffffffL);
+    }
+
+    private byte getByte(long position) {
+        return chunks[(int) (position >>> CHUNK_BITS)].get((int) (position & (CHUNK_SIZE - 1)));
+    }
+
+    private byte[] getBytes(long position, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++)
+            bytes[i] = getByte(position + i);
+        return bytes;
+    }
+
+    public long getNumDocuments() {
+        return numDocuments;
+    }
+
+    /**
+     * @return The header line of the compiled source file or <tt>null</tt> if it did not have one.
+     */
+    public String getHeaderLine() {
+        return headerLine;
+    }
+
+    /**
+     * @return The annotation line of the first document or <tt>null</tt> if the file is empty.
+     */
+    public String getFirstLine() {
+        if (numDocuments == 0)
+            return null;
+        long position = getLong(blockIndexStart);
+        position += Integer.BYTES + getInt(position) + Integer.BYTES;
+        return new String(getBytes(position + Integer.BYTES, getInt(position)), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the annotation lines of the given document in their original order.
+     *
+     * @param docId The document ID.
+     * @return The lines of the document or <tt>null</tt> if the file does not contain the document.
+     */
+    public List<String> getLines(String docId) {
+        if (numBlocks == 0)
+            return null;
+        byte[] key = docId.getBytes(StandardCharsets.UTF_8);
+        // find the last block whose first document ID is not greater than the key
+        int low = 0;
+        int high = numBlocks - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (compareDocId(getBlockStart(mid), key) <= 0)
+                low = mid;
+            else
+                high = mid - 1;
+        }
+        long position = getBlockStart(low);
+        long blockEnd = low + 1 < numBlocks ? getBlockStart(low + 1) : blockIndexStart;
+        while (position < blockEnd) {
+            int cmp = compareDocId(position, key);
+            if (cmp > 0)
+                return null;
+            position += Integer.BYTES + getInt(position);
+            int numLines = getInt(position);
+            position += Integer.BYTES;
+            if (cmp == 0) {
+                List<String> lines = new ArrayList<>(numLines);
+                for (int i = 0; i < numLines; i++) {
+                    int length = getInt(position);
+                    lines.add(new String(getBytes(position + Integer.BYTES, length), StandardCharsets.UTF_8));
+                    position += Integer.BYTES + length;
+                }
+                return lines;
+            }
+            for (int i = 0; i < numLines; i++)
+                position += Integer.BYTES + getInt(position);
+        }
+        return null;
+    }
+
+    private long getBlockStart(int block) {
+        return getLong(blockIndexStart + (long) block * Long.BYTES);
+    }
+
+    /**
+     * Compares the document ID of the record at <tt>position</tt> to <tt>key</tt> by their unsigned bytes without
+     * copying the document ID.
+     */
+    private int compareDocId(long position, byte[] key) {
+        int length = getInt(position);
+        long start = position + Integer.BYTES;
+        int commonLength = Math.min(length, key.length);
+        for (int i = 0; i < commonLength; i++) {
+            int cmp = Byte.compareUnsigned(getByte(start + i), key[i]);
+            if (cmp != 0)
+                return cmp;
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static class SortEntry implements Comparable<SortEntry> {
+        private final byte[] docId;
+        private final byte[] line;
+        private final long lineNumber;
+
+        private SortEntry(byte[] docId, byte[] line, long lineNumber) {
+            this.docId = docId;
+            this.line = line;
+            this.lineNumber = lineNumber;
+        }
+
+        @Override
+        public int compareTo(SortEntry o) {
+            int cmp = Arrays.compareUnsigned(docId, o.docId);
+            return cmp != 0 ? cmp : Long.compare(lineNumber, o.lineNumber);
+        }
+    }
+
+    /**
+     * The current entry of one sorted run during the merge.
+     */
+    private static class RunCursor implements Comparable<RunCursor> {
+        private final DataInputStream is;
+        private SortEntry entry;
+
+        private RunCursor(DataInputStream is) {
+            this.is = is;
+        }
+
+        private boolean advance() throws IOException {
+            int docIdLength;
+            try {
+                docIdLength = is.readInt();
+            } catch (EOFException e) {
+                return false;
+            }
+            byte[] docId = new byte[docIdLength];
+            is.readFully(docId);
+            byte[] line = new byte[is.readInt()];
+            is.readFully(line);
+            entry = new SortEntry(docId, line, is.readLong());
+            return true;
+        }
+
+        @Override
+        public int compareTo(RunCursor o) {
+            return entry.compareTo(o.entry);
+        }
+    }
+
+    /**
+     * Counts the written bytes as a long since the counter of {@link DataOutputStream} is an int that overflows for
+     * files larger than 2GB.
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long position;
+
+        private CountingOutputStream(OutputStream out, long startPosition) {
+            super(out);
+            this.position = startPosition;
+        }
+
+        private long getPosition() {
+            return position;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            ++position;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            position += len;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package de.julielab.jcore.ae.annotationadder.annotationsources;
+
+import de.julielab.jcore.ae.annotationadder.annotationformat.AnnotationFormat;
+import de.julielab.jcore.ae.annotationadder.annotationformat.SimpleTSVEntityAnnotationFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+
+/**
+ * Command line application to compile an annotation file into a {@link MappedAnnotationFile} ahead of pipeline
+ * runs. The {@link MappedAnnotationSource} then finds the compiled file next to the annotation file and uses it
+ * directly.
+ */
+public class MappedAnnotationFileCompiler {
+    private final static Logger log = LoggerFactory.getLogger(MappedAnnotationFileCompiler.class);
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1 || args.length > 3) {
+            System.err.println("Usage: MappedAnnotationFileCompiler <annotation file> [<format class, defaults to " + SimpleTSVEntityAnnotationFormat.class.getCanonicalName() + ">] [<comma separated column names> | header]");
+            System.err.println("If 'header' is given as third argument, the first line of the annotation file is interpreted as the header defining the column names.");
+            System.exit(1);
+        }
+        final Path annotationFile = Path.of(args[0]);
+        final String formatClassName = args.length > 1 ? args[1] : SimpleTSVEntityAnnotationFormat.class.getCanonicalName();
+        final AnnotationFormat<?> format = (AnnotationFormat<?>) Class.forName(formatClassName).getDeclaredConstructor().newInstance();
+        if (args.length > 2) {
+            if (args[2].equals("header"))
+                format.hasHeader(true);
+            else
+                format.setColumnNames(args[2].split(","));
+        }
+        final Path compiledFile = MappedAnnotationSource.getCompiledFilePath(annotationFile);
+        final long time = System.currentTimeMillis();
+        MappedAnnotationFile.compile(annotationFile.toUri(), format, compiledFile);
+        try (MappedAnnotationFile mappedAnnotationFile = MappedAnnotationFile.open(compiledFile)) {
+            log.info("Compiled the annotations of {} documents into {} in {}ms.", mappedAnnotationFile.getNumDocuments(), compiledFile, System.currentTimeMillis() - time);
+        }
+    }
+}
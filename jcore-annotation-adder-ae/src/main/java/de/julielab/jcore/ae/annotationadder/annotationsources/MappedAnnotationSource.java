@@ -0,0 +1,139 @@
+package de.julielab.jcore.ae.annotationadder.annotationsources;
+
+import de.julielab.jcore.ae.annotationadder.annotationformat.AnnotationFormat;
+import de.julielab.jcore.ae.annotationadder.annotationrepresentations.AnnotationData;
+import de.julielab.jcore.ae.annotationadder.annotationrepresentations.AnnotationList;
+import org.apache.uima.resource.DataResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>An annotation source that compiles the annotation file into a {@link MappedAnnotationFile} next to it and looks
+ * up the annotations of each document in the memory mapped compiled file. Only the annotations of the requested
+ * document are ever parsed onto the heap.</p>
+ * <p>The compiled file is only rebuilt when the annotation file is newer than the compiled file. It is opened only
+ * once per JVM and shared by all sources using it, i.e. by all pipeline threads. It is closed when the last of these
+ * sources is destroyed.</p>
+ */
+public class MappedAnnotationSource<T extends AnnotationData> implements AnnotationSource<AnnotationList<T>> {
+    private final static Logger log = LoggerFactory.getLogger(MappedAnnotationSource.class);
+    /**
+     * The open compiled files and the number of sources using each of them.
+     */
+    private final static Map<Path, SharedFile> openFiles = new ConcurrentHashMap<>();
+    private AnnotationFormat<T> format;
+    private MappedAnnotationFile annotationFile;
+    private Path compiledFilePath;
+
+    public MappedAnnotationSource(AnnotationFormat<T> format) {
+        this.format = format;
+    }
+
+    /**
+     * @param annotationFilePath The path of an annotation file.
+     * @return The path of the compiled file for the given annotation file.
+     */
+    public static Path getCompiledFilePath(Path annotationFilePath) {
+        return Path.of(annotationFilePath + ".mapped");
+    }
+
+    @Override
+    public void loadAnnotations(URI annotationUri) throws IOException {
+        final Path annotationFilePath = annotationUri.toString().contains("file:" + File.separator) ? Path.of(annotationUri) : Path.of(annotationUri.toString().replace("file:", ""));
+        if (annotationFile != null)
+            destroy();
+        final Path compiledFilePath = getCompiledFilePath(annotationFilePath).toAbsolutePath().normalize();
+        try {
+            annotationFile = openFiles.compute(compiledFilePath, (p, sharedFile) -> {
+                if (sharedFile == null) {
+                    try {
+                        if (!Files.exists(p) || Files.getLastModifiedTime(annotationFilePath).toMillis() > Files.getLastModifiedTime(p).toMillis()) {
+                            log.info("Compiling annotation file {} into {}.", annotationFilePath, p);
+                            final Path tmpPath = Path.of(p + ".tmp");
+                            MappedAnnotationFile.compile(annotationUri, format, tmpPath);
+                            Files.move(tmpPath, p, StandardCopyOption.REPLACE_EXISTING);
+                        }
+                        sharedFile = new SharedFile(MappedAnnotationFile.open(p));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                ++sharedFile.numUsers;
+                return sharedFile;
+            }).file;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        this.compiledFilePath = compiledFilePath;
+        // Prepare the format for parsing: the header line is required to interpret the columns and some formats
+        // derive the column data types from the first record. Afterwards, the format is only read which allows
+        // its concurrent use.
+        synchronized (format) {
+            if (format.getHeader() == null && annotationFile.getHeaderLine() != null)
+                format.parse(annotationFile.getHeaderLine());
+            if (annotationFile.getFirstLine() != null)
+                format.parse(annotationFile.getFirstLine());
+        }
+        log.debug("Opened compiled annotation file {} with annotations for {} documents.", annotationFile.getFile(), annotationFile.getNumDocuments());
+    }
+
+    @Override
+    public void initialize(DataResource dataResource) throws IOException {
+        log.info("Loading entity annotations from {}", dataResource.getUri());
+        loadAnnotations(dataResource.getUri());
+    }
+
+    @Override
+    public AnnotationList<T> getAnnotations(String id) {
+        final List<String> lines = annotationFile.getLines(id);
+        if (lines == null)
+            return null;
+        final AnnotationList<T> annotationList = new AnnotationList<>();
+        for (String line : lines)
+            annotationList.add(format.parse(line));
+        return annotationList;
+    }
+
+    /**
+     * Releases the compiled annotation file. It is closed if no other source uses it. The source must not be used
+     * afterwards.
+     */
+    @Override
+    public synchronized void destroy() {
+        if (annotationFile == null)
+            return;
+        openFiles.computeIfPresent(compiledFilePath, (p, sharedFile) -> {
+            if (--sharedFile.numUsers > 0)
+                return sharedFile;
+            try {
+                sharedFile.file.close();
+                log.debug("Closed compiled annotation file {}.", p);
+            } catch (IOException e) {
+                log.warn("Could not close compiled annotation file {}.", p, e);
+            }
+            return null;
+        });
+        annotationFile = null;
+        compiledFilePath = null;
+    }
+
+    private static class SharedFile {
+        private final MappedAnnotationFile file;
+        private int numUsers;
+
+        private SharedFile(MappedAnnotationFile file) {
+            this.file = file;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package de.julielab.jcore.ae.annotationadder.annotationsources;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class MappedFileTextAnnotationProvider extends TextAnnotationProvider {
+    private final static Logger log = LoggerFactory.getLogger(MappedFileTextAnnotationProvider.class);
+    @Override
+    void initializeAnnotationSource() {
+        annotationSource = new MappedAnnotationSource<>(format);
+    }
+
+    @Override
+    Logger getLogger() {
+        return log;
+    }
+}
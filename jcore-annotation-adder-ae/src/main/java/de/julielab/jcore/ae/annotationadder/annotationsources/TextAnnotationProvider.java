@@ -11,6 +11,7 @@ import org.slf4j.Logger;
 
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
+import java.util.Collection;
 import java.util.Optional;
 
 public abstract class TextAnnotationProvider implements AnnotationProvider<AnnotationList> {
@@ -30,6 +31,16 @@ public abstract class TextAnnotationProvider implements AnnotationProvider<Annot
         return annotationSource.getAnnotations(id);
     }
 
+    @Override
+    public void prefetch(Collection<String> ids) {
+        annotationSource.prefetch(ids);
+    }
+
+    @Override
+    public void destroy() {
+        annotationSource.destroy();
+    }
+
     abstract void initializeAnnotationSource();
 
     abstract Logger getLogger();
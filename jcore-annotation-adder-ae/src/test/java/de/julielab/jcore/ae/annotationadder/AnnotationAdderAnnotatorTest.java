@@ -1,11 +1,15 @@
 
 package de.julielab.jcore.ae.annotationadder;
 
+import de.julielab.jcore.ae.annotationadder.annotationrepresentations.AnnotationList;
+import de.julielab.jcore.ae.annotationadder.annotationrepresentations.ExternalTextAnnotation;
+import de.julielab.jcore.ae.annotationadder.annotationsources.AnnotationProvider;
 import de.julielab.jcore.ae.annotationadder.annotationsources.H2TextAnnotationProvider;
 import de.julielab.jcore.ae.annotationadder.annotationsources.InMemoryFileDocumentClassAnnotationProvider;
 import de.julielab.jcore.ae.annotationadder.annotationsources.InMemoryFileTextAnnotationProvider;
 import de.julielab.jcore.ae.annotationadder.annotationsources.TextAnnotationProvider;
 import de.julielab.jcore.types.*;
+import de.julielab.jcore.types.casmultiplier.RowBatch;
 import org.apache.commons.io.FileUtils;
 import org.apache.uima.analysis_engine.AnalysisEngine;
 import org.apache.uima.analysis_engine.AnalysisEngineDescription;
@@ -14,6 +18,9 @@ import org.apache.uima.fit.factory.ExternalResourceFactory;
 import org.apache.uima.fit.factory.JCasFactory;
 import org.apache.uima.fit.util.JCasUtil;
 import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.cas.FSArray;
+import org.apache.uima.jcas.cas.StringArray;
+import org.apache.uima.resource.DataResource;
 import org.apache.uima.resource.ExternalResourceDescription;
 import org.apache.uima.resource.SharedResourceObject;
 import org.assertj.core.data.Offset;
@@ -23,6 +30,7 @@ import org.junit.jupiter.api.Test;
 import java.io.File;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -380,4 +388,48 @@ public class AnnotationAdderAnnotatorTest{
         assertThat(dc2.getConfidence()).isCloseTo(0.9543127, Offset.offset(.000000001));
         assertThat(dc2.getComponentId()).isEqualTo("2018 GRU");
     }
+
+    @Test
+    public void testPrefetchRowBatch() throws Exception {
+        final JCas jCas = JCasFactory.createJCas("de.julielab.jcore.types.jcore-document-meta-types", "de.julielab.jcore.types.casmultiplier.jcore-dbtable-multiplier-types");
+        final ExternalResourceDescription externalResourceDescription = ExternalResourceFactory.createExternalResourceDescription(PrefetchRecordingProvider.class, new File("src/test/resources/geneannotations_character_offsets.tsv"));
+        final AnalysisEngine engine = AnalysisEngineFactory.createEngine(AnnotationAdderAnnotator.class, AnnotationAdderAnnotator.KEY_ANNOTATION_SOURCE, externalResourceDescription);
+        final RowBatch rowBatch = new RowBatch(jCas);
+        final String[][] primaryKeys = {{"doc1"}, {"doc2"}, {"pmc", "42"}};
+        final FSArray pks = new FSArray(jCas, primaryKeys.length);
+        for (int i = 0; i < primaryKeys.length; i++) {
+            final StringArray pk = new StringArray(jCas, primaryKeys[i].length);
+            pk.copyFromArray(primaryKeys[i], 0, 0, primaryKeys[i].length);
+            pks.set(i, pk);
+        }
+        rowBatch.setIdentifiers(pks);
+        rowBatch.addToIndexes();
+        PrefetchRecordingProvider.prefetchedIds.clear();
+
+        engine.process(jCas);
+
+        assertThat(PrefetchRecordingProvider.prefetchedIds).containsExactly("doc1", "doc2", "pmc-42");
+    }
+
+    /**
+     * Records the document IDs passed to {@link #prefetch(Collection)}.
+     */
+    public static class PrefetchRecordingProvider implements AnnotationProvider<AnnotationList<ExternalTextAnnotation>> {
+        private static final List<String> prefetchedIds = new ArrayList<>();
+
+        @Override
+        public AnnotationList<ExternalTextAnnotation> getAnnotations(String id) {
+            return null;
+        }
+
+        @Override
+        public void prefetch(Collection<String> ids) {
+            prefetchedIds.addAll(ids);
+        }
+
+        @Override
+        public void load(DataResource aData) {
+            // nothing to load
+        }
+    }
 }
@@ -0,0 +1,83 @@
+package de.julielab.jcore.ae.annotationadder.annotationsources;
+
+import de.julielab.jcore.ae.annotationadder.annotationformat.SimpleTSVEntityAnnotationFormat;
+import de.julielab.jcore.ae.annotationadder.annotationrepresentations.AnnotationList;
+import de.julielab.jcore.ae.annotationadder.annotationrepresentations.ExternalTextAnnotation;
+import org.apache.commons.io.FileUtils;
+
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * <p>Compares the load time, lookup throughput and heap usage of the in-memory, H2 and memory mapped annotation
+ * sources on a generated annotation file.</p>
+ * <p>Arguments: [number of documents, default 200000] [annotations per document, default 5] [number of lookups, default 200000]</p>
+ */
+public class AnnotationSourceBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        final int numDocuments = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        final int annotationsPerDocument = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        final int numLookups = args.length > 2 ? Integer.parseInt(args[2]) : 200000;
+        final Path tempDir = Files.createTempDirectory("annotationsourcebenchmark");
+        try {
+            final Path annotationFile = tempDir.resolve("annotations.tsv");
+            final Random random = new Random(1);
+            try (BufferedWriter bw = Files.newBufferedWriter(annotationFile)) {
+                for (int i = 0; i < numDocuments; i++) {
+                    for (int j = 0; j < annotationsPerDocument; j++) {
+                        final int begin = random.nextInt(10000);
+                        bw.write("doc" + i + "\t" + begin + "\t" + (begin + 1 + random.nextInt(20)) + "\tde.julielab.jcore.types.Gene\t" + random.nextDouble());
+                        bw.newLine();
+                    }
+                }
+            }
+            System.out.println("Generated " + numDocuments * annotationsPerDocument + " annotations for " + numDocuments + " documents (" + Files.size(annotationFile) / (1024 * 1024) + "MB).");
+            final String[] columnNames = {"docId", "begin", "end", "uimaType", "confidence"};
+            run("in-memory", annotationFile, numDocuments, numLookups, columnNames, InMemoryAnnotationSource::new);
+            run("H2", annotationFile, numDocuments, numLookups, columnNames, H2AnnotationSource::new);
+            run("memory mapped", annotationFile, numDocuments, numLookups, columnNames, MappedAnnotationSource::new);
+        } finally {
+            FileUtils.deleteQuietly(tempDir.toFile());
+        }
+    }
+
+    private static void run(String name, Path annotationFile, int numDocuments, int numLookups, String[] columnNames, Function<SimpleTSVEntityAnnotationFormat, AnnotationSource<AnnotationList<ExternalTextAnnotation>>> sourceFactory) throws Exception {
+        final SimpleTSVEntityAnnotationFormat format = new SimpleTSVEntityAnnotationFormat();
+        format.setColumnNames(columnNames.clone());
+        final long heapBefore = getUsedHeap();
+        long time = System.nanoTime();
+        final AnnotationSource<AnnotationList<ExternalTextAnnotation>> source = sourceFactory.apply(format);
+        source.loadAnnotations(annotationFile.toUri());
+        final long loadTime = System.nanoTime() - time;
+        final long heapAfterLoad = getUsedHeap() - heapBefore;
+
+        // sequential lookups as done by readers delivering the documents in ID order, then random lookups
+        long numAnnotations = 0;
+        time = System.nanoTime();
+        for (int i = 0; i < Math.min(numLookups, numDocuments); i++)
+            numAnnotations += getSize(source.getAnnotations("doc" + i));
+        final long sequentialTime = System.nanoTime() - time;
+        final Random random = new Random(2);
+        time = System.nanoTime();
+        for (int i = 0; i < numLookups; i++)
+            numAnnotations += getSize(source.getAnnotations("doc" + random.nextInt(numDocuments)));
+        final long randomTime = System.nanoTime() - time;
+
+        System.out.printf("%s: load %dms, retained heap %dMB, %d sequential lookups in %dms, %d random lookups in %dms (%d annotations retrieved)%n", name, loadTime / 1000000, heapAfterLoad / (1024 * 1024), Math.min(numLookups, numDocuments), sequentialTime / 1000000, numLookups, randomTime / 1000000, numAnnotations);
+    }
+
+    private static int getSize(AnnotationList<ExternalTextAnnotation> annotations) {
+        return annotations != null ? annotations.size() : 0;
+    }
+
+    private static long getUsedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
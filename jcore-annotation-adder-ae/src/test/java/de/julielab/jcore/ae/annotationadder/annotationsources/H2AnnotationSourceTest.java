@@ -0,0 +1,105 @@
+package de.julielab.jcore.ae.annotationadder.annotationsources;
+
+import de.julielab.jcore.ae.annotationadder.annotationformat.SimpleTSVEntityAnnotationFormat;
+import de.julielab.jcore.ae.annotationadder.annotationrepresentations.AnnotationList;
+import de.julielab.jcore.ae.annotationadder.annotationrepresentations.ExternalTextAnnotation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class H2AnnotationSourceTest {
+
+    private H2AnnotationSource<ExternalTextAnnotation> createSource(Path tempDir) throws Exception {
+        // 20 documents with 2 annotations each; doc05 has no annotations
+        final List<String> lines = IntStream.range(0, 20).filter(i -> i != 5).mapToObj(i -> String.format("doc%02d\t0\t4\tde.julielab.jcore.types.Gene\t0.%d\ndoc%02d\t5\t10\tde.julielab.jcore.types.Gene\t0.%d", i, i, i, i)).collect(Collectors.toList());
+        final Path annotationFile = tempDir.resolve("annotations.tsv");
+        Files.write(annotationFile, lines);
+        final SimpleTSVEntityAnnotationFormat format = new SimpleTSVEntityAnnotationFormat();
+        format.setColumnNames(new String[]{"docId", "begin", "end", "uimaType", "confidence"});
+        final H2AnnotationSource<ExternalTextAnnotation> source = new H2AnnotationSource<>(format);
+        source.loadAnnotations(annotationFile.toUri());
+        return source;
+    }
+
+    @Test
+    public void testReadAhead(@TempDir Path tempDir) throws Exception {
+        final H2AnnotationSource<ExternalTextAnnotation> source = createSource(tempDir);
+        for (int i = 0; i < 20; i++) {
+            final AnnotationList<ExternalTextAnnotation> annotations = source.getAnnotations(String.format("doc%02d", i));
+            if (i == 5) {
+                assertThat(annotations).isEmpty();
+            } else {
+                assertThat(annotations).hasSize(2);
+                assertThat(annotations).extracting(ExternalTextAnnotation::getDocumentId).containsOnly(String.format("doc%02d", i));
+                assertThat(annotations).extracting(ExternalTextAnnotation::getStart).containsExactlyInAnyOrder(0, 5);
+                assertThat(annotations.get(0).getPayload("confidence")).isEqualTo(Double.parseDouble("0." + i));
+            }
+        }
+        assertThat(source.getAnnotations("unknown")).isEmpty();
+    }
+
+    @Test
+    public void testPrefetch(@TempDir Path tempDir) throws Exception {
+        final H2AnnotationSource<ExternalTextAnnotation> source = createSource(tempDir);
+        source.prefetch(List.of("doc17", "doc03", "doc05", "unknown", "doc17"));
+        assertThat(source.getAnnotations("doc17")).hasSize(2);
+        assertThat(source.getAnnotations("doc03")).extracting(ExternalTextAnnotation::getEnd).containsExactlyInAnyOrder(4, 10);
+        assertThat(source.getAnnotations("doc05")).isEmpty();
+        assertThat(source.getAnnotations("unknown")).isEmpty();
+    }
+
+    @Test
+    public void testDestroy(@TempDir Path tempDir) throws Exception {
+        final H2AnnotationSource<ExternalTextAnnotation> source = createSource(tempDir);
+        assertThat(source.getAnnotations("doc01")).hasSize(2);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            assertThat(executor.submit(() -> source.getAnnotations("doc03")).get()).hasSize(2);
+        } finally {
+            executor.shutdown();
+        }
+        source.destroy();
+        // a source still in use after destroy opens a new connection
+        assertThat(source.getAnnotations("unknown")).isEmpty();
+        source.destroy();
+    }
+
+    @Test
+    public void testConcurrentAccess(@TempDir Path tempDir) throws Exception {
+        final H2AnnotationSource<ExternalTextAnnotation> source = createSource(tempDir);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                final int offset = t * 5;
+                futures.add(executor.submit(() -> {
+                    if (offset == 10)
+                        source.prefetch(IntStream.range(0, 20).mapToObj(i -> String.format("doc%02d", i)).collect(Collectors.toList()));
+                    for (int j = 0; j < 20; j++) {
+                        final int i = (offset + j) % 20;
+                        final AnnotationList<ExternalTextAnnotation> annotations = source.getAnnotations(String.format("doc%02d", i));
+                        assertThat(annotations).hasSize(i == 5 ? 0 : 2);
+                        if (i != 5)
+                            assertThat(annotations).extracting(ExternalTextAnnotation::getDocumentId).containsOnly(String.format("doc%02d", i));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures)
+                future.get();
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
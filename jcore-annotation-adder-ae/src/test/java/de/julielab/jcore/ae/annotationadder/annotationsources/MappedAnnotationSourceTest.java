@@ -0,0 +1,119 @@
+package de.julielab.jcore.ae.annotationadder.annotationsources;
+
+import de.julielab.jcore.ae.annotationadder.annotationformat.FeatureBasedTSVFormat;
+import de.julielab.jcore.ae.annotationadder.annotationformat.SimpleTSVEntityAnnotationFormat;
+import de.julielab.jcore.ae.annotationadder.annotationrepresentations.AnnotationList;
+import de.julielab.jcore.ae.annotationadder.annotationrepresentations.ExternalTextAnnotation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MappedAnnotationSourceTest {
+
+    /**
+     * Writes 1000 documents with three annotations each in random order. The documents doc0 to doc9 do not have annotations.
+     */
+    private Path writeAnnotationFile(Path tempDir) throws Exception {
+        final List<String> lines = new ArrayList<>();
+        for (int i = 10; i < 1000; i++) {
+            for (int j = 0; j < 3; j++)
+                lines.add("doc" + i + "\t" + j * 10 + "\t" + (j * 10 + 5) + "\tde.julielab.jcore.types.Gene\t" + i + "-" + j);
+        }
+        Collections.shuffle(lines, new Random(1));
+        lines.add(0, "docId\tbegin\tend\tuimaType\tspecificType");
+        final Path annotationFile = tempDir.resolve("annotations.tsv");
+        Files.write(annotationFile, lines);
+        return annotationFile;
+    }
+
+    private void checkAnnotations(int docNumber, AnnotationList<ExternalTextAnnotation> annotations) {
+        assertThat(annotations).hasSize(3);
+        assertThat(annotations).extracting(ExternalTextAnnotation::getDocumentId).containsOnly("doc" + docNumber);
+        assertThat(annotations).extracting(a -> a.getPayload("specificType")).containsExactlyInAnyOrder(docNumber + "-0", docNumber + "-1", docNumber + "-2");
+    }
+
+    @Test
+    public void testCompileAndLookup(@TempDir Path tempDir) throws Exception {
+        final Path annotationFile = writeAnnotationFile(tempDir);
+        final SimpleTSVEntityAnnotationFormat compilationFormat = new SimpleTSVEntityAnnotationFormat();
+        compilationFormat.hasHeader(true);
+        // use small runs to exercise the merge of multiple sorted runs
+        MappedAnnotationFile.compile(annotationFile.toUri(), compilationFormat, MappedAnnotationSource.getCompiledFilePath(annotationFile), 100);
+
+        // the source uses the already compiled file and obtains the header from it
+        final SimpleTSVEntityAnnotationFormat format = new SimpleTSVEntityAnnotationFormat();
+        format.hasHeader(true);
+        final MappedAnnotationSource<ExternalTextAnnotation> source = new MappedAnnotationSource<>(format);
+        source.loadAnnotations(annotationFile.toUri());
+        for (int i = 10; i < 1000; i++)
+            checkAnnotations(i, source.getAnnotations("doc" + i));
+        for (int i = 0; i < 10; i++)
+            assertThat(source.getAnnotations("doc" + i)).isNull();
+        assertThat(source.getAnnotations("")).isNull();
+        assertThat(source.getAnnotations("zzz")).isNull();
+        assertThat(Files.list(tempDir)).extracting(p -> p.getFileName().toString()).containsExactlyInAnyOrder("annotations.tsv", "annotations.tsv.mapped");
+    }
+
+    @Test
+    public void testCompileOnLoad(@TempDir Path tempDir) throws Exception {
+        final Path annotationFile = writeAnnotationFile(tempDir);
+        final SimpleTSVEntityAnnotationFormat format = new SimpleTSVEntityAnnotationFormat();
+        format.hasHeader(true);
+        final MappedAnnotationSource<ExternalTextAnnotation> source = new MappedAnnotationSource<>(format);
+        source.loadAnnotations(annotationFile.toUri());
+        assertThat(MappedAnnotationSource.getCompiledFilePath(annotationFile)).exists();
+        checkAnnotations(10, source.getAnnotations("doc10"));
+        checkAnnotations(999, source.getAnnotations("doc999"));
+    }
+
+    @Test
+    public void testReleaseOnDestroy(@TempDir Path tempDir) throws Exception {
+        final Path annotationFile = writeAnnotationFile(tempDir);
+        final SimpleTSVEntityAnnotationFormat format = new SimpleTSVEntityAnnotationFormat();
+        format.hasHeader(true);
+        final MappedAnnotationSource<ExternalTextAnnotation> source1 = new MappedAnnotationSource<>(format);
+        source1.loadAnnotations(annotationFile.toUri());
+        final MappedAnnotationSource<ExternalTextAnnotation> source2 = new MappedAnnotationSource<>(format);
+        source2.loadAnnotations(annotationFile.toUri());
+        source1.destroy();
+        source1.destroy();
+        // the file is still open for the second source
+        checkAnnotations(10, source2.getAnnotations("doc10"));
+        source2.destroy();
+
+        // all sources have released the file, so a newer annotation file is compiled and opened again
+        Files.write(annotationFile, List.of("docId\tbegin\tend\tuimaType\tspecificType", "doc0\t0\t5\tde.julielab.jcore.types.Gene\t0-0"));
+        Files.setLastModifiedTime(annotationFile, FileTime.fromMillis(Files.getLastModifiedTime(MappedAnnotationSource.getCompiledFilePath(annotationFile)).toMillis() + 1000));
+        final SimpleTSVEntityAnnotationFormat format3 = new SimpleTSVEntityAnnotationFormat();
+        format3.hasHeader(true);
+        final MappedAnnotationSource<ExternalTextAnnotation> source3 = new MappedAnnotationSource<>(format3);
+        source3.loadAnnotations(annotationFile.toUri());
+        assertThat(source3.getAnnotations("doc0")).extracting(a -> a.getPayload("specificType")).containsExactly("0-0");
+        assertThat(source3.getAnnotations("doc10")).isNull();
+        source3.destroy();
+    }
+
+    @Test
+    public void testFeatureBasedFormat(@TempDir Path tempDir) throws Exception {
+        final Path annotationFile = tempDir.resolve("features.tsv");
+        Files.write(annotationFile, List.of("docId\tconfidence\tuimaType\tcomponentId", "doc2\t0.5\tde.julielab.jcore.types.Gene\tcomp1", "doc1\t0.25\tde.julielab.jcore.types.Gene\tcomp2", "doc2\t0.75\tde.julielab.jcore.types.Gene\tcomp3"));
+        final FeatureBasedTSVFormat format = new FeatureBasedTSVFormat();
+        format.hasHeader(true);
+        final MappedAnnotationSource<ExternalTextAnnotation> source = new MappedAnnotationSource<>(format);
+        source.loadAnnotations(annotationFile.toUri());
+        final AnnotationList<ExternalTextAnnotation> doc2Annotations = source.getAnnotations("doc2");
+        // the order of the lines of a document is preserved
+        assertThat(doc2Annotations).extracting(a -> a.getPayload("confidence")).containsExactly(0.5, 0.75);
+        assertThat(doc2Annotations).extracting(a -> a.getPayload("componentId")).containsExactly("comp1", "comp3");
+        assertThat(source.getAnnotations("doc1")).extracting(ExternalTextAnnotation::getUimaType).containsExactly("de.julielab.jcore.types.Gene");
+    }
+}
@@ -1,34 +1,54 @@
 package de.julielab.jcore.ae.biolemmatizer;
 
 import de.julielab.jcore.types.Lemma;
-import de.julielab.jcore.types.POSTag;
 import de.julielab.jcore.types.Token;
+import de.julielab.jcore.utility.cache.MemoizationCache;
+import de.julielab.jcore.utility.cache.MemoizationCacheProvider;
 import edu.ucdenver.ccp.nlp.biolemmatizer.LemmataEntry;
 import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_component.JCasAnnotator_ImplBase;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.cas.FSIterator;
 import org.apache.uima.cas.text.AnnotationIndex;
+import org.apache.uima.fit.descriptor.ExternalResource;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.jcas.tcas.Annotation;
+import org.apache.uima.resource.ResourceAccessException;
 import org.apache.uima.resource.ResourceInitializationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Collection;
-
 //import org.slf4j.Logger;
 //import org.slf4j.LoggerFactory;
 
 public class BioLemmatizer extends JCasAnnotator_ImplBase {
+    public static final String RES_KEY_MEMOIZATION_CACHE = "MemoizationCache";
     private final static Logger log = LoggerFactory.getLogger(BioLemmatizer.class);
+    /**
+     * The lemmatizer is shared by all instances of this class. It is only created by the first instance to be
+     * initialized because loading its lexicon is expensive.
+     */
     public static edu.ucdenver.ccp.nlp.biolemmatizer.BioLemmatizer bioLemm;
 
 //	private final static Logger log = LoggerFactory.getLogger(BioLemmatizer.class);
 
+    @ExternalResource(key = RES_KEY_MEMOIZATION_CACHE, mandatory = false, description = "Optional. A MemoizationCacheProvider resource. When given, the lemmas are cached by word form and POS tag in a JVM-wide cache shared by all lemmatizer instances.")
+    private MemoizationCacheProvider cacheProvider;
+    private MemoizationCache cache;
+
     @Override
     public void initialize(final UimaContext aContext) throws ResourceInitializationException {
-        bioLemm = new edu.ucdenver.ccp.nlp.biolemmatizer.BioLemmatizer();
+        synchronized (BioLemmatizer.class) {
+            if (bioLemm == null)
+                bioLemm = new edu.ucdenver.ccp.nlp.biolemmatizer.BioLemmatizer();
+        }
+        try {
+            cacheProvider = (MemoizationCacheProvider) aContext.getResourceObject(RES_KEY_MEMOIZATION_CACHE);
+        } catch (ResourceAccessException e) {
+            throw new ResourceInitializationException(e);
+        }
+        if (cacheProvider != null)
+            cache = cacheProvider.getCache("biolemmatizer");
     }
 
     @Override
@@ -41,31 +61,18 @@ public class BioLemmatizer extends JCasAnnotator_ImplBase {
             while (tokenIterator.hasNext()) {
                 Token token = (Token) tokenIterator.get();
                 tokenString = token.getCoveredText();
-                LemmataEntry lemmaEntry = null;
+                String lem;
                 try {
-                    if (token.getPosTag() != null) {
-                        POSTag posTag = token.getPosTag(0);
-                        tag = posTag.getValue();
-                        lemmaEntry = bioLemm.lemmatizeByLexiconAndRules(tokenString, tag);
-                    } else {
-                        lemmaEntry = bioLemm.lemmatizeByLexiconAndRules(tokenString, "");
-                    }
-                } catch (java.lang.IllegalStateException | java.lang.IndexOutOfBoundsException e) {
-                    // These two exceptions happen all the time due to internal stuff of the lemmatizer; log and ignore
-                    log.debug("BioLemmatizer-internal exception: ", e);
-                }
-                if (lemmaEntry != null) {
-                    Collection<LemmataEntry.Lemma> lemmaCollection = lemmaEntry.getLemmas();
-                    LemmataEntry.Lemma lemma = lemmaCollection.iterator().next();
-                    String lem = lemma.getLemma();
-                    Lemma jcoreLemma = new Lemma(aJCas, token.getBegin(), token.getEnd());
-                    jcoreLemma.setValue(lem);
-                    token.setLemma(jcoreLemma);
-                } else {
-                    Lemma jcoreLemma = new Lemma(aJCas, token.getBegin(), token.getEnd());
-                    jcoreLemma.setValue(tokenString);
-                    token.setLemma(jcoreLemma);
+                    tag = token.getPosTag() != null ? token.getPosTag(0).getValue() : "";
+                    lem = cache != null ? cache.get(tokenString, tag, BioLemmatizer::lemmatize) : lemmatize(tokenString, tag);
+                } catch (java.lang.IndexOutOfBoundsException e) {
+                    // the token has an empty POS tag array
+                    log.debug("Token without POS tag: ", e);
+                    lem = tokenString;
                 }
+                Lemma jcoreLemma = new Lemma(aJCas, token.getBegin(), token.getEnd());
+                jcoreLemma.setValue(lem);
+                token.setLemma(jcoreLemma);
                 tokenIterator.next();
             }
         } catch (Exception e) {
@@ -73,4 +80,32 @@ public class BioLemmatizer extends JCasAnnotator_ImplBase {
         }
     }
 
+    @Override
+    public void collectionProcessComplete() throws AnalysisEngineProcessException {
+        super.collectionProcessComplete();
+        if (cache != null)
+            log.info("{}", cache);
+    }
+
+    /**
+     * Returns the first lemma of <tt>form</tt> with the POS tag <tt>tag</tt> or <tt>form</tt> itself if there is no
+     * lemma.
+     *
+     * @param form The word form to lemmatize.
+     * @param tag  The POS tag of <tt>form</tt>, may be the empty string.
+     * @return The lemma of <tt>form</tt>.
+     */
+    private static String lemmatize(String form, String tag) {
+        LemmataEntry lemmaEntry = null;
+        try {
+            lemmaEntry = bioLemm.lemmatizeByLexiconAndRules(form, tag);
+        } catch (java.lang.IllegalStateException | java.lang.IndexOutOfBoundsException e) {
+            // These two exceptions happen all the time due to internal stuff of the lemmatizer; log and ignore
+            log.debug("BioLemmatizer-internal exception: ", e);
+        }
+        if (lemmaEntry != null)
+            return lemmaEntry.getLemmas().iterator().next().getLemma();
+        return form;
+    }
+
 }
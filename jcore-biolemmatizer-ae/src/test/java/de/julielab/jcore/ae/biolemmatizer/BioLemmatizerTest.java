@@ -3,17 +3,25 @@ package de.julielab.jcore.ae.biolemmatizer;
 
 import de.julielab.jcore.types.POSTag;
 import de.julielab.jcore.types.Token;
+import de.julielab.jcore.utility.cache.MemoizationCache;
+import de.julielab.jcore.utility.cache.MemoizationCacheProvider;
+import de.julielab.jcore.utility.cache.MemoizationCacheProviderImpl;
 import org.apache.uima.analysis_engine.AnalysisEngine;
 import org.apache.uima.cas.FSIterator;
 import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.fit.factory.ExternalResourceFactory;
 import org.apache.uima.fit.factory.JCasFactory;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.jcas.cas.FSArray;
 import org.apache.uima.jcas.tcas.Annotation;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 /**
  * Unit tests for jcore-de.julielab.jcore.ae.biolemmatizer-ae.
  * @author 
@@ -223,4 +231,52 @@ public class BioLemmatizerTest{
 		}
 	}
 
+	/**
+	 * Tests that the lemmas are the same with and without the memoization cache, also when they are taken from the
+	 * cache.
+	 */
+	@Test
+	public void testMemoizationCache() throws Exception {
+		AnalysisEngine uncachedLemmatizer = AnalysisEngineFactory.createEngine(BioLemmatizer.class);
+		AnalysisEngine cachedLemmatizer = AnalysisEngineFactory.createEngine(BioLemmatizer.class,
+				BioLemmatizer.RES_KEY_MEMOIZATION_CACHE,
+				ExternalResourceFactory.createExternalResourceDescription(MemoizationCacheProviderImpl.class,
+						"file:memoization-cache", MemoizationCacheProviderImpl.PARAM_MAXIMUM_SIZE, 1000));
+		MemoizationCache cache = ((MemoizationCacheProvider) cachedLemmatizer.getUimaContext()
+				.getResourceObject(BioLemmatizer.RES_KEY_MEMOIZATION_CACHE)).getCache("biolemmatizer");
+		for (boolean withPosTags : new boolean[] { true, false }) {
+			List<String> expectedLemmas = getLemmas(uncachedLemmatizer, withPosTags);
+			assertEquals(9, expectedLemmas.size());
+			assertEquals(expectedLemmas, getLemmas(cachedLemmatizer, withPosTags));
+			long hits = cache.getHitCount();
+			// all lemmas of the second run are taken from the cache
+			assertEquals(expectedLemmas, getLemmas(cachedLemmatizer, withPosTags));
+			assertTrue(cache.getHitCount() - hits >= expectedLemmas.size());
+		}
+	}
+
+	private List<String> getLemmas(AnalysisEngine bioLemmatizer, boolean withPosTags) throws Exception {
+		int[][] offsets = { { 0, 5 }, { 6, 12 }, { 13, 17 }, { 18, 23 }, { 24, 39 }, { 40, 46 }, { 47, 52 },
+				{ 53, 59 }, { 59, 60 } };
+		String[] posTags = { "DT", "NNS", "VBD", "VBG", "RB", "IN", "JJ", "NNS", "." };
+		JCas jCas = JCasFactory.createJCas("de.julielab.jcore.types.jcore-all-types");
+		jCas.setDocumentText("Three horses were going contemplatively around bushy bushes.");
+		for (int i = 0; i < offsets.length; i++) {
+			Token t = new Token(jCas, offsets[i][0], offsets[i][1]);
+			if (withPosTags) {
+				t.setPosTag(new FSArray(jCas, 1));
+				POSTag pos = new POSTag(jCas, offsets[i][0], offsets[i][1]);
+				pos.setValue(posTags[i]);
+				t.setPosTag(0, pos);
+			}
+			t.addToIndexes();
+		}
+		bioLemmatizer.process(jCas);
+		List<String> lemmas = new ArrayList<>();
+		FSIterator<Annotation> iterator = jCas.getAnnotationIndex(Token.type).iterator();
+		while (iterator.hasNext())
+			lemmas.add(((Token) iterator.next()).getLemma().getValue());
+		return lemmas;
+	}
+
 }
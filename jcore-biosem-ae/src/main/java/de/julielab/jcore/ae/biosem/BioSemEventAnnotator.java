@@ -36,6 +36,7 @@ import utils.DBUtils;
 import java.util.List;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @ResourceMetaData(name = "JCoRe BioSem Event Annotator", description = "Adds annotations for event triggers and events according to the BioNLP Shared Task event definition.")
 @TypeCapability(inputs = {"de.julielab.jcore.types.Gene"}, outputs = {"de.julielab.jcore.types.EventTrigger", "de.julielab.jcore.types.EventMention"})
@@ -45,14 +46,17 @@ public class BioSemEventAnnotator extends JCasAnnotator_ImplBase {
     public final static String RESOURCE_TRAINED_DB = "TrainedDB";
     private final static Logger log = LoggerFactory.getLogger(BioSemEventAnnotator.class);
     /**
-     * We use this static object to synchronize open and close calls to the
-     * document database between multiple threads. This stuff should be thread
-     * safe but pipelines get stuck on a regular basis on database opening which
-     * in turn ends up in HSQLDB where in a static HashMap all databases are
-     * stored. The access is synchronized and everything should be alright, but
-     * obviously, it isn't.
+     * The document databases are in-memory HSQLDB databases
+     * (<tt>jdbc:hsqldb:mem:</tt>) that BioSem's <tt>DataLoader</tt> creates for
+     * each document. They are named after the annotator instance and a running
+     * number so that each database name is used only once per JVM, even when
+     * document IDs repeat or are missing. Thus, no two annotator instances ever
+     * share a document database and the databases are created and closed
+     * without synchronization between the instances.
      */
-    private static Object lock = new Object();
+    private static final AtomicInteger instanceCounter = new AtomicInteger();
+    private final String instanceName = "biosem" + instanceCounter.getAndIncrement();
+    private long documentCounter;
     private DataLoader loader;
     private DBUtils trainedDb;
     @ExternalResource(key = RESOURCE_TRAINED_DB)
@@ -99,21 +103,18 @@ public class BioSemEventAnnotator extends JCasAnnotator_ImplBase {
             // Unfortunately, I'm not sure why this is. However, we'd rather
             // want to skip those cases instead of letting the pipeline fail as
             // a whole.
-            synchronized (lock) {
+            try {
+                docDb = loader.Txt2Db(nextDocumentDbName(), text, proteinLines);
+            } catch (NullPointerException e) {
+                log.debug(
+                        "Could not create text database for document {} due to NullPointerException during creation. Trying again with a new database.",
+                        docId);
                 try {
-                    docDb = loader.Txt2Db(docId, text, proteinLines);
-                } catch (NullPointerException e) {
-                    log.debug(
-                            "Could not create text database for document {} due to NullPointerException during creation. Trying to close the DB and open it again after a short delay",
-                            docId);
-                    Thread.sleep(10000);
-                    try {
-                        docDb = loader.Txt2Db(docId + "-secondtry", text, proteinLines);
-                    } catch (Exception e2) {
-                        log.error("Repeatedly failed to create text database for document " + docId
-                                + ". This document will be skipped. Exception was: ", e2);
-                        throw e2;
-                    }
+                    docDb = loader.Txt2Db(nextDocumentDbName(), text, proteinLines);
+                } catch (Exception e2) {
+                    log.error("Repeatedly failed to create text database for document " + docId
+                            + ". This document will be skipped. Exception was: ", e2);
+                    throw e2;
                 }
             }
             if (null == xtr) {
@@ -134,11 +135,8 @@ public class BioSemEventAnnotator extends JCasAnnotator_ImplBase {
             throw new AnalysisEngineProcessException(e);
         } finally {
             try {
-                if (docDb != null) {
-                    synchronized (lock) {
-                        docDb.closeDB();
-                    }
-                }
+                if (docDb != null)
+                    docDb.closeDB();
             } catch (Exception e) {
                 log.warn(
                         "Exception while shutting down document database for document {}. Since events have already been extracted, this is a minor error taken for itself. However it could lead to subsequent errors in the HSQL database system which could be critical.",
@@ -148,6 +146,13 @@ public class BioSemEventAnnotator extends JCasAnnotator_ImplBase {
         }
     }
 
+    /**
+     * @return A database name that is unique within this JVM.
+     */
+    private String nextDocumentDbName() {
+        return instanceName + "-doc" + documentCounter++;
+    }
+
     private void addEventsToIndexes(Set<PData> events, Map<String, Gene> proteinMap, Set<Word> triggers, JCas aJCas) {
         Map<String, Word> triggerMap = new HashMap<>();
         Map<String, PData> eventMap = new HashMap<>();
@@ -0,0 +1,82 @@
+package de.julielab.jcore.ae.biosem;
+
+import de.julielab.jcore.reader.bionlpformat.main.BioEventReader;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.collection.CollectionReader;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.fit.factory.CollectionReaderFactory;
+import org.apache.uima.fit.factory.ExternalResourceFactory;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ExternalResourceDescription;
+import org.apache.uima.util.CasCopier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * <p>
+ * Measures the throughput of the {@link BioSemEventAnnotator} with 1, 4 and 16 threads, each thread running its own
+ * annotator instance as in a multi-threaded pipeline. The test document is processed repeatedly.
+ * </p>
+ * <p>
+ * Arguments: <tt>[documents per thread]</tt>, default 50.
+ * </p>
+ */
+public class BioSemEventAnnotatorBenchmark {
+	public static void main(String[] args) throws Exception {
+		final int documentsPerThread = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+		JCas document = JCasFactory.createJCas("de.julielab.jcore.types.jcore-all-types");
+		CollectionReader bioNlpSTReader = CollectionReaderFactory.createReader(BioEventReader.class,
+				BioEventReader.DIRECTORY_PARAM, "src/test/resources/st09-traindoc/",
+				BioEventReader.BIOEVENT_SERVICE_MODE_PARAM, false);
+		if (!bioNlpSTReader.hasNext())
+			throw new IllegalStateException("The test document was not found by the BioNLP ST reader.");
+		bioNlpSTReader.getNext(document.getCas());
+		ExternalResourceDescription dbResourceDescription = ExternalResourceFactory.createExternalResourceDescription(
+				DBUtilsProviderImpl.class,
+				"file:src/test/resources/de/julielab/jcore/ae/biosemannotator.test.properties");
+
+		for (int numThreads : new int[] { 1, 4, 16 }) {
+			ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+			List<AnalysisEngine> engines = new ArrayList<>();
+			List<JCas> jCases = new ArrayList<>();
+			for (int i = 0; i < numThreads; i++) {
+				engines.add(AnalysisEngineFactory.createEngine(BioSemEventAnnotator.class,
+						BioSemEventAnnotator.RESOURCE_TRAINED_DB, dbResourceDescription));
+				jCases.add(JCasFactory.createJCas("de.julielab.jcore.types.jcore-all-types"));
+			}
+			try {
+				// one warm-up round and one measured round
+				long time = 0;
+				for (int round = 0; round < 2; round++) {
+					time = System.nanoTime();
+					List<Future<?>> futures = new ArrayList<>();
+					for (int i = 0; i < numThreads; i++) {
+						AnalysisEngine engine = engines.get(i);
+						JCas jCas = jCases.get(i);
+						futures.add(executor.submit(() -> {
+							for (int j = 0; j < documentsPerThread; j++) {
+								jCas.reset();
+								CasCopier.copyCas(document.getCas(), jCas.getCas(), true);
+								engine.process(jCas);
+							}
+							return null;
+						}));
+					}
+					for (Future<?> future : futures)
+						future.get();
+					time = System.nanoTime() - time;
+				}
+				int numDocuments = numThreads * documentsPerThread;
+				System.out.printf("%d threads: %d documents in %.2f s, %.2f documents/s%n", numThreads, numDocuments,
+						time / 1000000000d, numDocuments / (time / 1000000000d));
+			} finally {
+				executor.shutdown();
+			}
+		}
+	}
+}
@@ -12,6 +12,8 @@ package de.julielab.jcore.ae.biosem;
 
 import de.julielab.jcore.consumer.bionlpformat.main.BioEventConsumer;
 import de.julielab.jcore.reader.bionlpformat.main.BioEventReader;
+import de.julielab.jcore.types.ArgumentMention;
+import de.julielab.jcore.types.EventMention;
 import org.apache.commons.io.IOUtils;
 import org.apache.uima.analysis_engine.AnalysisEngine;
 import org.apache.uima.cas.impl.XmiCasDeserializer;
@@ -20,14 +22,19 @@ import org.apache.uima.fit.factory.AnalysisEngineFactory;
 import org.apache.uima.fit.factory.CollectionReaderFactory;
 import org.apache.uima.fit.factory.ExternalResourceFactory;
 import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.fit.util.JCasUtil;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.resource.ExternalResourceDescription;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -86,4 +93,58 @@ public class BioSemEventAnnotatorTest {
 		// there are no events to find in this paper (graph matching algorithm)
 		// we just wanted to process it without an exception
 	}
+
+	@Test
+	public void testConcurrentProcessing() throws Exception {
+		// The same document - thus with the same document ID - is processed
+		// by parallel annotator instances at the same time. This used to break
+		// the creation of the document databases.
+		ExternalResourceDescription dbResourceDescription = ExternalResourceFactory.createExternalResourceDescription(
+				DBUtilsProviderImpl.class,
+				"file:src/test/resources/de/julielab/jcore/ae/biosemannotator.test.properties");
+		List<String> expectedEvents = getEvents(process(dbResourceDescription));
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<JCas>> futures = new ArrayList<>();
+			for (int i = 0; i < 8; i++)
+				futures.add(executor.submit(() -> process(dbResourceDescription)));
+			for (Future<JCas> future : futures)
+				assertEquals(expectedEvents, getEvents(future.get()));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private JCas process(ExternalResourceDescription dbResourceDescription) throws Exception {
+		JCas jCas = JCasFactory.createJCas("de.julielab.jcore.types.jcore-all-types");
+		AnalysisEngine engine = AnalysisEngineFactory.createEngine(BioSemEventAnnotator.class,
+				BioSemEventAnnotator.RESOURCE_TRAINED_DB, dbResourceDescription);
+		// process the document twice so that each annotator also handles
+		// more than one document
+		for (int i = 0; i < 2; i++) {
+			jCas.reset();
+			CollectionReader bioNlpSTReader = CollectionReaderFactory.createReader(BioEventReader.class,
+					BioEventReader.DIRECTORY_PARAM, "src/test/resources/st09-traindoc/",
+					BioEventReader.BIOEVENT_SERVICE_MODE_PARAM, false);
+			assertTrue(bioNlpSTReader.hasNext(), "Test document was not found by the BioNLP ST reader.");
+			bioNlpSTReader.getNext(jCas.getCas());
+			engine.process(jCas);
+		}
+		return jCas;
+	}
+
+	private List<String> getEvents(JCas jCas) {
+		List<String> events = new ArrayList<>();
+		for (EventMention event : JCasUtil.select(jCas, EventMention.class)) {
+			StringBuilder sb = new StringBuilder();
+			sb.append(event.getSpecificType()).append(' ').append(event.getBegin()).append(' ').append(event.getEnd());
+			for (int i = 0; event.getArguments() != null && i < event.getArguments().size(); i++) {
+				ArgumentMention arg = (ArgumentMention) event.getArguments().get(i);
+				sb.append(' ').append(arg.getRole()).append(':').append(arg.getBegin()).append('-').append(arg.getEnd());
+			}
+			events.add(sb.toString());
+		}
+		Collections.sort(events);
+		return events;
+	}
 }
@@ -3,11 +3,17 @@ package de.julielab.jcore.ae.checkpoint;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Stream;
 
 /**
@@ -38,17 +44,42 @@ public class DocumentReleaseCheckpoint {
             "Synchronized components are those that disclose this parameter and have a value set to it.";
     public static final String PARAM_JEDIS_SYNCHRONIZATION_KEY = "JedisSynchronizationKey";
     private final static Logger log = LoggerFactory.getLogger(DocumentReleaseCheckpoint.class);
+    /**
+     * The release states are stored as bit masks in a <tt>long</tt>.
+     */
+    private static final int MAX_REGISTERED_COMPONENTS = Long.SIZE;
     private static DocumentReleaseCheckpoint checkpoint;
-    private Map<DocumentId, Set<String>> releasedDocuments;
-    private Set<String> registeredComponents;
+    /**
+     * The documents that have been released by some, but not yet all registered components.
+     */
+    private final ConcurrentMap<DocumentId, ReleaseState> pendingDocuments;
+    /**
+     * The documents that have been released by all registered components and have not yet been retrieved by
+     * {@link #getReleasedDocumentIds()}.
+     */
+    private final Queue<DocumentId> completelyReleasedDocuments;
+    private final Map<String, Integer> componentIndices;
+    /**
+     * Releases hold the read lock so that they run concurrently. Registering and unregistering components holds the
+     * write lock so that no release sees a component index that is being removed or reassigned.
+     */
+    private final ReadWriteLock registrationLock = new ReentrantReadWriteLock();
+    /**
+     * Has the bits of the indices of all registered components set.
+     */
+    private volatile long registeredComponentsMask;
+    private final LongAdder numCompletelyReleasedDocuments = new LongAdder();
+    private final LongAdder totalReleaseLatencyNanos = new LongAdder();
+    private final LongAccumulator maxReleaseLatencyNanos = new LongAccumulator(Math::max, 0);
     private long lastwarning = 1000;
 
-    private DocumentReleaseCheckpoint() {
-        releasedDocuments = new HashMap<>();
-        registeredComponents = new HashSet<>();
+    DocumentReleaseCheckpoint() {
+        pendingDocuments = new ConcurrentHashMap<>();
+        completelyReleasedDocuments = new ConcurrentLinkedQueue<>();
+        componentIndices = new ConcurrentHashMap<>();
     }
 
-    public static DocumentReleaseCheckpoint get() {
+    public static synchronized DocumentReleaseCheckpoint get() {
         if (checkpoint == null)
             checkpoint = new DocumentReleaseCheckpoint();
         return checkpoint;
@@ -60,7 +91,19 @@ public class DocumentReleaseCheckpoint {
      * @param componentKey A canonical identifier of the component taking part in synchronization.
      */
     public void register(String componentKey) {
-        registeredComponents.add(componentKey);
+        registrationLock.writeLock().lock();
+        try {
+            if (componentIndices.containsKey(componentKey))
+                return;
+            long mask = registeredComponentsMask;
+            int index = Long.numberOfTrailingZeros(~mask);
+            if (index >= MAX_REGISTERED_COMPONENTS)
+                throw new IllegalStateException("Cannot register component " + componentKey + " because the maximum number of " + MAX_REGISTERED_COMPONENTS + " synchronized components has already been registered.");
+            componentIndices.put(componentKey, index);
+            registeredComponentsMask = mask | (1L << index);
+        } finally {
+            registrationLock.writeLock().unlock();
+        }
     }
 
     /**
@@ -70,56 +113,93 @@ public class DocumentReleaseCheckpoint {
      * @param componentKey The canonical identifier provided in {@link #register(String)} earlier.
      */
     public void unregister(String componentKey) {
-        registeredComponents.remove(componentKey);
+        // Holding the write lock, no release can run concurrently.
+        registrationLock.writeLock().lock();
+        try {
+            Integer index = componentIndices.remove(componentKey);
+            if (index == null)
+                return;
+            long componentBit = 1L << index;
+            registeredComponentsMask &= ~componentBit;
+            // Remove the releases of the unregistered component so that a component registered later with the same
+            // index does not inherit them. Documents waiting only for the unregistered component are now completely
+            // released.
+            for (DocumentId documentId : pendingDocuments.keySet())
+                pendingDocuments.computeIfPresent(documentId, (k, state) -> {
+                    state.releasedMask &= ~componentBit;
+                    return updateReleaseState(k, state);
+                });
+        } finally {
+            registrationLock.writeLock().unlock();
+        }
     }
 
     /**
      * <p>To be called from synchronizing components. They send their registration key and the document IDs they are positively finished with.</p>
+     * <p>Documents that have been released by all registered components with this call are immediately made available
+     * to {@link #getReleasedDocumentIds()}. This method may be called concurrently from multiple threads, also for
+     * the same component. It does not run concurrently with {@link #register(String)} or
+     * {@link #unregister(String)}.</p>
      *
      * @param componentKey        The canonical identifier provided in {@link #register(String)} earlier.
      * @param releasedDocumentIds The document IDs to be released.
      */
     public void release(String componentKey, Stream<DocumentId> releasedDocumentIds) {
-        if (!registeredComponents.contains(componentKey))
-            throw new IllegalArgumentException("No component is registered for key " + componentKey);
-        synchronized (releasedDocuments) {
-            releasedDocumentIds.forEach(d -> releasedDocuments.compute(d, (k, v) -> {
-                if (v == null) {
-                    Set<String> ret = new HashSet<>();
-                    ret.add(componentKey);
-                    return ret;
-                }
-                v.add(componentKey);
-                return v;
+        registrationLock.readLock().lock();
+        try {
+            Integer index = componentIndices.get(componentKey);
+            if (index == null)
+                throw new IllegalArgumentException("No component is registered for key " + componentKey);
+            long componentBit = 1L << index;
+            releasedDocumentIds.forEach(d -> pendingDocuments.compute(d, (k, state) -> {
+                if (state == null)
+                    state = new ReleaseState(System.nanoTime());
+                state.releasedMask |= componentBit;
+                return updateReleaseState(k, state);
             }));
+        } finally {
+            registrationLock.readLock().unlock();
         }
     }
 
+    /**
+     * Moves the document to the queue of completely released documents if the given state shows that it has been
+     * released by all registered components. Must be called from within an atomic map operation on the document.
+     *
+     * @return The state to keep in the map of pending documents or <tt>null</tt> if the document has been released completely.
+     */
+    private ReleaseState updateReleaseState(DocumentId documentId, ReleaseState state) {
+        long mask = registeredComponentsMask;
+        if ((state.releasedMask & mask) != mask)
+            return state;
+        long latency = System.nanoTime() - state.firstReleaseTime;
+        totalReleaseLatencyNanos.add(latency);
+        maxReleaseLatencyNanos.accumulate(latency);
+        numCompletelyReleasedDocuments.increment();
+        completelyReleasedDocuments.add(documentId);
+        return null;
+    }
+
     /**
      * <p>Used by the {@link DBCheckpointAE} to determine documents that can safely be marked as being finished with processing.</p>
-     * <p>Gets all the document IDs from all synchronizing components that those components have released. The returned list will
-     * contain duplicates of document IDs when multiple components have released that document. The {@link DBCheckpointAE}
-     * will only mark those documents as processed that have been released as often as synchronizing components have been
-     * registered with {@link #register(String)}.</p>
+     * <p>Returns the IDs of all documents that have been released by all components registered with {@link #register(String)}
+     * since the last call of this method. The documents are determined when they are released so this method does not need
+     * to check the pending documents.</p>
      *
      * @return The currently released document IDs.
      */
     public Set<DocumentId> getReleasedDocumentIds() {
-        // Get all documents released by all components
-        Set<DocumentId> returnedIds;
-        synchronized (releasedDocuments) {
-            log.trace("The following {} components are registered for document release: {}", getNumberOfRegisteredComponents(), registeredComponents);
-            log.trace("Released document counts: {}", this.releasedDocuments);
-            returnedIds = this.releasedDocuments.keySet().stream().filter(k -> this.releasedDocuments.get(k).containsAll(this.registeredComponents)).collect(Collectors.toSet());
-            log.trace("Final Document IDs to release: {}", returnedIds);
-            // Remove the completely released documents from the pool of potentially not yet completely released documents.
-            returnedIds.forEach(id -> this.releasedDocuments.remove(id));
-        }
-        log.debug("Returning {} documents released by all registered components. {} document IDs remain that have not yet been released by all registered components.", returnedIds.size(), this.releasedDocuments.size());
-        if (this.releasedDocuments.size() > lastwarning) {
-            log.warn("The number of document IDs that have not been released by all registered components has grown to {}. If it does not decrease again, there is likely an errorneous component which does not release its documents. Currently registered components: {}", releasedDocuments.size(), registeredComponents);
+        Set<DocumentId> returnedIds = new HashSet<>();
+        DocumentId documentId;
+        while ((documentId = completelyReleasedDocuments.poll()) != null)
+            returnedIds.add(documentId);
+        log.trace("Final Document IDs to release: {}", returnedIds);
+        int backlogSize = getBacklogSize();
+        log.debug("Returning {} documents released by all registered components. {} document IDs remain that have not yet been released by all registered components.", returnedIds.size(), backlogSize);
+        if (backlogSize > lastwarning) {
+            log.warn("The number of document IDs that have not been released by all registered components has grown to {}. If it does not decrease again, there is likely an errorneous component which does not release its documents. Currently registered components: {}", backlogSize, componentIndices.keySet());
             lastwarning *= 2;
-        } else if (this.releasedDocuments.size() < 50) {
+        } else if (backlogSize < 50) {
             lastwarning = 1000;
         }
         return returnedIds;
@@ -131,7 +211,49 @@ public class DocumentReleaseCheckpoint {
      * @return The number of currently registered components.
      */
     public int getNumberOfRegisteredComponents() {
-        return registeredComponents.size();
+        return componentIndices.size();
+    }
+
+    /**
+     * @return The number of documents that have been released by some but not yet all registered components.
+     */
+    public int getBacklogSize() {
+        return pendingDocuments.size();
+    }
+
+    /**
+     * @return The total number of documents that have been released by all registered components so far.
+     */
+    public long getNumberOfCompletelyReleasedDocuments() {
+        return numCompletelyReleasedDocuments.sum();
+    }
+
+    /**
+     * @return The average time in milliseconds between the first and the last release of a document.
+     */
+    public double getAverageReleaseLatencyMillis() {
+        long numReleased = numCompletelyReleasedDocuments.sum();
+        return numReleased == 0 ? 0 : totalReleaseLatencyNanos.sum() / (numReleased * 1000000d);
+    }
+
+    /**
+     * @return The maximum time in milliseconds between the first and the last release of a document.
+     */
+    public double getMaxReleaseLatencyMillis() {
+        return maxReleaseLatencyNanos.get() / 1000000d;
+    }
+
+    private static class ReleaseState {
+        private final long firstReleaseTime;
+        /**
+         * The bits of the indices of the components that have released the document. Only accessed within
+         * atomic operations of the map of pending documents.
+         */
+        private long releasedMask;
+
+        private ReleaseState(long firstReleaseTime) {
+            this.firstReleaseTime = firstReleaseTime;
+        }
     }
 
 }
@@ -0,0 +1,112 @@
+package de.julielab.jcore.ae.checkpoint;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class DocumentReleaseCheckpointTest {
+    @Test
+    public void testReleaseByAllComponents() {
+        DocumentReleaseCheckpoint checkpoint = new DocumentReleaseCheckpoint();
+        checkpoint.register("writer");
+        checkpoint.register("consumer");
+        checkpoint.release("writer", Stream.of(new DocumentId("1"), new DocumentId("2")));
+        assertTrue(checkpoint.getReleasedDocumentIds().isEmpty());
+        assertEquals(checkpoint.getBacklogSize(), 2);
+
+        checkpoint.release("consumer", Stream.of(new DocumentId("2"), new DocumentId("3")));
+        assertEquals(checkpoint.getReleasedDocumentIds(), Set.of(new DocumentId("2")));
+        // the IDs are only returned once
+        assertTrue(checkpoint.getReleasedDocumentIds().isEmpty());
+        assertEquals(checkpoint.getBacklogSize(), 2);
+        assertEquals(checkpoint.getNumberOfCompletelyReleasedDocuments(), 1);
+    }
+
+    @Test
+    public void testUnregister() {
+        DocumentReleaseCheckpoint checkpoint = new DocumentReleaseCheckpoint();
+        checkpoint.register("writer");
+        checkpoint.register("consumer");
+        checkpoint.release("writer", Stream.of(new DocumentId("1")));
+        // the document only waits for the unregistered component
+        checkpoint.unregister("consumer");
+        assertEquals(checkpoint.getReleasedDocumentIds(), Set.of(new DocumentId("1")));
+
+        // a newly registered component must not inherit the releases of the unregistered one
+        checkpoint.register("consumer");
+        checkpoint.register("other");
+        assertEquals(checkpoint.getNumberOfRegisteredComponents(), 3);
+        checkpoint.release("writer", Stream.of(new DocumentId("2")));
+        checkpoint.release("other", Stream.of(new DocumentId("2")));
+        assertTrue(checkpoint.getReleasedDocumentIds().isEmpty());
+        checkpoint.release("consumer", Stream.of(new DocumentId("2")));
+        assertEquals(checkpoint.getReleasedDocumentIds(), Set.of(new DocumentId("2")));
+    }
+
+    @Test
+    public void testConcurrentReleaseAndUnregister() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            DocumentReleaseCheckpoint checkpoint = new DocumentReleaseCheckpoint();
+            checkpoint.register("writer");
+            checkpoint.register("consumer");
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            Future<?> future = executor.submit(() -> {
+                try {
+                    for (int j = 0; j < 10000; j += 100)
+                        checkpoint.release("consumer", IntStream.range(j, j + 100).mapToObj(k -> new DocumentId(String.valueOf(k))));
+                } catch (IllegalArgumentException e) {
+                    // the component has been unregistered
+                }
+            });
+            checkpoint.unregister("consumer");
+            // the new component gets the index of the unregistered one
+            checkpoint.register("newcomer");
+            future.get();
+            executor.shutdown();
+            checkpoint.release("writer", IntStream.range(0, 10000).mapToObj(k -> new DocumentId(String.valueOf(k))));
+            // the new component has not released any document yet
+            assertTrue(checkpoint.getReleasedDocumentIds().isEmpty());
+        }
+    }
+
+    @Test
+    public void testConcurrentRelease() throws Exception {
+        DocumentReleaseCheckpoint checkpoint = new DocumentReleaseCheckpoint();
+        int numComponents = 4;
+        int numDocuments = 10000;
+        for (int i = 0; i < numComponents; i++)
+            checkpoint.register("component" + i);
+        ExecutorService executor = Executors.newFixedThreadPool(numComponents);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < numComponents; i++) {
+            String componentKey = "component" + i;
+            // release the documents in batches like the database writing components do
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < numDocuments; j += 100)
+                    checkpoint.release(componentKey, IntStream.range(j, j + 100).mapToObj(k -> new DocumentId(String.valueOf(k))));
+            }));
+        }
+        Set<DocumentId> released = new HashSet<>();
+        while (!futures.stream().allMatch(Future::isDone))
+            released.addAll(checkpoint.getReleasedDocumentIds());
+        for (Future<?> f : futures)
+            f.get();
+        executor.shutdown();
+        released.addAll(checkpoint.getReleasedDocumentIds());
+        assertEquals(released.size(), numDocuments);
+        assertEquals(checkpoint.getBacklogSize(), 0);
+        assertEquals(checkpoint.getNumberOfCompletelyReleasedDocuments(), numDocuments);
+        assertTrue(checkpoint.getMaxReleaseLatencyMillis() >= checkpoint.getAverageReleaseLatencyMillis());
+    }
+}
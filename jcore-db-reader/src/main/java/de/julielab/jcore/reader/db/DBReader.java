@@ -30,6 +30,7 @@ import de.julielab.costosys.dbconnection.CoStoSysConnection;
 import de.julielab.costosys.dbconnection.DBCIterator;
 import de.julielab.costosys.dbconnection.DataBaseConnector;
 import de.julielab.costosys.dbconnection.util.TableSchemaMismatchException;
+import de.julielab.jcore.reader.db.jmx.DBReaderInfo;
 import de.julielab.jcore.types.ext.DBProcessingMetaData;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.uima.UimaContext;
@@ -45,13 +46,18 @@ import org.apache.uima.util.ProgressImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.nio.charset.Charset;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
 
 import static de.julielab.jcore.reader.db.SubsetReaderConstants.PARAM_DATA_TIMESTAMP;
+import static de.julielab.jcore.reader.db.SubsetReaderConstants.PARAM_DECODE_THREADS;
+import static de.julielab.jcore.reader.db.SubsetReaderConstants.PARAM_PREFETCH_BATCHES;
+import static de.julielab.jcore.reader.db.SubsetReaderConstants.PARAM_PREFETCH_MAX_MEGABYTES;
 
 /**
  * Base for UIMA collection readers using a (PostgreSQL) database to retrieve
@@ -112,8 +118,27 @@ public abstract class DBReader extends DBSubsetReader {
             "through the JULIE Lab GitHub page or JCoRe issues.")
     protected String dataTimestamp;
 
+    @ConfigurationParameter(name = PARAM_PREFETCH_BATCHES, mandatory = false, defaultValue = "1", description = "The " +
+            "number of document batches that are fetched from a subset table in advance while the current batch is " +
+            "in process. Only has an effect if the 'FetchIdsProactively' parameter is set to true. Higher values " +
+            "reduce the waiting time of the reader for the database. Note that all prefetched documents are marked " +
+            "as being in process in the subset table.")
+    protected int prefetchBatches;
+    @ConfigurationParameter(name = PARAM_PREFETCH_MAX_MEGABYTES, mandatory = false, defaultValue = "0", description =
+            "An upper bound for the size in megabytes of the document data fetched in advance. When reached, the " +
+            "background thread waits for the reader to consume prefetched batches before it fetches more. A " +
+            "single batch is always fetched, even if it is larger. Defaults to 0 which means no bound.")
+    protected int prefetchMaxMegabytes;
+    @ConfigurationParameter(name = PARAM_DECODE_THREADS, mandatory = false, defaultValue = "0", description = "The " +
+            "number of threads that prepare fetched document rows for CAS population when reading from a subset " +
+            "table. What the preparation comprises depends on the concrete reader. Defaults to 0 which means that " +
+            "the reader thread does all the work.")
+    protected int decodeThreads;
+
     // Internal state fields
-    private RetrievingThread retriever;
+    private DocumentBatchPrefetcher prefetcher;
+    private DBReaderInfo readerInfo;
+    private ObjectName readerInfoName;
 
     private DBCIterator<byte[][]> xmlBytes;
 
@@ -154,6 +179,12 @@ public abstract class DBReader extends DBSubsetReader {
     public void initialize(UimaContext context) throws ResourceInitializationException {
         super.initialize(context);
         dataTimestamp = (String) getConfigParameterValue(PARAM_DATA_TIMESTAMP);
+        prefetchBatches = Optional.ofNullable((Integer) getConfigParameterValue(PARAM_PREFETCH_BATCHES)).orElse(1);
+        prefetchMaxMegabytes = Optional.ofNullable((Integer) getConfigParameterValue(PARAM_PREFETCH_MAX_MEGABYTES)).orElse(0);
+        decodeThreads = Optional.ofNullable((Integer) getConfigParameterValue(PARAM_DECODE_THREADS)).orElse(0);
+        if (prefetchBatches < 1)
+            throw new ResourceInitializationException(new IllegalArgumentException("The parameter " + PARAM_PREFETCH_BATCHES + " must be at least 1 but was " + prefetchBatches + ". To switch off prefetching, set " + SubsetReaderConstants.PARAM_FETCH_IDS_PROACTIVELY + " to false."));
+        registerReaderInfo();
         if (readDataTable && hasNext) {
             log.info("Querying data table {} with schema {} and where condition {}", tableName, dbc.getActiveTableSchema(), whereCondition);
             xmlBytes = dbc.queryDataTable(tableName, whereCondition, additionalTableNames, schemas);
@@ -185,8 +216,11 @@ public abstract class DBReader extends DBSubsetReader {
         else
             next = getNextFromSubset();
 
-        if (next != null)
+        if (next != null) {
             ++processedDocuments;
+            if (readerInfo != null && !dbc.getPrimaryKeyIndices().isEmpty())
+                readerInfo.setCurrentDocumentId(new String(next[dbc.getPrimaryKeyIndices().get(0)], StandardCharsets.UTF_8));
+        }
 
         return next;
     }
@@ -207,48 +241,58 @@ public abstract class DBReader extends DBSubsetReader {
         return next;
     }
 
-    private byte[][] getNextFromSubset() {
+    private byte[][] getNextFromSubset() throws CollectionException {
         log.trace("Reading in subset table mode.");
         byte[][] next = null;
 
-        // When this method is called for the first time, no retriever thread
-        // will yet exist. Initialize it.
-        if (retriever == null) {
-            log.trace("Creating new RetrievingThread for fetching the first document batch");
-            retriever = new RetrievingThread();
-            xmlBytes = retriever.getDocuments();
-            if (fetchIdsProactively) {
-                log.trace("Creating background RetrievingThread to immediately fetch the next document batch");
-                retriever = new RetrievingThread();
-            }
+        // When this method is called for the first time, no prefetcher will
+        // yet exist. Initialize it.
+        if (prefetcher == null) {
+            int batchesInAdvance = fetchIdsProactively ? prefetchBatches : 0;
+            log.trace("Creating the document batch prefetcher with {} batches fetched in advance", batchesInAdvance);
+            prefetcher = new DocumentBatchPrefetcher(this::fetchNextBatch, this::decodeArtifactData, batchesInAdvance, prefetchMaxMegabytes * 1024L * 1024L, decodeThreads, readerInfo);
         }
 
-        if (xmlBytes.hasNext()) {
+        if (prefetcher.hasNext()) {
             log.debug("Returning next document.");
-            next = xmlBytes.next();
+            next = prefetcher.next();
         }
-        if (!xmlBytes.hasNext()) { // Don't merge with
-            // the if above, the
-            // check must be executed despite lazy evaluation
-            xmlBytes = retriever.getDocuments();
-            if (!xmlBytes.hasNext()) {
-                log.debug("No more documents, settings 'hasNext' to false.");
-                hasNext = false;
-                close();
-            } else if (fetchIdsProactively) {
-                log.trace("Creating background RetrievingThread to immediately fetch the next document batch");
-                retriever = new RetrievingThread();
-            }
+        if (!prefetcher.hasNext()) {
+            log.debug("No more documents, settings 'hasNext' to false.");
+            hasNext = false;
+            close();
         }
         return next;
     }
 
+    /**
+     * <p>
+     * Prepares a row fetched from the database for CAS population. This method is called by the decode threads
+     * configured with the <code>DecodeThreads</code> parameter or, when there are none, by the reader thread. Thus,
+     * CAS independent work like decompression should be done here instead of in <code>getNext</code>.
+     * Implementations must be thread safe if decode threads are used.
+     * </p>
+     * <p>
+     * The default implementation returns the row unchanged.
+     * </p>
+     *
+     * @param data The document row as fetched from the database.
+     * @return The row to be returned by {@link #getNextArtifactData()}.
+     * @throws Exception If the row cannot be decoded.
+     */
+    protected byte[][] decodeArtifactData(byte[][] data) throws Exception {
+        return data;
+    }
+
     public Progress[] getProgress() {
         return new Progress[]{new ProgressImpl(processedDocuments, totalDocumentCount, Progress.ENTITIES, true)};
     }
 
     public void close() {
         log.debug("Closing {}", this.getClass().getCanonicalName());
+        if (prefetcher != null)
+            prefetcher.close();
+        unregisterReaderInfo();
         if (xmlBytes != null)
             xmlBytes.close();
         dbc.close();
@@ -260,135 +304,110 @@ public abstract class DBReader extends DBSubsetReader {
      */
     protected abstract String getReaderComponentName();
 
+    private void registerReaderInfo() {
+        readerInfo = new DBReaderInfo();
+        readerInfo.setComponentId(getReaderComponentName());
+        try {
+            readerInfoName = new ObjectName("de.julielab.jcore.reader.db:type=DBReaderInfo,name=" + getReaderComponentName() + "-" + System.identityHashCode(this));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(readerInfo, readerInfoName);
+        } catch (JMException e) {
+            log.warn("Could not register the DBReaderInfo MBean, the reader statistics won't be available via JMX.", e);
+            readerInfoName = null;
+        }
+    }
+
+    private void unregisterReaderInfo() {
+        if (readerInfoName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(readerInfoName);
+            } catch (JMException e) {
+                log.debug("Could not unregister the DBReaderInfo MBean {}", readerInfoName, e);
+            }
+            readerInfoName = null;
+        }
+    }
+
     /**
      * <p>
-     * This class is charged with retrieving batches of document IDs and documents while previously fetched documents
-     * are in process.
-     * </p>
-     * <p>
-     * The class manages the <code>FetchIdsProactively</code> parameter which
-     * can be given to the reader. When set to <code>false</code>, no ID batches are
-     * fetched in advance but are fetched exactly on demand in
-     * {@link DBReader#getNextArtifactData}.
+     * Retrieves and marks the next batch of document IDs from the subset table and fetches the respective
+     * documents. If the Limit parameter is set, only the remaining number of documents up to the limit is fetched.
      * </p>
      * <p>
-     * This class is only in use when reading from a subset table.
+     * This method is called by the {@link DocumentBatchPrefetcher}, either in its background thread or, when the
+     * <code>FetchIdsProactively</code> parameter is set to <code>false</code>, on demand in
+     * {@link DBReader#getNextArtifactData}. It is only in use when reading from a subset table.
      * </p>
      *
-     * @author hellrich/faessler
+     * @return The documents of the next batch or an empty list if there are no more documents.
      */
-    protected class RetrievingThread extends Thread {
-        private List<Object[]> ids;
-        private DBCIterator<byte[][]> documents;
-
-
-        public RetrievingThread() {
-            // Only fetch ID batches in advance when the parameter is set to
-            // true.
-            if (fetchIdsProactively) {
-                log.debug("Fetching new documents in a background thread.");
-                setName("DBReader RetrievingThread");
-                start();
-            }
+    protected List<byte[][]> fetchNextBatch() {
+        // Remember: If the Limit parameter is set, totalDocumentCount is
+        // that limit (or the remaining number of documents, if that's
+        // lower).
+        // Hence, we fetch the next "normal" sized batch of documents or, if
+        // the limit comes to its end or almost all documents in the
+        // database have been read, only the rest of documents.
+        int limit = Math.min(batchSize, totalDocumentCount - numberFetchedDocIDs);
+        if (limit <= 0) {
+            log.debug("No unfetched documents left.");
+            return Collections.emptyList();
         }
-
-        public void run() {
-            // Remember: If the Limit parameter is set, totalDocumentCount is
-            // that limit (or the remaining number of documents, if that's
-            // lower).
-            // Hence, we fetch the next "normal" sized batch of documents or, if
-            // the limit comes to its end or almost all documents in the
-            // database have been read, only the rest of documents.
-            int limit = Math.min(batchSize, totalDocumentCount - numberFetchedDocIDs);
-            try {
-                try (CoStoSysConnection ignored = dbc.obtainOrReserveConnection()) {
-                    ids = dbc.retrieveAndMark(tableName, getReaderComponentName(), hostName, pid, limit, selectionOrder);
-                }
-                if (log.isTraceEnabled()) {
-                    List<String> idStrings = new ArrayList<>();
-                    for (Object[] o : ids) {
-                        List<String> pkElements = new ArrayList<>();
-                        for (int i = 0; i < o.length; i++) {
-                            Object object = o[i];
-                            pkElements.add(String.valueOf(object));
-                        }
-                        idStrings.add(StringUtils.join(pkElements, "-"));
-                    }
-                    log.trace("Reserved the following document IDs for processing: " + idStrings);
-                }
-            } catch (TableSchemaMismatchException e) {
-                log.error("Table schema mismatch: The active table schema {} specified in the CoStoSys configuration" +
-                                " file {} does not match the columns in the subset table {}: {}", dbc.getActiveTableSchema(),
-                        costosysConfig, tableName, e.getMessage());
-                throw new IllegalArgumentException(e);
-            } catch (TableNotFoundException e) {
-                log.error("The subset table {} could not be found in the database", tableName, e);
-                throw new IllegalArgumentException(e);
+        List<Object[]> ids;
+        try {
+            try (CoStoSysConnection ignored = dbc.obtainOrReserveConnection()) {
+                ids = dbc.retrieveAndMark(tableName, getReaderComponentName(), hostName, pid, limit, selectionOrder);
             }
-            numberFetchedDocIDs += ids.size();
-            log.debug("Retrieved {} document IDs to fetch from the database.", ids.size());
-
-            if (ids.size() > 0) {
-                log.debug("Fetching {} documents from the database.", ids.size());
-                if (dataTimestamp == null) {
-                    if (!joinTables) {
-                        log.trace("Fetching data from the data table {} without additional tables.", dataTable);
-                        documents = dbc.retrieveColumnsByTableSchema(ids, dataTable);
-                    } else {
-                        log.trace("Fetching data by joining tables {}. The used table schemas are {}.", tables, schemas);
-                        documents = dbc.retrieveColumnsByTableSchema(ids, tables, schemas);
+            if (log.isTraceEnabled()) {
+                List<String> idStrings = new ArrayList<>();
+                for (Object[] o : ids) {
+                    List<String> pkElements = new ArrayList<>();
+                    for (int i = 0; i < o.length; i++) {
+                        Object object = o[i];
+                        pkElements.add(String.valueOf(object));
                     }
-                } else {
-                    log.trace("Fetching data from data table {} that is newer than timestamp {}", dataTable, dataTimestamp);
-                    documents = dbc.queryWithTime(ids, dataTable, dataTimestamp);
+                    idStrings.add(StringUtils.join(pkElements, "-"));
                 }
-            } else {
-                log.debug("No unfetched documents left.");
-                // Return empty iterator to avoid NPE.
-                documents = new DBCIterator<byte[][]>() {
-
-                    @Override
-                    public boolean hasNext() {
-                        return false;
-                    }
-
-                    @Override
-                    public byte[][] next() {
-                        return null;
-                    }
-
-                    @Override
-                    public void remove() {
-                    }
-
-                    @Override
-                    public void close() {
-                    }
-                };
+                log.trace("Reserved the following document IDs for processing: " + idStrings);
             }
+        } catch (TableSchemaMismatchException e) {
+            log.error("Table schema mismatch: The active table schema {} specified in the CoStoSys configuration" +
+                            " file {} does not match the columns in the subset table {}: {}", dbc.getActiveTableSchema(),
+                    costosysConfig, tableName, e.getMessage());
+            throw new IllegalArgumentException(e);
+        } catch (TableNotFoundException e) {
+            log.error("The subset table {} could not be found in the database", tableName, e);
+            throw new IllegalArgumentException(e);
         }
+        numberFetchedDocIDs += ids.size();
+        log.debug("Retrieved {} document IDs to fetch from the database.", ids.size());
 
-
-        public DBCIterator<byte[][]> getDocuments() {
-            // If we don't use this as a background thread, we have to get the
-            // IDs now in a classic sequential manner.
-            if (!fetchIdsProactively) {
-                // Use run as we don't have a use for real threads anyway.
-                log.debug("Fetching new documents (without employing a background thread).");
-                run();
-            }
-            try {
-                // If this is a background thread started with start(): Wait for
-                // the IDs to be retrieved, i.e. that run() ends.
-                log.debug("Waiting for the background thread to finish fetching documents to return them.");
-                join();
-                return documents;
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+        if (ids.isEmpty()) {
+            log.debug("No unfetched documents left.");
+            return Collections.emptyList();
+        }
+        log.debug("Fetching {} documents from the database.", ids.size());
+        DBCIterator<byte[][]> documents;
+        if (dataTimestamp == null) {
+            if (!joinTables) {
+                log.trace("Fetching data from the data table {} without additional tables.", dataTable);
+                documents = dbc.retrieveColumnsByTableSchema(ids, dataTable);
+            } else {
+                log.trace("Fetching data by joining tables {}. The used table schemas are {}.", tables, schemas);
+                documents = dbc.retrieveColumnsByTableSchema(ids, tables, schemas);
             }
-            return null;
+        } else {
+            log.trace("Fetching data from data table {} that is newer than timestamp {}", dataTable, dataTimestamp);
+            documents = dbc.queryWithTime(ids, dataTable, dataTimestamp);
         }
-
+        // Read the complete batch so the reader thread does not wait for the database while iterating.
+        List<byte[][]> rows = new ArrayList<>(ids.size());
+        try {
+            while (documents.hasNext())
+                rows.add(documents.next());
+        } finally {
+            documents.close();
+        }
+        return rows;
     }
 
 }
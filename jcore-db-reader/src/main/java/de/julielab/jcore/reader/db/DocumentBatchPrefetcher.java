@@ -0,0 +1,309 @@
+package de.julielab.jcore.reader.db;
+
+import de.julielab.jcore.reader.db.jmx.DBReaderInfo;
+import org.apache.uima.collection.CollectionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * Delivers the document rows of consecutive database batches to the reader thread. The batches are obtained from a
+ * {@link BatchSupplier}, e.g. {@link DBReader#fetchNextBatch()}.
+ * </p>
+ * <p>
+ * With a prefetch depth of 0, each batch is fetched on demand on the calling thread. With a prefetch depth of
+ * <tt>n &gt; 0</tt>, a background thread fetches up to <tt>n</tt> batches in advance of the batch currently being
+ * consumed. A depth of 1 corresponds to the former single background batch of the <tt>FetchIdsProactively</tt>
+ * parameter. Additionally, the size of the prefetched batches in bytes can be bounded. The background thread then waits
+ * until the consumer has taken enough batches to stay below the bound. A single batch is always admitted, even if
+ * it is larger than the bound.
+ * </p>
+ * <p>
+ * Each fetched row is passed through a {@link RowDecoder}. If decode threads are configured, the rows are decoded
+ * in a thread pool as soon as their batch has been fetched. The rows are still returned in the order they were
+ * fetched.
+ * </p>
+ * <p>
+ * This class is not thread safe, the {@link #hasNext()} and {@link #next()} methods must be called by a single
+ * thread.
+ * </p>
+ */
+public class DocumentBatchPrefetcher implements AutoCloseable {
+    private final static Logger log = LoggerFactory.getLogger(DocumentBatchPrefetcher.class);
+    private static final AtomicInteger instanceCounter = new AtomicInteger();
+    /**
+     * Marks the end of the data in the queue of prefetched batches.
+     */
+    private static final Batch END = new Batch(Collections.emptyList(), 0);
+    private final BatchSupplier batchSupplier;
+    private final RowDecoder decoder;
+    private final int prefetchBatches;
+    private final long maxPrefetchBytes;
+    private final DBReaderInfo readerInfo;
+    private final BlockingQueue<Batch> queue = new LinkedBlockingQueue<>();
+    /**
+     * One permit for each batch that may be fetched in advance.
+     */
+    private final Semaphore batchPermits;
+    private final Object bytesLock = new Object();
+    private ExecutorService decodePool;
+    private Thread fetcherThread;
+    private long prefetchedBytes;
+    private Batch currentBatch;
+    private int currentIndex;
+    private boolean exhausted;
+    private volatile boolean closed;
+
+    /**
+     * @param batchSupplier    Returns the next batch of rows; an empty list signals that there are no more rows.
+     * @param decoder          Applied to each row before it is returned by {@link #next()}.
+     * @param prefetchBatches  The number of batches to fetch in advance in a background thread. 0 to fetch on demand.
+     * @param maxPrefetchBytes The maximum number of bytes of the prefetched batches, 0 or less for no limit.
+     * @param decodeThreads    The number of threads decoding the fetched rows. 0 to decode on the calling thread.
+     * @param readerInfo       Receives fetch and decode statistics. May be <tt>null</tt>.
+     */
+    public DocumentBatchPrefetcher(BatchSupplier batchSupplier, RowDecoder decoder, int prefetchBatches, long maxPrefetchBytes, int decodeThreads, DBReaderInfo readerInfo) {
+        this.batchSupplier = batchSupplier;
+        this.decoder = decoder;
+        this.prefetchBatches = Math.max(0, prefetchBatches);
+        this.maxPrefetchBytes = maxPrefetchBytes > 0 ? maxPrefetchBytes : Long.MAX_VALUE;
+        this.readerInfo = readerInfo;
+        this.batchPermits = new Semaphore(this.prefetchBatches);
+        final int instance = instanceCounter.incrementAndGet();
+        if (decodeThreads > 0) {
+            final AtomicInteger threadCounter = new AtomicInteger();
+            decodePool = Executors.newFixedThreadPool(decodeThreads, r -> {
+                final Thread t = new Thread(r, "DBReader DecodeThread " + instance + "-" + threadCounter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        if (this.prefetchBatches > 0) {
+            log.debug("Fetching up to {} document batches in advance in a background thread.", this.prefetchBatches);
+            fetcherThread = new Thread(this::fetchInBackground, "DBReader RetrievingThread " + instance);
+            fetcherThread.setDaemon(true);
+            fetcherThread.start();
+        }
+    }
+
+    private static long getSize(byte[][] row) {
+        long size = 0;
+        if (row != null) {
+            for (byte[] column : row) {
+                if (column != null)
+                    size += column.length;
+            }
+        }
+        return size;
+    }
+
+    private void fetchInBackground() {
+        try {
+            while (!closed) {
+                batchPermits.acquire();
+                final Batch batch = fetchBatch();
+                if (batch.rows.isEmpty()) {
+                    queue.put(END);
+                    break;
+                }
+                synchronized (bytesLock) {
+                    while (!closed && prefetchedBytes > 0 && prefetchedBytes + batch.bytes > maxPrefetchBytes)
+                        bytesLock.wait();
+                    prefetchedBytes += batch.bytes;
+                }
+                queue.put(batch);
+                updateQueueInfo();
+            }
+        } catch (InterruptedException e) {
+            log.debug("The background document batch fetching has been interrupted.");
+        } catch (Throwable t) {
+            log.error("Exception while fetching documents from the database", t);
+            queue.add(new Batch(t));
+        }
+    }
+
+    private Batch fetchBatch() throws Exception {
+        final long time = System.nanoTime();
+        final List<byte[][]> rows = batchSupplier.fetchNextBatch();
+        if (readerInfo != null)
+            readerInfo.addFetchTime(System.nanoTime() - time);
+        long bytes = 0;
+        for (byte[][] row : rows)
+            bytes += getSize(row);
+        // copy to a mutable list so that consumed rows can be released
+        final Batch batch = new Batch(new ArrayList<>(rows), bytes);
+        if (decodePool != null && !rows.isEmpty()) {
+            batch.decodedRows = new ArrayList<>(rows.size());
+            for (byte[][] row : rows)
+                batch.decodedRows.add(decodePool.submit(() -> decode(row)));
+        }
+        return batch;
+    }
+
+    private byte[][] decode(byte[][] row) throws Exception {
+        final long time = System.nanoTime();
+        final byte[][] decodedRow = decoder.decode(row);
+        if (readerInfo != null)
+            readerInfo.addDecodeTime(System.nanoTime() - time);
+        return decodedRow;
+    }
+
+    private void updateQueueInfo() {
+        if (readerInfo != null) {
+            readerInfo.setPrefetchQueueDepth(queue.size());
+            synchronized (bytesLock) {
+                readerInfo.setPrefetchedBytes(prefetchedBytes);
+            }
+        }
+    }
+
+    /**
+     * Blocks until it is known whether there is another row, which might require to wait for the next batch.
+     *
+     * @return Whether there is another row.
+     * @throws CollectionException If the next batch could not be fetched.
+     */
+    public boolean hasNext() throws CollectionException {
+        if (exhausted)
+            return false;
+        while (currentBatch == null || currentIndex >= currentBatch.rows.size()) {
+            currentBatch = takeBatch();
+            currentIndex = 0;
+            if (currentBatch.rows.isEmpty()) {
+                exhausted = true;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The next decoded row or <tt>null</tt> if there are no more rows.
+     * @throws CollectionException If the next batch could not be fetched or the row could not be decoded.
+     */
+    public byte[][] next() throws CollectionException {
+        if (!hasNext())
+            return null;
+        final int index = currentIndex++;
+        final byte[][] row = currentBatch.rows.get(index);
+        // release the raw data, the batch is referenced until all its rows have been consumed
+        currentBatch.rows.set(index, null);
+        try {
+            if (currentBatch.decodedRows != null) {
+                final Future<byte[][]> decodedRow = currentBatch.decodedRows.get(index);
+                currentBatch.decodedRows.set(index, null);
+                return decodedRow.get();
+            }
+            return decode(row);
+        } catch (ExecutionException e) {
+            throw new CollectionException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CollectionException(e);
+        } catch (Exception e) {
+            throw new CollectionException(e);
+        }
+    }
+
+    private Batch takeBatch() throws CollectionException {
+        try {
+            if (fetcherThread == null) {
+                log.debug("Fetching new documents (without employing a background thread).");
+                return fetchBatch();
+            }
+            final long time = System.nanoTime();
+            final Batch batch = queue.take();
+            if (readerInfo != null)
+                readerInfo.addWaitTime(System.nanoTime() - time);
+            if (batch.error != null) {
+                // keep the error for subsequent calls
+                queue.add(batch);
+                throw new CollectionException(batch.error);
+            }
+            if (batch != END) {
+                synchronized (bytesLock) {
+                    prefetchedBytes -= batch.bytes;
+                    bytesLock.notifyAll();
+                }
+                batchPermits.release();
+                updateQueueInfo();
+            }
+            return batch;
+        } catch (CollectionException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CollectionException(e);
+        } catch (Exception e) {
+            throw new CollectionException(e);
+        }
+    }
+
+    /**
+     * Stops the background thread and the decode threads. Rows that have already been fetched but not been
+     * consumed are discarded. Returns after the background thread has terminated. Since a running database query is
+     * not interrupted, this may take until the current batch has been fetched. Afterwards, the database connection
+     * may safely be closed.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (fetcherThread != null) {
+            fetcherThread.interrupt();
+            try {
+                fetcherThread.join();
+            } catch (InterruptedException e) {
+                log.warn("Interrupted while waiting for the background document batch fetching to terminate.");
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (decodePool != null)
+            decodePool.shutdownNow();
+        queue.clear();
+    }
+
+    /**
+     * Fetches the next batch of rows from the database.
+     */
+    @FunctionalInterface
+    public interface BatchSupplier {
+        /**
+         * @return The rows of the next batch or an empty list if there are no more rows.
+         * @throws Exception If fetching the batch fails.
+         */
+        List<byte[][]> fetchNextBatch() throws Exception;
+    }
+
+    /**
+     * Prepares a row for CAS population. Implementations must be thread safe if decode threads are used.
+     */
+    @FunctionalInterface
+    public interface RowDecoder {
+        byte[][] decode(byte[][] row) throws Exception;
+    }
+
+    private static class Batch {
+        private final List<byte[][]> rows;
+        private final long bytes;
+        private final Throwable error;
+        private List<Future<byte[][]>> decodedRows;
+
+        private Batch(List<byte[][]> rows, long bytes) {
+            this.rows = rows;
+            this.bytes = bytes;
+            this.error = null;
+        }
+
+        private Batch(Throwable error) {
+            this.rows = Collections.emptyList();
+            this.bytes = 0;
+            this.error = error;
+        }
+    }
+}
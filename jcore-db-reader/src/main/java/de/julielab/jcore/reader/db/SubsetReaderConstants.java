@@ -22,6 +22,22 @@ public class SubsetReaderConstants {
      * suitable when reading all available data.
      */
     public static final String PARAM_FETCH_IDS_PROACTIVELY = "FetchIdsProactively";
+    /**
+     * Integer parameter. The number of document batches that are fetched in
+     * advance by the background thread when {@link #PARAM_FETCH_IDS_PROACTIVELY}
+     * is set to true. All prefetched documents are marked as being in process.
+     */
+    public static final String PARAM_PREFETCH_BATCHES = "PrefetchBatches";
+    /**
+     * Integer parameter. An upper bound for the size in megabytes of the document
+     * data of the batches fetched in advance. 0 means no bound.
+     */
+    public static final String PARAM_PREFETCH_MAX_MEGABYTES = "PrefetchMaxMegabytes";
+    /**
+     * Integer parameter. The number of threads preparing the fetched document
+     * rows for CAS population. 0 means that this is done by the reader thread.
+     */
+    public static final String PARAM_DECODE_THREADS = "DecodeThreads";
     /**
      * Boolean parameter. Indicates whether the read subset table is to be reset
      * before reading.
@@ -1,8 +1,17 @@
 package de.julielab.jcore.reader.db.jmx;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 public class DBReaderInfo implements  DBReaderInfoMBean{
-    private String currentDocumentId;
+    private volatile String currentDocumentId;
     private String componentId;
+    private volatile int prefetchQueueDepth;
+    private volatile long prefetchedBytes;
+    private final AtomicLong fetchedBatches = new AtomicLong();
+    private final AtomicLong totalFetchTime = new AtomicLong();
+    private final AtomicLong decodedRows = new AtomicLong();
+    private final AtomicLong totalDecodeTime = new AtomicLong();
+    private final AtomicLong totalWaitTime = new AtomicLong();
 
     public void setComponentId(String componentId) {
         this.componentId = componentId;
@@ -12,6 +21,28 @@ public class DBReaderInfo implements  DBReaderInfoMBean{
         this.currentDocumentId = currentDocumentId;
     }
 
+    public void setPrefetchQueueDepth(int prefetchQueueDepth) {
+        this.prefetchQueueDepth = prefetchQueueDepth;
+    }
+
+    public void setPrefetchedBytes(long prefetchedBytes) {
+        this.prefetchedBytes = prefetchedBytes;
+    }
+
+    public void addFetchTime(long nanos) {
+        fetchedBatches.incrementAndGet();
+        totalFetchTime.addAndGet(nanos);
+    }
+
+    public void addDecodeTime(long nanos) {
+        decodedRows.incrementAndGet();
+        totalDecodeTime.addAndGet(nanos);
+    }
+
+    public void addWaitTime(long nanos) {
+        totalWaitTime.addAndGet(nanos);
+    }
+
     @Override
     public String getCurrentDocumentId() {
         return currentDocumentId;
@@ -21,4 +52,36 @@ public class DBReaderInfo implements  DBReaderInfoMBean{
     public String getComponentId() {
         return componentId;
     }
+
+    @Override
+    public int getPrefetchQueueDepth() {
+        return prefetchQueueDepth;
+    }
+
+    @Override
+    public long getPrefetchedBytes() {
+        return prefetchedBytes;
+    }
+
+    @Override
+    public long getFetchedBatches() {
+        return fetchedBatches.get();
+    }
+
+    @Override
+    public double getAverageFetchTimeMillis() {
+        final long batches = fetchedBatches.get();
+        return batches > 0 ? totalFetchTime.get() / (batches * 1000000d) : 0;
+    }
+
+    @Override
+    public double getAverageDecodeTimeMillis() {
+        final long rows = decodedRows.get();
+        return rows > 0 ? totalDecodeTime.get() / (rows * 1000000d) : 0;
+    }
+
+    @Override
+    public long getTotalWaitTimeMillis() {
+        return totalWaitTime.get() / 1000000;
+    }
 }
@@ -3,4 +3,34 @@ package de.julielab.jcore.reader.db.jmx;
 public interface DBReaderInfoMBean {
     String getCurrentDocumentId();
     String getComponentId();
+
+    /**
+     * @return The number of document batches that have been fetched in advance and wait to be processed.
+     */
+    int getPrefetchQueueDepth();
+
+    /**
+     * @return The size of the data of the prefetched document batches in bytes.
+     */
+    long getPrefetchedBytes();
+
+    /**
+     * @return The number of document batches fetched from the database so far.
+     */
+    long getFetchedBatches();
+
+    /**
+     * @return The average time in milliseconds to fetch a batch of documents from the database.
+     */
+    double getAverageFetchTimeMillis();
+
+    /**
+     * @return The average time in milliseconds to decode a document row.
+     */
+    double getAverageDecodeTimeMillis();
+
+    /**
+     * @return The total time in milliseconds the reader thread had to wait for prefetched batches.
+     */
+    long getTotalWaitTimeMillis();
 }
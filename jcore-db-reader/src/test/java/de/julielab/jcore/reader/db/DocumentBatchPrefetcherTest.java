@@ -0,0 +1,181 @@
+package de.julielab.jcore.reader.db;
+
+import de.julielab.jcore.reader.db.jmx.DBReaderInfo;
+import org.apache.uima.collection.CollectionException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class DocumentBatchPrefetcherTest {
+
+    /**
+     * A stub for the database that delivers <tt>numBatches</tt> batches of <tt>batchSize</tt> rows of the form
+     * [docId, 1000 bytes of data].
+     */
+    private static class StubBatchSupplier implements DocumentBatchPrefetcher.BatchSupplier {
+        private final int numBatches;
+        private final int batchSize;
+        private final AtomicInteger fetchedBatches = new AtomicInteger();
+
+        private StubBatchSupplier(int numBatches, int batchSize) {
+            this.numBatches = numBatches;
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public List<byte[][]> fetchNextBatch() throws Exception {
+            int batch = fetchedBatches.get();
+            if (batch >= numBatches)
+                return Collections.emptyList();
+            // simulate database latency
+            Thread.sleep(5);
+            List<byte[][]> rows = new ArrayList<>();
+            for (int i = 0; i < batchSize; i++)
+                rows.add(new byte[][]{String.valueOf(batch * batchSize + i).getBytes(StandardCharsets.UTF_8), new byte[1000]});
+            fetchedBatches.incrementAndGet();
+            return rows;
+        }
+    }
+
+    private List<Integer> readAll(DocumentBatchPrefetcher prefetcher) throws CollectionException {
+        List<Integer> docIds = new ArrayList<>();
+        while (prefetcher.hasNext())
+            docIds.add(Integer.parseInt(new String(prefetcher.next()[0], StandardCharsets.UTF_8)));
+        assertThat(prefetcher.next()).isNull();
+        return docIds;
+    }
+
+    private List<Integer> expectedIds(int numDocuments) {
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < numDocuments; i++)
+            expected.add(i);
+        return expected;
+    }
+
+    @Test
+    public void testFetchOnDemand() throws Exception {
+        StubBatchSupplier supplier = new StubBatchSupplier(5, 10);
+        try (DocumentBatchPrefetcher prefetcher = new DocumentBatchPrefetcher(supplier, row -> row, 0, 0, 0, null)) {
+            assertThat(prefetcher.hasNext()).isTrue();
+            // without prefetching, only the first batch has been fetched
+            assertThat(supplier.fetchedBatches.get()).isEqualTo(1);
+            assertThat(readAll(prefetcher)).isEqualTo(expectedIds(50));
+        }
+    }
+
+    @Test
+    public void testPrefetchDepth() throws Exception {
+        StubBatchSupplier supplier = new StubBatchSupplier(20, 10);
+        try (DocumentBatchPrefetcher prefetcher = new DocumentBatchPrefetcher(supplier, row -> row, 3, 0, 0, null)) {
+            assertThat(prefetcher.next()).isNotNull();
+            Thread.sleep(200);
+            // the current batch and three batches in advance
+            assertThat(supplier.fetchedBatches.get()).isEqualTo(4);
+            List<Integer> docIds = readAll(prefetcher);
+            assertThat(docIds).hasSize(199).startsWith(1).endsWith(199);
+        }
+    }
+
+    @Test
+    public void testMemoryBound() throws Exception {
+        StubBatchSupplier supplier = new StubBatchSupplier(20, 10);
+        DBReaderInfo readerInfo = new DBReaderInfo();
+        // a batch has a size of a bit more than 10000 bytes, so only one batch fits into the bound
+        try (DocumentBatchPrefetcher prefetcher = new DocumentBatchPrefetcher(supplier, row -> row, 10, 15000, 0, readerInfo)) {
+            assertThat(prefetcher.next()).isNotNull();
+            Thread.sleep(200);
+            // the current batch, one prefetched batch and a third batch waiting for the bound to admit it
+            assertThat(supplier.fetchedBatches.get()).isEqualTo(3);
+            assertThat(readerInfo.getPrefetchQueueDepth()).isEqualTo(1);
+            assertThat(readerInfo.getPrefetchedBytes()).isLessThanOrEqualTo(15000);
+            assertThat(readAll(prefetcher)).hasSize(199);
+        }
+        assertThat(readerInfo.getFetchedBatches()).isEqualTo(21);
+        assertThat(readerInfo.getAverageFetchTimeMillis()).isGreaterThan(0);
+    }
+
+    @Test
+    public void testParallelDecoding() throws Exception {
+        StubBatchSupplier supplier = new StubBatchSupplier(20, 10);
+        DBReaderInfo readerInfo = new DBReaderInfo();
+        DocumentBatchPrefetcher.RowDecoder decoder = row -> {
+            Thread.sleep(1);
+            return new byte[][]{row[0], "decoded".getBytes(StandardCharsets.UTF_8)};
+        };
+        try (DocumentBatchPrefetcher prefetcher = new DocumentBatchPrefetcher(supplier, decoder, 2, 0, 4, readerInfo)) {
+            List<Integer> docIds = new ArrayList<>();
+            while (prefetcher.hasNext()) {
+                byte[][] row = prefetcher.next();
+                assertThat(new String(row[1], StandardCharsets.UTF_8)).isEqualTo("decoded");
+                docIds.add(Integer.parseInt(new String(row[0], StandardCharsets.UTF_8)));
+            }
+            // the order of the rows is kept
+            assertThat(docIds).isEqualTo(expectedIds(200));
+        }
+        assertThat(readerInfo.getAverageDecodeTimeMillis()).isGreaterThan(0);
+    }
+
+    @Test
+    public void testFetchError() throws Exception {
+        StubBatchSupplier supplier = new StubBatchSupplier(2, 10);
+        DocumentBatchPrefetcher.BatchSupplier failingSupplier = () -> {
+            if (supplier.fetchedBatches.get() == 2)
+                throw new IllegalStateException("Connection lost");
+            return supplier.fetchNextBatch();
+        };
+        try (DocumentBatchPrefetcher prefetcher = new DocumentBatchPrefetcher(failingSupplier, row -> row, 1, 0, 0, null)) {
+            for (int i = 0; i < 20; i++)
+                assertThat(prefetcher.next()).isNotNull();
+            assertThatThrownBy(prefetcher::hasNext).isInstanceOf(CollectionException.class).hasRootCauseInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    public void testCloseWaitsForRunningFetch() throws Exception {
+        StubBatchSupplier supplier = new StubBatchSupplier(5, 10);
+        CountDownLatch fetchStarted = new CountDownLatch(1);
+        CountDownLatch releaseFetch = new CountDownLatch(1);
+        AtomicBoolean fetchFinished = new AtomicBoolean();
+        // like a database query, the second fetch does not react to interrupts
+        DocumentBatchPrefetcher.BatchSupplier blockingSupplier = () -> {
+            if (supplier.fetchedBatches.get() == 1) {
+                fetchStarted.countDown();
+                while (true) {
+                    try {
+                        releaseFetch.await();
+                        break;
+                    } catch (InterruptedException e) {
+                        // ignore
+                    }
+                }
+                fetchFinished.set(true);
+            }
+            return supplier.fetchNextBatch();
+        };
+        DocumentBatchPrefetcher prefetcher = new DocumentBatchPrefetcher(blockingSupplier, row -> row, 1, 0, 0, null);
+        assertThat(prefetcher.next()).isNotNull();
+        assertThat(fetchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        AtomicBoolean fetchFinishedAtClose = new AtomicBoolean();
+        Thread closer = new Thread(() -> {
+            prefetcher.close();
+            fetchFinishedAtClose.set(fetchFinished.get());
+        });
+        closer.start();
+        closer.join(200);
+        assertThat(closer.isAlive()).isTrue();
+        releaseFetch.countDown();
+        closer.join(5000);
+        assertThat(closer.isAlive()).isFalse();
+        assertThat(fetchFinishedAtClose.get()).isTrue();
+    }
+}
@@ -0,0 +1,376 @@
+package de.julielab.jcore.consumer.es;
+
+import com.google.gson.Gson;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>
+ * Sends bulk index requests to ElasticSearch asynchronously.
+ * </p>
+ * <p>
+ * Bulk items, i.e. the action line and the source line of each document, are written directly into a pooled byte
+ * buffer via the writer returned by {@link #startItem()}. When the buffer has reached the configured number of
+ * bytes, {@link #isBulkFull()} returns <tt>true</tt> and the owner of this sender should call {@link #dispatch()}.
+ * The buffer is then sent by a worker thread to the next URL in a round-robin fashion while the calling thread may
+ * continue to fill the next buffer. At most <tt>maxInFlightRequests</tt> requests are sent concurrently; if all
+ * of them are in flight, {@link #dispatch()} blocks until one of them returns. This is the back-pressure that keeps
+ * the memory consumption bounded.
+ * </p>
+ * <p>
+ * The bulk response is checked for failed items. Items that failed with a status indicating temporary overload of
+ * the cluster (429 or 5xx) are collected and sent again, up to <tt>maxRetries</tt> times. The same holds for
+ * requests that failed as a whole with such a status or with an I/O error. If a request still fails after all
+ * retries, the error is reported by the next call to {@link #dispatch()} or {@link #flush()}.
+ * </p>
+ * <p>
+ * This class is not thread safe in the sense that only one thread should add items. The sending is done by
+ * internal threads.
+ * </p>
+ */
+public class ElasticSearchBulkSender implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(ElasticSearchBulkSender.class);
+    private static final long RETRY_BASE_DELAY = 100;
+    private final String[] bulkUrls;
+    private final int maxBulkSizeInBytes;
+    private final int maxInFlightRequests;
+    private final int maxRetries;
+    private final HttpClient httpClient;
+    private final Gson gson = new Gson();
+    private final ExecutorService executor;
+    private final Semaphore inFlightPermits;
+    private final BlockingQueue<BulkBuffer> bufferPool;
+    private final AtomicInteger urlIndex = new AtomicInteger();
+    private final AtomicReference<Throwable> sendError = new AtomicReference<>();
+    private final AtomicLong documentsSent = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong requestsSent = new AtomicLong();
+    private final AtomicLong itemsRetried = new AtomicLong();
+    private final AtomicLong itemsFailed = new AtomicLong();
+    private final AtomicInteger maxObservedInFlight = new AtomicInteger();
+    private final long startTime = System.nanoTime();
+    private BulkBuffer currentBuffer;
+
+    /**
+     * @param bulkUrls            The <tt>_bulk</tt> endpoints of the ElasticSearch nodes.
+     * @param maxBulkSizeInBytes  The size in bytes after which a bulk request should be dispatched.
+     * @param maxInFlightRequests The maximum number of concurrently sent bulk requests.
+     * @param maxRetries          The maximum number of times that failed items are sent again.
+     * @param httpClient          A thread safe HTTP client that is able to open at least
+     *                            <tt>maxInFlightRequests</tt> connections.
+     */
+    public ElasticSearchBulkSender(String[] bulkUrls, int maxBulkSizeInBytes, int maxInFlightRequests, int maxRetries, HttpClient httpClient) {
+        if (bulkUrls == null || bulkUrls.length == 0)
+            throw new IllegalArgumentException("At least one ElasticSearch URL is required.");
+        if (maxInFlightRequests < 1)
+            throw new IllegalArgumentException("The number of in-flight requests must be at least 1 but was " + maxInFlightRequests);
+        this.bulkUrls = bulkUrls;
+        this.maxBulkSizeInBytes = maxBulkSizeInBytes;
+        this.maxInFlightRequests = maxInFlightRequests;
+        this.maxRetries = maxRetries;
+        this.httpClient = httpClient;
+        inFlightPermits = new Semaphore(maxInFlightRequests);
+        // one buffer for each in-flight request plus the one currently filled
+        bufferPool = new ArrayBlockingQueue<>(maxInFlightRequests + 1);
+        executor = Executors.newFixedThreadPool(maxInFlightRequests, r -> {
+            Thread t = new Thread(r, "ElasticSearchBulkSender");
+            t.setDaemon(true);
+            return t;
+        });
+        currentBuffer = new BulkBuffer(maxBulkSizeInBytes);
+    }
+
+    /**
+     * Begins a new bulk item. The action and source lines of the item must be written to the returned writer, each
+     * followed by a newline. Then, {@link #finishItem()} must be called.
+     *
+     * @return The writer to write the bulk item to.
+     */
+    public Writer startItem() {
+        currentBuffer.startItem();
+        return currentBuffer.writer;
+    }
+
+    /**
+     * Completes the item begun with {@link #startItem()}.
+     *
+     * @throws IOException If the writer cannot be flushed.
+     */
+    public void finishItem() throws IOException {
+        currentBuffer.writer.flush();
+    }
+
+    /**
+     * @return Whether the current bulk request has reached the configured size and should be dispatched.
+     */
+    public boolean isBulkFull() {
+        return currentBuffer.size() >= maxBulkSizeInBytes;
+    }
+
+    /**
+     * Hands the current bulk request to a worker thread for sending. Blocks while the maximum number of requests is
+     * in flight.
+     *
+     * @throws IOException If a previous request has failed after all retries.
+     */
+    public void dispatch() throws IOException {
+        checkSendError();
+        if (currentBuffer.getNumItems() == 0)
+            return;
+        BulkBuffer buffer = currentBuffer;
+        try {
+            inFlightPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for an in-flight bulk request to finish.", e);
+        }
+        maxObservedInFlight.accumulateAndGet(getNumInFlightRequests(), Math::max);
+        BulkBuffer nextBuffer = bufferPool.poll();
+        currentBuffer = nextBuffer != null ? nextBuffer : new BulkBuffer(maxBulkSizeInBytes);
+        try {
+            executor.submit(() -> {
+                try {
+                    send(buffer);
+                } catch (Throwable t) {
+                    sendError.compareAndSet(null, t);
+                } finally {
+                    buffer.reset();
+                    bufferPool.offer(buffer);
+                    inFlightPermits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlightPermits.release();
+            throw new IOException("The bulk sender has already been closed.", e);
+        }
+    }
+
+    /**
+     * Dispatches the current bulk request and waits until all requests have been sent.
+     *
+     * @throws IOException If a request has failed after all retries.
+     */
+    public void flush() throws IOException {
+        dispatch();
+        try {
+            inFlightPermits.acquire(maxInFlightRequests);
+            inFlightPermits.release(maxInFlightRequests);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for in-flight bulk requests to finish.", e);
+        }
+        checkSendError();
+    }
+
+    private void checkSendError() throws IOException {
+        Throwable error = sendError.getAndSet(null);
+        if (error != null)
+            throw error instanceof IOException ? (IOException) error : new IOException(error);
+    }
+
+    private void send(BulkBuffer buffer) throws IOException, InterruptedException {
+        BulkBuffer toSend = buffer;
+        for (int attempt = 0; toSend != null; ++attempt) {
+            if (attempt > 0)
+                Thread.sleep(RETRY_BASE_DELAY << Math.min(attempt - 1, 10));
+            String url = bulkUrls[Math.floorMod(urlIndex.getAndIncrement(), bulkUrls.length)];
+            boolean lastAttempt = attempt >= maxRetries;
+            try {
+                toSend = post(url, toSend, lastAttempt);
+            } catch (IOException e) {
+                if (lastAttempt)
+                    throw e;
+                log.warn("Sending a bulk request with {} items to {} failed, retrying: {}", toSend.getNumItems(), url, e.getMessage());
+            }
+            if (toSend != null)
+                itemsRetried.addAndGet(toSend.getNumItems());
+        }
+    }
+
+    /**
+     * Posts the buffer and returns the items that should be retried or <tt>null</tt> if there are none.
+     */
+    @SuppressWarnings("unchecked")
+    private BulkBuffer post(String url, BulkBuffer buffer, boolean lastAttempt) throws IOException {
+        log.debug("Sending {} documents with {} bytes to {}.", buffer.getNumItems(), buffer.size(), url);
+        long time = System.currentTimeMillis();
+        HttpPost post = new HttpPost(url);
+        post.setEntity(new ByteArrayEntity(buffer.getBuffer(), 0, buffer.size(), ContentType.create("application/x-ndjson", StandardCharsets.UTF_8)));
+        HttpResponse response = httpClient.execute(post);
+        HttpEntity responseEntity = response.getEntity();
+        try {
+            int statusCode = response.getStatusLine().getStatusCode();
+            time = System.currentTimeMillis() - time;
+            log.debug("Sending took {}ms ({}s) and returned status code {}", time, time / 1000, statusCode);
+            if (isRetryable(statusCode) && !lastAttempt) {
+                log.warn("ElasticSearch responded with status {} to a bulk request, retrying all {} items.", statusCode, buffer.getNumItems());
+                return buffer;
+            }
+            if (statusCode > 200) {
+                log.error("The server responded with a non-OK status code: {}", statusCode);
+                log.error("Response status line: {}", response.getStatusLine());
+                log.error("Response body: {}", EntityUtils.toString(responseEntity));
+                itemsFailed.addAndGet(buffer.getNumItems());
+                return null;
+            }
+            Map<String, Object> parsedResponse = gson.fromJson(EntityUtils.toString(responseEntity, StandardCharsets.UTF_8), Map.class);
+            int numItems = buffer.getNumItems();
+            if (parsedResponse == null || !Boolean.TRUE.equals(parsedResponse.get("errors"))) {
+                documentsSent.addAndGet(numItems);
+                bytesSent.addAndGet(buffer.size());
+                requestsSent.incrementAndGet();
+                return null;
+            }
+            List<Map<String, Map<String, Object>>> items = (List<Map<String, Map<String, Object>>>) parsedResponse.get("items");
+            BulkBuffer retryBuffer = null;
+            int numFailed = 0;
+            for (int i = 0; i < items.size() && i < numItems; i++) {
+                // each item has exactly one entry: the action, e.g. "index", with its result
+                Map<String, Object> itemResult = items.get(i).values().iterator().next();
+                int itemStatus = ((Number) itemResult.get("status")).intValue();
+                if (itemStatus < 300)
+                    continue;
+                if (isRetryable(itemStatus) && !lastAttempt) {
+                    if (retryBuffer == null)
+                        retryBuffer = new BulkBuffer(maxBulkSizeInBytes);
+                    retryBuffer.addItem(buffer, i);
+                } else {
+                    ++numFailed;
+                    log.error("Document {} could not be indexed, status {}: {}", itemResult.get("_id"), itemStatus, itemResult.get("error"));
+                }
+            }
+            int numRetried = retryBuffer != null ? retryBuffer.getNumItems() : 0;
+            itemsFailed.addAndGet(numFailed);
+            documentsSent.addAndGet(numItems - numFailed - numRetried);
+            bytesSent.addAndGet(buffer.size());
+            requestsSent.incrementAndGet();
+            if (numRetried > 0)
+                log.debug("{} items of the bulk request to {} were rejected temporarily and will be retried.", numRetried, url);
+            return retryBuffer;
+        } finally {
+            EntityUtils.consume(responseEntity);
+        }
+    }
+
+    private boolean isRetryable(int statusCode) {
+        return statusCode == 429 || statusCode >= 500;
+    }
+
+    public long getDocumentsSent() {
+        return documentsSent.get();
+    }
+
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    public long getRequestsSent() {
+        return requestsSent.get();
+    }
+
+    public long getItemsRetried() {
+        return itemsRetried.get();
+    }
+
+    public long getItemsFailed() {
+        return itemsFailed.get();
+    }
+
+    public int getNumInFlightRequests() {
+        return maxInFlightRequests - inFlightPermits.availablePermits();
+    }
+
+    public int getMaxObservedInFlightRequests() {
+        return maxObservedInFlight.get();
+    }
+
+    public double getDocumentsPerSecond() {
+        return documentsSent.get() / getElapsedSeconds();
+    }
+
+    public double getBytesPerSecond() {
+        return bytesSent.get() / getElapsedSeconds();
+    }
+
+    private double getElapsedSeconds() {
+        return Math.max(System.nanoTime() - startTime, 1) / 1e9;
+    }
+
+    public void logMetrics() {
+        log.info("Sent {} documents ({} MB) in {} bulk requests to ElasticSearch: {} docs/s, {} MB/s. Retried items: {}, failed items: {}, in-flight requests: {} (max. {}).",
+                documentsSent.get(), String.format("%.2f", bytesSent.get() / 1048576d), requestsSent.get(),
+                String.format("%.1f", getDocumentsPerSecond()), String.format("%.2f", getBytesPerSecond() / 1048576d),
+                itemsRetried.get(), itemsFailed.get(), getNumInFlightRequests(), maxObservedInFlight.get());
+    }
+
+    /**
+     * Stops the worker threads. Requests that have not been dispatched are discarded, thus {@link #flush()} should
+     * be called before.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * A byte buffer holding bulk items that remembers where each item starts so that single items can be copied for
+     * retries.
+     */
+    private static class BulkBuffer extends ByteArrayOutputStream {
+        private final Writer writer = new OutputStreamWriter(this, StandardCharsets.UTF_8);
+        private int[] itemStarts = new int[64];
+        private int numItems;
+
+        public BulkBuffer(int size) {
+            super(size + size / 10);
+        }
+
+        void startItem() {
+            if (numItems == itemStarts.length)
+                itemStarts = Arrays.copyOf(itemStarts, numItems * 2);
+            itemStarts[numItems++] = count;
+        }
+
+        void addItem(BulkBuffer source, int itemIndex) {
+            int start = source.itemStarts[itemIndex];
+            int end = itemIndex + 1 < source.numItems ? source.itemStarts[itemIndex + 1] : source.count;
+            startItem();
+            write(source.buf, start, end - start);
+        }
+
+        int getNumItems() {
+            return numItems;
+        }
+
+        byte[] getBuffer() {
+            return buf;
+        }
+
+        @Override
+        public synchronized void reset() {
+            super.reset();
+            numItems = 0;
+        }
+    }
+}
@@ -3,7 +3,6 @@ package de.julielab.jcore.consumer.es;
 import com.google.gson.Gson;
 import de.julielab.jcore.consumer.es.preanalyzed.Document;
 import de.julielab.jcore.utility.JCoReTools;
-import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.time.StopWatch;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
@@ -22,6 +21,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.util.*;
 
 @ResourceMetaData(name = "JCore ElasticSearch Consumer")
@@ -37,6 +37,9 @@ public class ElasticSearchConsumer extends AbstractCasToJsonConsumer {
     public static final String PARAM_BATCH_SIZE = "batchSize";
     public static final String PARAM_DELETE_DOCS_BEFORE_INDEXING = "deleteDocumentsBeforeIndexing";
     public static final String PARAM_DOC_ID_FIELD = "documentIdField";
+    public static final String PARAM_BULK_SIZE_BYTES = "bulkSizeInBytes";
+    public static final String PARAM_MAX_CONCURRENT_BULK_REQUESTS = "maxConcurrentBulkRequests";
+    public static final String PARAM_MAX_BULK_RETRIES = "maxBulkRetries";
     final Logger log = LoggerFactory.getLogger(ElasticSearchConsumer.class);
     @ConfigurationParameter(name = PARAM_URLS, description = "A list of URLs pointing to different nodes of the ElasticSearch cluster, e.g. http://localhost:9300/. Documents will be sent bulk-wise to the nodes in a round-robin fashion.")
     private String[] urls;
@@ -44,16 +47,21 @@ public class ElasticSearchConsumer extends AbstractCasToJsonConsumer {
     private String indexName;
     @ConfigurationParameter(name = PARAM_TYPE, mandatory = false, description = "The index type the generated documents should have. The types are removed from ElasticSearch with version 7 and should be omitted for ES >= 7.")
     private String type;
-    @ConfigurationParameter(name = PARAM_BATCH_SIZE, mandatory = false, description = "The number of documents to be sent to ElasticSearch in a single batch. Defaults to 50.")
+    @ConfigurationParameter(name = PARAM_BATCH_SIZE, mandatory = false, description = "The number of documents after which a batch is completed. At the end of a batch, the documents scheduled for deletion are deleted from the index. The size of the bulk index requests is determined by the " + PARAM_BULK_SIZE_BYTES + " parameter. Defaults to 50.")
     private int batchSize;
     @ConfigurationParameter(name = PARAM_DELETE_DOCS_BEFORE_INDEXING, mandatory = false, description = "Whether or not to delete documents with the docId of the UIMA CASes in ElasticSearch prior to indexing. This is useful when parts of the document are indexed whose IDs are not stable or that might change after document updates and would not just be overwritten when indexing anew. Defaults to false.")
     private boolean deleteDocsBeforeIndexing;
     @ConfigurationParameter(name = PARAM_DOC_ID_FIELD, mandatory = false, description = "Required when " + PARAM_DELETE_DOCS_BEFORE_INDEXING + " is set to true. This should be an existing index field that contains the document ID of each CAS. It is used to remove existing index documents related to the CAS document ID prior to indexing.")
     private String docIdField;
+    @ConfigurationParameter(name = PARAM_BULK_SIZE_BYTES, mandatory = false, description = "The size in bytes after which a bulk index request is sent to ElasticSearch. Defaults to 5MB.")
+    private int bulkSizeInBytes;
+    @ConfigurationParameter(name = PARAM_MAX_CONCURRENT_BULK_REQUESTS, mandatory = false, description = "The maximum number of bulk index requests that are sent to ElasticSearch concurrently. Bulk requests are sent by background threads while this component continues to process documents. If the maximum number of requests is in flight, processing blocks until a request has been answered. Defaults to 2.")
+    private int maxConcurrentBulkRequests;
+    @ConfigurationParameter(name = PARAM_MAX_BULK_RETRIES, mandatory = false, description = "The maximum number of times that bulk items which have been rejected by ElasticSearch with a status indicating overload (429 or 5xx) are sent again. Defaults to 3.")
+    private int maxBulkRetries;
 
-    private List<String> bulkCommand;
+    private ElasticSearchBulkSender bulkSender;
     private List<String> docIdsToDelete;
-    private HttpPost[] indexPosts;
     private HttpPost[] indexDeletes;
 
     private int urlIndex = 0;
@@ -69,23 +77,31 @@ public class ElasticSearchConsumer extends AbstractCasToJsonConsumer {
         indexName = (String) getContext().getConfigParameterValue(PARAM_INDEX_NAME);
         type = (String) getContext().getConfigParameterValue(PARAM_TYPE);
         batchSize = Optional.ofNullable((Integer) getContext().getConfigParameterValue(PARAM_BATCH_SIZE)).orElse(50);
-        bulkCommand = new ArrayList<>(4000);
+        bulkSizeInBytes = Optional.ofNullable((Integer) getContext().getConfigParameterValue(PARAM_BULK_SIZE_BYTES)).orElse(5 * 1024 * 1024);
+        maxConcurrentBulkRequests = Optional.ofNullable((Integer) getContext().getConfigParameterValue(PARAM_MAX_CONCURRENT_BULK_REQUESTS)).orElse(2);
+        maxBulkRetries = Optional.ofNullable((Integer) getContext().getConfigParameterValue(PARAM_MAX_BULK_RETRIES)).orElse(3);
         deleteDocsBeforeIndexing = (boolean) Optional.ofNullable(getContext().getConfigParameterValue(PARAM_DELETE_DOCS_BEFORE_INDEXING)).orElse(false);
         docIdField = (String) getContext().getConfigParameterValue(PARAM_DOC_ID_FIELD);
 
         if (deleteDocsBeforeIndexing && docIdField == null)
             throw new ResourceInitializationException(new IllegalArgumentException(PARAM_DELETE_DOCS_BEFORE_INDEXING + " is true but no " + PARAM_DOC_ID_FIELD + " was specified."));
 
-        httpclient = HttpClientBuilder.create().build();
+        // This method is also called on reconfiguration; stop the threads of the previous sender
+        if (bulkSender != null)
+            bulkSender.close();
+        httpclient = HttpClientBuilder.create()
+                .setMaxConnPerRoute(maxConcurrentBulkRequests + 1)
+                .setMaxConnTotal((maxConcurrentBulkRequests + 1) * (urls != null ? urls.length : 1))
+                .build();
         if (urls != null) {
-            indexPosts = new HttpPost[urls.length];
+            String[] bulkUrls = new String[urls.length];
             for (int i = 0; i < urls.length; i++) {
                 String url = urls[i];
                 if (null != url && !url.endsWith("/_bulk"))
                     url = url + "/_bulk";
-                indexPosts[i] = new HttpPost(url);
-                indexPosts[i].addHeader("Content-Type", "application/x-ndjson");
+                bulkUrls[i] = url;
             }
+            bulkSender = new ElasticSearchBulkSender(bulkUrls, bulkSizeInBytes, maxConcurrentBulkRequests, maxBulkRetries, httpclient);
         }
 
         if (deleteDocsBeforeIndexing) {
@@ -108,6 +124,9 @@ public class ElasticSearchConsumer extends AbstractCasToJsonConsumer {
             log.info("{}: {}", PARAM_TYPE, type);
             log.info("{}: {}", PARAM_DELETE_DOCS_BEFORE_INDEXING, deleteDocsBeforeIndexing);
             log.info("{}: {}", PARAM_DOC_ID_FIELD, docIdField);
+            log.info("{}: {}", PARAM_BULK_SIZE_BYTES, bulkSizeInBytes);
+            log.info("{}: {}", PARAM_MAX_CONCURRENT_BULK_REQUESTS, maxConcurrentBulkRequests);
+            log.info("{}: {}", PARAM_MAX_BULK_RETRIES, maxBulkRetries);
         }
     }
 
@@ -127,8 +146,7 @@ public class ElasticSearchConsumer extends AbstractCasToJsonConsumer {
             // generator classes are delivered by the user.
             Document singleDocument = convertCasToDocument(aJCas);
             if (null != singleDocument && !singleDocument.isEmpty()) {
-                addIndexAction(indexName, singleDocument.getId(), singleDocument.getParentId(), gson);
-                addIndexSource(singleDocument);
+                addBulkItem(indexName, singleDocument, gson);
             }
 
             // Advanced mode: It is also possible to create more than one
@@ -141,21 +159,35 @@ public class ElasticSearchConsumer extends AbstractCasToJsonConsumer {
             List<Document> documents = convertCasToDocuments(aJCas);
             if (documents != null) {
                 for (Document document : documents) {
-                    addIndexAction(document.getIndex() != null ? document.getIndex() : indexName, document.getId(), document.getParentId(), gson);
-                    addIndexSource(document);
+                    addBulkItem(document.getIndex() != null ? document.getIndex() : indexName, document, gson);
                 }
             }
             w.stop();
             ++docNum;
             if (docNum % batchSize == 0)
                 customBatchProcessComplete();
+            else if (bulkSender.isBulkFull())
+                postBulkIndexAction();
         } catch (Exception e) {
             log.error("Error with document ID {}.", JCoReTools.getDocId(aJCas));
             throw new AnalysisEngineProcessException(e);
         }
     }
 
-    private void addIndexAction(String index, String docId, String parentId, Gson gson) {
+    /**
+     * Writes the bulk action line and the source line for <tt>doc</tt> directly into the buffer of the bulk sender.
+     */
+    private void addBulkItem(String index, Document doc, Gson gson) throws IOException {
+        Writer writer = bulkSender.startItem();
+        addIndexAction(index, doc.getId(), doc.getParentId(), gson, writer);
+        writer.write('\n');
+        writeIndexSource(doc, writer);
+        // The bulk format requires us to have a newline also after the last line; it will be ignored otherwise!
+        writer.write('\n');
+        bulkSender.finishItem();
+    }
+
+    private void addIndexAction(String index, String docId, String parentId, Gson gson, Writer writer) {
         // { "index" : { "_index" : "test", "_type" : "type1", "_id" : "1",
         // "parent" : "1234567 } }
         if (docId == null)
@@ -173,25 +205,22 @@ public class ElasticSearchConsumer extends AbstractCasToJsonConsumer {
         Map<String, Object> map = new HashMap<>();
         map.put("index", indexMap);
 
-        bulkCommand.add(gson.toJson(map));
+        gson.toJson(map, writer);
     }
 
-    private void addIndexSource(Document doc) {
-        bulkCommand.add(createIndexSource(doc));
-    }
-
-    protected String createIndexSource(Document doc) {
-        return gson.toJson(doc);
+    protected void writeIndexSource(Document doc, Writer writer) {
+        gson.toJson(doc, writer);
     }
 
     // Intentional taken out of the UIMA CPE batch processing complete flow because it only seems to work with CPEs
     // and even then only when the component is not included into an AAE.
     public void customBatchProcessComplete() throws AnalysisEngineProcessException {
         super.batchProcessComplete();
-        log.debug("Batch of {} documents is sent to ElasticSearch.", docNum);
+        log.debug("Batch of {} documents is complete.", docNum);
         docNum = 0;
         deleteDocuments();
-        postBulkIndexAction();
+        if (bulkSender.isBulkFull())
+            postBulkIndexAction();
     }
 
     @Override
@@ -199,7 +228,20 @@ public class ElasticSearchConsumer extends AbstractCasToJsonConsumer {
         super.collectionProcessComplete();
         log.info("Collection complete.");
         deleteDocuments();
-        postBulkIndexAction();
+        try {
+            bulkSender.flush();
+        } catch (IOException e) {
+            log.error("Error when sending data to ElasticSearch:", e);
+            throw new AnalysisEngineProcessException(e);
+        }
+        bulkSender.logMetrics();
+    }
+
+    @Override
+    public void destroy() {
+        if (bulkSender != null)
+            bulkSender.close();
+        super.destroy();
     }
 
     private void deleteDocuments() throws AnalysisEngineProcessException {
@@ -251,48 +293,20 @@ public class ElasticSearchConsumer extends AbstractCasToJsonConsumer {
         }
     }
 
+    /**
+     * Hands the current bulk request to the bulk sender. Documents scheduled for deletion are deleted before so that
+     * the deletion does not remove the newly indexed documents.
+     */
     private void postBulkIndexAction() throws AnalysisEngineProcessException {
-        if (bulkCommand.isEmpty())
-            return;
-        // Post to all the ElasticSearch nodes in a round-robin fashion.
-        HttpPost indexPost = indexPosts[urlIndex];
-        urlIndex = (urlIndex + 1) % indexPosts.length;
+        deleteDocuments();
         try {
-            int lastIndex = 0;
-            List<String> subList;
-            do {
-                subList = bulkCommand.subList(lastIndex, Math.min(bulkCommand.size(), lastIndex + 1000));
-                if (subList.isEmpty())
-                    continue;
-                lastIndex += subList.size();
-                log.debug("Sending {} documents to index {}.", subList.size(), indexName);
-                long time = System.currentTimeMillis();
-                // The bulk format requires us to have a newline also after the
-                // last
-                // line; it will be ignored otherwise!
-                String bulkCommandString = StringUtils.join(subList, "\n") + "\n";
-                StringEntity bulkIndexEntity = new StringEntity(bulkCommandString, "UTF-8");
-                indexPost.setEntity(bulkIndexEntity);
-                HttpResponse response = httpclient.execute(indexPost);
-                int statusCode = response.getStatusLine().getStatusCode();
-                HttpEntity responseEntity = response.getEntity();
-                if (statusCode > 200) {
-                    log.error("The server responded with a non-OK status code: {}", statusCode);
-                    log.error("Response status line: {}", response.getStatusLine());
-                    log.error("Response body: {}", EntityUtils.toString(responseEntity));
-                    log.error("Bulk command was: {}", bulkCommandString);
-                }
-                EntityUtils.consume(responseEntity);
-                time = System.currentTimeMillis() - time;
-                log.debug("Sending took {}ms ({}s) and returned status code {}", time, time / 1000, statusCode);
-            } while (null != subList && !subList.isEmpty());
+            bulkSender.dispatch();
         } catch (IOException e) {
             log.error("Error when sending data to ElasticSearch:", e);
             throw new AnalysisEngineProcessException(e);
-        } finally {
-            indexPost.reset();
-            bulkCommand.clear();
         }
+        if (log.isDebugEnabled())
+            bulkSender.logMetrics();
     }
 
     /**
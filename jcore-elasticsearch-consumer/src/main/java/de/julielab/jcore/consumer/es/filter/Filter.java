@@ -6,4 +6,23 @@ public interface Filter {
 	List<String> filter(String input);
 	void reset();
 	Filter copy();
+
+	/**
+	 * Streaming variant of {@link #filter(String)}: Filters the given term and passes each output term to
+	 * <tt>downstream</tt>. Implementations may modify and pass on the given buffer itself which avoids the creation
+	 * of intermediate strings and lists. The default implementation adapts {@link #filter(String)} so that existing
+	 * filters keep working within streaming filter chains.
+	 *
+	 * @param term       The term to filter. Its contents may be changed by this method.
+	 * @param downstream The receiver of the filter output.
+	 */
+	default void filter(TermBuffer term, TermConsumer downstream) {
+		List<String> values = filter(term.stringValue());
+		if (values == null)
+			return;
+		for (String value : values) {
+			term.set(value);
+			downstream.accept(term);
+		}
+	}
 }
@@ -5,7 +5,8 @@ import java.util.List;
 
 /**
  * Represents a pipeline of filters where the ith filter is applied to the
- * results of the (i-1)th filter.
+ * results of the (i-1)th filter. The filters are applied in a streaming
+ * fashion, see {@link Filter#filter(TermBuffer, TermConsumer)}.
  * 
  * @author faessler
  *
@@ -13,6 +14,10 @@ import java.util.List;
 public class FilterChain extends AbstractFilter {
 
 	private List<Filter> chain;
+	private final TermBuffer inputBuffer = new TermBuffer();
+	private final TermConsumer collector = term -> output.add(term.stringValue());
+	private TermConsumer head;
+	private TermConsumer sink;
 
 	public FilterChain() {
 		super();
@@ -31,25 +36,48 @@ public class FilterChain extends AbstractFilter {
 		if (f == null)
 			throw new IllegalArgumentException("null values are not allowed for elements of the filter chain");
 		chain.add(f);
+		head = null;
 	}
 
 	@Override
 	public List<String> filter(String input) {
-		// the output will be iteratively filtered by all the filters in the
-		// chain
 		newOutput();
-		// add the input as a starting point; the first filter will operate
-		// directly on the input value, subsequent filters on the output of the
-		// previous filter, respectively
-		output.add(input);
-		for (Filter f : chain) {
-			List<String> filterValues = new ArrayList<>();
-			for (String value : output) {
-				filterValues.addAll(f.filter(value));
+		// the input is streamed through all filters of the chain; each filter
+		// passes its output terms directly to the next filter so that no
+		// intermediate lists are created
+		filter(inputBuffer.set(input), collector);
+		return output;
+	}
+
+	@Override
+	public void filter(TermBuffer term, TermConsumer downstream) {
+		TermConsumer previousSink = sink;
+		sink = downstream;
+		try {
+			getHead().accept(term);
+		} finally {
+			sink = previousSink;
+		}
+	}
+
+	/**
+	 * Links the filters of the chain such that the ith stage passes its output
+	 * to the (i+1)th stage and the last stage passes its output to the current
+	 * sink.
+	 * 
+	 * @return The first stage of the chain.
+	 */
+	private TermConsumer getHead() {
+		if (head == null) {
+			TermConsumer next = term -> sink.accept(term);
+			for (int i = chain.size() - 1; i >= 0; --i) {
+				Filter f = chain.get(i);
+				TermConsumer stageOutput = next;
+				next = term -> f.filter(term, stageOutput);
 			}
-			output = filterValues;
+			head = next;
 		}
-		return output;
+		return head;
 	}
 
 	@Override
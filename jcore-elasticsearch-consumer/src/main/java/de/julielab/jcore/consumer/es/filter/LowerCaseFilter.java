@@ -1,6 +1,7 @@
 package de.julielab.jcore.consumer.es.filter;
 
 import java.util.List;
+import java.util.Locale;
 
 public class LowerCaseFilter extends AbstractFilter {
 
@@ -12,6 +13,36 @@ public class LowerCaseFilter extends AbstractFilter {
 		return output;
 	}
 
+	@Override
+	public void filter(TermBuffer term, TermConsumer downstream) {
+		if (term.isNull())
+			return;
+		char[] buffer = term.buffer();
+		int length = term.length();
+		boolean isAscii = isAsciiCompatibleLocale();
+		for (int i = 0; i < length && isAscii; i++) {
+			char c = buffer[i];
+			if (c >= 128)
+				isAscii = false;
+			else if (c >= 'A' && c <= 'Z')
+				buffer[i] = (char) (c + ('a' - 'A'));
+		}
+		// non-ASCII characters may change the length of the term when lower
+		// cased, leave those to String#toLowerCase()
+		if (!isAscii)
+			term.set(term.toString().toLowerCase());
+		downstream.accept(term);
+	}
+
+	/**
+	 * String#toLowerCase() uses the default locale which lower cases some ASCII
+	 * characters differently for a few languages, e.g. 'I' in Turkish.
+	 */
+	private boolean isAsciiCompatibleLocale() {
+		String language = Locale.getDefault().getLanguage();
+		return !"tr".equals(language) && !"az".equals(language) && !"lt".equals(language);
+	}
+
 	@Override
 	public Filter copy() {
 		return new LowerCaseFilter();
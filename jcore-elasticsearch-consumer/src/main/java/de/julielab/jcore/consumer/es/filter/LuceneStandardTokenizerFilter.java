@@ -5,12 +5,22 @@ import org.apache.lucene.analysis.standard.StandardTokenizer;
 import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.apache.lucene.util.AttributeFactory;
 
+import java.io.CharArrayReader;
 import java.io.IOException;
 import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 public class LuceneStandardTokenizerFilter extends AbstractFilter {
 
+	/**
+	 * The tokenizer and the output buffer of the streaming API are created once and
+	 * reused for all terms.
+	 */
+	private Tokenizer tokenizer;
+	private CharTermAttribute tokenizerTerm;
+	private TermBuffer tokenBuffer;
+
 	@Override
 	public List<String> filter(String input) {
 		newOutput();
@@ -28,6 +38,37 @@ public class LuceneStandardTokenizerFilter extends AbstractFilter {
 		return null;
 	}
 
+	@Override
+	public void filter(TermBuffer term, TermConsumer downstream) {
+		if (term.isNull())
+			return;
+		if (tokenizer == null) {
+			tokenizer = new StandardTokenizer(AttributeFactory.DEFAULT_ATTRIBUTE_FACTORY);
+			tokenizerTerm = tokenizer.addAttribute(CharTermAttribute.class);
+			tokenBuffer = new TermBuffer();
+		}
+		// The tokenizer reads from the input term while the tokens are emitted
+		// through the separate token buffer, so the input must not be changed
+		// by the downstream filters.
+		tokenizer.setReader(new CharArrayReader(term.buffer(), 0, term.length()));
+		try {
+			tokenizer.reset();
+			while (tokenizer.incrementToken()) {
+				tokenBuffer.copyBuffer(tokenizerTerm.buffer(), 0, tokenizerTerm.length());
+				downstream.accept(tokenBuffer);
+			}
+			tokenizer.end();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			try {
+				tokenizer.close();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
 	@Override
 	public Filter copy() {
 		return new LuceneStandardTokenizerFilter();
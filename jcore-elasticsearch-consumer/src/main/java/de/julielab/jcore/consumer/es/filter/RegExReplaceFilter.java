@@ -1,6 +1,8 @@
 package de.julielab.jcore.consumer.es.filter;
 
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Replaces portions of terms according to the given regular expression and replacement string.
@@ -12,22 +14,43 @@ public class RegExReplaceFilter extends AbstractFilter {
 	private String regex;
 	private String replacement;
 	private boolean replaceAll;
+	private Matcher matcher;
+	private StringBuilder replacementBuffer;
 
 	public RegExReplaceFilter(String regex, String replacement, boolean replaceAll) {
 		this.regex = regex;
 		this.replacement = replacement;
 		this.replaceAll = replaceAll;
+		this.matcher = Pattern.compile(regex).matcher("");
+		this.replacementBuffer = new StringBuilder();
 	}
 	
 	@Override
 	public List<String> filter(String input) {
 		newOutput();
 		if (input != null) {
-			output.add(replaceAll ? input.replaceAll(regex, replacement) : input.replaceFirst(regex, replacement));
+			matcher.reset(input);
+			output.add(replaceAll ? matcher.replaceAll(replacement) : matcher.replaceFirst(replacement));
 		}
 		return output;
 	}
 
+	@Override
+	public void filter(TermBuffer term, TermConsumer downstream) {
+		if (term.isNull())
+			return;
+		matcher.reset(term);
+		if (matcher.find()) {
+			replacementBuffer.setLength(0);
+			do {
+				matcher.appendReplacement(replacementBuffer, replacement);
+			} while (replaceAll && matcher.find());
+			matcher.appendTail(replacementBuffer);
+			term.setEmpty().append(replacementBuffer);
+		}
+		downstream.accept(term);
+	}
+
 	@Override
 	public Filter copy() {
 		return new RegExReplaceFilter(regex, replacement, replaceAll);
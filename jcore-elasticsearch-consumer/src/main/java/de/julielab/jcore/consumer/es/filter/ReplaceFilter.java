@@ -23,6 +23,16 @@ public class ReplaceFilter extends AbstractFilter {
 		return output;
 	}
 
+	@Override
+	public void filter(TermBuffer term, TermConsumer downstream) {
+		if (term.isNull())
+			return;
+		String replacement = replacements.get(term.toString());
+		if (null != replacement)
+			term.set(replacement);
+		downstream.accept(term);
+	}
+
 	@Override
 	public Filter copy() {
 		return new ReplaceFilter(replacements);
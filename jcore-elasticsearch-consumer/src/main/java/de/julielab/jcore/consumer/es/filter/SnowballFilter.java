@@ -30,6 +30,21 @@ public class SnowballFilter extends AbstractFilter {
 		return output;
 	}
 
+	@Override
+	public void filter(TermBuffer term, TermConsumer downstream) {
+		if (term.isNull())
+			return;
+		stemmer.setCurrent(term.buffer(), term.length());
+		stemmer.stem();
+		char[] stemmed = stemmer.getCurrentBuffer();
+		// the stemmer works in place unless the term buffer was too small
+		if (stemmed != term.buffer())
+			term.copyBuffer(stemmed, 0, stemmer.getCurrentBufferLength());
+		else
+			term.setLength(stemmer.getCurrentBufferLength());
+		downstream.accept(term);
+	}
+
 	@Override
 	public Filter copy() {
 		return new SnowballFilter();
@@ -24,6 +24,16 @@ public class StopWordFilter extends AbstractFilter {
 		return output;
 	}
 
+	@Override
+	public void filter(TermBuffer term, TermConsumer downstream) {
+		if (term.isNull())
+			return;
+		String input = term.toString();
+		String forComparison = lowerCaseInput ? input.toLowerCase() : input;
+		if (!stopwords.contains(forComparison))
+			downstream.accept(term);
+	}
+
 	@Override
 	public Filter copy() {
 		return new StopWordFilter(stopwords, lowerCaseInput);
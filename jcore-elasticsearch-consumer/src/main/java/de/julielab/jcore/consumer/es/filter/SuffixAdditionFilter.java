@@ -24,6 +24,14 @@ public class SuffixAdditionFilter extends AbstractFilter {
 		return output;
 	}
 
+	@Override
+	public void filter(TermBuffer term, TermConsumer downstream) {
+		if (term.isNull())
+			return;
+		term.append(addition);
+		downstream.accept(term);
+	}
+
 	@Override
 	public Filter copy() {
 		return new SuffixAdditionFilter(addition);
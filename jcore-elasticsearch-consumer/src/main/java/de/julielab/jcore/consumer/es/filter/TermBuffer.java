@@ -0,0 +1,142 @@
+package de.julielab.jcore.consumer.es.filter;
+
+import java.util.Arrays;
+
+/**
+ * A reusable, growable character buffer holding the current term in the streaming filter API, similar to Lucene's
+ * <tt>CharTermAttribute</tt>. Filters that support streaming modify the buffer in place and pass it on to the next
+ * stage instead of creating new strings and lists for each token.
+ * <p>
+ * Since the legacy filter API passes <tt>null</tt> values through the filter chain, a term buffer may also represent
+ * <tt>null</tt>, see {@link #isNull()}.
+ * </p>
+ *
+ * @author faessler
+ */
+public final class TermBuffer implements CharSequence {
+    private static final int DEFAULT_CAPACITY = 32;
+
+    private char[] buffer;
+    private int length;
+    private boolean isNull;
+
+    public TermBuffer() {
+        buffer = new char[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * Returns the internal character array. Only the first {@link #length()} characters are valid. The array
+     * may be changed in place; when it is too small, use {@link #resizeBuffer(int)} first.
+     *
+     * @return The internal character array.
+     */
+    public char[] buffer() {
+        return buffer;
+    }
+
+    /**
+     * Makes sure the internal array can hold at least <tt>minCapacity</tt> characters, preserving the
+     * current contents.
+     *
+     * @param minCapacity The required capacity.
+     * @return The - possibly new - internal character array.
+     */
+    public char[] resizeBuffer(int minCapacity) {
+        if (buffer.length < minCapacity)
+            buffer = Arrays.copyOf(buffer, Math.max(minCapacity, buffer.length * 2));
+        return buffer;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    public TermBuffer setLength(int length) {
+        if (length < 0 || length > buffer.length)
+            throw new IllegalArgumentException("The length " + length + " is out of the buffer bounds [0, " + buffer.length + "].");
+        this.length = length;
+        isNull = false;
+        return this;
+    }
+
+    public TermBuffer setEmpty() {
+        length = 0;
+        isNull = false;
+        return this;
+    }
+
+    public TermBuffer setNull() {
+        length = 0;
+        isNull = true;
+        return this;
+    }
+
+    /**
+     * @return Whether this buffer currently represents a <tt>null</tt> value.
+     */
+    public boolean isNull() {
+        return isNull;
+    }
+
+    public TermBuffer copyBuffer(char[] source, int offset, int length) {
+        resizeBuffer(length);
+        System.arraycopy(source, offset, buffer, 0, length);
+        this.length = length;
+        isNull = false;
+        return this;
+    }
+
+    /**
+     * Sets the contents of this buffer to <tt>value</tt> which may be <tt>null</tt>.
+     *
+     * @param value The new term value.
+     * @return This buffer.
+     */
+    public TermBuffer set(String value) {
+        if (value == null)
+            return setNull();
+        setEmpty();
+        return append(value);
+    }
+
+    public TermBuffer append(CharSequence value) {
+        int valueLength = value.length();
+        resizeBuffer(length + valueLength);
+        if (value instanceof String) {
+            ((String) value).getChars(0, valueLength, buffer, length);
+        } else {
+            for (int i = 0; i < valueLength; i++)
+                buffer[length + i] = value.charAt(i);
+        }
+        length += valueLength;
+        isNull = false;
+        return this;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index >= length)
+            throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for length " + length);
+        return buffer[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end)
+            throw new IndexOutOfBoundsException("Range [" + start + ", " + end + ") is out of bounds for length " + length);
+        return new String(buffer, start, end - start);
+    }
+
+    /**
+     * @return The current term as a string or <tt>null</tt> if this buffer represents <tt>null</tt>.
+     */
+    public String stringValue() {
+        return isNull ? null : toString();
+    }
+
+    @Override
+    public String toString() {
+        return new String(buffer, 0, length);
+    }
+}
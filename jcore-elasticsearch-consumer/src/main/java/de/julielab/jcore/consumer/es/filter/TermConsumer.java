@@ -0,0 +1,11 @@
+package de.julielab.jcore.consumer.es.filter;
+
+/**
+ * Receives the terms emitted by a filter in the streaming filter API. The passed {@link TermBuffer} is owned by the
+ * emitting filter and is only valid for the duration of the call; consumers may modify it in place but must copy
+ * its contents if they need them afterwards.
+ */
+@FunctionalInterface
+public interface TermConsumer {
+    void accept(TermBuffer term);
+}
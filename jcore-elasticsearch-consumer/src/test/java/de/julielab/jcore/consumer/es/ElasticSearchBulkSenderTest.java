@@ -0,0 +1,142 @@
+package de.julielab.jcore.consumer.es;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the bulk sender against a local stub HTTP server that answers like the ElasticSearch bulk endpoint.
+ */
+public class ElasticSearchBulkSenderTest {
+    private HttpServer server;
+    private CloseableHttpClient httpClient;
+    private List<String> receivedBodies;
+    private AtomicInteger inFlight;
+    private AtomicInteger maxInFlight;
+    private Function<String, String> responder;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        receivedBodies = Collections.synchronizedList(new ArrayList<>());
+        inFlight = new AtomicInteger();
+        maxInFlight = new AtomicInteger();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/_bulk", this::handleBulk);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        httpClient = HttpClientBuilder.create().setMaxConnPerRoute(10).build();
+    }
+
+    @AfterEach
+    public void stopServer() throws IOException {
+        httpClient.close();
+        server.stop(0);
+    }
+
+    private void handleBulk(HttpExchange exchange) throws IOException {
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            receivedBodies.add(body);
+            // give the client the chance to send concurrent requests
+            Thread.sleep(50);
+            byte[] response = responder.apply(body).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(response);
+            }
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private String[] getBulkUrls() {
+        return new String[]{"http://localhost:" + server.getAddress().getPort() + "/_bulk"};
+    }
+
+    private void addDocument(ElasticSearchBulkSender sender, int id) throws IOException {
+        Writer writer = sender.startItem();
+        writer.write("{\"index\":{\"_index\":\"test\",\"_id\":\"" + id + "\"}}\n");
+        writer.write("{\"text\":\"document " + id + "\"}\n");
+        sender.finishItem();
+    }
+
+    private static int countItems(String body) {
+        return (int) body.lines().count() / 2;
+    }
+
+    private static String okResponse(String body) {
+        StringBuilder sb = new StringBuilder("{\"took\":1,\"errors\":false,\"items\":[");
+        for (int i = 0; i < countItems(body); i++) {
+            if (i > 0)
+                sb.append(",");
+            sb.append("{\"index\":{\"_index\":\"test\",\"status\":201}}");
+        }
+        return sb.append("]}").toString();
+    }
+
+    @Test
+    public void testSendBulksConcurrently() throws Exception {
+        responder = ElasticSearchBulkSenderTest::okResponse;
+        try (ElasticSearchBulkSender sender = new ElasticSearchBulkSender(getBulkUrls(), 500, 3, 3, httpClient)) {
+            for (int i = 0; i < 100; i++) {
+                addDocument(sender, i);
+                if (sender.isBulkFull())
+                    sender.dispatch();
+            }
+            sender.flush();
+            assertThat(sender.getDocumentsSent()).isEqualTo(100);
+            assertThat(sender.getNumInFlightRequests()).isZero();
+            assertThat(sender.getItemsFailed()).isZero();
+            assertThat(sender.getBytesSent()).isEqualTo(receivedBodies.stream().mapToLong(b -> b.getBytes(StandardCharsets.UTF_8).length).sum());
+        }
+        assertThat(receivedBodies.stream().mapToInt(ElasticSearchBulkSenderTest::countItems).sum()).isEqualTo(100);
+        // the bulks should have been split by size
+        assertThat(receivedBodies.size()).isGreaterThan(1);
+        assertThat(maxInFlight.get()).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    public void testRetryRejectedItems() throws Exception {
+        AtomicInteger requestNumber = new AtomicInteger();
+        // The first request rejects the second item as if the write queue of the cluster was full
+        responder = body -> {
+            if (requestNumber.getAndIncrement() > 0)
+                return okResponse(body);
+            return "{\"took\":1,\"errors\":true,\"items\":[" +
+                    "{\"index\":{\"_id\":\"0\",\"status\":201}}," +
+                    "{\"index\":{\"_id\":\"1\",\"status\":429,\"error\":{\"type\":\"es_rejected_execution_exception\"}}}," +
+                    "{\"index\":{\"_id\":\"2\",\"status\":201}}]}";
+        };
+        try (ElasticSearchBulkSender sender = new ElasticSearchBulkSender(getBulkUrls(), 1 << 20, 1, 3, httpClient)) {
+            for (int i = 0; i < 3; i++)
+                addDocument(sender, i);
+            sender.flush();
+            assertThat(sender.getDocumentsSent()).isEqualTo(3);
+            assertThat(sender.getItemsRetried()).isEqualTo(1);
+            assertThat(sender.getItemsFailed()).isZero();
+        }
+        assertThat(receivedBodies).hasSize(2);
+        assertThat(receivedBodies.get(1)).isEqualTo("{\"index\":{\"_index\":\"test\",\"_id\":\"1\"}}\n{\"text\":\"document 1\"}\n");
+    }
+}
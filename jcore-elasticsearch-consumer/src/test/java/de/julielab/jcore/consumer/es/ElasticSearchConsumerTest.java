@@ -9,6 +9,8 @@ import org.apache.uima.jcas.cas.FSArray;
 import org.apache.uima.jcas.cas.StringArray;
 import org.testng.annotations.Test;
 
+import java.io.StringWriter;
+import java.io.Writer;
 import java.lang.reflect.Method;
 
 import static org.testng.AssertJUnit.assertEquals;
@@ -73,9 +75,11 @@ public class ElasticSearchConsumerTest {
         System.setProperty("ES_CONSUMER_TEST_MODE", "true");
         ElasticSearchConsumer consumer = new ElasticSearchConsumer();
         consumer.initialize(UimaContextFactory.createUimaContext());
-        Method method = ElasticSearchConsumer.class.getDeclaredMethod("createIndexSource", Document.class);
+        Method method = ElasticSearchConsumer.class.getDeclaredMethod("writeIndexSource", Document.class, Writer.class);
         method.setAccessible(true);
-        String indexSource = (String) method.invoke(consumer, document);
+        StringWriter writer = new StringWriter();
+        method.invoke(consumer, document, writer);
+        String indexSource = writer.toString();
         // No, I haven't written that JSON myself. I just printed out the indexSource, checked that it is correct (I
         // recommend an online formatter for this, e.g. at http://jsonformatter.curiousconcept.com/), checked that it
         // was right and then added it into the assertion statement. Another tip: All the escaping has been done by
@@ -125,9 +129,11 @@ public class ElasticSearchConsumerTest {
         ElasticSearchConsumer consumer = new ElasticSearchConsumer();
         System.setProperty("ES_CONSUMER_TEST_MODE", "true");
         consumer.initialize(UimaContextFactory.createUimaContext());
-        Method method = ElasticSearchConsumer.class.getDeclaredMethod("createIndexSource", Document.class);
+        Method method = ElasticSearchConsumer.class.getDeclaredMethod("writeIndexSource", Document.class, Writer.class);
         method.setAccessible(true);
-        String indexSource = (String) method.invoke(consumer, document);
+        StringWriter writer = new StringWriter();
+        method.invoke(consumer, document, writer);
+        String indexSource = writer.toString();
         // No, I haven't written that JSON myself. I just printed out the indexSource, checked that it is correct (I
         // recommend an online formatter for this, e.g. at http://jsonformatter.curiousconcept.com/),
         // and then added it into the assertion statement. Another tip: All the escaping has been done by
@@ -0,0 +1,107 @@
+package de.julielab.jcore.consumer.es.filter;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * <p>
+ * Measures the throughput and the allocated memory of the full text filter chain used for document text fields. The
+ * streaming {@link FilterChain} is compared with applying the same filters stage by stage through the list-based
+ * {@link Filter#filter(String)} API, which is what the chain did before it passed the terms through a
+ * {@link TermBuffer}. Both variants must produce the same terms.
+ * </p>
+ * <p>
+ * Arguments: <tt>[number of documents] [rounds]</tt>, defaulting to 5000 abstract-sized documents and 10 rounds.
+ * </p>
+ */
+public class FilterChainBenchmark {
+    private static final String[] SENTENCES = {
+            "The Interleukin-2 receptors were expressed in T-cells.",
+            "Binding of IL-2 to its receptors activates the cells; IL2 and IL-2 are synonyms.",
+            "NF-kappaB regulates the transcription of genes involved in the immune response.",
+            "We observed a 3.5-fold increase of TNF-alpha mRNA levels after 12 hours of stimulation.",
+            "Mutations in the BRCA1 gene are associated with an increased risk of breast and ovarian cancer.",
+            "The results suggest that p53 acts as a tumor suppressor in these cell lines.",
+            "Expression of the receptor was analysed by Western blotting and flow cytometry.",
+            "These findings indicate a novel role of IL-2 signalling in the differentiation of regulatory T-cells."
+    };
+
+    public static void main(String[] args) {
+        final int numDocuments = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        final int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        final Random random = new Random(1);
+        final List<String> documents = new ArrayList<>(numDocuments);
+        long numCharacters = 0;
+        for (int i = 0; i < numDocuments; i++) {
+            final StringBuilder sb = new StringBuilder();
+            while (sb.length() < 1500)
+                sb.append(SENTENCES[random.nextInt(SENTENCES.length)]).append(' ');
+            documents.add(sb.toString());
+            numCharacters += sb.length();
+        }
+        System.out.printf("%d documents with %d characters%n", numDocuments, numCharacters);
+
+        final Filter[] stageWiseFilters = createFullTextFilters();
+        final FilterChain chain = new FilterChain(createFullTextFilters());
+        for (int round = 0; round < rounds; round++) {
+            long allocated = allocatedBytes();
+            long time = System.nanoTime();
+            long stageWiseTerms = 0;
+            for (String document : documents) {
+                stageWiseTerms += filterStageWise(document, stageWiseFilters).size();
+                for (Filter filter : stageWiseFilters)
+                    filter.reset();
+            }
+            time = System.nanoTime() - time;
+            allocated = allocatedBytes() - allocated;
+            System.out.printf("Stage-wise: %d terms, %d ms, %.0f docs/s, %d MB allocated%n", stageWiseTerms, time / 1000000, numDocuments / (time / 1e9), allocated / (1024 * 1024));
+
+            allocated = allocatedBytes();
+            time = System.nanoTime();
+            long chainTerms = 0;
+            for (String document : documents) {
+                chainTerms += chain.filter(document).size();
+                chain.reset();
+            }
+            time = System.nanoTime() - time;
+            allocated = allocatedBytes() - allocated;
+            System.out.printf("FilterChain: %d terms, %d ms, %.0f docs/s, %d MB allocated%n", chainTerms, time / 1000000, numDocuments / (time / 1e9), allocated / (1024 * 1024));
+            if (chainTerms != stageWiseTerms)
+                throw new IllegalStateException("The filter chain produced " + chainTerms + " terms but the stage-wise filtering " + stageWiseTerms);
+        }
+    }
+
+    private static Filter[] createFullTextFilters() {
+        return new Filter[]{
+                new LuceneStandardTokenizerFilter(),
+                new LowerCaseFilter(),
+                new StopWordFilter(Set.of("the", "of", "to", "its", "and", "are", "in", "a", "by", "as", "that", "these", "after", "with", "an", "we", "was", "were"), false),
+                new ReplaceFilter(Map.of("il2", "il-2")),
+                new AddonTermsFilter(Map.of("il-2", new String[]{"interleukin-2", "tcgf"})),
+                new SnowballFilter(),
+                new RegExReplaceFilter("-", "", true),
+                new SuffixAdditionFilter("_t"),
+                new UniqueFilter()
+        };
+    }
+
+    private static List<String> filterStageWise(String input, Filter... filters) {
+        List<String> values = new ArrayList<>();
+        values.add(input);
+        for (Filter f : filters) {
+            List<String> filterValues = new ArrayList<>();
+            for (String value : values)
+                filterValues.addAll(f.filter(value));
+            values = filterValues;
+        }
+        return values;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
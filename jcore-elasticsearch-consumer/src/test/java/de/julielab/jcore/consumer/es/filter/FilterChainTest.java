@@ -0,0 +1,74 @@
+package de.julielab.jcore.consumer.es.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FilterChainTest {
+
+    private static final String TEXT = "The Interleukin-2 receptors were expressed in T-cells. Binding of IL-2 to its receptors activates the cells; IL2 and IL-2 are synonyms.";
+
+    private static Filter[] createFullTextFilters() {
+        return new Filter[]{
+                new LuceneStandardTokenizerFilter(),
+                new LowerCaseFilter(),
+                new StopWordFilter(Set.of("the", "of", "to", "its", "and", "are", "in"), false),
+                new ReplaceFilter(Map.of("il2", "il-2")),
+                new AddonTermsFilter(Map.of("il-2", new String[]{"interleukin-2", "tcgf"})),
+                new SnowballFilter(),
+                new RegExReplaceFilter("-", "", true),
+                new SuffixAdditionFilter("_t"),
+                new UniqueFilter()
+        };
+    }
+
+    /**
+     * Applies the filters one after the other to all values using the list-based API.
+     */
+    private static List<String> filterStageWise(String input, Filter... filters) {
+        List<String> values = new ArrayList<>();
+        values.add(input);
+        for (Filter f : filters) {
+            List<String> filterValues = new ArrayList<>();
+            for (String value : values)
+                filterValues.addAll(f.filter(value));
+            values = filterValues;
+        }
+        return values;
+    }
+
+    @Test
+    public void testStreamingEqualsStageWiseFiltering() {
+        List<String> expected = filterStageWise(TEXT, createFullTextFilters());
+        FilterChain chain = new FilterChain(createFullTextFilters());
+        assertThat(chain.filter(TEXT)).containsExactlyElementsOf(expected);
+        assertThat(expected).contains("interleukin2_t", "il2_t", "tcgf_t", "receptor_t", "cell_t").doesNotContain("the_t");
+        // the unique filter has already seen all terms
+        assertThat(chain.filter(TEXT)).isEmpty();
+        chain.reset();
+        assertThat(chain.filter(TEXT)).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    public void testNullValues() {
+        FilterChain chain = new FilterChain(new ReplaceNullFilter("NULL"), new LowerCaseFilter());
+        assertThat(chain.filter(null)).containsExactly("null");
+        // filters that do not handle null values swallow them
+        assertThat(new FilterChain(new LowerCaseFilter(), new ReplaceNullFilter("NULL")).filter(null)).isEmpty();
+        assertThat(chain.filter("Value")).containsExactly("value");
+        assertThat(new FilterChain().filter(null)).containsExactly((String) null);
+    }
+
+    @Test
+    public void testNestedChains() {
+        FilterChain inner = new FilterChain(new LuceneStandardTokenizerFilter(), new LowerCaseFilter());
+        FilterChain outer = new FilterChain(inner, new SuffixAdditionFilter("!"));
+        assertThat(outer.filter("Hello World")).containsExactly("hello!", "world!");
+        assertThat(inner.filter("Hello World")).containsExactly("hello", "world");
+    }
+}
@@ -0,0 +1,144 @@
+package de.julielab.jcore.consumer.ew;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * <p>Writes text-embedding pairs in the columnar embedding format that can be read via memory mapping by
+ * {@link MappedEmbeddingFile}.</p>
+ * <p>The format consists of the following regions, all numbers being big endian:</p>
+ * <ol>
+ *     <li>A header of {@link #HEADER_SIZE} bytes: the magic number {@link #MAGIC}, the format version, the number of
+ *     bytes per vector element (4 for float32, 8 for float64), the vector dimension and the number of entries as a long.</li>
+ *     <li>The string dictionary offsets: <tt>numEntries + 1</tt> longs. The ith text spans the bytes from the ith to
+ *     the (i+1)th offset of the string data.</li>
+ *     <li>The string data: the UTF-8 encoded texts, sorted by their unsigned byte order, padded to a multiple of 8 bytes.</li>
+ *     <li>The vectors: <tt>numEntries</tt> fixed-width vectors of <tt>dimension</tt> elements in one contiguous region.</li>
+ * </ol>
+ * <p>The entries must be added in ascending text order. Since the number of entries is not known in advance, the
+ * regions are first written to temporary files next to the output file and are concatenated on {@link #close()}.
+ * Thus, arbitrarily large files can be written without holding them in memory.</p>
+ */
+public class ColumnarEmbeddingWriter implements Closeable {
+    public static final int MAGIC = 0x4A454D42;
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 32;
+    private final Path outputFile;
+    private final int dimension;
+    private final boolean float32;
+    private final Path offsetsFile;
+    private final Path stringsFile;
+    private final Path vectorsFile;
+    private final DataOutputStream offsetsOs;
+    private final OutputStream stringsOs;
+    private final DataOutputStream vectorsOs;
+    private long numEntries;
+    private long stringDataLength;
+    private byte[] lastText;
+    private boolean closed;
+
+    /**
+     * @param outputFile The file to write.
+     * @param dimension  The dimension of all vectors that will be added.
+     * @param float32    Whether the vectors should be stored with single precision instead of double precision.
+     * @throws IOException If the temporary files cannot be created.
+     */
+    public ColumnarEmbeddingWriter(Path outputFile, int dimension, boolean float32) throws IOException {
+        this.outputFile = outputFile;
+        this.dimension = dimension;
+        this.float32 = float32;
+        offsetsFile = Path.of(outputFile + ".offsets.tmp");
+        stringsFile = Path.of(outputFile + ".strings.tmp");
+        vectorsFile = Path.of(outputFile + ".vectors.tmp");
+        offsetsOs = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(offsetsFile)));
+        stringsOs = new BufferedOutputStream(Files.newOutputStream(stringsFile));
+        vectorsOs = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(vectorsFile), 1 << 16));
+    }
+
+    public void add(String text, double[] vector) throws IOException {
+        add(text.getBytes(StandardCharsets.UTF_8), vector);
+    }
+
+    /**
+     * Adds the next entry. The texts must be added in ascending order of their unsigned UTF-8 bytes; equal texts
+     * may follow each other.
+     *
+     * @param utf8Text The UTF-8 bytes of the text.
+     * @param vector   The embedding vector of the text.
+     * @throws IOException If writing fails.
+     */
+    public void add(byte[] utf8Text, double[] vector) throws IOException {
+        if (vector.length != dimension)
+            throw new IllegalArgumentException("The vector for text '" + new String(utf8Text, StandardCharsets.UTF_8) + "' has dimension " + vector.length + " but the expected dimension is " + dimension);
+        if (lastText != null && Arrays.compareUnsigned(lastText, utf8Text) > 0)
+            throw new IllegalArgumentException("The texts must be added in ascending order but '" + new String(utf8Text, StandardCharsets.UTF_8) + "' was added after '" + new String(lastText, StandardCharsets.UTF_8) + "'.");
+        offsetsOs.writeLong(stringDataLength);
+        stringsOs.write(utf8Text);
+        stringDataLength += utf8Text.length;
+        if (float32) {
+            for (double d : vector)
+                vectorsOs.writeFloat((float) d);
+        } else {
+            for (double d : vector)
+                vectorsOs.writeDouble(d);
+        }
+        lastText = utf8Text;
+        ++numEntries;
+    }
+
+    public long getNumEntries() {
+        return numEntries;
+    }
+
+    /**
+     * Writes the final file from the temporary region files and deletes them.
+     *
+     * @throws IOException If writing fails.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+        offsetsOs.writeLong(stringDataLength);
+        offsetsOs.close();
+        stringsOs.close();
+        vectorsOs.close();
+        try (FileChannel out = FileChannel.open(outputFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC);
+            header.putInt(VERSION);
+            header.putInt(float32 ? Float.BYTES : Double.BYTES);
+            header.putInt(dimension);
+            header.putLong(numEntries);
+            // the remaining header bytes are reserved
+            header.rewind();
+            while (header.hasRemaining())
+                out.write(header);
+            appendFile(out, offsetsFile);
+            appendFile(out, stringsFile);
+            int padding = (int) ((8 - stringDataLength % 8) % 8);
+            out.write(ByteBuffer.allocate(padding));
+            appendFile(out, vectorsFile);
+        } finally {
+            Files.deleteIfExists(offsetsFile);
+            Files.deleteIfExists(stringsFile);
+            Files.deleteIfExists(vectorsFile);
+        }
+    }
+
+    private void appendFile(FileChannel out, Path file) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = in.size();
+            long transferred = 0;
+            while (transferred < size)
+                transferred += in.transferTo(transferred, size - transferred, out);
+        }
+    }
+}
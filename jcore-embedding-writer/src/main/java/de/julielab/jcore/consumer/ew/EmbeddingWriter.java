@@ -13,6 +13,7 @@ import org.apache.uima.fit.descriptor.ConfigurationParameter;
 import org.apache.uima.fit.descriptor.ResourceMetaData;
 import org.apache.uima.fit.descriptor.TypeCapability;
 import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.cas.DoubleArray;
 import org.apache.uima.jcas.tcas.Annotation;
 import org.apache.uima.resource.ResourceInitializationException;
 import org.slf4j.Logger;
@@ -23,6 +24,8 @@ import java.lang.management.ManagementFactory;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -39,6 +42,10 @@ public class EmbeddingWriter extends JCasAnnotator_ImplBase {
     public static final String PARAM_OUTDIR = "OutputDirectory";
     public static final String PARAM_GZIP = "UseGzip";
     public static final String PARAM_MAX_FILE_ENTRY_SIZE = "MaximumEntriesPerOutputFile";
+    public static final String PARAM_OUTPUT_FORMAT = "OutputFormat";
+    public static final String PARAM_FLOAT32 = "UseFloat32";
+    public static final String FORMAT_BINARY = "binary";
+    public static final String FORMAT_COLUMNAR = "columnar";
 
     private final static Logger log = LoggerFactory.getLogger(EmbeddingWriter.class);
     private static int currentConsumerNumber = 0;
@@ -50,6 +57,10 @@ public class EmbeddingWriter extends JCasAnnotator_ImplBase {
     private String outputDir;
     @ConfigurationParameter(name = PARAM_MAX_FILE_ENTRY_SIZE, mandatory = false, description = "The text-embedding pairs are accumulated from multiple CASes before writing them to file. The accumulator keeps the entries sorted by the text part, thus output files are also ordered. This parameter defines the maximum size the accumulate will take before writing its contents to file and clearing itself.", defaultValue = "200000")
     private int maxEntriesPerFile;
+    @ConfigurationParameter(name = PARAM_OUTPUT_FORMAT, mandatory = false, description = "The output file format. Possible values are '" + FORMAT_BINARY + "' and '" + FORMAT_COLUMNAR + "'. The binary format is a sequence of text-vector pairs that is read by the Decoder class. The columnar format stores fixed-width vectors in one contiguous region and a sorted string dictionary with offsets. It can be read and merged via memory mapping with the MappedEmbeddingFile class without loading the data onto the heap. Each output batch is written into its own columnar file. The columnar format can not be compressed with GZIP. Defaults to '" + FORMAT_BINARY + "'.", defaultValue = FORMAT_BINARY)
+    private String outputFormat;
+    @ConfigurationParameter(name = PARAM_FLOAT32, mandatory = false, description = "Only for the columnar output format. If set to true, the vector elements are stored as 32 bit floats instead of 64 bit doubles which halves the size of the vector data. Defaults to false.")
+    private boolean float32;
     private String pid;
     private String hostName;
     private int consumerNumber;
@@ -61,7 +72,7 @@ public class EmbeddingWriter extends JCasAnnotator_ImplBase {
     // We store the embeddings indexed with their text in an ordered fashion. When the maximum size of the
     // cache is reached, it is output to file. The advantage is that the output files are always ordered
     // which makes the subsequent merging easier.
-    private TreeMap<String, byte[]> outputCache;
+    private TreeMap<String, double[]> outputCache;
 
     /**
      * This method is called a single time by the framework at component
@@ -73,6 +84,14 @@ public class EmbeddingWriter extends JCasAnnotator_ImplBase {
         outputDir = (String) aContext.getConfigParameterValue(PARAM_OUTDIR);
         gzip = Optional.ofNullable((Boolean) aContext.getConfigParameterValue(PARAM_GZIP)).orElse(false);
         maxEntriesPerFile = Integer.valueOf(Optional.ofNullable((String) aContext.getConfigParameterValue(PARAM_MAX_FILE_ENTRY_SIZE)).orElse("200000"));
+        outputFormat = Optional.ofNullable((String) aContext.getConfigParameterValue(PARAM_OUTPUT_FORMAT)).orElse(FORMAT_BINARY);
+        float32 = Optional.ofNullable((Boolean) aContext.getConfigParameterValue(PARAM_FLOAT32)).orElse(false);
+        if (!FORMAT_BINARY.equals(outputFormat) && !FORMAT_COLUMNAR.equals(outputFormat))
+            throw new ResourceInitializationException(new IllegalArgumentException("Unknown output format '" + outputFormat + "'. Possible values are '" + FORMAT_BINARY + "' and '" + FORMAT_COLUMNAR + "'."));
+        if (FORMAT_COLUMNAR.equals(outputFormat) && gzip) {
+            log.warn("The columnar output format can not be compressed, the parameter {} is ignored.", PARAM_GZIP);
+            gzip = false;
+        }
         pid = getPID();
         hostName = getHostName();
         synchronized (PARAM_OUTDIR) {
@@ -83,6 +102,10 @@ public class EmbeddingWriter extends JCasAnnotator_ImplBase {
         final File dir = nextOutputFile.getParentFile();
         if (!dir.exists())
             dir.mkdirs();
+        outputCache = new TreeMap<>();
+        // columnar files are written as a whole for each batch
+        if (FORMAT_COLUMNAR.equals(outputFormat))
+            return;
         try {
             os = new BufferedOutputStream(new FileOutputStream(nextOutputFile));
             if (gzip)
@@ -94,11 +117,10 @@ public class EmbeddingWriter extends JCasAnnotator_ImplBase {
             log.error("Could not create GZIPOutputStream", e);
             throw new ResourceInitializationException(e);
         }
-        outputCache = new TreeMap<>();
     }
 
     private File getNextOutputFile() {
-        return new File(outputDir + File.separator + "embeddings-" + hostName + "-" + pid + "-writer" + consumerNumber + "-batch" + ++currentBatch + ".dat" + (gzip ? ".gz" : ""));
+        return new File(outputDir + File.separator + "embeddings-" + hostName + "-" + pid + "-writer" + consumerNumber + "-batch" + ++currentBatch + (FORMAT_COLUMNAR.equals(outputFormat) ? ".emb" : ".dat") + (gzip ? ".gz" : ""));
     }
 
     /**
@@ -134,18 +156,69 @@ public class EmbeddingWriter extends JCasAnnotator_ImplBase {
     }
 
     private void writeEmbeddingsToFile() throws IOException {
-        for (byte[] textVector : outputCache.values())
-            os.write(textVector);
+        if (FORMAT_COLUMNAR.equals(outputFormat)) {
+            writeColumnarEmbeddingFile();
+        } else {
+            for (String text : outputCache.keySet()) {
+                double[] vector = outputCache.get(text);
+                // grow the reusable buffer if necessary
+                int requiredBytes = Integer.BYTES * 2 + text.length() * 3 + vector.length * Double.BYTES;
+                if (bb == null || bb.capacity() < requiredBytes)
+                    bb = ByteBuffer.allocate(requiredBytes);
+                os.write(Encoder.encodeTextVectorPair(text, vector, bb));
+            }
+        }
         nextOutputFile = getNextOutputFile();
         outputCache.clear();
     }
 
+    /**
+     * Writes the cached embeddings into a new file of the columnar format. The texts are sorted by their UTF-8 bytes
+     * for this format which differs from the String order of the cache for some characters outside the
+     * Basic Multilingual Plane.
+     */
+    private void writeColumnarEmbeddingFile() throws IOException {
+        if (outputCache.isEmpty())
+            return;
+        List<byte[]> texts = new ArrayList<>(outputCache.size());
+        List<double[]> vectors = new ArrayList<>(outputCache.size());
+        for (String text : outputCache.keySet()) {
+            texts.add(text.getBytes(StandardCharsets.UTF_8));
+            vectors.add(outputCache.get(text));
+        }
+        Integer[] order = new Integer[texts.size()];
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
+        Arrays.sort(order, (i, j) -> Arrays.compareUnsigned(texts.get(i), texts.get(j)));
+        try (ColumnarEmbeddingWriter writer = new ColumnarEmbeddingWriter(nextOutputFile.toPath(), vectors.get(0).length, float32)) {
+            for (int i : order)
+                writer.add(texts.get(i), vectors.get(i));
+        }
+        log.debug("Wrote {} embeddings to {}", texts.size(), nextOutputFile);
+    }
+
     private void cacheEmbeddingsForAnnotation(List<Token> tokens) throws IOException {
         // get the text from the first to the last token
         String text = tokens.get(0).getCAS().getDocumentText().substring(tokens.get(0).getBegin(), tokens.get(tokens.size() - 1).getEnd());
-        final double[] avgEmbedding = VectorOperations.getAverageEmbeddingVector(tokens.stream().map(t -> t.getEmbeddingVectors(0).getVector().toArray()));
-        byte[] cacheArray = Encoder.encodeTextVectorPair(text, avgEmbedding, bb);
-        outputCache.put(text, cacheArray);
+        outputCache.put(text, getAverageEmbeddingVector(tokens));
+    }
+
+    /**
+     * Averages the first embedding vectors of the given tokens directly from the CAS arrays, avoiding the copying of
+     * each vector.
+     */
+    private double[] getAverageEmbeddingVector(List<Token> tokens) {
+        double[] avg = null;
+        for (Token token : tokens) {
+            DoubleArray vector = token.getEmbeddingVectors(0).getVector();
+            if (avg == null)
+                avg = new double[vector.size()];
+            for (int i = 0; i < avg.length; i++)
+                avg[i] += vector.get(i);
+        }
+        for (int i = 0; i < avg.length; i++)
+            avg[i] /= tokens.size();
+        return avg;
     }
 
     @Override
@@ -157,7 +230,8 @@ public class EmbeddingWriter extends JCasAnnotator_ImplBase {
             throw new AnalysisEngineProcessException(e);
         }
         try {
-            os.close();
+            if (os != null)
+                os.close();
         } catch (IOException e) {
             log.error("Exception when closing the output stream to file {}", nextOutputFile, e);
             throw new AnalysisEngineProcessException(e);
@@ -0,0 +1,294 @@
+package de.julielab.jcore.consumer.ew;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * <p>Reads a file in the columnar embedding format written by {@link ColumnarEmbeddingWriter} via memory mapping.</p>
+ * <p>Neither the texts nor the vectors are loaded onto the heap. Texts are looked up by binary search directly on the
+ * mapped string dictionary and vectors are read from the mapped vector region on request. Files larger than 2GB are
+ * mapped in multiple chunks. Since all regions of the format are aligned, no number crosses a chunk border.</p>
+ * <p>Instances may be used concurrently by multiple threads.</p>
+ */
+public class MappedEmbeddingFile implements Closeable {
+    private static final int CHUNK_BITS = 30;
+    private static final long CHUNK_SIZE = 1L << CHUNK_BITS;
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer[] chunks;
+    private final int elementBytes;
+    private final int dimension;
+    private final long numEntries;
+    private final long offsetsStart;
+    private final long stringsStart;
+    private final long vectorsStart;
+
+    private MappedEmbeddingFile(Path file) throws IOException {
+        this.file = file;
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        long size = channel.size();
+        if (size < ColumnarEmbeddingWriter.HEADER_SIZE)
+            throw new IOException("The file " + file + " is too short to be a columnar embedding file.");
+        chunks = new MappedByteBuffer[(int) ((size + CHUNK_SIZE - 1) >>> CHUNK_BITS)];
+        for (int i = 0; i < chunks.length; i++) {
+            long chunkStart = i * CHUNK_SIZE;
+            chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, chunkStart, Math.min(CHUNK_SIZE, size - chunkStart));
+        }
+        if (getInt(0) != ColumnarEmbeddingWriter.MAGIC)
+            throw new IOException("The file " + file + " is not a columnar embedding file.");
+        if (getInt(4) != ColumnarEmbeddingWriter.VERSION)
+            throw new IOException("The file " + file + " has the unsupported format version " + getInt(4));
+        elementBytes = getInt(8);
+        dimension = getInt(12);
+        numEntries = getLong(16);
+        offsetsStart = ColumnarEmbeddingWriter.HEADER_SIZE;
+        stringsStart = offsetsStart + (numEntries + 1) * Long.BYTES;
+        long stringDataLength = getLong(stringsStart - Long.BYTES);
+        vectorsStart = stringsStart + stringDataLength + (8 - stringDataLength % 8) % 8;
+        if (vectorsStart + numEntries * dimension * elementBytes != size)
+            throw new IOException("The file " + file + " is corrupt: its size does not match the size given by its header.");
+    }
+
+    public static MappedEmbeddingFile open(Path file) throws IOException {
+        return new MappedEmbeddingFile(file);
+    }
+
+    /**
+     * <p>Merges multiple columnar embedding files into a single columnar output file.</p>
+     * <p>This is the columnar equivalent of {@link Decoder#mergeEmbeddingFiles(List, java.io.OutputStream, boolean)}:
+     * the input files are merged with a k-way merge over their sorted string dictionaries. If <tt>groupByText</tt> is
+     * set to <tt>true</tt>, each text will only exist once in the output and all its vectors are averaged. Only the
+     * current entry of each input is held in memory.</p>
+     *
+     * @param inputs      The files to merge. All must have the same vector dimension.
+     * @param output      The output file.
+     * @param groupByText If the vectors associated with the same text should be averaged into a single vector.
+     * @param float32     Whether the output vectors should be stored with single precision.
+     * @throws IOException If reading or writing fails.
+     */
+    public static void merge(List<MappedEmbeddingFile> inputs, Path output, boolean groupByText, boolean float32) throws IOException {
+        if (inputs.isEmpty())
+            throw new IllegalArgumentException("There are no input files to merge.");
+        int dimension = inputs.get(0).getDimension();
+        for (MappedEmbeddingFile input : inputs) {
+            if (input.getDimension() != dimension)
+                throw new IllegalArgumentException("The vector dimension " + input.getDimension() + " of " + input.file + " does not match the dimension " + dimension + " of " + inputs.get(0).file);
+        }
+        PriorityQueue<Cursor> queue = new PriorityQueue<>();
+        for (int i = 0; i < inputs.size(); i++) {
+            Cursor cursor = new Cursor(inputs.get(i), i);
+            if (cursor.advance())
+                queue.add(cursor);
+        }
+        double[] vector = new double[dimension];
+        double[] sum = new double[dimension];
+        byte[] currentText = null;
+        int count = 0;
+        try (ColumnarEmbeddingWriter writer = new ColumnarEmbeddingWriter(output, dimension, float32)) {
+            while (!queue.isEmpty()) {
+                Cursor cursor = queue.poll();
+                cursor.file.getVector(cursor.index, vector);
+                if (!groupByText) {
+                    writer.add(cursor.text, vector);
+                } else {
+                    if (currentText != null && !Arrays.equals(currentText, cursor.text)) {
+                        writeAverage(writer, currentText, sum, count);
+                        count = 0;
+                    }
+                    if (count == 0) {
+                        currentText = cursor.text;
+                        System.arraycopy(vector, 0, sum, 0, dimension);
+                    } else {
+                        for (int i = 0; i < dimension; i++)
+                            sum[i] += vector[i];
+                    }
+                    ++count;
+                }
+                if (cursor.advance())
+                    queue.add(cursor);
+            }
+            if (count > 0)
+                writeAverage(writer, currentText, sum, count);
+        }
+    }
+
+    private static void writeAverage(ColumnarEmbeddingWriter writer, byte[] text, double[] sum, int count) throws IOException {
+        for (int i = 0; i < sum.length; i++)
+            sum[i] /= count;
+        writer.add(text, sum);
+    }
+
+    private int getInt(long position) {
+        return chunks[(int) (position >>> CHUNK_BITS)].getInt((int) (position & (CHUNK_SIZE - 1)));
+    }
+
+    private long getLong(long position) {
+        return chunks[(int) (position >>> CHUNK_BITS)].getLong((int) (position & (CHUNK_SIZE - 1)));
+    }
+
+    private byte getByte(long position) {
+        return chunks[(int) (position >>> CHUNK_BITS)].get((int) (position & (CHUNK_SIZE - 1)));
+    }
+
+    private float getFloat(long position) {
+        return chunks[(int) (position >>> CHUNK_BITS)].getFloat((int) (position & (CHUNK_SIZE - 1)));
+    }
+
+    private double getDouble(long position) {
+        return chunks[(int) (position >>> CHUNK_BITS)].getDouble((int) (position & (CHUNK_SIZE - 1)));
+    }
+
+    public long size() {
+        return numEntries;
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    public boolean isFloat32() {
+        return elementBytes == Float.BYTES;
+    }
+
+    private long getTextStart(long index) {
+        return stringsStart + getLong(offsetsStart + index * Long.BYTES);
+    }
+
+    private long getTextEnd(long index) {
+        return stringsStart + getLong(offsetsStart + (index + 1) * Long.BYTES);
+    }
+
+    public byte[] getTextBytes(long index) {
+        checkIndex(index);
+        long start = getTextStart(index);
+        byte[] text = new byte[(int) (getTextEnd(index) - start)];
+        for (int i = 0; i < text.length; i++)
+            text[i] = getByte(start + i);
+        return text;
+    }
+
+    public String getText(long index) {
+        return new String(getTextBytes(index), StandardCharsets.UTF_8);
+    }
+
+    public double[] getVector(long index) {
+        double[] vector = new double[dimension];
+        getVector(index, vector);
+        return vector;
+    }
+
+    /**
+     * Reads the vector with the given index into <tt>dest</tt> which must have at least the size {@link #getDimension()}.
+     *
+     * @param index The entry index.
+     * @param dest  The array to write the vector elements to.
+     */
+    public void getVector(long index, double[] dest) {
+        checkIndex(index);
+        long position = vectorsStart + index * dimension * elementBytes;
+        if (elementBytes == Float.BYTES) {
+            for (int i = 0; i < dimension; i++, position += Float.BYTES)
+                dest[i] = getFloat(position);
+        } else {
+            for (int i = 0; i < dimension; i++, position += Double.BYTES)
+                dest[i] = getDouble(position);
+        }
+    }
+
+    /**
+     * Looks up the vector for <tt>text</tt>. If the file contains multiple entries for the text, the first one is returned.
+     *
+     * @param text The text to get the vector for.
+     * @return The vector of <tt>text</tt> or <tt>null</tt> if the file does not contain the text.
+     */
+    public double[] getVector(String text) {
+        long index = indexOf(text);
+        return index < 0 ? null : getVector(index);
+    }
+
+    /**
+     * Searches the first entry with the given text by binary search on the mapped string dictionary.
+     *
+     * @param text The text to search.
+     * @return The index of the first entry for <tt>text</tt> or <tt>-(insertion point) - 1</tt> if there is no such entry.
+     */
+    public long indexOf(String text) {
+        byte[] key = text.getBytes(StandardCharsets.UTF_8);
+        long low = 0;
+        long high = numEntries;
+        // find the lower bound
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (compareText(mid, key) < 0)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        if (low < numEntries && compareText(low, key) == 0)
+            return low;
+        return -low - 1;
+    }
+
+    /**
+     * Compares the text of the entry at <tt>index</tt> to <tt>key</tt> by their unsigned bytes without copying the
+     * entry text.
+     */
+    private int compareText(long index, byte[] key) {
+        long start = getTextStart(index);
+        long length = getTextEnd(index) - start;
+        long commonLength = Math.min(length, key.length);
+        for (int i = 0; i < commonLength; i++) {
+            int cmp = Byte.compareUnsigned(getByte(start + i), key[i]);
+            if (cmp != 0)
+                return cmp;
+        }
+        return Long.compare(length, key.length);
+    }
+
+    private void checkIndex(long index) {
+        if (index < 0 || index >= numEntries)
+            throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for " + numEntries + " entries.");
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * The current position of one input of a merge.
+     */
+    private static class Cursor implements Comparable<Cursor> {
+        private final MappedEmbeddingFile file;
+        private final int inputNumber;
+        private long index = -1;
+        private byte[] text;
+
+        private Cursor(MappedEmbeddingFile file, int inputNumber) {
+            this.file = file;
+            this.inputNumber = inputNumber;
+        }
+
+        private boolean advance() {
+            if (++index >= file.size())
+                return false;
+            text = file.getTextBytes(index);
+            return true;
+        }
+
+        @Override
+        public int compareTo(Cursor o) {
+            int cmp = Arrays.compareUnsigned(text, o.text);
+            // keep the order of the inputs for equal texts
+            return cmp != 0 ? cmp : Integer.compare(inputNumber, o.inputNumber);
+        }
+    }
+}
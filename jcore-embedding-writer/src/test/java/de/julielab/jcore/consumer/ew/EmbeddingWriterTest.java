@@ -81,4 +81,39 @@ public class EmbeddingWriterTest {
         assertThat(embeddings.getRight()).containsExactly(new double[]{3, 12}, new double[]{7, 5}, new double[]{45, 13});
         files[0].delete();
     }
+
+    @Test
+    public void testWriterColumnarFormat() throws Exception {
+        final JCas jCas = JCasFactory.createJCas("de.julielab.jcore.types.jcore-morpho-syntax-types");
+        jCas.setDocumentText("t1 t3 t2");
+        double[][] vectors = {{3, 12}, {45, 13}, {7, 5}};
+        for (int i = 0; i < vectors.length; i++) {
+            Token t = new Token(jCas, i * 3, i * 3 + 2);
+            final EmbeddingVector e = new EmbeddingVector(jCas, i * 3, i * 3 + 2);
+            final DoubleArray v = new DoubleArray(jCas, 2);
+            v.copyFromArray(vectors[i], 0, 0, 2);
+            e.setVector(v);
+            t.setEmbeddingVectors(JCoReTools.addToFSArray(null, e));
+            t.addToIndexes();
+        }
+
+        final String outputDir = "src/test/resources/output-columnar";
+        final AnalysisEngine engine = AnalysisEngineFactory.createEngine("de.julielab.jcore.consumer.ew.desc.jcore-embedding-writer", EmbeddingWriter.PARAM_OUTDIR, outputDir, EmbeddingWriter.PARAM_OUTPUT_FORMAT, EmbeddingWriter.FORMAT_COLUMNAR, EmbeddingWriter.PARAM_FLOAT32, true);
+
+        engine.process(jCas);
+        engine.collectionProcessComplete();
+
+        final File[] files = new File(outputDir).listFiles(file -> file.getName().startsWith("embeddings-"));
+        assertThat(files).hasSize(1);
+        assertThat(files[0].getName()).endsWith(".emb");
+        try (MappedEmbeddingFile embeddings = MappedEmbeddingFile.open(files[0].toPath())) {
+            assertThat(embeddings.isFloat32()).isTrue();
+            assertThat(embeddings.getText(0)).isEqualTo("t1");
+            assertThat(embeddings.getText(1)).isEqualTo("t2");
+            assertThat(embeddings.getText(2)).isEqualTo("t3");
+            assertThat(embeddings.getVector("t3")).containsExactly(45, 13);
+        }
+        files[0].delete();
+        new File(outputDir).delete();
+    }
 }
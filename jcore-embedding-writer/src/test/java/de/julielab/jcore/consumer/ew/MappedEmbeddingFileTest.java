@@ -0,0 +1,95 @@
+package de.julielab.jcore.consumer.ew;
+
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+public class MappedEmbeddingFileTest {
+    @TempDir
+    Path tempDir;
+
+    private Path writeFile(String name, boolean float32, Object... textVectorPairs) throws IOException {
+        Path file = tempDir.resolve(name);
+        try (ColumnarEmbeddingWriter writer = new ColumnarEmbeddingWriter(file, 2, float32)) {
+            for (int i = 0; i < textVectorPairs.length; i += 2)
+                writer.add((String) textVectorPairs[i], (double[]) textVectorPairs[i + 1]);
+        }
+        return file;
+    }
+
+    @Test
+    public void testLookup() throws Exception {
+        Path file = writeFile("test.emb", false, "act1", new double[]{.1, .1}, "brca", new double[]{.1, .2}, "il2", new double[]{.1, .3}, "mtor", new double[]{.1, .4}, "über", new double[]{.5, .5});
+        try (MappedEmbeddingFile embeddings = MappedEmbeddingFile.open(file)) {
+            assertThat(embeddings.size()).isEqualTo(5);
+            assertThat(embeddings.getDimension()).isEqualTo(2);
+            assertThat(embeddings.isFloat32()).isFalse();
+            assertThat(embeddings.getText(2)).isEqualTo("il2");
+            assertThat(embeddings.getVector("brca")).containsExactly(.1, .2);
+            assertThat(embeddings.getVector("über")).containsExactly(.5, .5);
+            assertThat(embeddings.getVector("mtor")).containsExactly(.1, .4);
+            assertThat(embeddings.getVector("ckr")).isNull();
+            // the insertion point of ckr is 2
+            assertThat(embeddings.indexOf("ckr")).isEqualTo(-3);
+            // UTF-8 byte order puts "über" after "zzz"
+            assertThat(embeddings.indexOf("zzz")).isEqualTo(-5);
+        }
+    }
+
+    @Test
+    public void testFloat32() throws Exception {
+        Path file = writeFile("test.emb", true, "act1", new double[]{.1, .1}, "brca", new double[]{.1, .2});
+        try (MappedEmbeddingFile embeddings = MappedEmbeddingFile.open(file)) {
+            assertThat(embeddings.isFloat32()).isTrue();
+            assertThat(embeddings.getVector(1)).containsExactly((float) .1, (float) .2);
+        }
+    }
+
+    @Test
+    public void testUnsortedInput() throws Exception {
+        try (ColumnarEmbeddingWriter writer = new ColumnarEmbeddingWriter(tempDir.resolve("unsorted.emb"), 2, false)) {
+            writer.add("brca", new double[]{.1, .2});
+            assertThatIllegalArgumentException().isThrownBy(() -> writer.add("act1", new double[]{.1, .1}));
+        }
+    }
+
+    @Test
+    public void testMerge() throws Exception {
+        Path file1 = writeFile("file1.emb", false, "act1", new double[]{.1, .1}, "brca", new double[]{.1, .2}, "il2", new double[]{.1, .3}, "mtor", new double[]{.1, .4});
+        Path file2 = writeFile("file2.emb", false, "ckr", new double[]{.2, .1}, "fig", new double[]{.2, .2}, "il2", new double[]{.2, .3});
+        Path file3 = writeFile("file3.emb", false, "act1", new double[]{.3, .1}, "dik", new double[]{.3, .2}, "il2", new double[]{.3, .3});
+        List<MappedEmbeddingFile> inputs = Arrays.asList(MappedEmbeddingFile.open(file1), MappedEmbeddingFile.open(file2), MappedEmbeddingFile.open(file3));
+
+        Path merged = tempDir.resolve("merged.emb");
+        MappedEmbeddingFile.merge(inputs, merged, false, false);
+        try (MappedEmbeddingFile embeddings = MappedEmbeddingFile.open(merged)) {
+            assertThat(embeddings.size()).isEqualTo(10);
+            assertThat(embeddings.indexOf("il2")).isEqualTo(6);
+            assertThat(embeddings.getVector(6)).containsExactly(.1, .3);
+            assertThat(embeddings.getVector(7)).containsExactly(.2, .3);
+            assertThat(embeddings.getVector(8)).containsExactly(.3, .3);
+        }
+
+        Path grouped = tempDir.resolve("grouped.emb");
+        MappedEmbeddingFile.merge(inputs, grouped, true, false);
+        try (MappedEmbeddingFile embeddings = MappedEmbeddingFile.open(grouped)) {
+            assertThat(embeddings.size()).isEqualTo(7);
+            assertThat(embeddings.getText(0)).isEqualTo("act1");
+            assertThat(embeddings.getVector(0)).containsExactly(.2, .1);
+            assertThat(embeddings.getText(6)).isEqualTo("mtor");
+            double[] il2 = embeddings.getVector("il2");
+            assertThat(il2[0]).isCloseTo(.2, Offset.offset(0.00000000001));
+            assertThat(il2[1]).isCloseTo(.3, Offset.offset(0.00000000001));
+        }
+        for (MappedEmbeddingFile input : inputs)
+            input.close();
+    }
+}
@@ -88,7 +88,14 @@ public class FileReader extends CollectionReader_ImplBase {
     public static final String TITLE_ABSTRACT_SPLIT = "MakeTitleAbstractSplit";
     public static final String REMOVE_FILE_NAME_EXTENSION_FOR_DOC_ID = "RemoveFileNameExtensionForDocId";
     private final static Logger log = LoggerFactory.getLogger(FileReader.class);
-    private ArrayList<File> files;
+    private final static Pattern NON_WHITESPACE = Pattern.compile("[^\\s]+", Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CHARACTER_CLASS);
+    private final static Pattern BLANK_LINE = Pattern.compile("\\s*");
+    /**
+     * The input files are enumerated lazily while reading so that the first document is available right away, even
+     * for directories with a huge number of files.
+     */
+    private Stream<File> fileStream;
+    private Iterator<File> files;
 
     private int fileIndex;
 
@@ -196,12 +203,10 @@ public class FileReader extends CollectionReader_ImplBase {
         titleAbstractSplit = (boolean) Optional.ofNullable(getConfigParameterValue(TITLE_ABSTRACT_SPLIT)).orElse(false);
 
         fileIndex = 0;
-        files = new ArrayList<File>();
-
         try {
             createFileListByType(inputDirectory, allowedExtensions);
         } catch (IOException e) {
-            e.printStackTrace();
+            throw new ResourceInitializationException(e);
         }
     }
 
@@ -210,7 +215,7 @@ public class FileReader extends CollectionReader_ImplBase {
      */
     @Override
     public boolean hasNext() {
-        return fileIndex < files.size();
+        return files.hasNext();
     }
 
     /**
@@ -224,13 +229,12 @@ public class FileReader extends CollectionReader_ImplBase {
             JCas jcas = aCAS.getJCas();
 
             // open input stream to file
-            file = files.get(fileIndex++);
+            file = files.next();
+            ++fileIndex;
             log.trace("Got next file: {}", file);
 
             String text = IOStreamUtilities.getStringFromInputStream(FileUtilities.getInputStreamFromFile(file));
 
-            Pattern nws = Pattern.compile("[^\\s]+", Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CHARACTER_CLASS);
-
             String origText = null;
             if (origFolder != null) {
                 File origFile = new File(origFolder, getFileName(file, true) + "." + origFileExt);
@@ -247,7 +251,7 @@ public class FileReader extends CollectionReader_ImplBase {
                 Integer tmp = 0;
                 String line;
                 while ((line = rdr.readLine()) != null) {
-                    if (!Pattern.matches("\\s*", line)) {
+                    if (!BLANK_LINE.matcher(line).matches()) {
                         lines.add(line);
                         start.add(tmp);
                         end.add(tmp + line.length());
@@ -256,24 +260,14 @@ public class FileReader extends CollectionReader_ImplBase {
                 }
                 rdr.close();
 
-                int index_tmp = 0;
-                Optional<String> newLine;
+                int[] origOffsets = origText != null ? OriginalTextAligner.align(lines, origText) : null;
                 for (Integer i = 0; i < lines.size(); i++) {
                     boolean addSent2index = true;
                     Sentence sent = new Sentence(jcas);
                     if (origText != null) {
-                        newLine = Stream
-                                .of(lines.get(i).split("\\s+"))
-                                .map(x -> Pattern.quote(x))
-                                .reduce((x, y) -> x + "\\s*" + y);
-                        Pattern p = Pattern.compile(newLine.get(), Pattern.UNICODE_CHARACTER_CLASS);
-                        Matcher m = p.matcher(origText);
-                        if (m.find(index_tmp)) {
-                            int newStart = m.start();
-                            int newEnd = m.end();
-                            index_tmp = m.end() + 1;
-                            sent.setBegin(newStart);
-                            sent.setEnd(newEnd);
+                        if (origOffsets[2 * i] >= 0) {
+                            sent.setBegin(origOffsets[2 * i]);
+                            sent.setEnd(origOffsets[2 * i + 1]);
                         } else {
                             addSent2index = false;
                         }
@@ -296,7 +290,7 @@ public class FileReader extends CollectionReader_ImplBase {
 
 
                 Integer numberOfTokens = 0;
-                Matcher m = nws.matcher(text);
+                Matcher m = NON_WHITESPACE.matcher(text);
                 while (m.find()) {
                     String token = m.group();
                     int start = m.start();
@@ -427,6 +421,8 @@ public class FileReader extends CollectionReader_ImplBase {
      */
     @Override
     public void close() throws IOException {
+        if (fileStream != null)
+            fileStream.close();
     }
 
     /**
@@ -434,19 +430,22 @@ public class FileReader extends CollectionReader_ImplBase {
      */
     @Override
     public Progress[] getProgress() {
-        return new Progress[]{new ProgressImpl(fileIndex, files.size(), Progress.ENTITIES)};
+        // the total number of files is unknown because the files are enumerated lazily
+        return new Progress[]{new ProgressImpl(fileIndex, -1, Progress.ENTITIES)};
     }
 
     private void createFileListByType(File inputDirectory, final Set<String> allowedExtensions) throws IOException {
-        Files.walk(inputDirectory.toPath(), useSubDirs ? Integer.MAX_VALUE : 1, FileVisitOption.FOLLOW_LINKS)
+        // the reader might be reconfigured
+        close();
+        fileStream = Files.walk(inputDirectory.toPath(), useSubDirs ? Integer.MAX_VALUE : 1, FileVisitOption.FOLLOW_LINKS)
                 .filter(p -> {
                     if (allowedExtensions.isEmpty()) return true;
                     for (String ext : allowedExtensions) if (p.toString().endsWith(ext)) return true;
                     return false;
                 })
                 .map(Path::toFile)
-                .filter(File::isFile)
-                .forEach(files::add);
+                .filter(File::isFile);
+        files = fileStream.iterator();
     }
 
     private String getFileName(File fi, boolean removeExtension) {
@@ -0,0 +1,95 @@
+package de.julielab.jcore.reader.file.main;
+
+import java.util.List;
+
+/**
+ * <p>
+ * Maps the lines of a sentence-per-line version of a text to their offsets in the original text. The non-whitespace
+ * characters of a line must occur in the original text in the same order. Where the line has whitespace, the original
+ * text may have any amount of whitespace, including none; within a whitespace-delimited token of the line, no
+ * whitespace is allowed in the original text. This corresponds to searching the tokens of the line, joined by
+ * <tt>\s*</tt>, as a regular expression, without compiling an expression for each line.
+ * </p>
+ * <p>
+ * The lines are aligned one after the other in a single pass over both texts, each line starting where the previous
+ * one ended. Thus, the alignment takes linear time as long as the lines are a re-segmentation of the original text.
+ * When a line does not match at the current position, it is searched for further on in the original text. Lines that
+ * do not occur in the rest of the original text are not aligned.
+ * </p>
+ * <p>
+ * Note that the search for the next line starts directly at the end of the previous line. The former per-line
+ * regular expressions started one character after the end of the previous match. Thus, a line following a line that
+ * is not separated from it by whitespace in the original text, e.g. in <tt>First sentence.Second sentence.</tt>, is
+ * now aligned to its actual position. Before, its first character was skipped and the line was matched at a later
+ * occurrence or not at all. The offsets of all other lines are unchanged.
+ * </p>
+ */
+final class OriginalTextAligner {
+
+    private OriginalTextAligner() {
+    }
+
+    /**
+     * Aligns <tt>lines</tt> to <tt>origText</tt>.
+     *
+     * @param lines    The sentence lines, in the order of the original text.
+     * @param origText The original text.
+     * @return An array with the begin of line <tt>i</tt> at index <tt>2i</tt> and its end at index <tt>2i+1</tt>. Both
+     * are -1 if the line could not be found in the original text.
+     */
+    static int[] align(List<String> lines, String origText) {
+        final int[] offsets = new int[2 * lines.size()];
+        int from = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            final String line = lines.get(i);
+            final int first = skipWhitespace(line, 0);
+            int begin = -1;
+            int end = -1;
+            if (first < line.length()) {
+                final char firstChar = line.charAt(first);
+                int candidate = origText.indexOf(firstChar, from);
+                while (candidate >= 0 && (end = matchAt(line, first, origText, candidate)) < 0)
+                    candidate = origText.indexOf(firstChar, candidate + 1);
+                if (end >= 0) {
+                    begin = candidate;
+                    from = end;
+                }
+            }
+            offsets[2 * i] = begin;
+            offsets[2 * i + 1] = end;
+        }
+        return offsets;
+    }
+
+    /**
+     * Matches <tt>line</tt> from its first non-whitespace character <tt>first</tt> against <tt>origText</tt> at
+     * <tt>begin</tt>.
+     *
+     * @return The end offset of the match in <tt>origText</tt> or -1 if the line does not match.
+     */
+    private static int matchAt(String line, int first, String origText, int begin) {
+        int i = first;
+        int j = begin;
+        while (true) {
+            final int next = skipWhitespace(line, i);
+            if (next == line.length())
+                return j;
+            if (next > i)
+                j = skipWhitespace(origText, j);
+            if (j == origText.length() || origText.charAt(j) != line.charAt(next))
+                return -1;
+            i = next + 1;
+            ++j;
+        }
+    }
+
+    private static int skipWhitespace(String s, int pos) {
+        while (pos < s.length() && isWhitespace(s.charAt(pos)))
+            ++pos;
+        return pos;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return Character.isWhitespace(c) || Character.isSpaceChar(c);
+    }
+}
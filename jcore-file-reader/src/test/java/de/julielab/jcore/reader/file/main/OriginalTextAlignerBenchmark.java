@@ -0,0 +1,82 @@
+package de.julielab.jcore.reader.file.main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * <p>
+ * Compares the time to align the sentences of a tokenized, sentence-per-line document of about 5 MB to the original
+ * text with the {@link OriginalTextAligner} and with a regular expression compiled for each sentence, as the
+ * {@link FileReader} did before. Both alignments are checked to be equal, which holds because the generated sentences
+ * are separated by whitespace (see {@link OriginalTextAligner} for the difference otherwise).
+ * </p>
+ * <p>
+ * Arguments: <tt>[document size in MB]</tt>, default 5.
+ * </p>
+ */
+public class OriginalTextAlignerBenchmark {
+    private static final String[] SENTENCES = {
+            "Our understanding of the role of interleukin (IL)-12 in controlling tuberculosis has expanded because of increased interest in other members of the IL-12 family of cytokines.",
+            "Recent data show that IL-12, IL-23 and IL-27 have specific roles in the initiation, expansion and control of the cellular response to tuberculosis.",
+            "Specifically, IL-12, and to a lesser degree IL-23, generates protective cellular responses and promotes survival, whereas IL-27 moderates the inflammatory response and is required for long-term survival.",
+            "Paradoxically, IL-27 also limits bacterial control, suggesting that a balance between bacterial killing and tissue damage is required for survival.",
+            "Understanding the balance between IL-12, IL-23 and IL-27 is crucial to the development of immune intervention in tuberculosis."};
+
+    public static void main(String[] args) {
+        final int size = (args.length > 0 ? Integer.parseInt(args[0]) : 5) * 1024 * 1024;
+        StringBuilder origText = new StringBuilder();
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; origText.length() < size; i++) {
+            String sentence = SENTENCES[i % SENTENCES.length];
+            origText.append(sentence).append(i % 7 == 0 ? "\n\n" : " ");
+            lines.add(sentence.replaceAll("([,.()])", " $1 ").trim());
+        }
+        String text = origText.toString();
+        System.out.printf("%d sentences, %.2f MB%n", lines.size(), text.length() / (1024d * 1024d));
+
+        // one warm-up round and one measured round
+        int[] aligned = null;
+        int[] regex = null;
+        long alignerTime = 0;
+        long regexTime = 0;
+        for (int round = 0; round < 2; round++) {
+            alignerTime = System.nanoTime();
+            aligned = OriginalTextAligner.align(lines, text);
+            alignerTime = System.nanoTime() - alignerTime;
+
+            regexTime = System.nanoTime();
+            regex = alignWithRegex(lines, text);
+            regexTime = System.nanoTime() - regexTime;
+        }
+        System.out.printf("OriginalTextAligner: %.2f ms%n", alignerTime / 1000000d);
+        System.out.printf("Regular expression per sentence: %.2f ms%n", regexTime / 1000000d);
+        System.out.println("Equal alignments: " + Arrays.equals(aligned, regex));
+    }
+
+    private static int[] alignWithRegex(List<String> lines, String origText) {
+        int[] offsets = new int[2 * lines.size()];
+        int index_tmp = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            Optional<String> newLine = Stream
+                    .of(lines.get(i).split("\\s+"))
+                    .map(x -> Pattern.quote(x))
+                    .reduce((x, y) -> x + "\\s*" + y);
+            Pattern p = Pattern.compile(newLine.get(), Pattern.UNICODE_CHARACTER_CLASS);
+            Matcher m = p.matcher(origText);
+            if (m.find(index_tmp)) {
+                offsets[2 * i] = m.start();
+                offsets[2 * i + 1] = m.end();
+                index_tmp = m.end() + 1;
+            } else {
+                offsets[2 * i] = -1;
+                offsets[2 * i + 1] = -1;
+            }
+        }
+        return offsets;
+    }
+}
@@ -0,0 +1,48 @@
+package de.julielab.jcore.reader.file.main;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+public class OriginalTextAlignerTest {
+
+    @Test
+    public void testAlignTokenizedSentences() {
+        String origText = "IL-27 moderates the response, e.g. in mice.  Paradoxically,\nIL-27 also limits control.";
+        int[] offsets = OriginalTextAligner.align(Arrays.asList("IL-27 moderates the response , e.g. in mice .",
+                "Paradoxically , IL-27 also limits control ."), origText);
+        assertArrayEquals(new int[]{0, 43, 45, 86}, offsets);
+    }
+
+    @Test
+    public void testSentencesWithoutWhitespaceBetween() {
+        String origText = "First sentence.Second sentence.";
+        int[] offsets = OriginalTextAligner.align(Arrays.asList("First sentence .", "Second sentence ."), origText);
+        assertArrayEquals(new int[]{0, 15, 15, 31}, offsets);
+    }
+
+    @Test
+    public void testSkipUnmatchedText() {
+        String origText = "Heading\nThe first sentence. The second sentence.";
+        int[] offsets = OriginalTextAligner.align(Arrays.asList("The first sentence .", "Not there .",
+                "The second sentence ."), origText);
+        assertArrayEquals(new int[]{8, 27, -1, -1, 28, 48}, offsets);
+    }
+
+    @Test
+    public void testNoWhitespaceWithinTokens() {
+        String origText = "IL -27 and IL-27";
+        int[] offsets = OriginalTextAligner.align(Collections.singletonList("IL-27"), origText);
+        assertArrayEquals(new int[]{11, 16}, offsets);
+    }
+
+    @Test
+    public void testLeadingWhitespace() {
+        String origText = "A b.";
+        int[] offsets = OriginalTextAligner.align(Arrays.asList("  A b .", " \t"), origText);
+        assertArrayEquals(new int[]{0, 4, -1, -1}, offsets);
+    }
+}
@@ -0,0 +1,108 @@
+package de.julielab.jcore.ae.flairner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * The messages exchanged with the external tagging process, see <tt>python/nerScript.py</tt>. Each message is
+ * preceded by its length in bytes as a 4 byte integer. All numbers are big endian, strings are given as their length
+ * in bytes followed by their UTF-8 encoding.
+ * </p>
+ * <p>Request:</p>
+ * <pre>
+ * int requestId (-1 to terminate the process)
+ * int numSentences
+ * numSentences times: string sentenceId, string whitespace-tokenized sentence text
+ * </pre>
+ * <p>Response:</p>
+ * <pre>
+ * int requestId
+ * int numEntities
+ * numEntities times: string sentenceId, string tag, double confidence, int firstTokenId, int lastTokenId
+ * int numVectors
+ * int vectorLength
+ * numVectors times: string sentenceId, int tokenId, float[vectorLength] vector
+ * </pre>
+ * <p>The token IDs are 1-based and relative to the sentence.</p>
+ */
+public class FlairBinaryProtocol {
+    public static final int EXIT_REQUEST_ID = -1;
+
+    private FlairBinaryProtocol() {
+    }
+
+    /**
+     * @param requestId The ID of the request, repeated in the response.
+     * @param sentences Pairs of sentence ID and the tokenized sentence text, tokens separated by a single whitespace.
+     * @return The request message without the length prefix.
+     */
+    public static byte[] encodeRequest(int requestId, List<String[]> sentences) {
+        try {
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            final DataOutputStream dos = new DataOutputStream(baos);
+            dos.writeInt(requestId);
+            dos.writeInt(sentences.size());
+            for (String[] sentence : sentences) {
+                writeString(dos, sentence[0]);
+                writeString(dos, sentence[1]);
+            }
+            return baos.toByteArray();
+        } catch (IOException e) {
+            // does not happen with a ByteArrayOutputStream
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static byte[] encodeExit() {
+        return ByteBuffer.allocate(4).putInt(EXIT_REQUEST_ID).array();
+    }
+
+    private static void writeString(DataOutputStream dos, String s) throws IOException {
+        final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        dos.writeInt(bytes.length);
+        dos.write(bytes);
+    }
+
+    /**
+     * @param bb A response message, positioned directly after the request ID.
+     * @return The decoded response.
+     */
+    public static NerTaggingResponse decodeResponse(ByteBuffer bb) {
+        final int numEntities = bb.getInt();
+        final List<TaggedEntity> taggedEntities = new ArrayList<>(numEntities);
+        for (int i = 0; i < numEntities; i++) {
+            final String sid = readString(bb);
+            final String tag = readString(bb);
+            final double confidence = bb.getDouble();
+            final int begin = bb.getInt();
+            final int end = bb.getInt();
+            taggedEntities.add(new TaggedEntity(sid, tag, confidence, begin, end));
+        }
+        final int numEmbeddingVectors = bb.getInt();
+        final int vectorLength = bb.getInt();
+        final List<TokenEmbedding> embeddings = new ArrayList<>(numEmbeddingVectors);
+        for (int i = 0; i < numEmbeddingVectors; i++) {
+            final String sid = readString(bb);
+            final int tokenId = bb.getInt();
+            final double[] vector = new double[vectorLength];
+            for (int j = 0; j < vectorLength; j++)
+                vector[j] = bb.getFloat();
+            embeddings.add(new TokenEmbedding(sid, tokenId, vector));
+        }
+        return new NerTaggingResponse(taggedEntities, embeddings);
+    }
+
+    private static String readString(ByteBuffer bb) {
+        final int length = bb.getInt();
+        final String s = new String(bb.array(), bb.arrayOffset() + bb.position(), length, StandardCharsets.UTF_8);
+        bb.position(bb.position() + length);
+        return s;
+    }
+}
@@ -16,6 +16,8 @@ import de.julielab.jcore.utility.index.Comparators;
 import de.julielab.jcore.utility.index.JCoReOverlapAnnotationIndex;
 import de.julielab.jcore.utility.index.JCoReTreeMapAnnotationIndex;
 import de.julielab.jcore.utility.index.TermGenerators;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
 import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_component.JCasAnnotator_ImplBase;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
@@ -50,12 +52,22 @@ public class FlairNerAnnotator extends JCasAnnotator_ImplBase {
     public static final String PARAM_STORE_EMBEDDINGS = "StoreEmbeddings";
     public static final String PARAM_GPU_NUM = "GpuNumber";
     public static final String PARAM_COMPONENT_ID = "ComponentId";
+    public static final String PARAM_NUM_WORKERS = "NumWorkers";
+    public static final String PARAM_MAX_REQUESTS_IN_FLIGHT = "MaxRequestsInFlight";
+    public static final String PARAM_SENTENCES_PER_REQUEST = "SentencesPerRequest";
+    public static final String PARAM_SHARE_WORKERS = "ShareWorkers";
     /**
      * The name of the Java system property to set the used GPU device externally.
      */
     public static final String GPU_NUM_SYS_PROP = "flairner.device";
     private final static Logger log = LoggerFactory.getLogger(FlairNerAnnotator.class);
+    /**
+     * The connectors shared between annotator instances, see {@link #PARAM_SHARE_WORKERS}, with their number of users.
+     * Guarded by itself.
+     */
+    private static final Map<String, Pair<PythonConnector, Integer>> sharedConnectors = new HashMap<>();
     private PythonConnector connector;
+    private String sharedConnectorKey;
     @ConfigurationParameter(name = PARAM_ANNOTATION_TYPE, description = "The UIMA type of which annotations should be created, e.g. de.julielab.jcore.types.EntityMention, of which the given type must be a subclass of. The tag of the entities is written to the specificType feature.")
     private String entityClass;
     @ConfigurationParameter(name = PARAM_FLAIR_MODEL, description = "Path to the Flair sequence tagger model.")
@@ -68,6 +80,14 @@ public class FlairNerAnnotator extends JCasAnnotator_ImplBase {
     private int gpuNum;
     @ConfigurationParameter(name = PARAM_COMPONENT_ID, mandatory = false, description = "Specifies the componentId feature value given to the created annotations. Defaults to 'FlairNerAnnotator'.")
     private String componentId;
+    @ConfigurationParameter(name = PARAM_NUM_WORKERS, mandatory = false, defaultValue = "1", description = "The number of Python processes running Flair. Each process loads the model. Defaults to 1.")
+    private int numWorkers;
+    @ConfigurationParameter(name = PARAM_MAX_REQUESTS_IN_FLIGHT, mandatory = false, defaultValue = "2", description = "The maximum number of requests that are sent to a Python process before its responses are received. With a value larger than 1, the next request is serialized while Flair tags the current one. Defaults to 2.")
+    private int maxRequestsInFlight;
+    @ConfigurationParameter(name = PARAM_SENTENCES_PER_REQUEST, mandatory = false, defaultValue = "0", description = "The maximum number of sentences sent to Flair in one request. The requests of a document are distributed over the Python processes. 0 sends all sentences of a document in one request. Defaults to 0.")
+    private int sentencesPerRequest;
+    @ConfigurationParameter(name = PARAM_SHARE_WORKERS, mandatory = false, defaultValue = "false", description = "If set to true, all annotator instances with the same model, Python executable, embedding, GPU and worker settings share the same Python processes. This allows to run more pipeline threads than Flair processes, having several documents in flight for each process. Defaults to false.")
+    private boolean shareWorkers;
     private AnnotationAdderConfiguration adderConfig;
 
     /**
@@ -81,6 +101,10 @@ public class FlairNerAnnotator extends JCasAnnotator_ImplBase {
         storeEmbeddings = StoreEmbeddings.valueOf(Optional.ofNullable((String) aContext.getConfigParameterValue(PARAM_STORE_EMBEDDINGS)).orElse(StoreEmbeddings.NONE.name()));
         gpuNum = Optional.ofNullable((Integer) aContext.getConfigParameterValue(PARAM_GPU_NUM)).orElse(0);
         componentId = Optional.ofNullable((String) aContext.getConfigParameterValue(PARAM_COMPONENT_ID)).orElse(getClass().getSimpleName());
+        numWorkers = Optional.ofNullable((Integer) aContext.getConfigParameterValue(PARAM_NUM_WORKERS)).orElse(1);
+        maxRequestsInFlight = Optional.ofNullable((Integer) aContext.getConfigParameterValue(PARAM_MAX_REQUESTS_IN_FLIGHT)).orElse(2);
+        sentencesPerRequest = Optional.ofNullable((Integer) aContext.getConfigParameterValue(PARAM_SENTENCES_PER_REQUEST)).orElse(0);
+        shareWorkers = Optional.ofNullable((Boolean) aContext.getConfigParameterValue(PARAM_SHARE_WORKERS)).orElse(false);
         if (System.getProperty(GPU_NUM_SYS_PROP) != null) {
             try {
                 gpuNum = Integer.valueOf(System.getProperty(GPU_NUM_SYS_PROP));
@@ -133,8 +157,23 @@ public class FlairNerAnnotator extends JCasAnnotator_ImplBase {
             throw new ResourceInitializationException(new IllegalArgumentException(msg));
         }
         try {
-            connector = new StdioPythonConnector(flairModel, pythonExecutable, storeEmbeddings, gpuNum);
-            connector.start();
+            if (shareWorkers) {
+                sharedConnectorKey = String.join("|", flairModel, pythonExecutable, storeEmbeddings.name(), String.valueOf(gpuNum), String.valueOf(numWorkers), String.valueOf(maxRequestsInFlight), String.valueOf(sentencesPerRequest));
+                synchronized (sharedConnectors) {
+                    final Pair<PythonConnector, Integer> sharedConnector = sharedConnectors.get(sharedConnectorKey);
+                    if (sharedConnector != null) {
+                        connector = sharedConnector.getLeft();
+                        sharedConnectors.put(sharedConnectorKey, new ImmutablePair<>(connector, sharedConnector.getRight() + 1));
+                    } else {
+                        connector = new StdioPythonConnector(flairModel, pythonExecutable, storeEmbeddings, gpuNum, numWorkers, maxRequestsInFlight, sentencesPerRequest);
+                        connector.start();
+                        sharedConnectors.put(sharedConnectorKey, new ImmutablePair<>(connector, 1));
+                    }
+                }
+            } else {
+                connector = new StdioPythonConnector(flairModel, pythonExecutable, storeEmbeddings, gpuNum, numWorkers, maxRequestsInFlight, sentencesPerRequest);
+                connector.start();
+            }
         } catch (IOException e) {
             log.error("Could not start the python connector", e);
             throw new ResourceInitializationException(e);
@@ -150,6 +189,10 @@ public class FlairNerAnnotator extends JCasAnnotator_ImplBase {
         log.info("{}: {}", PARAM_FLAIR_MODEL, flairModel);
         log.info("{}: {}", PARAM_STORE_EMBEDDINGS, storeEmbeddings);
         log.info("{}: {}", PARAM_GPU_NUM, gpuNum);
+        log.info("{}: {}", PARAM_NUM_WORKERS, numWorkers);
+        log.info("{}: {}", PARAM_MAX_REQUESTS_IN_FLIGHT, maxRequestsInFlight);
+        log.info("{}: {}", PARAM_SENTENCES_PER_REQUEST, sentencesPerRequest);
+        log.info("{}: {}", PARAM_SHARE_WORKERS, shareWorkers);
     }
 
     /**
@@ -293,7 +336,21 @@ public class FlairNerAnnotator extends JCasAnnotator_ImplBase {
     @Override
     public void collectionProcessComplete() throws AnalysisEngineProcessException {
         try {
-            connector.shutdown();
+            if (sharedConnectorKey != null) {
+                synchronized (sharedConnectors) {
+                    final Pair<PythonConnector, Integer> sharedConnector = sharedConnectors.get(sharedConnectorKey);
+                    // the last user shuts the processes down
+                    if (sharedConnector == null || sharedConnector.getRight() <= 1) {
+                        sharedConnectors.remove(sharedConnectorKey);
+                        connector.shutdown();
+                    } else {
+                        sharedConnectors.put(sharedConnectorKey, new ImmutablePair<>(connector, sharedConnector.getRight() - 1));
+                    }
+                }
+                sharedConnectorKey = null;
+            } else {
+                connector.shutdown();
+            }
         } catch (InterruptedException e) {
             log.error("Could not shutdown the python connector", e);
             throw new AnalysisEngineProcessException(e);
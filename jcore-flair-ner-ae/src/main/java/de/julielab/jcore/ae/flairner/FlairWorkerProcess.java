@@ -0,0 +1,210 @@
+package de.julielab.jcore.ae.flairner;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * One external tagging process, communicating via {@link FlairBinaryProtocol} frames over its standard input and
+ * output. Requests are written by the calling threads without waiting for the responses of previous requests; up to
+ * <tt>maxRequestsInFlight</tt> requests may be pending at the same time. Thus, the process finds the next request in
+ * its input as soon as it has answered the current one. The responses are read and decoded by a dedicated reader
+ * thread.
+ * </p>
+ * <p>
+ * The process must write the line {@link #READY_SIGNAL} to its standard output when it is ready to receive requests.
+ * Everything written to the standard output before this line is logged and otherwise ignored. The standard error
+ * stream is logged.
+ * </p>
+ */
+class FlairWorkerProcess {
+    public static final String READY_SIGNAL = "Ready for tagging.";
+    private final static Logger log = LoggerFactory.getLogger(FlairWorkerProcess.class);
+    private static final int STDERR_LINES_TO_KEEP = 20;
+    private final List<String> command;
+    private final String name;
+    private final Semaphore requestPermits;
+    private final Map<Integer, CompletableFuture<NerTaggingResponse>> pendingRequests = new ConcurrentHashMap<>();
+    private final Deque<String> lastErrorLines = new ArrayDeque<>();
+    private Process process;
+    private DataOutputStream out;
+    private Thread readerThread;
+    private Thread errorReaderThread;
+    private volatile IOException failure;
+
+    FlairWorkerProcess(List<String> command, String name, int maxRequestsInFlight) {
+        this.command = command;
+        this.name = name;
+        this.requestPermits = new Semaphore(Math.max(1, maxRequestsInFlight));
+    }
+
+    void start() throws IOException {
+        process = new ProcessBuilder(command).start();
+        errorReaderThread = new Thread(this::readErrorStream, name + " stderr");
+        errorReaderThread.setDaemon(true);
+        errorReaderThread.start();
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+        String line;
+        while (!READY_SIGNAL.equals(line = readLine(in))) {
+            if (line == null)
+                throw new IOException("The external process " + name + " terminated before signaling readiness. Last error output: " + getLastErrorLines());
+            log.debug("{}: {}", name, line);
+        }
+        out = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+        readerThread = new Thread(() -> readResponses(in), name + " reader");
+        readerThread.setDaemon(true);
+        readerThread.start();
+        log.debug("External process {} is ready.", name);
+    }
+
+    /**
+     * Reads a line of UTF-8 text byte-wise so that no bytes of the subsequent binary frames are buffered away.
+     */
+    private String readLine(DataInputStream in) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1 && b != '\n')
+            baos.write(b);
+        if (b == -1 && baos.size() == 0)
+            return null;
+        return baos.toString(StandardCharsets.UTF_8).strip();
+    }
+
+    private void readErrorStream() {
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                log.debug("{} stderr: {}", name, line);
+                synchronized (lastErrorLines) {
+                    lastErrorLines.add(line);
+                    if (lastErrorLines.size() > STDERR_LINES_TO_KEEP)
+                        lastErrorLines.removeFirst();
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Reading the error stream of {} ended with exception", name, e);
+        }
+    }
+
+    private String getLastErrorLines() {
+        synchronized (lastErrorLines) {
+            return String.join(System.lineSeparator(), lastErrorLines);
+        }
+    }
+
+    private void readResponses(DataInputStream in) {
+        try {
+            while (true) {
+                final int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                final byte[] frame = new byte[length];
+                in.readFully(frame);
+                final ByteBuffer bb = ByteBuffer.wrap(frame);
+                final int requestId = bb.getInt();
+                final CompletableFuture<NerTaggingResponse> future = pendingRequests.remove(requestId);
+                if (future == null) {
+                    log.warn("{} sent a response to the unknown request {}", name, requestId);
+                    continue;
+                }
+                requestPermits.release();
+                try {
+                    future.complete(FlairBinaryProtocol.decodeResponse(bb));
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            }
+            fail(new IOException("The external process " + name + " closed its output. Last error output: " + getLastErrorLines()));
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void fail(IOException e) {
+        if (failure == null)
+            failure = e;
+        for (Integer requestId : pendingRequests.keySet()) {
+            final CompletableFuture<NerTaggingResponse> future = pendingRequests.remove(requestId);
+            if (future != null) {
+                requestPermits.release();
+                future.completeExceptionally(failure);
+            }
+        }
+    }
+
+    /**
+     * Sends a request frame and returns immediately unless the maximum number of requests is already in flight.
+     *
+     * @param requestId The ID of the request which is contained in <tt>request</tt>.
+     * @param request   A request frame created by {@link FlairBinaryProtocol#encodeRequest(int, List)}.
+     * @return The future response.
+     * @throws IOException          If the process has failed or the request cannot be written.
+     * @throws InterruptedException If waiting for a free request slot is interrupted.
+     */
+    CompletableFuture<NerTaggingResponse> send(int requestId, byte[] request) throws IOException, InterruptedException {
+        requestPermits.acquire();
+        final CompletableFuture<NerTaggingResponse> future = new CompletableFuture<>();
+        pendingRequests.put(requestId, future);
+        try {
+            if (failure != null)
+                throw failure;
+            synchronized (out) {
+                out.writeInt(request.length);
+                out.write(request);
+                out.flush();
+            }
+        } catch (IOException e) {
+            if (pendingRequests.remove(requestId) != null)
+                requestPermits.release();
+            throw e;
+        }
+        return future;
+    }
+
+    /**
+     * @return The number of requests waiting for their response.
+     */
+    int getNumPendingRequests() {
+        return pendingRequests.size();
+    }
+
+    void stop() throws InterruptedException {
+        if (process == null)
+            return;
+        try {
+            if (out != null) {
+                synchronized (out) {
+                    final byte[] exit = FlairBinaryProtocol.encodeExit();
+                    out.writeInt(exit.length);
+                    out.write(exit);
+                    out.flush();
+                    out.close();
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Could not send the exit signal to {}", name, e);
+        }
+        if (!process.waitFor(10, TimeUnit.SECONDS)) {
+            log.warn("The external process {} did not terminate after the exit signal, destroying it.", name);
+            process.destroyForcibly();
+        }
+        if (readerThread != null)
+            readerThread.join(1000);
+        errorReaderThread.join(1000);
+    }
+}
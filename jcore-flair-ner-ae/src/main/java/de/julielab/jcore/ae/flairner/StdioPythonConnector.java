@@ -1,9 +1,5 @@
 package de.julielab.jcore.ae.flairner;
 
-import com.fasterxml.jackson.core.JsonFactory;
-import com.fasterxml.jackson.core.JsonGenerator;
-import de.julielab.ipc.javabridge.Options;
-import de.julielab.ipc.javabridge.StdioBridge;
 import de.julielab.java.utilities.IOStreamUtilities;
 import de.julielab.jcore.types.Sentence;
 import de.julielab.jcore.types.Token;
@@ -11,118 +7,140 @@ import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.cas.CASException;
 import org.apache.uima.cas.FSIterator;
 import org.apache.uima.jcas.JCas;
-import org.apache.uima.jcas.tcas.Annotation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.io.StringWriter;
-import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Spliterators;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 
+/**
+ * <p>
+ * Sends sentences to a pool of Python processes running Flair and receives the tagged entities and, optionally,
+ * the token embeddings. The communication uses the length-prefixed binary messages of {@link FlairBinaryProtocol}
+ * over the standard streams of the processes.
+ * </p>
+ * <p>
+ * The sentences of a call to {@link #tagSentences(Stream)} are split into requests of at most
+ * <tt>sentencesPerRequest</tt> sentences. Each request is sent to the process with the fewest pending requests
+ * without waiting for the responses of previous requests. Thus, a process can work on one request while the next one is
+ * serialized, and multiple processes can work on the same document. This class is thread safe, so that multiple
+ * annotator instances can share the processes and have their documents tagged at the same time.
+ * </p>
+ */
 public class StdioPythonConnector implements PythonConnector {
     private final static Logger log = LoggerFactory.getLogger(StdioPythonConnector.class);
-    private final StdioBridge<byte[]> bridge;
+    private static final AtomicInteger requestIdCounter = new AtomicInteger();
+    private final List<FlairWorkerProcess> workers = new ArrayList<>();
+    private final int sentencesPerRequest;
 
     public StdioPythonConnector(String languageModelPath, String pythonExecutable, FlairNerAnnotator.StoreEmbeddings storeEmbeddings, int gpuNum) throws IOException {
-        Options params = new Options(byte[].class);
-        params.setExecutable(pythonExecutable);
-        params.setExternalProgramReadySignal("Ready for tagging.");
-        params.setExternalProgramTerminationSignal("exit");
-        params.setTerminationSignalFromErrorStream("SyntaxError");
-        String script = IOStreamUtilities.getStringFromInputStream(getClass().getResourceAsStream("/de/julielab/jcore/ae/flairner/python/nerScript.py"));
-        bridge = new StdioBridge<>(params, "-u", "-c", script, languageModelPath, storeEmbeddings.name(), String.valueOf(gpuNum));
+        this(languageModelPath, pythonExecutable, storeEmbeddings, gpuNum, 1, 2, 0);
+    }
+
+    /**
+     * @param languageModelPath   The path to the Flair sequence tagger model.
+     * @param pythonExecutable    The Python executable.
+     * @param storeEmbeddings     Which token embeddings to retrieve.
+     * @param gpuNum              The GPU device number.
+     * @param numWorkers          The number of Python processes to start.
+     * @param maxRequestsInFlight The maximum number of requests sent to a process that have not yet been answered.
+     * @param sentencesPerRequest The maximum number of sentences per request. 0 to send all sentences of a document in one request.
+     * @throws IOException If the tagging script cannot be read.
+     */
+    public StdioPythonConnector(String languageModelPath, String pythonExecutable, FlairNerAnnotator.StoreEmbeddings storeEmbeddings, int gpuNum, int numWorkers, int maxRequestsInFlight, int sentencesPerRequest) throws IOException {
+        this(List.of(pythonExecutable, "-u", "-c", IOStreamUtilities.getStringFromInputStream(StdioPythonConnector.class.getResourceAsStream("/de/julielab/jcore/ae/flairner/python/nerScript.py")), languageModelPath, storeEmbeddings.name(), String.valueOf(gpuNum)), numWorkers, maxRequestsInFlight, sentencesPerRequest);
+    }
+
+    /**
+     * @param command             The command to start an external tagging process that implements {@link FlairBinaryProtocol}.
+     * @param numWorkers          The number of processes to start.
+     * @param maxRequestsInFlight The maximum number of requests sent to a process that have not yet been answered.
+     * @param sentencesPerRequest The maximum number of sentences per request. 0 to send all sentences of a document in one request.
+     */
+    StdioPythonConnector(List<String> command, int numWorkers, int maxRequestsInFlight, int sentencesPerRequest) {
+        this.sentencesPerRequest = sentencesPerRequest > 0 ? sentencesPerRequest : Integer.MAX_VALUE;
+        for (int i = 0; i < Math.max(1, numWorkers); i++)
+            workers.add(new FlairWorkerProcess(command, "FlairWorker-" + i, maxRequestsInFlight));
     }
 
     @Override
     public NerTaggingResponse tagSentences(Stream<Sentence> sentences) throws AnalysisEngineProcessException {
         try {
-            final StringWriter sw = new StringWriter();
-            final JsonGenerator generator = new JsonFactory().createGenerator(sw);
-            generator.writeStartArray();
-            sentences.forEach(sentence -> {
-                try {
-                    final JCas jCas = sentence.getCAS().getJCas();
-                    final FSIterator<Token> tokensInSentence = jCas.<Token>getAnnotationIndex(Token.type).subiterator(sentence);
-                    final String tokenizedSentenceText = StreamSupport.stream(Spliterators.spliteratorUnknownSize(tokensInSentence, 0), false).map(Annotation::getCoveredText).collect(Collectors.joining(" "));
-                    if (!tokenizedSentenceText.isBlank()) {
-                        generator.writeStartObject();
-                        generator.writeFieldName("sid");
-                        generator.writeString(sentence.getId());
-                        generator.writeFieldName("text");
-                        generator.writeString(tokenizedSentenceText);
-                        generator.writeEndObject();
+            final List<CompletableFuture<NerTaggingResponse>> responses = new ArrayList<>();
+            List<String[]> requestSentences = new ArrayList<>();
+            final Iterator<Sentence> sentenceIt = sentences.iterator();
+            while (sentenceIt.hasNext()) {
+                final Sentence sentence = sentenceIt.next();
+                final JCas jCas = sentence.getCAS().getJCas();
+                final FSIterator<Token> tokensInSentence = jCas.<Token>getAnnotationIndex(Token.type).subiterator(sentence);
+                final StringBuilder sb = new StringBuilder();
+                while (tokensInSentence.hasNext()) {
+                    if (sb.length() > 0)
+                        sb.append(' ');
+                    sb.append(tokensInSentence.next().getCoveredText());
+                }
+                final String tokenizedSentenceText = sb.toString();
+                if (!tokenizedSentenceText.isBlank()) {
+                    requestSentences.add(new String[]{sentence.getId(), tokenizedSentenceText});
+                    if (requestSentences.size() == sentencesPerRequest) {
+                        responses.add(send(requestSentences));
+                        requestSentences = new ArrayList<>();
                     }
-                } catch (CASException e) {
-                    log.error("Could not retrieve the JCas from the CAS", e);
-                } catch (IOException e) {
-                    log.error("Could not write JSON", e);
                 }
-            });
-
-            generator.writeEndArray();
-            generator.close();
-            List<TokenEmbedding> embeddings = new ArrayList<>();
-            final Iterator<byte[]> bytesIt;
-            bytesIt = bridge.sendAndReceive(sw.toString()).iterator();
+            }
+            if (!requestSentences.isEmpty())
+                responses.add(send(requestSentences));
 
             final List<TaggedEntity> taggedEntities = new ArrayList<>();
-            while (bytesIt.hasNext()) {
-                byte[] sentenceResponseBytes = bytesIt.next();
-                final ByteBuffer bb = ByteBuffer.wrap(sentenceResponseBytes);
-                final int numEntities = bb.getInt();
-                for (int i = 0; i < numEntities; i++) {
-                    final int taggedEntityResponseLength = bb.getInt();
-                    byte[] taggedEntityRepsonseBytes = new byte[taggedEntityResponseLength];
-                    bb.get(taggedEntityRepsonseBytes);
-                    final String taggedEntityString = new String(taggedEntityRepsonseBytes, StandardCharsets.UTF_8);
-                    final String[] taggedEntityRecord = taggedEntityString.split("\\t");
-                    taggedEntities.add(new TaggedEntity(taggedEntityRecord[0], taggedEntityRecord[1], Double.valueOf(taggedEntityRecord[2]), Integer.valueOf(taggedEntityRecord[3]), Integer.valueOf(taggedEntityRecord[4])));
-                }
-                final int numEmbeddingVectors = bb.getInt();
-                final int vectorLength = bb.getInt();
-                for (int i = 0; i < numEmbeddingVectors; i++) {
-                    final int sentenceIdLength = bb.getInt();
-                    final byte[] sentenceIdBytes = new byte[sentenceIdLength];
-                    bb.get(sentenceIdBytes);
-                    final String sid = new String(sentenceIdBytes, StandardCharsets.UTF_8);
-                    final int tokenId = bb.getInt();
-                    double[] vector = new double[vectorLength];
-                    for (int j = 0; j < vectorLength; j++) {
-                        vector[j] = bb.getDouble();
-                    }
-                    final TokenEmbedding tokenEmbedding = new TokenEmbedding(sid, tokenId, vector);
-                    embeddings.add(tokenEmbedding);
-                }
+            final List<TokenEmbedding> embeddings = new ArrayList<>();
+            for (CompletableFuture<NerTaggingResponse> future : responses) {
+                final NerTaggingResponse response = future.get();
+                taggedEntities.addAll(response.getTaggedEntities());
+                embeddings.addAll(response.getTokenEmbeddings());
             }
             return new NerTaggingResponse(taggedEntities, embeddings);
         } catch (InterruptedException e) {
             log.error("Python communication was interrupted", e);
+            Thread.currentThread().interrupt();
             throw new AnalysisEngineProcessException(e);
+        } catch (ExecutionException e) {
+            log.error("Flair tagging failed", e.getCause());
+            throw new AnalysisEngineProcessException(e.getCause());
         } catch (IOException e) {
             log.error("IOException occurred", e);
             throw new AnalysisEngineProcessException(e);
+        } catch (CASException e) {
+            log.error("Could not retrieve the JCas from the CAS", e);
+            throw new AnalysisEngineProcessException(e);
+        }
+    }
+
+    private CompletableFuture<NerTaggingResponse> send(List<String[]> sentences) throws IOException, InterruptedException {
+        final int requestId = requestIdCounter.updateAndGet(id -> id == Integer.MAX_VALUE ? 0 : id + 1);
+        final byte[] request = FlairBinaryProtocol.encodeRequest(requestId, sentences);
+        FlairWorkerProcess worker = workers.get(0);
+        for (int i = 1; i < workers.size(); i++) {
+            if (workers.get(i).getNumPendingRequests() < worker.getNumPendingRequests())
+                worker = workers.get(i);
         }
+        return worker.send(requestId, request);
     }
 
     @Override
     public void start() throws IOException {
-        bridge.start();
+        for (FlairWorkerProcess worker : workers)
+            worker.start();
     }
 
     @Override
     public void shutdown() throws InterruptedException {
-        try {
-            bridge.stop();
-        } catch (IOException e) {
-            log.error("Exception while stopping external process", e);
-        }
+        for (FlairWorkerProcess worker : workers)
+            worker.stop();
     }
 }
@@ -1,5 +1,4 @@
 import flair
-import json
 import sys
 import torch
 from flair.data import Sentence
@@ -7,17 +6,26 @@ from flair.models import SequenceTagger
 from struct import *
 
 
-# The input comes as a byte array. The bytes first contain
-# the length of the message that follows. The message itself is
-# just the sentence to tag (with tokens separated by whitespace)
-# in UTF-8 encoding.
-def decodeString(buffer):
-    lengthBuffer = bytearray(4)
-    buffer.readinto(lengthBuffer)
-    length = int.from_bytes(lengthBuffer, 'big')
-    content = bytearray(length)
-    buffer.readinto(content)
-    return content.decode("utf-8")
+# All messages, in both directions, are preceded by their length in bytes as
+# a 4 byte big endian integer. Strings are encoded as their length in bytes
+# followed by their UTF-8 bytes. See FlairBinaryProtocol.java for the layout
+# of requests and responses.
+def readMessage(buffer):
+    lengthBuffer = buffer.read(4)
+    if len(lengthBuffer) < 4:
+        return None
+    length = unpack('>i', lengthBuffer)[0]
+    return buffer.read(length)
+
+def readString(message, offset):
+    length = unpack_from('>i', message, offset)[0]
+    offset += 4
+    return message[offset:offset + length].decode("utf-8"), offset + length
+
+def writeString(ba, s):
+    b = bytes(s, 'utf-8')
+    ba.extend(pack('>i', len(b)))
+    ba.extend(b)
 
 taggerPath = sys.argv[1]
 # Possible values: ALL, ENTITIES, NONE
@@ -29,28 +37,33 @@ if torch.cuda.is_available():
 
 tagger = SequenceTagger.load(taggerPath)
 
-print("Ready for tagging.")
+print("Ready for tagging.", flush=True)
 stdbuffer = sys.stdin.buffer
+out = sys.stdout.buffer
+# From now on, the standard output is reserved for the binary responses.
+sys.stdout = sys.stderr
 while True:
-    # Sentence input
-    line = decodeString(stdbuffer)
-    if line.strip() == "exit":
+    message = readMessage(stdbuffer)
+    if message is None:
+        sys.exit(0)
+    requestId = unpack_from('>i', message, 0)[0]
+    if requestId == -1:
         sys.exit(0)
-    sentenceTaggingRequests = json.loads(line)
+    numSentences = unpack_from('>i', message, 4)[0]
+    offset = 8
     taggedEntities = []
     embeddings = []
-    # In this byte array, all entities and all vectors from the sentence will be encoded
-    ba = bytearray()
-    for sentenceToTag in sentenceTaggingRequests:
-        sid      = sentenceToTag['sid']
+    for _ in range(numSentences):
+        sid, offset = readString(message, offset)
+        text, offset = readString(message, offset)
         # In newer flair versions we need to specify the tokenizer in order to use
         # the exact input tokenization and avoid token offset mismatches
         if "0.4" in flair.__version__:
-            sentence = Sentence(sentenceToTag['text'])
+            sentence = Sentence(text)
         else:
             from flair.tokenization import SpaceTokenizer
             # Use the SpaceTokenizer to just use the tokenization given from UIMA
-            sentence = Sentence(sentenceToTag['text'], use_tokenizer=SpaceTokenizer())
+            sentence = Sentence(text, use_tokenizer=SpaceTokenizer())
         # NER tagging
         embeddingStorageMode = "none" if sendEmbeddings == "NONE" else "cpu"
         tagger.predict(sentence, embedding_storage_mode = embeddingStorageMode)
@@ -59,35 +72,31 @@ while True:
             tokenids = [t.idx for t in e.tokens]
             # Store sentence ID, token ID and the embedding
             if sendEmbeddings == "ENTITIES":
-                embeddings.extend([(sid, i, sentence.tokens[i-1].embedding.numpy()) for i in tokenids])
-            taggedEntities.append(sid + "\t" + e.tag + "\t" + str(e.score) + "\t" + str(tokenids[0]) + "\t" + str(tokenids[-1]))
+                embeddings.extend([(sid, i, sentence.tokens[i-1].embedding) for i in tokenids])
+            taggedEntities.append((sid, e.tag, e.score, tokenids[0], tokenids[-1]))
 
         if sendEmbeddings == "ALL":
             for i, token in enumerate(sentence.tokens):
-                embeddings.append((sid, i+1, token.embedding.numpy()))
+                embeddings.append((sid, i+1, token.embedding))
 
-    # 1. Write the number of tagged entities
+    ba = bytearray()
+    ba.extend(pack('>i', requestId))
     ba.extend(pack('>i', len(taggedEntities)))
-    # 2. Write the entity recognition results
-    for taggedEntity in taggedEntities:
-        taggedEntityBytes = bytes(taggedEntity, 'utf-8')
-        ba.extend(pack('>i', len(taggedEntityBytes)))
-        ba.extend(taggedEntityBytes)
-    # 3. Write the number of vectors into the output
+    for sid, tag, score, begin, end in taggedEntities:
+        writeString(ba, sid)
+        writeString(ba, tag)
+        ba.extend(pack('>dii', score, begin, end))
     ba.extend(pack('>i', len(embeddings)))
-    # 4. Get the vectorlength and write it into the output byte array
     vectorlength = 0 if len(embeddings) == 0 else len(embeddings[0][2])
-    doubleformat = '>' + 'd'*vectorlength
     ba.extend(pack('>i', vectorlength))
+    # The "embeddings" contain triples of sentence ID, token ID (1-based
+    # sentence-relative token number) and the actual vector which is sent as
+    # big endian float32.
+    for sid, tokenId, vector in embeddings:
+        writeString(ba, sid)
+        ba.extend(pack('>i', tokenId))
+        ba.extend(vector.cpu().numpy().astype('>f4').tobytes())
 
-    # 5. Write the actual vectors. The "embeddings" contain triples
-    # of sentence ID, token ID (1-based sentence-relative token number) and the actual vector.
-    for triple in embeddings:
-        sentenceIdBytes = bytes(triple[0], 'utf-8')
-        ba.extend(pack('>i', len(sentenceIdBytes)))
-        ba.extend(sentenceIdBytes)
-        ba.extend(pack('>i', triple[1]))
-        ba.extend(pack(doubleformat, *triple[2]))
-
-    sys.stdout.buffer.write(pack('>i', len(ba)))
-    sys.stdout.buffer.write(ba)
\ No newline at end of file
+    out.write(pack('>i', len(ba)))
+    out.write(ba)
+    out.flush()
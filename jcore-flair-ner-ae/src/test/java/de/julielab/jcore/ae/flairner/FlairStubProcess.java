@@ -0,0 +1,85 @@
+package de.julielab.jcore.ae.flairner;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <p>A stand-in for <tt>nerScript.py</tt> that implements the {@link FlairBinaryProtocol} without Flair. For each
+ * sentence, the first token is returned as an entity with the tag <tt>STUB</tt>. If the first argument is
+ * <tt>ALL</tt>, an embedding of length 3 is returned for each token, consisting of the token ID, the number of
+ * tokens of the sentence and 0.5. With the argument <tt>CRASH</tt>, the process terminates on the first request.</p>
+ */
+public class FlairStubProcess {
+    public static void main(String[] args) throws IOException {
+        final String mode = args.length > 0 ? args[0] : "NONE";
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(System.in));
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(System.out));
+        // Output before the ready signal must be ignored by the connector
+        System.out.println("Loading the stub model.");
+        System.out.println(FlairWorkerProcess.READY_SIGNAL);
+        System.out.flush();
+        while (true) {
+            final int length;
+            try {
+                length = in.readInt();
+            } catch (EOFException e) {
+                return;
+            }
+            final byte[] request = new byte[length];
+            in.readFully(request);
+            final ByteBuffer bb = ByteBuffer.wrap(request);
+            final int requestId = bb.getInt();
+            if (requestId == FlairBinaryProtocol.EXIT_REQUEST_ID || mode.equals("CRASH"))
+                System.exit(0);
+            final int numSentences = bb.getInt();
+            final ByteArrayOutputStream entities = new ByteArrayOutputStream();
+            final DataOutputStream entitiesOut = new DataOutputStream(entities);
+            final ByteArrayOutputStream vectors = new ByteArrayOutputStream();
+            final DataOutputStream vectorsOut = new DataOutputStream(vectors);
+            int numVectors = 0;
+            for (int i = 0; i < numSentences; i++) {
+                final String sid = readString(bb);
+                final String[] tokens = readString(bb).split(" ");
+                writeString(entitiesOut, sid);
+                writeString(entitiesOut, "STUB");
+                entitiesOut.writeDouble(0.9);
+                entitiesOut.writeInt(1);
+                entitiesOut.writeInt(1);
+                if (mode.equals("ALL")) {
+                    for (int j = 1; j <= tokens.length; j++) {
+                        writeString(vectorsOut, sid);
+                        vectorsOut.writeInt(j);
+                        vectorsOut.writeFloat(j);
+                        vectorsOut.writeFloat(tokens.length);
+                        vectorsOut.writeFloat(0.5f);
+                        ++numVectors;
+                    }
+                }
+            }
+            final ByteArrayOutputStream response = new ByteArrayOutputStream();
+            final DataOutputStream responseOut = new DataOutputStream(response);
+            responseOut.writeInt(requestId);
+            responseOut.writeInt(numSentences);
+            entities.writeTo(responseOut);
+            responseOut.writeInt(numVectors);
+            responseOut.writeInt(numVectors > 0 ? 3 : 0);
+            vectors.writeTo(responseOut);
+            out.writeInt(response.size());
+            response.writeTo(out);
+            out.flush();
+        }
+    }
+
+    private static String readString(ByteBuffer bb) {
+        final byte[] bytes = new byte[bb.getInt()];
+        bb.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,130 @@
+package de.julielab.jcore.ae.flairner;
+
+import de.julielab.jcore.types.Sentence;
+import de.julielab.jcore.types.Token;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.testng.annotations.Test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests the communication of the {@link StdioPythonConnector} with the {@link FlairStubProcess} so that no Python
+ * installation or Flair model is required.
+ */
+public class StdioPythonConnectorTest {
+
+    private static List<String> getStubCommand(String mode) {
+        return List.of(Path.of(System.getProperty("java.home"), "bin", "java").toString(), "-cp", System.getProperty("java.class.path"), FlairStubProcess.class.getCanonicalName(), mode);
+    }
+
+    /**
+     * Creates a document with the given number of sentences where sentence <tt>i</tt> has <tt>i+1</tt> tokens.
+     */
+    private static JCas createDocument(int numSentences) throws Exception {
+        final JCas jCas = JCasFactory.createJCas("de.julielab.jcore.types.jcore-morpho-syntax-types");
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < numSentences; i++) {
+            final int sentenceBegin = sb.length();
+            for (int j = 0; j <= i; j++) {
+                final int tokenBegin = sb.length();
+                sb.append("tok").append(j);
+                new Token(jCas, tokenBegin, sb.length()).addToIndexes();
+                sb.append(' ');
+            }
+            final Sentence sentence = new Sentence(jCas, sentenceBegin, sb.length() - 1);
+            sentence.setId("s" + i);
+            sentence.addToIndexes();
+        }
+        jCas.setDocumentText(sb.toString());
+        return jCas;
+    }
+
+    private static void assertResponse(NerTaggingResponse response, int numSentences) {
+        assertThat(response.getTaggedEntities()).hasSize(numSentences);
+        for (int i = 0; i < numSentences; i++) {
+            final TaggedEntity entity = response.getTaggedEntities().get(i);
+            assertThat(entity.getDocumentId()).isEqualTo("s" + i);
+            assertThat(entity.getTag()).isEqualTo("STUB");
+            assertThat(entity.getLabelConfidence()).isEqualTo(0.9);
+        }
+        assertThat(response.getTokenEmbeddings()).hasSize(numSentences * (numSentences + 1) / 2);
+        for (TokenEmbedding embedding : response.getTokenEmbeddings()) {
+            final int sentenceIndex = Integer.parseInt(embedding.getSentenceId().substring(1));
+            assertThat(embedding.getVector()).containsExactly(embedding.getTokenId(), sentenceIndex + 1, 0.5);
+        }
+    }
+
+    @Test
+    public void testTagSentences() throws Exception {
+        final StdioPythonConnector connector = new StdioPythonConnector(getStubCommand("ALL"), 2, 2, 2);
+        connector.start();
+        try {
+            final JCas jCas = createDocument(7);
+            final NerTaggingResponse response = connector.tagSentences(JCasUtil.select(jCas, Sentence.class).stream());
+            assertResponse(response, 7);
+        } finally {
+            connector.shutdown();
+        }
+    }
+
+    @Test
+    public void testEmptyDocument() throws Exception {
+        final StdioPythonConnector connector = new StdioPythonConnector(getStubCommand("NONE"), 1, 2, 0);
+        connector.start();
+        try {
+            final NerTaggingResponse response = connector.tagSentences(JCasUtil.select(createDocument(0), Sentence.class).stream());
+            assertThat(response.getTaggedEntities()).isEmpty();
+            assertThat(response.getTokenEmbeddings()).isEmpty();
+        } finally {
+            connector.shutdown();
+        }
+    }
+
+    @Test
+    public void testConcurrentDocuments() throws Exception {
+        final StdioPythonConnector connector = new StdioPythonConnector(getStubCommand("ALL"), 2, 3, 3);
+        connector.start();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                final int numSentences = 5 + t;
+                futures.add(executor.submit(() -> {
+                    final JCas jCas = createDocument(numSentences);
+                    for (int i = 0; i < 20; i++)
+                        assertResponse(connector.tagSentences(JCasUtil.select(jCas, Sentence.class).stream()), numSentences);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures)
+                future.get(60, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdown();
+            connector.shutdown();
+        }
+    }
+
+    @Test
+    public void testCrashedProcess() throws Exception {
+        final StdioPythonConnector connector = new StdioPythonConnector(getStubCommand("CRASH"), 1, 2, 0);
+        connector.start();
+        try {
+            final JCas jCas = createDocument(3);
+            assertThatThrownBy(() -> connector.tagSentences(JCasUtil.select(jCas, Sentence.class).stream())).isInstanceOf(AnalysisEngineProcessException.class);
+        } finally {
+            connector.shutdown();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package de.julielab.jcore.flow.incremental;
+
+import org.apache.uima.analysis_engine.metadata.AnalysisEngineMetaData;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.cas.Feature;
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.cas.Type;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.metadata.Capability;
+import org.apache.uima.resource.metadata.NameValuePair;
+import org.apache.uima.analysis_engine.TypeOrFeature;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * <p>Computes the fingerprints of the delegate components of an aggregate engine for a CAS.</p>
+ * <p>The fingerprint of a component combines a hash of its configuration - name, version and parameter
+ * settings as given by its meta data - with a hash of the CAS data the component reads, i.e. the document
+ * text and all feature structures of the input types declared in the capabilities of the component.
+ * Thus, the fingerprint changes if the component is updated or reconfigured or if its input has changed.</p>
+ */
+public class ComponentFingerprinter {
+    private final Map<String, String> configurationHashes;
+    private final Map<String, String[]> inputTypes;
+
+    public ComponentFingerprinter(Map<String, AnalysisEngineMetaData> componentMetaData) {
+        configurationHashes = new HashMap<>();
+        inputTypes = new HashMap<>();
+        for (String key : componentMetaData.keySet()) {
+            AnalysisEngineMetaData metaData = componentMetaData.get(key);
+            configurationHashes.put(key, hashConfiguration(metaData));
+            inputTypes.put(key, getInputTypes(metaData));
+        }
+    }
+
+    static String hashConfiguration(AnalysisEngineMetaData metaData) {
+        MessageDigest md = getDigest();
+        update(md, metaData.getName());
+        update(md, metaData.getVersion());
+        NameValuePair[] parameterSettings = metaData.getConfigurationParameterSettings().getParameterSettings();
+        Arrays.stream(parameterSettings).sorted(Comparator.comparing(NameValuePair::getName)).forEach(p -> {
+            update(md, p.getName());
+            Object value = p.getValue();
+            update(md, value instanceof Object[] ? Arrays.deepToString((Object[]) value) : String.valueOf(value));
+        });
+        for (String inputType : getInputTypes(metaData))
+            update(md, inputType);
+        return toHex(md.digest());
+    }
+
+    private static String[] getInputTypes(AnalysisEngineMetaData metaData) {
+        Set<String> inputTypes = new TreeSet<>();
+        for (Capability capability : metaData.getCapabilities()) {
+            for (TypeOrFeature input : capability.getInputs()) {
+                if (input.isType())
+                    inputTypes.add(input.getName());
+            }
+        }
+        return inputTypes.toArray(new String[0]);
+    }
+
+    /**
+     * Computes the fingerprint of the component with the given delegate key for the current state of the CAS.
+     *
+     * @param componentKey The delegate key of the component.
+     * @param jCas         The CAS that is about to be routed to the component.
+     * @return The component fingerprint as a hex string.
+     */
+    public String getFingerprint(String componentKey, JCas jCas) {
+        String configurationHash = configurationHashes.get(componentKey);
+        if (configurationHash == null)
+            throw new IllegalArgumentException("There is no component with key " + componentKey);
+        MessageDigest md = getDigest();
+        update(md, configurationHash);
+        update(md, jCas.getDocumentText());
+        for (String typeName : inputTypes.get(componentKey)) {
+            Type type = jCas.getTypeSystem().getType(typeName);
+            if (type == null)
+                continue;
+            update(md, typeName);
+            // The iteration order of non-annotation indexes is not defined, thus the feature
+            // structure hashes are sorted to get a stable fingerprint.
+            List<Long> fsHashes = new ArrayList<>();
+            FSIterator<FeatureStructure> it = jCas.getFSIndexRepository().getAllIndexedFS(type);
+            while (it.hasNext())
+                fsHashes.add(hashFeatureStructure(it.next()));
+            Collections.sort(fsHashes);
+            for (long fsHash : fsHashes) {
+                for (int i = 0; i < Long.BYTES; i++)
+                    md.update((byte) (fsHash >>> (8 * i)));
+            }
+        }
+        return toHex(md.digest());
+    }
+
+    /**
+     * 64 bit FNV-1a hash over the type name and the primitive feature values of <tt>fs</tt>.
+     */
+    private long hashFeatureStructure(FeatureStructure fs) {
+        long hash = 0xcbf29ce484222325L;
+        hash = fnv(hash, fs.getType().getName());
+        for (Feature feature : fs.getType().getFeatures()) {
+            if (feature.getRange().isPrimitive())
+                hash = fnv(hash, fs.getFeatureValueAsString(feature));
+        }
+        return hash;
+    }
+
+    private long fnv(long hash, String value) {
+        if (value == null)
+            return (hash ^ 0xff) * 0x100000001b3L;
+        for (int i = 0; i < value.length(); i++)
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        // separator between values
+        return (hash ^ 0xfe) * 0x100000001b3L;
+    }
+
+    private static void update(MessageDigest md, String value) {
+        if (value != null)
+            md.update(value.getBytes(StandardCharsets.UTF_8));
+        md.update((byte) 0);
+    }
+
+    private static MessageDigest getDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is required to be supported by every Java platform
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes)
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        return sb.toString();
+    }
+}
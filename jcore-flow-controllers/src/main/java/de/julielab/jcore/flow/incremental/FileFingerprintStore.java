@@ -0,0 +1,143 @@
+package de.julielab.jcore.flow.incremental;
+
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * <p>An embedded {@link FingerprintStore} that persists the fingerprints into a local H2 MVStore file.</p>
+ * <p>The fingerprints are looked up on disk, only the page cache of the MVStore is kept in memory. Thus, the
+ * memory requirement does not grow with the number of documents. Each call to {@link #storeFingerprints(Map)} is
+ * committed to the file.</p>
+ * <p>Instances are shared between all flow controllers of the same JVM that use the same file. They are obtained
+ * via {@link #open(File)} and must be closed when no longer required.</p>
+ */
+public class FileFingerprintStore implements FingerprintStore {
+    private final static Logger log = LoggerFactory.getLogger(FileFingerprintStore.class);
+    private static final Map<File, FileFingerprintStore> openStores = new HashMap<>();
+    /**
+     * Separates the component keys and fingerprints in the stored values.
+     */
+    private static final char SEPARATOR = '\0';
+    private final File file;
+    private final MVStore store;
+    /**
+     * Maps the document IDs to their component keys and fingerprints, encoded by {@link #encode(Map)}.
+     */
+    private final MVMap<String, String> fingerprints;
+    private int referenceCount;
+
+    private FileFingerprintStore(File file) throws IOException {
+        this.file = file;
+        if (!file.exists() && file.getAbsoluteFile().getParentFile() != null)
+            file.getAbsoluteFile().getParentFile().mkdirs();
+        try {
+            store = new MVStore.Builder().fileName(file.getPath()).open();
+            fingerprints = store.openMap("fingerprints");
+        } catch (RuntimeException e) {
+            throw new IOException("Could not open the fingerprint store at " + file, e);
+        }
+        log.info("Opened the fingerprint store {} with fingerprints of {} documents.", file, fingerprints.size());
+    }
+
+    /**
+     * Returns the store for <tt>file</tt>, creating it if it is not already open.
+     *
+     * @param file The store file. Does not need to exist.
+     * @return The fingerprint store for <tt>file</tt>.
+     * @throws IOException If the file cannot be read.
+     */
+    public static synchronized FileFingerprintStore open(File file) throws IOException {
+        File canonicalFile = file.getCanonicalFile();
+        FileFingerprintStore store = openStores.get(canonicalFile);
+        if (store == null) {
+            store = new FileFingerprintStore(canonicalFile);
+            openStores.put(canonicalFile, store);
+        }
+        ++store.referenceCount;
+        return store;
+    }
+
+    private static String encode(Map<String, String> componentFingerprints) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, String> e : componentFingerprints.entrySet()) {
+            if (sb.length() > 0)
+                sb.append(SEPARATOR);
+            sb.append(e.getKey()).append(SEPARATOR).append(e.getValue());
+        }
+        return sb.toString();
+    }
+
+    private static Map<String, String> decode(String encoded) {
+        Map<String, String> componentFingerprints = new HashMap<>();
+        if (encoded.isEmpty())
+            return componentFingerprints;
+        String[] split = encoded.split(String.valueOf(SEPARATOR), -1);
+        for (int i = 0; i + 1 < split.length; i += 2)
+            componentFingerprints.put(split[i], split[i + 1]);
+        return componentFingerprints;
+    }
+
+    /**
+     * Looks up the given documents in one pass over their sorted IDs so that consecutive lookups mostly hit the same
+     * pages of the store.
+     */
+    @Override
+    public Map<String, Map<String, String>> getFingerprints(Collection<String> docIds) throws IOException {
+        Map<String, Map<String, String>> ret = new HashMap<>();
+        try {
+            for (String docId : new TreeSet<>(docIds)) {
+                String encoded = fingerprints.get(docId);
+                if (encoded != null)
+                    ret.put(docId, decode(encoded));
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Could not read the fingerprints of " + docIds.size() + " documents from " + file, e);
+        }
+        return ret;
+    }
+
+    @Override
+    public synchronized void storeFingerprints(Map<String, Map<String, String>> fingerprints) throws IOException {
+        if (store.isClosed())
+            throw new IllegalStateException("The fingerprint store for " + file + " has already been closed.");
+        try {
+            for (String docId : fingerprints.keySet()) {
+                String stored = this.fingerprints.get(docId);
+                Map<String, String> componentFingerprints = stored != null ? decode(stored) : new HashMap<>();
+                componentFingerprints.putAll(fingerprints.get(docId));
+                this.fingerprints.put(docId, encode(componentFingerprints));
+            }
+            store.commit();
+        } catch (RuntimeException e) {
+            throw new IOException("Could not write the fingerprints to " + file, e);
+        }
+    }
+
+    /**
+     * Releases this store. The file is closed when all users of the store have closed it.
+     *
+     * @throws IOException If closing the file fails.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (FileFingerprintStore.class) {
+            if (--referenceCount > 0)
+                return;
+            openStores.remove(file);
+        }
+        synchronized (this) {
+            try {
+                if (!store.isClosed())
+                    store.close();
+            } catch (RuntimeException e) {
+                throw new IOException("Could not close the fingerprint store at " + file, e);
+            }
+        }
+    }
+}
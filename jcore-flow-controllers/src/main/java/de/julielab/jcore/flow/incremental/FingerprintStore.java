@@ -0,0 +1,44 @@
+package de.julielab.jcore.flow.incremental;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * <p>Stores the component fingerprints of documents as computed by the {@link IncrementalFlowController}.</p>
+ * <p>The fingerprints are organized by document ID and then by the delegate key of the component within the
+ * aggregate engine. Lookups and writes are batch-oriented so that database-backed implementations can avoid
+ * a round trip per document and component.</p>
+ */
+public interface FingerprintStore extends Closeable {
+    /**
+     * Returns the fingerprints of all components for the given documents. Documents without stored fingerprints
+     * are missing from the returned map.
+     *
+     * @param docIds The IDs of the documents to get the component fingerprints for.
+     * @return A map from document ID to a map from component key to fingerprint.
+     * @throws IOException If reading the fingerprints fails.
+     */
+    Map<String, Map<String, String>> getFingerprints(Collection<String> docIds) throws IOException;
+
+    /**
+     * Returns the fingerprints of all components for a single document.
+     *
+     * @param docId The ID of the document to get the component fingerprints for.
+     * @return A map from component key to fingerprint, empty if there are no stored fingerprints for the document.
+     * @throws IOException If reading the fingerprints fails.
+     */
+    default Map<String, String> getFingerprints(String docId) throws IOException {
+        return getFingerprints(Collections.singleton(docId)).getOrDefault(docId, Collections.emptyMap());
+    }
+
+    /**
+     * Stores the given fingerprints, replacing existing fingerprints of the same document and component.
+     *
+     * @param fingerprints A map from document ID to a map from component key to fingerprint.
+     * @throws IOException If writing the fingerprints fails.
+     */
+    void storeFingerprints(Map<String, Map<String, String>> fingerprints) throws IOException;
+}
@@ -0,0 +1,85 @@
+package de.julielab.jcore.flow.incremental;
+
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.flow.FinalStep;
+import org.apache.uima.flow.Flow;
+import org.apache.uima.flow.JCasFlow_ImplBase;
+import org.apache.uima.flow.SimpleStep;
+import org.apache.uima.flow.Step;
+import org.apache.uima.jcas.JCas;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>Routes a CAS through the fixed flow of the aggregate engine, skipping all delegates whose fingerprint for the
+ * current state of the CAS equals the stored fingerprint from the previous run.</p>
+ * <p>Before a delegate is re-run for a document that it has already processed, its previous output is removed from
+ * the CAS by {@link IncrementalFlowController#removePreviousOutput(String, org.apache.uima.jcas.JCas)}.</p>
+ * <p>The new fingerprints are handed to the {@link IncrementalFlowController} for storage only after the CAS has
+ * passed the complete flow. Aborted flows do not update the stored fingerprints.</p>
+ * <p>CASes produced by a CAS multiplier delegate get their own flow that starts after the multiplier.</p>
+ */
+public class IncrementalFlow extends JCasFlow_ImplBase {
+    private final static Logger log = LoggerFactory.getLogger(IncrementalFlow.class);
+    private final IncrementalFlowController controller;
+    private final String docId;
+    private final Map<String, String> storedFingerprints;
+    private final Map<String, String> newFingerprints;
+    private final String[] fixedFlow;
+    private final boolean recordSteps;
+    private int currentPos;
+    private boolean finished;
+
+    /**
+     * @param controller         The flow controller that created this flow.
+     * @param docId              The ID of the document in the CAS. May be null in which case no delegate is skipped.
+     * @param storedFingerprints The component fingerprints stored for the document. Should be null if <tt>docId</tt> is null.
+     * @param startPosition      The position in the fixed flow to start at.
+     * @param recordSteps        Whether the steps count for the skip ratios. Not the case for row batch CASes.
+     */
+    public IncrementalFlow(IncrementalFlowController controller, String docId, Map<String, String> storedFingerprints, int startPosition, boolean recordSteps) {
+        this.controller = controller;
+        this.docId = docId;
+        this.storedFingerprints = storedFingerprints;
+        this.newFingerprints = new HashMap<>();
+        this.fixedFlow = controller.getFixedFlow();
+        this.currentPos = startPosition;
+        this.recordSteps = recordSteps;
+    }
+
+    @Override
+    protected Flow newCasProduced(JCas newCas, String producedBy) throws AnalysisEngineProcessException {
+        return controller.computeFlow(newCas, Arrays.asList(fixedFlow).indexOf(producedBy) + 1);
+    }
+
+    @Override
+    public Step next() throws AnalysisEngineProcessException {
+        while (currentPos < fixedFlow.length) {
+            String componentKey = fixedFlow[currentPos++];
+            if (docId == null || controller.isAlwaysVisit(componentKey)) {
+                if (recordSteps)
+                    controller.recordStep(componentKey, false);
+                return new SimpleStep(componentKey);
+            }
+            String fingerprint = controller.getFingerprinter().getFingerprint(componentKey, getJCas());
+            newFingerprints.put(componentKey, fingerprint);
+            boolean skip = fingerprint.equals(storedFingerprints.get(componentKey));
+            controller.recordStep(componentKey, skip);
+            if (!skip) {
+                log.trace("Input or configuration of component {} changed for document {}, visiting the component.", componentKey, docId);
+                if (storedFingerprints.containsKey(componentKey))
+                    controller.removePreviousOutput(componentKey, getJCas());
+                return new SimpleStep(componentKey);
+            }
+            log.trace("Skipping component {} for document {}.", componentKey, docId);
+        }
+        if (!finished && docId != null)
+            controller.flowFinished(docId, newFingerprints);
+        finished = true;
+        return new FinalStep();
+    }
+}
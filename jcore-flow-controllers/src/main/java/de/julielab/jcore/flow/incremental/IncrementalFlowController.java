@@ -0,0 +1,319 @@
+package de.julielab.jcore.flow.incremental;
+
+import de.julielab.jcore.types.casmultiplier.RowBatch;
+import de.julielab.jcore.utility.JCoReTools;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.analysis_engine.metadata.AnalysisEngineMetaData;
+import org.apache.uima.analysis_engine.metadata.FixedFlow;
+import org.apache.uima.analysis_engine.metadata.FlowConstraints;
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.cas.Type;
+import org.apache.uima.fit.descriptor.ConfigurationParameter;
+import org.apache.uima.fit.descriptor.ResourceMetaData;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.flow.Flow;
+import org.apache.uima.flow.FlowControllerContext;
+import org.apache.uima.flow.JCasFlowController_ImplBase;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.cas.StringArray;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.resource.metadata.Capability;
+import org.apache.uima.analysis_engine.TypeOrFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Routes CASes only through those delegates of an aggregate engine whose configuration or input data have changed
+ * since the document was last processed.</p>
+ * <p>For each document and delegate, a fingerprint is computed by the {@link ComponentFingerprinter} right before
+ * the CAS would be passed to the delegate. If the fingerprint equals the one stored in the {@link FingerprintStore}
+ * for the document, the delegate is skipped. Since the fingerprint is computed when the CAS reaches the delegate,
+ * changes of upstream components that have been re-run are reflected in the fingerprints of the downstream
+ * components.</p>
+ * <p>This is meant for re-annotation of documents that already carry the annotations of the previous run, e.g. read
+ * by the XMI database reader or a file based XMI reader. The outputs of skipped delegates are then taken from the
+ * CAS as it was read. The skipping relies on the delegates declaring their input types in their capabilities.
+ * Components that must see every CAS, e.g. CAS consumers, should be listed in the {@link #PARAM_ALWAYS_VISIT}
+ * parameter.</p>
+ * <p>When a delegate is re-run for a document it has processed before, the CAS still contains the delegate's output of
+ * the previous run. To avoid duplicates, all feature structures of the output types declared in the capabilities of
+ * the delegate are removed from the CAS indexes before it is visited. Types that are also declared as input of the
+ * same delegate and the built-in <tt>uima.*</tt> types are left untouched. Since all instances of a type are removed,
+ * this requires that no other delegate creates feature structures of the same types. Otherwise, the
+ * {@link #PARAM_REMOVE_PREVIOUS_OUTPUT} parameter must be switched off and the pipeline must take care of the
+ * duplicates.</p>
+ * <p>The stored fingerprints are looked up batch-wise when the flow controller receives the row batch CASes of a
+ * JeDIS database multiplier reader, i.e. when the database CAS multiplier is a delegate of the aggregate. The
+ * fingerprints of all documents of a row batch are then fetched from the store at once before the multiplier emits
+ * the document CASes. Otherwise, they are looked up for each CAS.</p>
+ */
+@ResourceMetaData(name = "JCoRe Incremental Flow Controller", description = "This flow controller skips delegates of the aggregate engine for documents whose input to the respective delegate has not changed since it was last processed. For each document and delegate, a fingerprint of the delegate configuration and of the input types declared in its capabilities is compared to a stored fingerprint from the previous run. This flow controller requires the fixed flow constraint to be set on the aggregate engine.", vendor = "JULIE Lab, Germany", version = "placeholder")
+public class IncrementalFlowController extends JCasFlowController_ImplBase {
+    public static final String PARAM_FINGERPRINT_FILE = "FingerprintFile";
+    public static final String PARAM_ALWAYS_VISIT = "AlwaysVisit";
+    public static final String PARAM_WRITE_BATCH_SIZE = "WriteBatchSize";
+    public static final String PARAM_REMOVE_PREVIOUS_OUTPUT = "RemovePreviousOutput";
+    private final static Logger log = LoggerFactory.getLogger(IncrementalFlowController.class);
+    @ConfigurationParameter(name = PARAM_FINGERPRINT_FILE, description = "Path to the file that stores the component fingerprints of the processed documents. The file is created if it does not exist.")
+    private String fingerprintFile;
+    @ConfigurationParameter(name = PARAM_ALWAYS_VISIT, mandatory = false, description = "The delegate keys of components that should never be skipped. This is typically required for CAS consumers writing the results or marking documents as processed.")
+    private String[] alwaysVisit;
+    @ConfigurationParameter(name = PARAM_WRITE_BATCH_SIZE, mandatory = false, defaultValue = "100", description = "The number of documents whose new fingerprints are collected before they are written into the fingerprint store. Defaults to 100.")
+    private int writeBatchSize;
+    @ConfigurationParameter(name = PARAM_REMOVE_PREVIOUS_OUTPUT, mandatory = false, defaultValue = "true", description = "Whether to remove the annotations of the output types declared by a delegate from the CAS before the delegate is re-run for a document it has processed before. This avoids duplicate annotations but requires that no other delegate outputs the same types. Defaults to true.")
+    private boolean removePreviousOutput;
+
+    private String[] fixedFlow;
+    private Set<String> alwaysVisitKeys;
+    private ComponentFingerprinter fingerprinter;
+    private FingerprintStore fingerprintStore;
+    private Map<String, String[]> outputTypes;
+    /**
+     * The fingerprints of the finished documents that have not yet been written into the store. Replaced by a new
+     * map after they have been written.
+     */
+    private volatile Map<String, Map<String, String>> pendingFingerprints;
+    /**
+     * The stored fingerprints of the documents of the row batches received so far that have not yet been routed.
+     * Documents without stored fingerprints are mapped to an empty map.
+     */
+    private Map<String, Map<String, String>> prefetchedFingerprints;
+    private Map<String, LongAdder> visits;
+    private Map<String, LongAdder> skips;
+
+    @Override
+    public void initialize(FlowControllerContext aContext) throws ResourceInitializationException {
+        super.initialize(aContext);
+        fingerprintFile = (String) aContext.getConfigParameterValue(PARAM_FINGERPRINT_FILE);
+        alwaysVisit = Optional.ofNullable((String[]) aContext.getConfigParameterValue(PARAM_ALWAYS_VISIT)).orElse(new String[0]);
+        writeBatchSize = Optional.ofNullable((Integer) aContext.getConfigParameterValue(PARAM_WRITE_BATCH_SIZE)).orElse(100);
+        removePreviousOutput = Optional.ofNullable((Boolean) aContext.getConfigParameterValue(PARAM_REMOVE_PREVIOUS_OUTPUT)).orElse(true);
+
+        FlowConstraints flowConstraints = aContext.getAggregateMetadata().getFlowConstraints();
+        if (!(flowConstraints instanceof FixedFlow))
+            throw new ResourceInitializationException(new IllegalArgumentException("This flow controller requires the FixedFlow to determine the default processing order. However, the flow constraints are of type " + (flowConstraints != null ? flowConstraints.getClass().getCanonicalName() : null)));
+        fixedFlow = ((FixedFlow) flowConstraints).getFixedFlow();
+        alwaysVisitKeys = new HashSet<>(Arrays.asList(alwaysVisit));
+        fingerprinter = new ComponentFingerprinter(aContext.getAnalysisEngineMetaDataMap());
+        outputTypes = new HashMap<>();
+        for (String key : aContext.getAnalysisEngineMetaDataMap().keySet())
+            outputTypes.put(key, getRemovableOutputTypes(aContext.getAnalysisEngineMetaDataMap().get(key)));
+        try {
+            fingerprintStore = FileFingerprintStore.open(new File(fingerprintFile));
+        } catch (IOException e) {
+            log.error("Could not open the fingerprint store at {}", fingerprintFile, e);
+            throw new ResourceInitializationException(e);
+        }
+        pendingFingerprints = new ConcurrentHashMap<>();
+        prefetchedFingerprints = new ConcurrentHashMap<>();
+        visits = new ConcurrentHashMap<>();
+        skips = new ConcurrentHashMap<>();
+        for (String key : fixedFlow) {
+            visits.put(key, new LongAdder());
+            skips.put(key, new LongAdder());
+        }
+
+        log.info("{}: {}", PARAM_FINGERPRINT_FILE, fingerprintFile);
+        log.info("{}: {}", PARAM_ALWAYS_VISIT, alwaysVisit);
+        log.info("{}: {}", PARAM_WRITE_BATCH_SIZE, writeBatchSize);
+        log.info("{}: {}", PARAM_REMOVE_PREVIOUS_OUTPUT, removePreviousOutput);
+    }
+
+    /**
+     * @return The output types declared in the capabilities of the component that are neither input types of the
+     * component nor built-in UIMA types.
+     */
+    private static String[] getRemovableOutputTypes(AnalysisEngineMetaData metaData) {
+        Set<String> inputTypes = new HashSet<>();
+        Set<String> outputTypes = new TreeSet<>();
+        for (Capability capability : metaData.getCapabilities()) {
+            for (TypeOrFeature input : capability.getInputs()) {
+                if (input.isType())
+                    inputTypes.add(input.getName());
+            }
+            for (TypeOrFeature output : capability.getOutputs()) {
+                if (output.isType() && !output.getName().startsWith("uima."))
+                    outputTypes.add(output.getName());
+            }
+        }
+        outputTypes.removeAll(inputTypes);
+        return outputTypes.toArray(new String[0]);
+    }
+
+    @Override
+    public Flow computeFlow(JCas jCas) throws AnalysisEngineProcessException {
+        return computeFlow(jCas, 0);
+    }
+
+    /**
+     * Creates the flow for a CAS that starts at the given position of the fixed flow. The position is greater than 0
+     * for CASes produced by a CAS multiplier delegate.
+     */
+    Flow computeFlow(JCas jCas, int startPosition) throws AnalysisEngineProcessException {
+        if (jCas.getTypeSystem().getType(RowBatch.class.getCanonicalName()) != null) {
+            Collection<RowBatch> rowBatches = JCasUtil.select(jCas, RowBatch.class);
+            if (!rowBatches.isEmpty()) {
+                prefetchFingerprints(rowBatches);
+                return new IncrementalFlow(this, null, null, startPosition, false);
+            }
+        }
+        String docId = JCoReTools.getDocId(jCas);
+        Map<String, String> storedFingerprints = null;
+        if (docId != null) {
+            try {
+                storedFingerprints = getStoredFingerprints(docId);
+            } catch (IOException e) {
+                log.error("Could not retrieve the fingerprints for document {}", docId, e);
+                throw new AnalysisEngineProcessException(e);
+            }
+        } else {
+            log.debug("The CAS has no document ID and is routed through all delegates.");
+        }
+        return new IncrementalFlow(this, docId, storedFingerprints, startPosition, true);
+    }
+
+    /**
+     * Fetches the stored fingerprints of all documents of the given row batches with a single store lookup.
+     */
+    private void prefetchFingerprints(Collection<RowBatch> rowBatches) throws AnalysisEngineProcessException {
+        List<String> docIds = new ArrayList<>();
+        for (RowBatch rowBatch : rowBatches) {
+            if (rowBatch.getIdentifiers() == null)
+                continue;
+            for (int i = 0; i < rowBatch.getIdentifiers().size(); i++) {
+                StringArray primaryKey = (StringArray) rowBatch.getIdentifiers().get(i);
+                // arrays extended with JCoReTools#addToFSArray may have trailing null entries
+                if (primaryKey == null)
+                    continue;
+                // composite primary keys are set as document ID with the elements separated by dashes
+                docIds.add(String.join("-", primaryKey.toArray()));
+            }
+        }
+        try {
+            Map<String, Map<String, String>> fingerprints = fingerprintStore.getFingerprints(docIds);
+            for (String docId : docIds)
+                prefetchedFingerprints.put(docId, fingerprints.getOrDefault(docId, Collections.emptyMap()));
+            log.debug("Prefetched the fingerprints of {} documents of which {} have been processed before.", docIds.size(), fingerprints.size());
+        } catch (IOException e) {
+            log.error("Could not retrieve the fingerprints for the {} documents of the current row batch", docIds.size(), e);
+            throw new AnalysisEngineProcessException(e);
+        }
+    }
+
+    private Map<String, String> getStoredFingerprints(String docId) throws IOException {
+        // the document may have been processed again before its fingerprints have been written
+        Map<String, String> pending = pendingFingerprints.get(docId);
+        if (pending != null)
+            return pending;
+        Map<String, String> prefetched = prefetchedFingerprints.remove(docId);
+        if (prefetched != null)
+            return prefetched;
+        return fingerprintStore.getFingerprints(docId);
+    }
+
+    String[] getFixedFlow() {
+        return fixedFlow;
+    }
+
+    boolean isAlwaysVisit(String componentKey) {
+        return alwaysVisitKeys.contains(componentKey);
+    }
+
+    ComponentFingerprinter getFingerprinter() {
+        return fingerprinter;
+    }
+
+    /**
+     * Removes the output of the previous run of the given component from the CAS, if this is switched on.
+     *
+     * @param componentKey The delegate key of the component that is about to be re-run.
+     * @param jCas         The CAS.
+     */
+    void removePreviousOutput(String componentKey, JCas jCas) {
+        if (!removePreviousOutput)
+            return;
+        for (String typeName : outputTypes.get(componentKey)) {
+            Type type = jCas.getTypeSystem().getType(typeName);
+            if (type == null)
+                continue;
+            List<FeatureStructure> previousOutput = new ArrayList<>();
+            jCas.getFSIndexRepository().getAllIndexedFS(type).forEachRemaining(previousOutput::add);
+            for (FeatureStructure fs : previousOutput)
+                jCas.getCas().removeFsFromIndexes(fs);
+            log.trace("Removed {} feature structures of type {} before re-running component {}.", previousOutput.size(), typeName, componentKey);
+        }
+    }
+
+    void recordStep(String componentKey, boolean skipped) {
+        (skipped ? skips : visits).get(componentKey).increment();
+    }
+
+    /**
+     * Called by a flow that has routed its CAS through all delegates without errors. The fingerprints are stored in
+     * batches.
+     */
+    synchronized void flowFinished(String docId, Map<String, String> fingerprints) throws AnalysisEngineProcessException {
+        pendingFingerprints.put(docId, fingerprints);
+        if (pendingFingerprints.size() >= writeBatchSize)
+            writeFingerprints();
+    }
+
+    private synchronized void writeFingerprints() throws AnalysisEngineProcessException {
+        if (pendingFingerprints.isEmpty())
+            return;
+        try {
+            fingerprintStore.storeFingerprints(pendingFingerprints);
+            pendingFingerprints = new ConcurrentHashMap<>();
+        } catch (IOException e) {
+            log.error("Could not write the fingerprints of {} documents", pendingFingerprints.size(), e);
+            throw new AnalysisEngineProcessException(e);
+        }
+    }
+
+    /**
+     * Returns, for each delegate key, the fraction of CASes that skipped the respective delegate.
+     *
+     * @return The skip ratios of all delegates.
+     */
+    public Map<String, Double> getSkipRatios() {
+        Map<String, Double> ratios = new LinkedHashMap<>();
+        for (String key : fixedFlow) {
+            long numSkipped = skips.get(key).sum();
+            long total = numSkipped + visits.get(key).sum();
+            ratios.put(key, total == 0 ? 0d : numSkipped / (double) total);
+        }
+        return ratios;
+    }
+
+    @Override
+    public void batchProcessComplete() throws AnalysisEngineProcessException {
+        super.batchProcessComplete();
+        writeFingerprints();
+    }
+
+    @Override
+    public void collectionProcessComplete() throws AnalysisEngineProcessException {
+        super.collectionProcessComplete();
+        writeFingerprints();
+        prefetchedFingerprints.clear();
+        for (String key : fixedFlow)
+            log.info("Component {}: {} CASes visited, {} CASes skipped (skip ratio {})", key, visits.get(key).sum(), skips.get(key).sum(), String.format("%.2f", getSkipRatios().get(key)));
+    }
+
+    @Override
+    public void destroy() {
+        try {
+            writeFingerprints();
+            fingerprintStore.close();
+        } catch (AnalysisEngineProcessException | IOException e) {
+            log.error("Could not write the remaining fingerprints to {}", fingerprintFile, e);
+        }
+        super.destroy();
+    }
+}
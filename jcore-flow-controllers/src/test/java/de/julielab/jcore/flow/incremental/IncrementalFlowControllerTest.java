@@ -0,0 +1,259 @@
+package de.julielab.jcore.flow.incremental;
+
+import de.julielab.jcore.types.Chunk;
+import de.julielab.jcore.types.Header;
+import de.julielab.jcore.types.Lemma;
+import de.julielab.jcore.types.Token;
+import de.julielab.jcore.types.casmultiplier.RowBatch;
+import org.apache.uima.UimaContext;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.cas.Type;
+import org.apache.uima.fit.component.JCasAnnotator_ImplBase;
+import org.apache.uima.fit.descriptor.ConfigurationParameter;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.fit.factory.FlowControllerFactory;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.flow.FlowControllerDescription;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.cas.FSArray;
+import org.apache.uima.jcas.cas.StringArray;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.resource.metadata.Capability;
+import org.apache.uima.resource.metadata.impl.Capability_impl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IncrementalFlowControllerTest {
+    private static final Map<String, AtomicInteger> visits = new ConcurrentHashMap<>();
+    @TempDir
+    File tempDir;
+
+    @BeforeEach
+    public void resetVisits() {
+        visits.clear();
+    }
+
+    private static int visits(String componentName) {
+        return visits.getOrDefault(componentName, new AtomicInteger()).get();
+    }
+
+    private JCas createDocument(String docId, String text) throws Exception {
+        JCas jCas = JCasFactory.createJCas("de.julielab.jcore.types.jcore-morpho-syntax-types", "de.julielab.jcore.types.jcore-document-meta-types");
+        jCas.setDocumentText(text);
+        Header header = new Header(jCas);
+        header.setDocId(docId);
+        header.addToIndexes();
+        return jCas;
+    }
+
+    private AnalysisEngineDescription createTestAE(String name, String inputType, String outputType, String modelVersion) throws ResourceInitializationException {
+        AnalysisEngineDescription desc = AnalysisEngineFactory.createEngineDescription(TestAE.class, "name", name, "outputType", outputType, "modelVersion", modelVersion);
+        Capability_impl capability = new Capability_impl();
+        if (inputType != null)
+            capability.addInputType(inputType, true);
+        if (outputType != null)
+            capability.addOutputType(outputType, true);
+        desc.getAnalysisEngineMetaData().setCapabilities(new Capability[]{capability});
+        return desc;
+    }
+
+    /**
+     * Creates an aggregate of a tokenizer, a lemmatizer reading tokens, a chunker reading lemmas and a consumer.
+     */
+    private AnalysisEngine createTestAAE(String lemmatizerVersion) throws ResourceInitializationException {
+        return createTestAAE(lemmatizerVersion, true);
+    }
+
+    private AnalysisEngine createTestAAE(String lemmatizerVersion, boolean removePreviousOutput) throws ResourceInitializationException {
+        FlowControllerDescription flowControllerDescription = FlowControllerFactory.createFlowControllerDescription(IncrementalFlowController.class,
+                IncrementalFlowController.PARAM_FINGERPRINT_FILE, new File(tempDir, "fingerprints.dat").getAbsolutePath(),
+                IncrementalFlowController.PARAM_ALWAYS_VISIT, new String[]{"Consumer"},
+                IncrementalFlowController.PARAM_REMOVE_PREVIOUS_OUTPUT, removePreviousOutput);
+        AnalysisEngineDescription tokenizer = createTestAE("Tokenizer", null, "de.julielab.jcore.types.Token", "1");
+        AnalysisEngineDescription lemmatizer = createTestAE("Lemmatizer", "de.julielab.jcore.types.Token", "de.julielab.jcore.types.Lemma", lemmatizerVersion);
+        AnalysisEngineDescription chunker = createTestAE("Chunker", "de.julielab.jcore.types.Lemma", "de.julielab.jcore.types.Chunk", "1");
+        AnalysisEngineDescription consumer = createTestAE("Consumer", "de.julielab.jcore.types.Chunk", null, "1");
+        AnalysisEngineDescription aaeWithFlowController = AnalysisEngineFactory.createEngineDescription(asList(tokenizer, lemmatizer, chunker, consumer), asList("Tokenizer", "Lemmatizer", "Chunker", "Consumer"), null, null,
+                flowControllerDescription);
+        return AnalysisEngineFactory.createEngine(aaeWithFlowController);
+    }
+
+    @Test
+    public void testSkipUnchangedComponents() throws Exception {
+        JCas doc1 = createDocument("doc1", "The horse is an animal.");
+        AnalysisEngine aae = createTestAAE("1");
+        aae.process(doc1);
+        assertThat(asList(visits("Tokenizer"), visits("Lemmatizer"), visits("Chunker"), visits("Consumer"))).containsExactly(1, 1, 1, 1);
+
+        // The CAS already contains all annotations of the previous run, nothing needs to be done except for the consumer
+        aae.process(doc1);
+        assertThat(asList(visits("Tokenizer"), visits("Lemmatizer"), visits("Chunker"), visits("Consumer"))).containsExactly(1, 1, 1, 2);
+
+        // A new document must go through all components
+        aae.process(createDocument("doc2", "A second document."));
+        assertThat(asList(visits("Tokenizer"), visits("Lemmatizer"), visits("Chunker"), visits("Consumer"))).containsExactly(2, 2, 2, 3);
+        aae.collectionProcessComplete();
+        aae.destroy();
+
+        // Update the lemmatizer; the lemmatizer and the chunker that reads its changed output must be re-run
+        AnalysisEngine updatedAae = createTestAAE("2");
+        updatedAae.process(doc1);
+        assertThat(asList(visits("Tokenizer"), visits("Lemmatizer"), visits("Chunker"), visits("Consumer"))).containsExactly(2, 3, 3, 4);
+        updatedAae.collectionProcessComplete();
+        updatedAae.destroy();
+    }
+
+    @Test
+    public void testPreviousOutputIsRemoved() throws Exception {
+        JCas doc1 = createDocument("doc1", "The horse is an animal.");
+        AnalysisEngine aae = createTestAAE("1");
+        aae.process(doc1);
+        aae.collectionProcessComplete();
+        aae.destroy();
+
+        AnalysisEngine updatedAae = createTestAAE("2");
+        updatedAae.process(doc1);
+        // the re-run components must have replaced their previous output instead of adding to it
+        assertThat(JCasUtil.select(doc1, Token.class)).hasSize(1);
+        assertThat(JCasUtil.select(doc1, Lemma.class)).extracting(Lemma::getEnd).containsExactly(doc1.getDocumentText().length() - 1);
+        assertThat(JCasUtil.select(doc1, Chunk.class)).hasSize(1);
+        updatedAae.destroy();
+    }
+
+    @Test
+    public void testKeepPreviousOutput() throws Exception {
+        JCas doc1 = createDocument("doc1", "The horse is an animal.");
+        AnalysisEngine aae = createTestAAE("1");
+        aae.process(doc1);
+        aae.collectionProcessComplete();
+        aae.destroy();
+
+        AnalysisEngine updatedAae = createTestAAE("2", false);
+        updatedAae.process(doc1);
+        assertThat(JCasUtil.select(doc1, Lemma.class)).hasSize(2);
+        updatedAae.destroy();
+    }
+
+    @Test
+    public void testChangedDocumentText() throws Exception {
+        AnalysisEngine aae = createTestAAE("1");
+        JCas doc1 = createDocument("doc1", "The horse is an animal.");
+        aae.process(doc1);
+        aae.process(doc1);
+        assertThat(asList(visits("Tokenizer"), visits("Lemmatizer"), visits("Chunker"))).containsExactly(1, 1, 1);
+        // an updated version of the document
+        aae.process(createDocument("doc1", "The horse is a fast animal."));
+        assertThat(asList(visits("Tokenizer"), visits("Lemmatizer"), visits("Chunker"))).containsExactly(2, 2, 2);
+        aae.destroy();
+    }
+
+    @Test
+    public void testFingerprintsArePersisted() throws Exception {
+        JCas doc1 = createDocument("doc1", "The horse is an animal.");
+        AnalysisEngine aae = createTestAAE("1");
+        aae.process(doc1);
+        aae.collectionProcessComplete();
+        aae.destroy();
+
+        FileFingerprintStore store = FileFingerprintStore.open(new File(tempDir, "fingerprints.dat"));
+        assertThat(store.getFingerprints(asList("doc1", "doc2"))).containsOnlyKeys("doc1");
+        assertThat(store.getFingerprints(asList("doc1")).get("doc1")).containsOnlyKeys("Tokenizer", "Lemmatizer", "Chunker");
+        store.close();
+
+        aae = createTestAAE("1");
+        aae.process(doc1);
+        assertThat(asList(visits("Tokenizer"), visits("Lemmatizer"), visits("Chunker"), visits("Consumer"))).containsExactly(1, 1, 1, 2);
+        aae.destroy();
+    }
+
+    @Test
+    public void testPrefetchForRowBatch() throws Exception {
+        JCas doc1 = createDocument("doc1", "The horse is an animal.");
+        AnalysisEngine aae = createTestAAE("1");
+        aae.process(doc1);
+        aae.collectionProcessComplete();
+        aae.destroy();
+        visits.clear();
+
+        aae = createTestAAE("1");
+        JCas batch = JCasFactory.createJCas("de.julielab.jcore.types.jcore-morpho-syntax-types", "de.julielab.jcore.types.jcore-document-meta-types", "de.julielab.jcore.types.casmultiplier.jcore-dbtable-multiplier-types");
+        batch.setDocumentText("");
+        RowBatch rowBatch = new RowBatch(batch);
+        FSArray identifiers = new FSArray(batch, 2);
+        for (int i = 0; i < 2; i++) {
+            StringArray primaryKey = new StringArray(batch, 1);
+            primaryKey.set(0, "doc" + (i + 1));
+            identifiers.set(i, primaryKey);
+        }
+        rowBatch.setIdentifiers(identifiers);
+        rowBatch.addToIndexes();
+        // the row batch CAS itself is routed through all delegates
+        aae.process(batch);
+        assertThat(asList(visits("Tokenizer"), visits("Lemmatizer"), visits("Chunker"), visits("Consumer"))).containsExactly(1, 1, 1, 1);
+
+        // change the stored fingerprints after the prefetch; the prefetched fingerprints must be used for the document
+        FileFingerprintStore store = FileFingerprintStore.open(new File(tempDir, "fingerprints.dat"));
+        store.storeFingerprints(Collections.singletonMap("doc1", Collections.singletonMap("Tokenizer", "changed")));
+        store.close();
+        aae.process(doc1);
+        assertThat(asList(visits("Tokenizer"), visits("Lemmatizer"), visits("Chunker"), visits("Consumer"))).containsExactly(1, 1, 1, 2);
+        // doc2 has been prefetched without fingerprints
+        aae.process(createDocument("doc2", "A second document."));
+        assertThat(asList(visits("Tokenizer"), visits("Lemmatizer"), visits("Chunker"), visits("Consumer"))).containsExactly(2, 2, 2, 3);
+        aae.destroy();
+    }
+
+    @Test
+    public void testGetFingerprintsOfCollection() throws Exception {
+        FileFingerprintStore store = FileFingerprintStore.open(new File(tempDir, "store.dat"));
+        Map<String, Map<String, String>> fingerprints = new ConcurrentHashMap<>();
+        for (int i = 0; i < 10; i++)
+            fingerprints.put("doc" + i, Collections.singletonMap("Tokenizer", "fp" + i));
+        store.storeFingerprints(fingerprints);
+        Map<String, Map<String, String>> retrieved = store.getFingerprints(asList("doc7", "doc2", "unknown", "doc7"));
+        assertThat(retrieved).containsOnlyKeys("doc2", "doc7");
+        assertThat(retrieved.get("doc7")).containsEntry("Tokenizer", "fp7");
+        assertThat(store.getFingerprints("doc3")).containsEntry("Tokenizer", "fp3");
+        assertThat(store.getFingerprints("unknown")).isEmpty();
+        store.close();
+    }
+
+    public static class TestAE extends JCasAnnotator_ImplBase {
+        @ConfigurationParameter(name = "name")
+        private String name;
+        @ConfigurationParameter(name = "outputType", mandatory = false)
+        private String outputType;
+        @ConfigurationParameter(name = "modelVersion")
+        private String modelVersion;
+
+        @Override
+        public void initialize(UimaContext context) {
+            name = (String) context.getConfigParameterValue("name");
+            outputType = (String) context.getConfigParameterValue("outputType");
+            modelVersion = (String) context.getConfigParameterValue("modelVersion");
+        }
+
+        @Override
+        public void process(JCas jCas) {
+            visits.computeIfAbsent(name, k -> new AtomicInteger()).incrementAndGet();
+            if (outputType != null) {
+                Type type = jCas.getTypeSystem().getType(outputType);
+                // a new model version yields a different output
+                int end = jCas.getDocumentText().length() - Integer.parseInt(modelVersion) + 1;
+                jCas.getCas().addFsToIndexes(jCas.getCas().createAnnotation(type, 0, end));
+            }
+        }
+    }
+}
@@ -38,8 +38,10 @@ public class GNormPlusAnnotator extends JCasAnnotator_ImplBase {
     public static final String PARAM_GNP_SETUP_FILE = "GNormPlusSetupFile";
     public static final String PARAM_FOCUS_SPECIES = "FocusSpecies";
     public static final String PARAM_OUTPUT_DIR = "OutputDirectory";
+    public static final String PARAM_MAX_CONCURRENT_CALLS = "MaxConcurrentGNormPlusCalls";
     public static final String DESC_GNP_SETUP_FILE = "File path or class path resource path to the setup.txt file for GNormPlus. If not specified, a default setup file is loaded that expects the Dictionary/ directory directly under the working directory, performs gene recognition with the CRF and thus expects the GNormPlus CRF directory directly under the working directory and maps the found genes to NCBI gene IDs for all organisms.";
     public static final String DESC_FOCUS_SPECIES = "If given, all gene mentions are assigned to this NCBI taxonomy ID, i.e. species recognition is omitted.";
+    public static final String DESC_MAX_CONCURRENT_CALLS = "Optional. The maximum number of document collections that GNormPlus processes at the same time in this JVM. The limit is shared by all GNormPlus components and set by the first one that is initialized. Defaults to the number of available processors.";
     public static final String DESC_OUTPUT_DIR = "Optional. If specified, the GNormPlus output files in BioC format will be saved to the given directory. In this way, this component can be used directly as a BioC XML writer through the GNormPlus algorithm.";
     private final static Logger log = LoggerFactory.getLogger(GNormPlusAnnotator.class);
     @ConfigurationParameter(name = PARAM_USE_EXISTING_GENE_ANNOTATIONS, mandatory = false, defaultValue = "false", description = DESC_USE_EXISTING_GENES)
@@ -54,6 +56,8 @@ public class GNormPlusAnnotator extends JCasAnnotator_ImplBase {
     private String focusSpecies;
     @ConfigurationParameter(name = PARAM_OUTPUT_DIR, mandatory = false, description = DESC_OUTPUT_DIR)
     private String outputDirectory;
+    @ConfigurationParameter(name = PARAM_MAX_CONCURRENT_CALLS, mandatory = false, description = DESC_MAX_CONCURRENT_CALLS)
+    private int maxConcurrentCalls;
 
     private BioCDocumentPopulator bioCDocumentPopulator;
 
@@ -71,9 +75,10 @@ public class GNormPlusAnnotator extends JCasAnnotator_ImplBase {
             setupFile = "/de/julielab/jcore/ae/gnp/config/setup_omit_ner.txt";
         focusSpecies = (String) Optional.ofNullable(aContext.getConfigParameterValue(PARAM_FOCUS_SPECIES)).orElse("");
         outputDirectory = (String) Optional.ofNullable(aContext.getConfigParameterValue(PARAM_OUTPUT_DIR)).orElse("");
+        maxConcurrentCalls = (int) Optional.ofNullable(aContext.getConfigParameterValue(PARAM_MAX_CONCURRENT_CALLS)).orElse(Runtime.getRuntime().availableProcessors());
 
         try {
-            GNormPlusProcessing.initializeGNormPlus(setupFile, focusSpecies);
+            GNormPlusProcessing.initializeGNormPlus(setupFile, focusSpecies, maxConcurrentCalls);
         } catch (IOException e) {
             log.error("Could not find resource {}", setupFile);
             throw new ResourceInitializationException(e);
@@ -103,8 +108,7 @@ public class GNormPlusAnnotator extends JCasAnnotator_ImplBase {
         final BioCDocument bioCDocument = bioCDocumentPopulator.populate(aJCas);
         BioCCollection bioCCollection = GNormPlusProcessing.createEmptyJulieLabBioCCollection();
         bioCCollection.addDocument(bioCDocument);
-        String outputDirectory = this.outputDirectory;
-        final Path outputFilePath = GNormPlusProcessing.processWithGNormPlus(bioCCollection, outputDirectory);
+        final BioCCollection gnpOutput = GNormPlusProcessing.processCollectionWithGNormPlus(bioCCollection, outputDirectory);
         if (useExistingGeneAnnotations) {
             final Type inputType = aJCas.getTypeSystem().getType(inputGeneTypeName);
             List<Annotation> toRemove = new ArrayList<>();
@@ -113,18 +117,10 @@ public class GNormPlusAnnotator extends JCasAnnotator_ImplBase {
             toRemove.forEach(Annotation::removeFromIndexes);
         }
         try {
-            log.debug("Reading GNP-processed file {}", outputFilePath);
-            final BioCCasPopulator bioCCasPopulator = new BioCCasPopulator(outputFilePath, Class.forName(outputGeneTypeName).getConstructor(JCas.class));
+            final BioCCasPopulator bioCCasPopulator = new BioCCasPopulator(gnpOutput, Class.forName(outputGeneTypeName).getConstructor(JCas.class));
             bioCCasPopulator.populateWithNextDocument(aJCas, true);
-        } catch (Exception e) {
-            log.error("Could not read GNormPlus output file {}");
-            throw new AnalysisEngineProcessException(e);
-        }
-        try {
-            if (outputDirectory.isBlank() && Files.exists(outputFilePath))
-                Files.delete(outputFilePath);
-        } catch (IOException e) {
-            log.error("Could not delete temporary file {}", outputFilePath);
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            log.error("Could not obtain UIMA gene annotation type constructor for class {}", outputGeneTypeName);
             throw new AnalysisEngineProcessException(e);
         }
     }
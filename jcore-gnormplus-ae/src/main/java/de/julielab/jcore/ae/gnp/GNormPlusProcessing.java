@@ -2,6 +2,7 @@ package de.julielab.jcore.ae.gnp;
 
 import GNormPluslib.GNormPlus;
 import com.pengyifan.bioc.BioCCollection;
+import com.pengyifan.bioc.io.BioCCollectionReader;
 import com.pengyifan.bioc.io.BioCCollectionWriter;
 import de.julielab.java.utilities.FileUtilities;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
@@ -15,11 +16,39 @@ import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Date;
+import java.util.concurrent.Semaphore;
 
 public class GNormPlusProcessing {
     private final static Logger log = LoggerFactory.getLogger(GNormPlusProcessing.class);
+    /**
+     * Bounds the number of collections that GNormPlus processes at the same time in this JVM. GNormPlus keeps the
+     * state of a call in its own <tt>GNPProcessingData</tt> object and names its temporary files after the input file,
+     * so calls for different input files may run concurrently. Each call starts the external CRF++ processes of
+     * GNormPlus, thus more concurrent calls than processors only compete for the CPUs. Set by the first component
+     * that initializes GNormPlus.
+     */
+    private static volatile Semaphore concurrentCalls;
+    private static int maxConcurrentCalls;
 
-    public static synchronized void initializeGNormPlus(String setupFileResourcePath, String focusSpecies) throws IOException {
+    /**
+     * Loads the GNormPlus configuration and resources and sets the maximum number of concurrent GNormPlus calls, if
+     * this has not already been done by another component in this JVM.
+     *
+     * @param setupFileResourcePath The file path or classpath resource path to the GNormPlus setup file.
+     * @param focusSpecies          The NCBI taxonomy ID that all genes are assigned to or the empty string.
+     * @param maxConcurrentCalls    The maximum number of collections processed by GNormPlus at the same time.
+     * @throws IOException If the setup file cannot be found.
+     */
+    public static synchronized void initializeGNormPlus(String setupFileResourcePath, String focusSpecies, int maxConcurrentCalls) throws IOException {
+        if (maxConcurrentCalls < 1)
+            throw new IllegalArgumentException("The maximum number of concurrent GNormPlus calls must be positive but was " + maxConcurrentCalls + ".");
+        if (concurrentCalls == null) {
+            log.info("GNormPlus processes up to {} collections at the same time.", maxConcurrentCalls);
+            concurrentCalls = new Semaphore(maxConcurrentCalls);
+            GNormPlusProcessing.maxConcurrentCalls = maxConcurrentCalls;
+        } else if (GNormPlusProcessing.maxConcurrentCalls != maxConcurrentCalls) {
+            log.warn("A maximum of {} concurrent GNormPlus calls was requested but the limit has already been set to {} by another component.", maxConcurrentCalls, GNormPlusProcessing.maxConcurrentCalls);
+        }
         if (!GNormPlus.initialized) {
             final InputStream setupFileStream = FileUtilities.findResource(setupFileResourcePath);
             if (setupFileStream == null)
@@ -39,6 +68,9 @@ public class GNormPlusProcessing {
     }
 
     /**
+     * Writes the collection to a temporary BioC file, processes it with GNormPlus and returns the path of the output
+     * file. The output file is only kept in a temporary directory unless <tt>outputDirectory</tt> is given.
+     *
      * @param bioCCollection
      * @param outputDirectory
      * @return The path of the GNormPlus output file.
@@ -46,26 +78,84 @@ public class GNormPlusProcessing {
      */
     public static Path processWithGNormPlus(BioCCollection bioCCollection, String outputDirectory) throws AnalysisEngineProcessException {
         String collectionId = "collection_including_" + bioCCollection.getDocument(0).getID();
-        final Path filePath = Path.of("jcore-gnp-tmp", collectionId + ".xml");
-        final Path outputFilePath = Path.of(outputDirectory.isBlank() ? "tmp" : outputDirectory, collectionId + "processed.xml");
+        final Path tmpDir = Path.of("jcore-gnp-tmp");
+        Path filePath = null;
+        Path outputFilePath = null;
         try {
             try {
-                if (!Files.exists(filePath.getParent()))
-                    Files.createDirectory(filePath.getParent());
+                if (!Files.exists(tmpDir))
+                    Files.createDirectory(tmpDir);
             } catch (FileAlreadyExistsException e) {
                 // OK, so another process created it, not a big deal.
             }
-            if (!Files.exists(outputFilePath.getParent()))
-                Files.createDirectories(outputFilePath.getParent());
+            // The temporary files get unique names because other pipelines may process the same document at the
+            // same time in the same working directory.
+            // GNormPlus names its own temporary files after the input file.
+            filePath = Files.createTempFile(tmpDir, collectionId, ".xml");
+            if (outputDirectory.isBlank()) {
+                final String fileName = filePath.getFileName().toString();
+                outputFilePath = tmpDir.resolve(fileName.substring(0, fileName.length() - 4) + "processed.xml");
+            } else {
+                outputFilePath = Path.of(outputDirectory, collectionId + "processed.xml");
+                if (!Files.exists(outputFilePath.getParent()))
+                    Files.createDirectories(outputFilePath.getParent());
+            }
+            final long time = System.currentTimeMillis();
             try (BioCCollectionWriter w = new BioCCollectionWriter(filePath)) {
                 w.writeCollection(bioCCollection);
             }
-            GNormPlus.processFile(filePath.toString(), filePath.getFileName().toString(), outputFilePath.toString(), System.currentTimeMillis(), "Test");
-            Files.delete(filePath);
+            final long inputBytes = Files.size(filePath);
+            long waitTime = System.currentTimeMillis();
+            concurrentCalls.acquire();
+            waitTime = System.currentTimeMillis() - waitTime;
+            try {
+                GNormPlus.processFile(filePath.toString(), filePath.getFileName().toString(), outputFilePath.toString(), System.currentTimeMillis(), "Test");
+            } finally {
+                concurrentCalls.release();
+            }
+            if (log.isDebugEnabled())
+                log.debug("Processed {} documents of {} with GNormPlus in {}ms, {}ms of which were spent waiting for other GNormPlus calls. Wrote {} bytes of input, got {} bytes of output.", bioCCollection.getDocmentCount(), collectionId, System.currentTimeMillis() - time, waitTime, inputBytes, Files.exists(outputFilePath) ? Files.size(outputFilePath) : 0);
         } catch (IOException | XMLStreamException e) {
             log.error("Could not process document {}", collectionId);
             throw new AnalysisEngineProcessException(e);
+        } catch (InterruptedException e) {
+            log.error("Interrupted while waiting to process document {}", collectionId);
+            Thread.currentThread().interrupt();
+            throw new AnalysisEngineProcessException(e);
+        } finally {
+            try {
+                if (filePath != null)
+                    Files.deleteIfExists(filePath);
+            } catch (IOException e) {
+                log.warn("Could not delete temporary file {}", filePath);
+            }
         }
         return outputFilePath;
     }
+
+    /**
+     * Processes the collection with GNormPlus and returns the output as a BioC collection. The output file is deleted
+     * unless <tt>outputDirectory</tt> is given.
+     *
+     * @param bioCCollection
+     * @param outputDirectory
+     * @return The GNormPlus output.
+     * @throws AnalysisEngineProcessException
+     */
+    public static BioCCollection processCollectionWithGNormPlus(BioCCollection bioCCollection, String outputDirectory) throws AnalysisEngineProcessException {
+        final Path outputFilePath = processWithGNormPlus(bioCCollection, outputDirectory);
+        try (BioCCollectionReader r = new BioCCollectionReader(outputFilePath)) {
+            return r.readCollection();
+        } catch (IOException | XMLStreamException e) {
+            log.error("Could not read GNormPlus output from {}", outputFilePath);
+            throw new AnalysisEngineProcessException(e);
+        } finally {
+            try {
+                if (outputDirectory.isBlank())
+                    Files.deleteIfExists(outputFilePath);
+            } catch (IOException e) {
+                log.warn("Could not delete temporary file {}", outputFilePath);
+            }
+        }
+    }
 }
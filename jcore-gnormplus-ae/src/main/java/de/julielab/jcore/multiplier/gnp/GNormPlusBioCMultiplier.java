@@ -39,6 +39,8 @@ public class GNormPlusBioCMultiplier extends GNormPlusFormatMultiplier {
     private String outputDirectory;
     @ConfigurationParameter(name = PARAM_FOCUS_SPECIES, mandatory = false, description = DESC_FOCUS_SPECIES)
     private String focusSpecies;
+    @ConfigurationParameter(name = GNormPlusAnnotator.PARAM_MAX_CONCURRENT_CALLS, mandatory = false, description = GNormPlusAnnotator.DESC_MAX_CONCURRENT_CALLS)
+    private int maxConcurrentCalls;
 
     private BioCDocumentPopulator bioCDocumentPopulator;
 
@@ -19,13 +19,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xml.sax.SAXException;
 
-import javax.xml.stream.XMLStreamException;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -55,6 +52,7 @@ public class GNormPlusMultiplierLogic {
         String focusSpecies = (String) Optional.ofNullable(aContext.getConfigParameterValue(PARAM_FOCUS_SPECIES)).orElse("");
         outputGeneTypeName = (String) Optional.ofNullable(aContext.getConfigParameterValue(PARAM_OUTPUT_GENE_TYPE_NAME)).orElse(Gene.class.getCanonicalName());
         outputDirectory = (String) Optional.ofNullable(aContext.getConfigParameterValue(PARAM_OUTPUT_DIR)).orElse("");
+        int maxConcurrentCalls = (int) Optional.ofNullable(aContext.getConfigParameterValue(PARAM_MAX_CONCURRENT_CALLS)).orElse(Runtime.getRuntime().availableProcessors());
         this.bioCDocumentPopulator = bioCDocumentPopulator;
         this.baseMultiplierHasNext = baseMultiplierHasNext;
         this.baseMultiplierNext = baseMultiplierNext;
@@ -63,7 +61,7 @@ public class GNormPlusMultiplierLogic {
         currentCollectionIndex = 0;
         currentBiocResultCollectionIndex = 0;
 
-        GNormPlusProcessing.initializeGNormPlus(setupFile, focusSpecies);
+        GNormPlusProcessing.initializeGNormPlus(setupFile, focusSpecies, maxConcurrentCalls);
     }
 
     public AbstractCas next() throws AnalysisEngineProcessException {
@@ -110,17 +108,10 @@ public class GNormPlusMultiplierLogic {
                 // now process the whole batch with GNP
                 if (gnormPlusInputCollection.getDocmentCount() > 0) {
                     log.trace("Processing {} documents with GNormPlus.", gnormPlusInputCollection.getDocmentCount());
-                    final Path outputFilePath = GNormPlusProcessing.processWithGNormPlus(gnormPlusInputCollection, outputDirectory);
+                    final BioCCollection gnpOutput = GNormPlusProcessing.processCollectionWithGNormPlus(gnormPlusInputCollection, outputDirectory);
                     try {
-                        bioCCasPopulator = new BioCCasPopulator(outputFilePath, Class.forName(outputGeneTypeName).getConstructor(JCas.class));
-                        // delete the GNP output if we don't want to keep it
-                        if (outputDirectory.isBlank()) {
-                            Files.delete(outputFilePath);
-                        }
-                    } catch (XMLStreamException | IOException e) {
-                        log.error("Could not read GNormPlus output from {}", outputFilePath);
-                        throw new AnalysisEngineProcessException(e);
-                    } catch (ClassNotFoundException| NoSuchMethodException e) {
+                        bioCCasPopulator = new BioCCasPopulator(gnpOutput, Class.forName(outputGeneTypeName).getConstructor(JCas.class));
+                    } catch (ClassNotFoundException | NoSuchMethodException e) {
                         log.error("Could not obtain UIMA gene annotation type constructor for class {}", outputGeneTypeName);
                         throw new AnalysisEngineProcessException(e);
                     }
@@ -38,6 +38,8 @@ public class GNormPlusXMLDBMultiplier extends XMLDBMultiplier {
     private String outputDirectory;
     @ConfigurationParameter(name = PARAM_FOCUS_SPECIES, mandatory = false, description = DESC_FOCUS_SPECIES)
     private String focusSpecies;
+    @ConfigurationParameter(name = PARAM_MAX_CONCURRENT_CALLS, mandatory = false, description = DESC_MAX_CONCURRENT_CALLS)
+    private int maxConcurrentCalls;
     @ConfigurationParameter(name = PARAM_SKIP_UNCHANGED_DOCUMENTS, mandatory = false, description = "Whether to omit GNormPlus processing on documents that already exist in the XMI database table and whose document text has not changed.")
     private boolean skipUnchangedDocuments;
     private BioCDocumentPopulator bioCDocumentPopulator;
@@ -37,6 +37,8 @@ public class GNormPlusXmiDBMultiplier extends XmiDBMultiplier {
     private String outputDirectory;
     @ConfigurationParameter(name = PARAM_FOCUS_SPECIES, mandatory = false, description = DESC_FOCUS_SPECIES)
     private String focusSpecies;
+    @ConfigurationParameter(name = PARAM_MAX_CONCURRENT_CALLS, mandatory = false, description = DESC_MAX_CONCURRENT_CALLS)
+    private int maxConcurrentCalls;
     private BioCDocumentPopulator bioCDocumentPopulator;
     private GNormPlusMultiplierLogic multiplierLogic;
 
@@ -70,9 +70,24 @@ public class BioCCasPopulator {
      * @throws IOException
      */
     public BioCCasPopulator(Path biocCollectionPath, Constructor<?> outputTypeConstructor) throws XMLStreamException, IOException {
+        this(readCollection(biocCollectionPath), outputTypeConstructor);
+    }
+
+    /**
+     * This constructor is used when the BioC collection is already in memory, e.g. because it has just been returned
+     * by GNormPlus.
+     *
+     * @param bioCCollection        The BioC documents to read.
+     * @param outputTypeConstructor
+     */
+    public BioCCasPopulator(BioCCollection bioCCollection, Constructor<?> outputTypeConstructor) {
         this.outputTypeConstructor = outputTypeConstructor;
+        this.bioCCollection = bioCCollection;
+    }
+
+    private static BioCCollection readCollection(Path biocCollectionPath) throws XMLStreamException, IOException {
         try (BioCCollectionReader bioCCollectionReader = new BioCCollectionReader(biocCollectionPath)) {
-            bioCCollection = bioCCollectionReader.readCollection();
+            return bioCCollectionReader.readCollection();
         }
     }
 
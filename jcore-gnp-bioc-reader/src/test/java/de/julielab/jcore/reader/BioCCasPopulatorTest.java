@@ -1,5 +1,7 @@
 package de.julielab.jcore.reader;
 
+import com.pengyifan.bioc.BioCCollection;
+import com.pengyifan.bioc.io.BioCCollectionReader;
 import de.julielab.jcore.types.*;
 import org.apache.uima.fit.factory.JCasFactory;
 import org.apache.uima.fit.util.JCasUtil;
@@ -83,6 +85,21 @@ class BioCCasPopulatorTest {
         }
     }
 
+    @Test
+    public void populateFromCollectionInMemory() throws Exception {
+        BioCCollection bioCCollection;
+        try (BioCCollectionReader reader = new BioCCollectionReader(Path.of("src", "test", "resources", "bioc_collection_0_0.xml"))) {
+            bioCCollection = reader.readCollection();
+        }
+        BioCCasPopulator bioCCasPopulator = new BioCCasPopulator(bioCCollection, geneConstructor);
+        JCas jCas = getJCas();
+        bioCCasPopulator.populateWithNextDocument(jCas);
+
+        Collection<Gene> genes = JCasUtil.select(jCas, Gene.class);
+        assertThat(genes).hasSize(23);
+        assertThat(genes).filteredOn(Gene::getSpecificType, "FamilyName").hasSize(5);
+    }
+
     @Test
     public void specifyAnnotationType() throws Exception {
         BioCCasPopulator bioCCasPopulator = new BioCCasPopulator(Path.of("src", "test", "resources", "bioc_collection_0_0.xml"), null, null, Protein.class.getConstructor(JCas.class));
@@ -0,0 +1,182 @@
+package de.julielab.jcore.ae.jnet.uima;
+
+import java.util.*;
+
+/**
+ * An Aho-Corasick automaton over a set of strings. {@link #findAll(String)} finds all occurrences of all strings in a
+ * text in one pass over the text, i.e. in time linear in the text length plus the number of occurrences, instead of
+ * searching the text once per string. The strings are compared char-wise, exactly as by {@link String#indexOf(String)}.
+ * Empty strings are ignored.
+ */
+class AhoCorasickMatcher {
+
+	private final String[] patterns;
+
+	/**
+	 * The outgoing edges of each node, sorted by their characters.
+	 */
+	private final char[][] edgeChars;
+	private final int[][] edgeTargets;
+	private final int[] numEdges;
+	/**
+	 * The children of the root indexed by their characters, 0 for no child. Most characters of a text are read in the
+	 * root, so its transitions are looked up directly.
+	 */
+	private final int[] rootChildren;
+
+	private final int[] fail;
+	/**
+	 * The index of the pattern ending in a node or -1.
+	 */
+	private final int[] patternIndex;
+	/**
+	 * The next node on the failure path where a pattern ends or -1.
+	 */
+	private final int[] outputLink;
+
+	private int numNodes = 1;
+
+	AhoCorasickMatcher(final Collection<String> patterns) {
+		final List<String> nonEmptyPatterns = new ArrayList<>(patterns.size());
+		int maxNodes = 1;
+		for (final String pattern : patterns) {
+			if (!pattern.isEmpty()) {
+				nonEmptyPatterns.add(pattern);
+				maxNodes += pattern.length();
+			}
+		}
+		this.patterns = nonEmptyPatterns.toArray(new String[0]);
+		edgeChars = new char[maxNodes][];
+		edgeTargets = new int[maxNodes][];
+		numEdges = new int[maxNodes];
+		fail = new int[maxNodes];
+		patternIndex = new int[maxNodes];
+		outputLink = new int[maxNodes];
+		Arrays.fill(patternIndex, -1);
+		Arrays.fill(outputLink, -1);
+
+		for (int i = 0; i < this.patterns.length; i++) {
+			final String pattern = this.patterns[i];
+			int node = 0;
+			for (int j = 0; j < pattern.length(); j++) {
+				int child = findChildUnsorted(node, pattern.charAt(j));
+				if (child < 0)
+					child = addChild(node, pattern.charAt(j));
+				node = child;
+			}
+			if (patternIndex[node] < 0)
+				patternIndex[node] = i;
+		}
+		for (int node = 0; node < numNodes; node++)
+			sortEdges(node);
+		rootChildren = new int[numEdges[0] > 0 ? edgeChars[0][numEdges[0] - 1] + 1 : 0];
+		for (int i = 0; i < numEdges[0]; i++)
+			rootChildren[edgeChars[0][i]] = edgeTargets[0][i];
+		computeFailureLinks();
+	}
+
+	/**
+	 * Finds all occurrences, including overlapping ones, of the strings of this matcher in <tt>text</tt>.
+	 *
+	 * @param text
+	 *            The text to search.
+	 * @return For each string of this matcher, the ascending begin offsets of its occurrences in <tt>text</tt>.
+	 */
+	public Map<String, int[]> findAll(final String text) {
+		final int[][] begins = new int[patterns.length][];
+		final int[] numBegins = new int[patterns.length];
+		int state = 0;
+		for (int i = 0; i < text.length(); i++) {
+			state = next(state, text.charAt(i));
+			for (int node = patternIndex[state] >= 0 ? state : outputLink[state]; node >= 0; node = outputLink[node]) {
+				final int pattern = patternIndex[node];
+				if (begins[pattern] == null)
+					begins[pattern] = new int[4];
+				else if (numBegins[pattern] == begins[pattern].length)
+					begins[pattern] = Arrays.copyOf(begins[pattern], numBegins[pattern] * 2);
+				begins[pattern][numBegins[pattern]++] = i + 1 - patterns[pattern].length();
+			}
+		}
+		final Map<String, int[]> occurrences = new HashMap<>();
+		for (int i = 0; i < patterns.length; i++)
+			occurrences.put(patterns[i], begins[i] == null ? new int[0] : Arrays.copyOf(begins[i], numBegins[i]));
+		return occurrences;
+	}
+
+	/**
+	 * @return The state reached from <tt>state</tt> by reading <tt>c</tt>, following the failure links if necessary.
+	 */
+	private int next(int state, final char c) {
+		while (state != 0) {
+			final int child = findChild(state, c);
+			if (child >= 0)
+				return child;
+			state = fail[state];
+		}
+		return c < rootChildren.length ? rootChildren[c] : 0;
+	}
+
+	private int addChild(final int node, final char c) {
+		if (edgeChars[node] == null) {
+			edgeChars[node] = new char[2];
+			edgeTargets[node] = new int[2];
+		} else if (numEdges[node] == edgeChars[node].length) {
+			edgeChars[node] = Arrays.copyOf(edgeChars[node], numEdges[node] * 2);
+			edgeTargets[node] = Arrays.copyOf(edgeTargets[node], numEdges[node] * 2);
+		}
+		final int child = numNodes++;
+		edgeChars[node][numEdges[node]] = c;
+		edgeTargets[node][numEdges[node]] = child;
+		++numEdges[node];
+		return child;
+	}
+
+	private int findChildUnsorted(final int node, final char c) {
+		for (int i = 0; i < numEdges[node]; i++) {
+			if (edgeChars[node][i] == c)
+				return edgeTargets[node][i];
+		}
+		return -1;
+	}
+
+	private int findChild(final int node, final char c) {
+		if (numEdges[node] == 0)
+			return -1;
+		final int index = Arrays.binarySearch(edgeChars[node], 0, numEdges[node], c);
+		return index >= 0 ? edgeTargets[node][index] : -1;
+	}
+
+	private void sortEdges(final int node) {
+		final int n = numEdges[node];
+		if (n < 2)
+			return;
+		final long[] edges = new long[n];
+		for (int i = 0; i < n; i++)
+			edges[i] = ((long) edgeChars[node][i] << 32) | edgeTargets[node][i];
+		Arrays.sort(edges);
+		for (int i = 0; i < n; i++) {
+			edgeChars[node][i] = (char) (edges[i] >>> 32);
+			edgeTargets[node][i] = (int) edges[i];
+		}
+	}
+
+	private void computeFailureLinks() {
+		final int[] queue = new int[numNodes];
+		int head = 0;
+		int tail = 0;
+		for (int i = 0; i < numEdges[0]; i++) {
+			fail[edgeTargets[0][i]] = 0;
+			queue[tail++] = edgeTargets[0][i];
+		}
+		while (head < tail) {
+			final int node = queue[head++];
+			for (int i = 0; i < numEdges[node]; i++) {
+				final char c = edgeChars[node][i];
+				final int child = edgeTargets[node][i];
+				fail[child] = next(fail[node], c);
+				outputLink[child] = patternIndex[fail[child]] >= 0 ? fail[child] : outputLink[fail[child]];
+				queue[tail++] = child;
+			}
+		}
+	}
+}
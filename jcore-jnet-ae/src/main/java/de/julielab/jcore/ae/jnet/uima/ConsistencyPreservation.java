@@ -55,6 +55,11 @@ public class ConsistencyPreservation {
 	 * then expanded to the whole token. Should be used for full texts.
 	 */
 	public static final String MODE_STRING_TOKEN_BOUNDARIES = "stringTokenBoundaries";
+	/**
+	 * Below this number of entity strings, one indexOf search per string is
+	 * faster than building an {@link AhoCorasickMatcher} for them.
+	 */
+	static final int MIN_STRINGS_FOR_MATCHER = 20;
 
 	private TreeSet<String> activeModes = null;
 
@@ -229,6 +234,11 @@ public class ConsistencyPreservation {
 		final Map<String, JCoReSetAnnotationIndex<EntityMention>> overlapIndex = new HashMap<>();
 		JCoReSetAnnotationIndex<Annotation> tokenIndex = new JCoReSetAnnotationIndex<>(Comparators.overlapComparator(),
 				aJCas, Token.type);
+		// The begin offsets of all occurrences of the entity strings in the
+		// document text. They are found with one automaton pass over the text
+		// for all entity strings of an entity class instead of one indexOf
+		// search per entity string.
+		final Map<String, int[]> occurrences = new HashMap<>();
 
 		for (final String entityMentionClassname : entityMentionClassnames) {
 			// we use the index entity class wise; we don't want one class to
@@ -274,6 +284,10 @@ public class ConsistencyPreservation {
 
 				// now search for strings not detected as this kind of entity
 				LOGGER.debug("doStringBased() - searching for missed entities...");
+				final List<String> unsearchedStrings = entityMap.keySet().stream()
+						.filter(entityString -> !occurrences.containsKey(entityString)).collect(Collectors.toList());
+				if (!unsearchedStrings.isEmpty())
+					occurrences.putAll(findOccurrences(unsearchedStrings, text));
 				for (final String entityString : entityMap.keySet()) {
 					final EntityMention entity = entityMap.get(entityString).iterator().next();
 					String specificType = "<null>";
@@ -283,14 +297,19 @@ public class ConsistencyPreservation {
 
 					LOGGER.debug("doStringBased() - checking entity string: " + entityString);
 
-					int pos = 0;
-					// start with 0 because indexOf won't find entities at
-					// document beginnings otherwise
-					int length = 0;
+					final int length = entityString.length();
+					// empty entity strings have no occurrences
+					final int[] entityStringBegins = occurrences.getOrDefault(entityString, new int[0]);
+					int nextBegin = 0;
 					List<EntityMention> stringMatchedEntities = new ArrayList<>();
-					while ((pos = text.indexOf(entityString, (pos + length))) > -1) {
+					for (final int pos : entityStringBegins) {
 						// for each position where we have found this entity
-						// string
+						// string; occurrences overlapping the previous one are
+						// skipped, just as a search from the end of the
+						// previous occurrence would do
+						if (pos < nextBegin)
+							continue;
+						nextBegin = pos + length;
 						LOGGER.debug("doStringBased() - found string at pos: " + pos);
 
 						// check whether there is already an annotation of this
@@ -307,7 +326,6 @@ public class ConsistencyPreservation {
 						// entityMentionClassname, pos, pos
 						// + entityString.length());
 
-						length = entityString.length();
 						mentionForOffsetComparison.setBegin(pos);
 						mentionForOffsetComparison.setEnd(pos + length);
 						boolean overlappingExists = overlapSet.contains(mentionForOffsetComparison);
@@ -352,8 +370,6 @@ public class ConsistencyPreservation {
 
 						} else
 							LOGGER.debug("doStringBased() - there is already an entity!");
-
-						length = entityString.length();
 					}
 
 					// A.R. 30.06.15: this option can now be turned on, just by
@@ -491,6 +507,33 @@ public class ConsistencyPreservation {
 		}
 	}
 
+	/**
+	 * Finds all occurrences, including overlapping ones, of the given strings
+	 * in <tt>text</tt>. Few strings are searched with indexOf, many strings
+	 * with an {@link AhoCorasickMatcher}. Empty strings are ignored.
+	 * 
+	 * @return For each non-empty string, the ascending begin offsets of its
+	 *         occurrences in <tt>text</tt>.
+	 */
+	static Map<String, int[]> findOccurrences(final Collection<String> strings, final String text) {
+		if (strings.size() >= MIN_STRINGS_FOR_MATCHER)
+			return new AhoCorasickMatcher(strings).findAll(text);
+		final Map<String, int[]> occurrences = new HashMap<>();
+		for (final String string : strings) {
+			if (string.isEmpty())
+				continue;
+			int[] begins = new int[4];
+			int numBegins = 0;
+			for (int pos = text.indexOf(string); pos >= 0; pos = text.indexOf(string, pos + 1)) {
+				if (numBegins == begins.length)
+					begins = Arrays.copyOf(begins, numBegins * 2);
+				begins[numBegins++] = pos;
+			}
+			occurrences.put(string, Arrays.copyOf(begins, numBegins));
+		}
+		return occurrences;
+	}
+
 	@Override
 	public String toString() {
 		return "activeModes: " + activeModes;
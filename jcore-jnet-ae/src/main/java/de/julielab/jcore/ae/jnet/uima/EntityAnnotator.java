@@ -38,6 +38,7 @@ import org.apache.uima.cas.FSIterator;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.jcas.JFSIndexRepository;
 import org.apache.uima.jcas.tcas.Annotation;
+import org.apache.uima.resource.ResourceAccessException;
 import org.apache.uima.resource.ResourceInitializationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -56,6 +57,12 @@ public class EntityAnnotator extends JCasAnnotator_ImplBase {
 
 	private static final String COMPONENT_ID = "de.julielab.jules.ae.netagger.EntityAnnotator";
 
+	/**
+	 * Key of the optional {@link NETaggerModelProvider} resource. When bound, the model is loaded once and shared
+	 * by all annotator instances bound to the resource. Takes precedence over the ModelFilename parameter.
+	 */
+	public static final String RES_KEY_MODEL = "JnetModel";
+
 	/**
 	 * Logger for this class
 	 */
@@ -293,6 +300,22 @@ public class EntityAnnotator extends JCasAnnotator_ImplBase {
 	private void setModel(UimaContext aContext)
 			throws AnnotatorConfigurationException, AnnotatorContextException, AnnotatorInitializationException {
 
+		// produce an instance of JNET with this model
+		tagger = new NETagger();
+
+		// use the shared model, if given
+		try {
+			NETaggerModelProvider modelProvider = (NETaggerModelProvider) aContext.getResourceObject(RES_KEY_MODEL);
+			if (modelProvider != null) {
+				LOGGER.info("setModel() - using the shared model given by the external resource {}", RES_KEY_MODEL);
+				tagger.setModel(modelProvider.getModel(), modelProvider.getFeatureConfig());
+				return;
+			}
+		} catch (ResourceAccessException e) {
+			LOGGER.error("setModel() - Could not access the JNET model resource: " + e.getMessage(), e);
+			throw new AnnotatorInitializationException();
+		}
+
 		// get model filename
 		String modelFilename = "";
 		Object o = aContext.getConfigParameterValue("ModelFilename");
@@ -303,8 +326,6 @@ public class EntityAnnotator extends JCasAnnotator_ImplBase {
 			throw new AnnotatorConfigurationException();
 		}
 
-		// produce an instance of JNET with this model
-		tagger = new NETagger();
 		try {
 			File modelPath = new File(modelFilename);
 			InputStream is;
@@ -0,0 +1,22 @@
+package de.julielab.jcore.ae.jnet.uima;
+
+import org.apache.uima.resource.SharedResourceObject;
+
+import java.util.Properties;
+
+/**
+ * A shared resource that loads a JNET model once and hands it out to all {@link EntityAnnotator} instances
+ * bound to it. The model and its feature configuration are read-only after loading; each annotator wraps them into
+ * its own {@link de.julielab.jnet.tagger.NETagger}.
+ */
+public interface NETaggerModelProvider extends SharedResourceObject {
+    /**
+     * @return The CRF or MaxEnt model.
+     */
+    Object getModel();
+
+    /**
+     * @return The feature configuration the model has been trained with.
+     */
+    Properties getFeatureConfig();
+}
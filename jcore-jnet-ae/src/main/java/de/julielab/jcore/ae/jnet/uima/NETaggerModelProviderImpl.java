@@ -0,0 +1,49 @@
+package de.julielab.jcore.ae.jnet.uima;
+
+import de.julielab.jnet.tagger.NETagger;
+import org.apache.uima.resource.DataResource;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class NETaggerModelProviderImpl implements NETaggerModelProvider {
+    private final static Logger log = LoggerFactory.getLogger(NETaggerModelProviderImpl.class);
+    private final AtomicInteger numClients = new AtomicInteger();
+    private Object model;
+    private Properties featureConfig;
+    private String modelLocation;
+
+    @Override
+    public Object getModel() {
+        log.debug("JNET model from {} is now shared by {} annotators.", modelLocation, numClients.incrementAndGet());
+        return model;
+    }
+
+    @Override
+    public Properties getFeatureConfig() {
+        return featureConfig;
+    }
+
+    @Override
+    public void load(DataResource aData) throws ResourceInitializationException {
+        modelLocation = String.valueOf(aData.getUri());
+        long time = System.nanoTime();
+        try (InputStream is = aData.getInputStream()) {
+            if (is == null)
+                throw new ResourceInitializationException(new IllegalArgumentException("The JNET model could not be found at " + modelLocation));
+            NETagger tagger = new NETagger();
+            tagger.readModel(is);
+            model = tagger.getModel();
+            featureConfig = tagger.getFeatureConfig();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new ResourceInitializationException(e);
+        }
+        time = System.nanoTime() - time;
+        log.info("Loaded shared JNET model from {} in {}ms.", modelLocation, time / 1000000);
+    }
+}
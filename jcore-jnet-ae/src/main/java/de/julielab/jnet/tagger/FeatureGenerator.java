@@ -28,16 +28,9 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.Properties;
-import java.util.regex.Pattern;
 
 class FeatureGenerator {
 
-	private final static String GREEK = "(alpha|beta|gamma|delta|epsilon|zeta|eta|theta|iota|kappa|lambda|mu|nu|xi|omicron|pi|rho|sigma|tau|upsilon|phi|chi|psi|omega)";
-
-	// TODO not really unicode safe
-	private final static String UNICODE_UPPER = "\\p{Lu}";;
-	private final static String UNICODE_LOWER = "\\p{Ll}";
-
 	public InstanceList createFeatureData(final ArrayList<Sentence> sentences,
 			final Properties featureConfig) {
 
@@ -47,52 +40,11 @@ class FeatureGenerator {
 		// base pipe
 		pipeParam.add(new BasePipe(featureConfig));
 
-		// default surface patterns
-		pipeParam.add(new RegexMatches("INITLOWCAPS_ANYTHING_NONUMBER", Pattern
-				.compile("[" + UNICODE_LOWER + "][" + UNICODE_UPPER + "][^0-9]*")));
-		pipeParam.add(new RegexMatches("INITLOWCAPS_ANYTHING_WITHNUMBER",
-				Pattern.compile("[" + UNICODE_LOWER + "][" + UNICODE_UPPER + "].*[0-9].*")));
-		pipeParam.add(new RegexMatches("INITCAPS", Pattern.compile("[" + UNICODE_UPPER
-				+ "].*")));
-		pipeParam.add(new RegexMatches("INITCAPSALPHA", Pattern.compile("["
-				+ UNICODE_UPPER + "][" + UNICODE_LOWER + "].*")));
-		pipeParam.add(new RegexMatches("ALLCAPS", Pattern.compile("[" + UNICODE_UPPER
-				+ "]+")));
-		pipeParam.add(new RegexMatches("CAPSMIX", Pattern.compile("[" + UNICODE_UPPER
-				+ UNICODE_LOWER + "]+")));
-		pipeParam
-				.add(new RegexMatches("HASDIGIT", Pattern.compile(".*[0-9].*")));
-		pipeParam
-				.add(new RegexMatches("SINGLEDIGIT", Pattern.compile("[0-9]")));
-		pipeParam.add(new RegexMatches("DOUBLEDIGIT", Pattern
-				.compile("[0-9][0-9]")));
-		pipeParam.add(new RegexMatches("NATURALNUMBER", Pattern
-				.compile("[0-9]+")));
-		pipeParam.add(new RegexMatches("REALNUMBER", Pattern
-				.compile("[-0-9]+[.,]+[0-9.,]+")));
-		pipeParam.add(new RegexMatches("HASDASH", Pattern.compile(".*-.*")));
-		pipeParam.add(new RegexMatches("INITDASH", Pattern.compile("-.*")));
-		pipeParam.add(new RegexMatches("ENDDASH", Pattern.compile(".*-")));
-		pipeParam.add(new RegexMatches("ALPHANUMERIC", Pattern.compile(".*["
-				+ UNICODE_UPPER + UNICODE_LOWER + "].*[0-9].*")));
-		pipeParam.add(new RegexMatches("ALPHANUMERIC", Pattern
-				.compile(".*[0-9].*[" + UNICODE_UPPER + UNICODE_LOWER + "].*")));
-		pipeParam.add(new RegexMatches("IS_PUNCTUATION_MARK", Pattern
-				.compile("[,.;:?!]")));
-
-		pipeParam.add(new RegexMatches("IS_MINUSDASHSLASH", Pattern
-				.compile("[-_/]")));
-
-		// bio surface patterns
-		if (fc.featureActive(featureConfig, "feat_bioregexp_enabled")) {
-			pipeParam.add(new RegexMatches("ROMAN", Pattern
-					.compile("[IVXDLCM]+")));
-			pipeParam.add(new RegexMatches("HASROMAN", Pattern
-					.compile(".*\\b[IVXDLCM]+\\b.*")));
-			pipeParam.add(new RegexMatches("GREEK", Pattern.compile(GREEK)));
-			pipeParam.add(new RegexMatches("HASGREEK", Pattern.compile(".*\\b"
-					+ GREEK + "\\b.*")));
-		}
+		// default and bio surface patterns, computed in a single pass over
+		// each token
+		pipeParam.add(new TokenShapePipe(TokenShapePipe.CharClasses.UNICODE,
+				TokenShapePipe.getDefaultShapes(fc.featureActive(featureConfig,
+						"feat_bioregexp_enabled"))));
 
 		// prefix and suffix
 		final int[] prefixSizes = fc.getIntArray(featureConfig, "prefix_sizes");
@@ -565,8 +565,21 @@ public class NETagger {
 		final FeatureSubsetModel fsm = (FeatureSubsetModel) ois.readObject();
 		ois.close();
 		
-		model = fsm.getModel();
-		featureConfig = fsm.getFeatureConfig();
+		setModel(fsm.getModel(), fsm.getFeatureConfig());
+	}
+
+	/**
+	 * Sets a model that has already been loaded, e.g. by another tagger. The model is only read during prediction,
+	 * thus multiple taggers may share the same model object.
+	 * 
+	 * @param model
+	 *            the CRF or MaxEnt model
+	 * @param featureConfig
+	 *            the feature configuration the model has been trained with
+	 */
+	public void setModel(final Object model, final Properties featureConfig) {
+		this.model = model;
+		this.featureConfig = featureConfig;
 		trained = true;
 
 		if (model instanceof MaxEnt) {
@@ -574,7 +587,13 @@ public class NETagger {
 			max_ent = true;
 		}
 		else {
-			((Transducer) model).getInputPipe().getDataAlphabet().stopGrowth();
+			final Pipe inputPipe = ((Transducer) model).getInputPipe();
+			inputPipe.getDataAlphabet().stopGrowth();
+			// older models compute the token shape features with one regular
+			// expression per feature; compute them in a single pass instead
+			final int replaced = TokenShapePipe.replaceRegexMatches(inputPipe);
+			if (replaced > 0)
+				LOGGER.debug("Replaced {} RegexMatches pipes of the model by a TokenShapePipe", replaced);
 		}
 	}
 
@@ -0,0 +1,457 @@
+/**
+ * TokenShapePipe.java
+ *
+ * Copyright (c) 2026, JULIE Lab.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the BSD-2-Clause License
+ *
+ * Computes the orthographic and shape features of the tokens, which were
+ * formerly computed by one RegexMatches pipe per feature, in a single walk
+ * over each token.
+ **/
+
+package de.julielab.jnet.tagger;
+
+import cc.mallet.pipe.Pipe;
+import cc.mallet.pipe.SerialPipes;
+import cc.mallet.pipe.tsf.RegexMatches;
+import cc.mallet.types.Instance;
+import cc.mallet.types.Token;
+import cc.mallet.types.TokenSequence;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * Sets the orthographic and shape features of the tokens, e.g. INITCAPS or HASDIGIT. The features are exactly those
+ * that MALLET's {@link RegexMatches} pipe would set for the patterns given by {@link Shape}, including the special
+ * treatment of a leading opening parenthesis and a trailing closing parenthesis or period of the token text. However,
+ * instead of running one regular expression per feature, all features are derived from a single walk over the token
+ * text. The result for each token text is cached in a bounded, thread safe cache.
+ * </p>
+ * <p>
+ * Models trained before this pipe existed contain the {@link RegexMatches} pipes. They can be switched to this pipe
+ * after loading with {@link #replaceRegexMatches(Pipe)}.
+ * </p>
+ */
+public class TokenShapePipe extends Pipe {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(TokenShapePipe.class);
+
+	/**
+	 * The maximum number of token texts whose features are cached. When the cache is full, it is cleared.
+	 */
+	static final int MAX_CACHE_SIZE = 100000;
+
+	private static final String GREEK = "(alpha|beta|gamma|delta|epsilon|zeta|eta|theta|iota|kappa|lambda|mu|nu|xi|omicron|pi|rho|sigma|tau|upsilon|phi|chi|psi|omega)";
+
+	private static final Set<String> GREEK_LETTERS = new HashSet<>(Arrays.asList(GREEK.substring(1, GREEK.length() - 1).split("\\|")));
+
+	private static final Shape[] DEFAULT_SHAPES = { Shape.INITLOWCAPS_ANYTHING_NONUMBER, Shape.INITLOWCAPS_ANYTHING_WITHNUMBER,
+			Shape.INITCAPS, Shape.INITCAPSALPHA, Shape.ALLCAPS, Shape.CAPSMIX, Shape.HASDIGIT, Shape.SINGLEDIGIT,
+			Shape.DOUBLEDIGIT, Shape.NATURALNUMBER, Shape.REALNUMBER, Shape.HASDASH, Shape.INITDASH, Shape.ENDDASH,
+			Shape.ALPHANUMERIC_LETTER_FIRST, Shape.ALPHANUMERIC_DIGIT_FIRST, Shape.IS_PUNCTUATION_MARK,
+			Shape.IS_MINUSDASHSLASH };
+
+	private static final Shape[] BIO_SHAPES = { Shape.ROMAN, Shape.HASROMAN, Shape.GREEK, Shape.HASGREEK };
+
+	/**
+	 * The character classes used for upper and lower case letters. Models trained with older versions of JNET
+	 * enumerate the letters explicitly.
+	 */
+	public enum CharClasses {
+		UNICODE("\\p{Lu}", "\\p{Ll}"), LEGACY("A-ZÁÉÍÓÚÀÈÌÒÙÇÑÏÄÖÜ", "a-zàèìòùáéíóúçñïäöü");
+
+		private static final String LEGACY_UPPER = "ÁÉÍÓÚÀÈÌÒÙÇÑÏÄÖÜ";
+		private static final String LEGACY_LOWER = "àèìòùáéíóúçñïäöü";
+
+		private final String upper;
+		private final String lower;
+
+		CharClasses(String upper, String lower) {
+			this.upper = upper;
+			this.lower = lower;
+		}
+
+		boolean isUpper(int cp) {
+			if (this == UNICODE)
+				return Character.getType(cp) == Character.UPPERCASE_LETTER;
+			return (cp >= 'A' && cp <= 'Z') || LEGACY_UPPER.indexOf(cp) >= 0;
+		}
+
+		boolean isLower(int cp) {
+			if (this == UNICODE)
+				return Character.getType(cp) == Character.LOWERCASE_LETTER;
+			return (cp >= 'a' && cp <= 'z') || LEGACY_LOWER.indexOf(cp) >= 0;
+		}
+	}
+
+	/**
+	 * The features with the regular expressions they were originally defined with. <tt>%1$s</tt> and <tt>%2$s</tt>
+	 * stand for the upper and lower case letters of the {@link CharClasses}.
+	 */
+	public enum Shape {
+		INITLOWCAPS_ANYTHING_NONUMBER("INITLOWCAPS_ANYTHING_NONUMBER", "[%2$s][%1$s][^0-9]*"),
+		INITLOWCAPS_ANYTHING_WITHNUMBER("INITLOWCAPS_ANYTHING_WITHNUMBER", "[%2$s][%1$s].*[0-9].*"),
+		INITCAPS("INITCAPS", "[%1$s].*"),
+		INITCAPSALPHA("INITCAPSALPHA", "[%1$s][%2$s].*"),
+		ALLCAPS("ALLCAPS", "[%1$s]+"),
+		CAPSMIX("CAPSMIX", "[%1$s%2$s]+"),
+		HASDIGIT("HASDIGIT", ".*[0-9].*"),
+		SINGLEDIGIT("SINGLEDIGIT", "[0-9]"),
+		DOUBLEDIGIT("DOUBLEDIGIT", "[0-9][0-9]"),
+		NATURALNUMBER("NATURALNUMBER", "[0-9]+"),
+		REALNUMBER("REALNUMBER", "[-0-9]+[.,]+[0-9.,]+"),
+		HASDASH("HASDASH", ".*-.*"),
+		INITDASH("INITDASH", "-.*"),
+		ENDDASH("ENDDASH", ".*-"),
+		ALPHANUMERIC_LETTER_FIRST("ALPHANUMERIC", ".*[%1$s%2$s].*[0-9].*"),
+		ALPHANUMERIC_DIGIT_FIRST("ALPHANUMERIC", ".*[0-9].*[%1$s%2$s].*"),
+		IS_PUNCTUATION_MARK("IS_PUNCTUATION_MARK", "[,.;:?!]"),
+		IS_MINUSDASHSLASH("IS_MINUSDASHSLASH", "[-_/]"),
+		ROMAN("ROMAN", "[IVXDLCM]+"),
+		HASROMAN("HASROMAN", ".*\\b[IVXDLCM]+\\b.*"),
+		GREEK("GREEK", TokenShapePipe.GREEK),
+		HASGREEK("HASGREEK", ".*\\b" + TokenShapePipe.GREEK + "\\b.*");
+
+		private final String featureName;
+		private final String patternTemplate;
+
+		Shape(String featureName, String patternTemplate) {
+			this.featureName = featureName;
+			this.patternTemplate = patternTemplate;
+		}
+
+		public String getFeatureName() {
+			return featureName;
+		}
+
+		public String getPattern(CharClasses charClasses) {
+			return String.format(patternTemplate, charClasses.upper, charClasses.lower);
+		}
+	}
+
+	private final CharClasses charClasses;
+
+	private final Shape[] shapes;
+
+	/**
+	 * Only for {@link Shape#HASROMAN} and {@link Shape#HASGREEK} the regular expressions are still used because the
+	 * meaning of the word boundary <tt>\b</tt> depends on the Java version. They are only applied when a cheap check
+	 * shows that the token text might match.
+	 */
+	private final Pattern hasRomanPattern;
+
+	private final Pattern hasGreekPattern;
+
+	private transient volatile Map<String, int[]> cache;
+
+	/**
+	 * @param charClasses
+	 *            The character classes of upper and lower case letters.
+	 * @param shapes
+	 *            The features to set, in the order in which they are set.
+	 */
+	public TokenShapePipe(final CharClasses charClasses, final Shape... shapes) {
+		this.charClasses = charClasses;
+		this.shapes = shapes;
+		hasRomanPattern = Pattern.compile(Shape.HASROMAN.getPattern(charClasses));
+		hasGreekPattern = Pattern.compile(Shape.HASGREEK.getPattern(charClasses));
+	}
+
+	/**
+	 * @param withBioShapes
+	 *            Whether to include the roman number and greek letter features.
+	 * @return The features JNET uses by default.
+	 */
+	public static Shape[] getDefaultShapes(final boolean withBioShapes) {
+		final List<Shape> shapes = new ArrayList<>(Arrays.asList(DEFAULT_SHAPES));
+		if (withBioShapes)
+			shapes.addAll(Arrays.asList(BIO_SHAPES));
+		return shapes.toArray(new Shape[0]);
+	}
+
+	@Override
+	public Instance pipe(final Instance carrier) {
+		final TokenSequence ts = (TokenSequence) carrier.getData();
+		for (int i = 0; i < ts.size(); i++) {
+			final Token t = ts.get(i);
+			for (final int shapeIndex : getShapeIndices(t.getText()))
+				t.setFeatureValue(shapes[shapeIndex].getFeatureName(), 1.0);
+		}
+		return carrier;
+	}
+
+	/**
+	 * @param text
+	 *            A token text.
+	 * @return The indices of the shapes to set for the text, possibly containing an index twice.
+	 */
+	int[] getShapeIndices(final String text) {
+		Map<String, int[]> cache = this.cache;
+		if (cache == null) {
+			cache = new ConcurrentHashMap<>();
+			this.cache = cache;
+		}
+		int[] shapeIndices = cache.get(text);
+		if (shapeIndices == null) {
+			shapeIndices = computeShapeIndices(text);
+			if (cache.size() >= MAX_CACHE_SIZE)
+				cache.clear();
+			cache.put(text, shapeIndices);
+		}
+		return shapeIndices;
+	}
+
+	private int[] computeShapeIndices(final String text) {
+		// RegexMatches also matches the text without a leading opening
+		// parenthesis and a trailing closing parenthesis or period
+		String strippedText = text;
+		if (strippedText.startsWith("("))
+			strippedText = strippedText.substring(1);
+		if (strippedText.endsWith(")") || strippedText.endsWith("."))
+			strippedText = strippedText.substring(0, strippedText.length() - 1);
+		final boolean stripped = !strippedText.equals(text);
+
+		final TokenScan strippedScan = new TokenScan(strippedText, charClasses);
+		final TokenScan scan = stripped ? new TokenScan(text, charClasses) : null;
+		int[] shapeIndices = new int[shapes.length];
+		int numIndices = 0;
+		for (int i = 0; i < shapes.length; i++) {
+			if (matches(shapes[i], strippedText, strippedScan))
+				shapeIndices = add(shapeIndices, numIndices++, i);
+			if (stripped && matches(shapes[i], text, scan))
+				shapeIndices = add(shapeIndices, numIndices++, i);
+		}
+		return Arrays.copyOf(shapeIndices, numIndices);
+	}
+
+	private int[] add(int[] array, final int index, final int value) {
+		if (index == array.length)
+			array = Arrays.copyOf(array, array.length * 2);
+		array[index] = value;
+		return array;
+	}
+
+	private boolean matches(final Shape shape, final String text, final TokenScan s) {
+		switch (shape) {
+		case INITLOWCAPS_ANYTHING_NONUMBER:
+			return s.length >= 2 && s.firstIsLower && s.secondIsUpper && s.firstDigit < 0;
+		case INITLOWCAPS_ANYTHING_WITHNUMBER:
+			return s.length >= 3 && s.firstIsLower && s.secondIsUpper && s.lastDigit >= 2 && s.lastLineTerminator < 2;
+		case INITCAPS:
+			return s.length >= 1 && s.firstIsUpper && s.lastLineTerminator < 1;
+		case INITCAPSALPHA:
+			return s.length >= 2 && s.firstIsUpper && s.secondIsLower && s.lastLineTerminator < 2;
+		case ALLCAPS:
+			return s.length >= 1 && s.allUpper;
+		case CAPSMIX:
+			return s.length >= 1 && s.allLetters;
+		case HASDIGIT:
+			return s.firstDigit >= 0 && s.firstLineTerminator < 0;
+		case SINGLEDIGIT:
+			return s.length == 1 && s.allDigits;
+		case DOUBLEDIGIT:
+			return s.length == 2 && s.allDigits;
+		case NATURALNUMBER:
+			return s.length >= 1 && s.allDigits;
+		case REALNUMBER:
+			return s.realNumber;
+		case HASDASH:
+			return s.hasDash && s.firstLineTerminator < 0;
+		case INITDASH:
+			return s.length >= 1 && s.first == '-' && s.lastLineTerminator < 1;
+		case ENDDASH:
+			return s.length >= 1 && s.last == '-' && s.firstLineTerminator < 0;
+		case ALPHANUMERIC_LETTER_FIRST:
+			return s.firstLetter >= 0 && s.lastDigit > s.firstLetter && s.firstLineTerminator < 0;
+		case ALPHANUMERIC_DIGIT_FIRST:
+			return s.firstDigit >= 0 && s.lastLetter > s.firstDigit && s.firstLineTerminator < 0;
+		case IS_PUNCTUATION_MARK:
+			return s.length == 1 && ",.;:?!".indexOf(s.first) >= 0;
+		case IS_MINUSDASHSLASH:
+			return s.length == 1 && "-_/".indexOf(s.first) >= 0;
+		case ROMAN:
+			return s.length >= 1 && s.allRoman;
+		case HASROMAN:
+			return s.hasRoman && hasRomanPattern.matcher(text).matches();
+		case GREEK:
+			return GREEK_LETTERS.contains(text);
+		case HASGREEK:
+			return containsGreekLetter(text) && hasGreekPattern.matcher(text).matches();
+		default:
+			throw new IllegalArgumentException("Unknown shape " + shape);
+		}
+	}
+
+	private boolean containsGreekLetter(final String text) {
+		for (final String letter : GREEK_LETTERS) {
+			if (text.contains(letter))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Replaces consecutive {@link RegexMatches} pipes whose features and patterns correspond to {@link Shape}s by a
+	 * single {@link TokenShapePipe} that sets the same features in the same order.
+	 *
+	 * @param pipe
+	 *            The input pipe of a model, typically a {@link SerialPipes} object.
+	 * @return The number of replaced {@link RegexMatches} pipes.
+	 */
+	public static int replaceRegexMatches(final Pipe pipe) {
+		if (!(pipe instanceof SerialPipes))
+			return 0;
+		final List<Pipe> pipes = ((SerialPipes) pipe).pipes();
+		final Field featureField;
+		final Field regexField;
+		try {
+			featureField = RegexMatches.class.getDeclaredField("feature");
+			regexField = RegexMatches.class.getDeclaredField("regex");
+			featureField.setAccessible(true);
+			regexField.setAccessible(true);
+		} catch (NoSuchFieldException | RuntimeException e) {
+			LOGGER.debug("Cannot access the RegexMatches fields, the feature pipes are not replaced.", e);
+			return 0;
+		}
+		int numReplaced = 0;
+		for (int i = 0; i < pipes.size(); i++) {
+			CharClasses runCharClasses = null;
+			final List<Shape> runShapes = new ArrayList<>();
+			int end = i;
+			while (end < pipes.size() && pipes.get(end) instanceof RegexMatches) {
+				final Shape shape;
+				final CharClasses charClasses;
+				try {
+					final String feature = (String) featureField.get(pipes.get(end));
+					final Pattern regex = (Pattern) regexField.get(pipes.get(end));
+					charClasses = findCharClasses(feature, regex, runCharClasses);
+					shape = charClasses != null ? findShape(feature, regex, charClasses) : null;
+				} catch (IllegalAccessException e) {
+					break;
+				}
+				if (shape == null)
+					break;
+				runCharClasses = charClasses;
+				runShapes.add(shape);
+				++end;
+			}
+			if (!runShapes.isEmpty()) {
+				pipes.subList(i, end).clear();
+				pipes.add(i, new TokenShapePipe(runCharClasses, runShapes.toArray(new Shape[0])));
+				numReplaced += runShapes.size();
+			}
+		}
+		return numReplaced;
+	}
+
+	private static CharClasses findCharClasses(final String feature, final Pattern regex, final CharClasses runCharClasses) {
+		if (regex.flags() != 0)
+			return null;
+		for (final CharClasses charClasses : CharClasses.values()) {
+			if ((runCharClasses == null || runCharClasses == charClasses) && findShape(feature, regex, charClasses) != null)
+				return charClasses;
+		}
+		return null;
+	}
+
+	private static Shape findShape(final String feature, final Pattern regex, final CharClasses charClasses) {
+		for (final Shape shape : Shape.values()) {
+			if (shape.getFeatureName().equals(feature) && shape.getPattern(charClasses).equals(regex.pattern()))
+				return shape;
+		}
+		return null;
+	}
+
+	/**
+	 * The character class information of a token text, collected in a single walk over its code points.
+	 */
+	private static class TokenScan {
+		private int length;
+		private int first = -1;
+		private int last = -1;
+		private boolean firstIsUpper;
+		private boolean firstIsLower;
+		private boolean secondIsUpper;
+		private boolean secondIsLower;
+		private boolean allUpper = true;
+		private boolean allLetters = true;
+		private boolean allDigits = true;
+		private boolean allRoman = true;
+		private boolean hasRoman;
+		private boolean hasDash;
+		private int firstDigit = -1;
+		private int lastDigit = -1;
+		private int firstLetter = -1;
+		private int lastLetter = -1;
+		private int firstLineTerminator = -1;
+		private int lastLineTerminator = -1;
+		private boolean realNumber;
+
+		private TokenScan(final String text, final CharClasses charClasses) {
+			// for REALNUMBER: the length of the leading [-0-9]+ part and the
+			// position of the first [.,] after it
+			int separatorPosition = -1;
+			boolean realNumberPossible = true;
+			for (int i = 0; i < text.length();) {
+				final int cp = text.codePointAt(i);
+				i += Character.charCount(cp);
+				final boolean isUpper = charClasses.isUpper(cp);
+				final boolean isLower = charClasses.isLower(cp);
+				final boolean isDigit = cp >= '0' && cp <= '9';
+				final boolean isRoman = "IVXDLCM".indexOf(cp) >= 0;
+				if (length == 0) {
+					first = cp;
+					firstIsUpper = isUpper;
+					firstIsLower = isLower;
+				} else if (length == 1) {
+					secondIsUpper = isUpper;
+					secondIsLower = isLower;
+				}
+				allUpper &= isUpper;
+				allLetters &= isUpper || isLower;
+				allDigits &= isDigit;
+				allRoman &= isRoman;
+				hasRoman |= isRoman;
+				hasDash |= cp == '-';
+				if (isDigit) {
+					if (firstDigit < 0)
+						firstDigit = length;
+					lastDigit = length;
+				}
+				if (isUpper || isLower) {
+					if (firstLetter < 0)
+						firstLetter = length;
+					lastLetter = length;
+				}
+				if (cp == '\n' || cp == '\r' || cp == '\u0085' || cp == '\u2028' || cp == '\u2029') {
+					if (firstLineTerminator < 0)
+						firstLineTerminator = length;
+					lastLineTerminator = length;
+				}
+				if (realNumberPossible) {
+					final boolean isSeparator = cp == '.' || cp == ',';
+					if (separatorPosition < 0) {
+						if (isSeparator && length > 0)
+							separatorPosition = length;
+						else if (!isDigit && cp != '-')
+							realNumberPossible = false;
+					} else if (!isSeparator && !isDigit) {
+						realNumberPossible = false;
+					}
+				}
+				last = cp;
+				++length;
+			}
+			realNumber = realNumberPossible && separatorPosition > 0 && length >= separatorPosition + 2;
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package de.julielab.jcore.ae.jnet.uima;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * <p>
+ * Compares the search for the occurrences of the entity strings of a document as done by
+ * {@link ConsistencyPreservation#stringMatch} before, i.e. one <tt>indexOf</tt> loop per distinct entity string, with
+ * the search by an {@link AhoCorasickMatcher} that is built for the document. The number of distinct entity strings
+ * ranges from 10 to 2000 for a full text sized document.
+ * </p>
+ * <p>
+ * Arguments: <tt>[document length in characters]</tt>, default 100000.
+ * </p>
+ */
+public class AhoCorasickMatcherBenchmark {
+	public static void main(String[] args) {
+		final int documentLength = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		final Random random = new Random(1);
+		final List<String> vocabulary = new ArrayList<>();
+		for (int i = 0; i < 20000; i++)
+			vocabulary.add(randomWord(random));
+		final StringBuilder sb = new StringBuilder();
+		while (sb.length() < documentLength)
+			sb.append(vocabulary.get(random.nextInt(vocabulary.size()))).append(' ');
+		final String text = sb.toString();
+
+		for (int numEntityStrings : new int[] { 10, 20, 30, 50, 100, 500, 1000, 2000 }) {
+			final Set<String> entityStrings = new LinkedHashSet<>();
+			while (entityStrings.size() < numEntityStrings) {
+				// entity strings occurring in the text, as in the consistency preservation
+				final int begin = random.nextInt(text.length() - 20);
+				entityStrings.add(text.substring(begin, begin + 3 + random.nextInt(15)));
+			}
+			long indexOfTime = Long.MAX_VALUE;
+			long matcherTime = Long.MAX_VALUE;
+			long occurrences = 0;
+			for (int round = 0; round < 10; round++) {
+				long time = System.nanoTime();
+				occurrences = 0;
+				for (String entityString : entityStrings) {
+					int pos = 0;
+					int length = 0;
+					while ((pos = text.indexOf(entityString, pos + length)) > -1) {
+						length = entityString.length();
+						++occurrences;
+					}
+				}
+				indexOfTime = Math.min(indexOfTime, System.nanoTime() - time);
+
+				time = System.nanoTime();
+				new AhoCorasickMatcher(entityStrings).findAll(text);
+				matcherTime = Math.min(matcherTime, System.nanoTime() - time);
+			}
+			System.out.printf("%d entity strings, %d occurrences: indexOf %.2f ms, Aho-Corasick %.2f ms%n", numEntityStrings, occurrences, indexOfTime / 1000000d, matcherTime / 1000000d);
+		}
+	}
+
+	private static String randomWord(Random random) {
+		final StringBuilder sb = new StringBuilder();
+		final int length = 2 + random.nextInt(10);
+		for (int i = 0; i < length; i++)
+			sb.append((char) ('a' + random.nextInt(26)));
+		if (random.nextInt(5) == 0)
+			sb.append('-').append(random.nextInt(20));
+		return sb.toString();
+	}
+}
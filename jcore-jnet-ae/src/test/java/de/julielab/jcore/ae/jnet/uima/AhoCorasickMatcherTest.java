@@ -0,0 +1,60 @@
+package de.julielab.jcore.ae.jnet.uima;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AhoCorasickMatcherTest {
+
+	@Test
+	public void testOverlappingOccurrences() {
+		final Map<String, int[]> occurrences = new AhoCorasickMatcher(Arrays.asList("he", "she", "his", "hers", "", "xyz")).findAll("ushers shelve his hers");
+		assertThat(occurrences).doesNotContainKey("");
+		assertThat(occurrences.get("he")).containsExactly(2, 8, 18);
+		assertThat(occurrences.get("she")).containsExactly(1, 7);
+		assertThat(occurrences.get("his")).containsExactly(14);
+		assertThat(occurrences.get("hers")).containsExactly(2, 18);
+		assertThat(occurrences.get("xyz")).isEmpty();
+	}
+
+	@Test
+	public void testSameOccurrencesAsIndexOf() {
+		final Random random = new Random(1);
+		for (int i = 0; i < 500; i++) {
+			final String text = randomString(random, 200);
+			final Set<String> patterns = new HashSet<>();
+			for (int j = 0; j < 20; j++) {
+				final int begin = random.nextInt(text.length());
+				patterns.add(random.nextBoolean() ? text.substring(begin, Math.min(text.length(), begin + 1 + random.nextInt(6))) : randomString(random, 4));
+			}
+			final Map<String, int[]> occurrences = new AhoCorasickMatcher(patterns).findAll(text);
+			for (String pattern : patterns) {
+				final List<Integer> expected = new ArrayList<>();
+				for (int pos = text.indexOf(pattern); pos >= 0; pos = text.indexOf(pattern, pos + 1))
+					expected.add(pos);
+				assertThat(occurrences.get(pattern)).as(pattern).containsExactly(expected.stream().mapToInt(Integer::intValue).toArray());
+			}
+		}
+	}
+
+	@Test
+	public void testFindOccurrencesBelowMatcherThreshold() {
+		final List<String> strings = Arrays.asList("he", "she", "his", "hers", "", "xyz");
+		assertThat(strings.size()).isLessThan(ConsistencyPreservation.MIN_STRINGS_FOR_MATCHER);
+		final Map<String, int[]> occurrences = ConsistencyPreservation.findOccurrences(strings, "ushers shelve his hers");
+		final Map<String, int[]> expected = new AhoCorasickMatcher(strings).findAll("ushers shelve his hers");
+		assertThat(occurrences.keySet()).isEqualTo(expected.keySet());
+		for (String string : expected.keySet())
+			assertThat(occurrences.get(string)).as(string).containsExactly(expected.get(string));
+	}
+
+	private String randomString(Random random, int maxLength) {
+		final StringBuilder sb = new StringBuilder();
+		final int length = 1 + random.nextInt(maxLength);
+		for (int i = 0; i < length; i++)
+			sb.append("abcAB -α".charAt(random.nextInt(8)));
+		return sb.toString();
+	}
+}
@@ -0,0 +1,73 @@
+package de.julielab.jnet.tagger;
+
+import cc.mallet.fst.Transducer;
+import cc.mallet.pipe.Pipe;
+import cc.mallet.pipe.SerialPipes;
+import cc.mallet.pipe.tsf.RegexMatches;
+import cc.mallet.types.FeatureVectorSequence;
+import cc.mallet.types.Instance;
+import org.junit.jupiter.api.Test;
+
+import java.io.FileInputStream;
+import java.io.ObjectInputStream;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NETaggerTest {
+	@Test
+	public void testTokenShapeFeaturesOfUpgradedModel() throws Exception {
+		// the model loaded by the EntityAnnotator in EntityAnnotatorTest.xml
+		final String model = "src/test/resources/de/julielab/jcore/ae/jnet/uima/testModel";
+		// MALLET resolves deserialized pipes to the instance already loaded in this JVM; forget those so that
+		// the upgraded model and the model as it was serialized are distinct objects
+		final Field deserializedEntries = Pipe.class.getDeclaredField("deserializedEntries");
+		deserializedEntries.setAccessible(true);
+		((Map<?, ?>) deserializedEntries.get(null)).clear();
+		final NETagger tagger = new NETagger();
+		tagger.readModel(new FileInputStream(model));
+		final Pipe shapePipe = ((Transducer) tagger.getModel()).getInputPipe();
+		assertThat(((SerialPipes) shapePipe).pipes()).hasAtLeastOneElementOfType(TokenShapePipe.class).doesNotHaveAnyElementsOfTypes(RegexMatches.class);
+
+		// the model as it was serialized, computing the token shapes with RegexMatches pipes
+		((Map<?, ?>) deserializedEntries.get(null)).clear();
+		final Pipe regexPipe;
+		try (ObjectInputStream ois = new ObjectInputStream(new GZIPInputStream(new FileInputStream(model)))) {
+			regexPipe = ((Transducer) ((FeatureSubsetModel) ois.readObject()).getModel()).getInputPipe();
+		}
+		regexPipe.getDataAlphabet().stopGrowth();
+		assertThat(((SerialPipes) regexPipe).pipes()).hasAtLeastOneElementOfType(RegexMatches.class);
+
+		final List<Sentence> sentences = new ArrayList<>();
+		for (String line : Files.readAllLines(Path.of("src/test/resources/de/julielab/jcore/ae/jnet/cli/testModel_traindata.ppd"))) {
+			final Sentence sentence = new Sentence();
+			for (String token : line.trim().split("[\t ]+")) {
+				if (!token.isEmpty())
+					sentence.add(new Unit(0, 0, token.substring(0, token.lastIndexOf('|')), "O"));
+			}
+			sentences.add(sentence);
+		}
+		final Sentence sentence = new Sentence();
+		for (String token : Arrays.asList("(IL-2)", "NF-kappaB", "TNF.", "II", "3.5", "-12,5", "Ähnliche", "alpha", "mRNA2", "x-"))
+			sentence.add(new Unit(0, 0, token, "O"));
+		sentences.add(sentence);
+
+		int numTokens = 0;
+		for (Sentence s : sentences) {
+			final FeatureVectorSequence expected = (FeatureVectorSequence) regexPipe.instanceFrom(new Instance(s, "", "", "")).getData();
+			final FeatureVectorSequence actual = (FeatureVectorSequence) shapePipe.instanceFrom(new Instance(s, "", "", "")).getData();
+			assertThat(actual.size()).isEqualTo(expected.size());
+			for (int i = 0; i < expected.size(); i++)
+				assertThat(actual.getFeatureVector(i).toString()).isEqualTo(expected.getFeatureVector(i).toString());
+			numTokens += expected.size();
+		}
+		assertThat(numTokens).isGreaterThan(1000);
+	}
+}
@@ -0,0 +1,73 @@
+package de.julielab.jnet.tagger;
+
+import cc.mallet.pipe.Pipe;
+import cc.mallet.pipe.SerialPipes;
+import cc.mallet.pipe.tsf.RegexMatches;
+import cc.mallet.types.Instance;
+import cc.mallet.types.Token;
+import cc.mallet.types.TokenSequence;
+import cc.mallet.util.PropertyList;
+import de.julielab.jnet.tagger.TokenShapePipe.CharClasses;
+import de.julielab.jnet.tagger.TokenShapePipe.Shape;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * Measures the token shape features per second of the {@link RegexMatches} pipes formerly used by the
+ * {@link FeatureGenerator} and of the {@link TokenShapePipe}, with an empty cache and with a filled cache.
+ * </p>
+ * <p>
+ * Arguments: <tt>[PPD file]</tt>. Without a file, <tt>src/test/resources/de/julielab/jcore/ae/jnet/cli/testModel_traindata.ppd</tt>
+ * is used.
+ * </p>
+ */
+public class TokenShapePipeBenchmark {
+	public static void main(String[] args) throws Exception {
+		final String ppdFile = args.length > 0 ? args[0] : "src/test/resources/de/julielab/jcore/ae/jnet/cli/testModel_traindata.ppd";
+		final List<String> tokens = new ArrayList<>();
+		for (String line : Files.readAllLines(Path.of(ppdFile))) {
+			for (String token : line.trim().split("[\\t ]+")) {
+				if (!token.isEmpty())
+					tokens.add(token.substring(0, token.lastIndexOf('|')));
+			}
+		}
+		final Shape[] shapes = TokenShapePipe.getDefaultShapes(true);
+		final List<Pipe> regexPipes = new ArrayList<>();
+		for (Shape shape : shapes)
+			regexPipes.add(new RegexMatches(shape.getFeatureName(), Pattern.compile(shape.getPattern(CharClasses.UNICODE))));
+		final Pipe regexPipe = new SerialPipes(regexPipes.toArray(new Pipe[0]));
+
+		for (int round = 0; round < 10; round++) {
+			run("RegexMatches", regexPipe, tokens);
+			final TokenShapePipe shapePipe = new TokenShapePipe(CharClasses.UNICODE, shapes);
+			run("TokenShapePipe, empty cache", shapePipe, tokens);
+			run("TokenShapePipe, filled cache", shapePipe, tokens);
+		}
+	}
+
+	private static void run(String name, Pipe pipe, List<String> tokens) {
+		final TokenSequence ts = new TokenSequence();
+		for (String token : tokens)
+			ts.add(new Token(token));
+		final long time = System.nanoTime();
+		pipe.instanceFrom(new Instance(ts, null, null, null));
+		final double seconds = (System.nanoTime() - time) / 1000000000d;
+		long numFeatures = 0;
+		for (Token token : ts) {
+			final PropertyList features = token.getFeatures();
+			if (features != null) {
+				final PropertyList.Iterator it = features.iterator();
+				while (it.hasNext()) {
+					it.next();
+					++numFeatures;
+				}
+			}
+		}
+		System.out.printf("%s: %d tokens, %d features, %.0f features/s%n", name, tokens.size(), numFeatures, numFeatures / seconds);
+	}
+}
@@ -0,0 +1,92 @@
+package de.julielab.jnet.tagger;
+
+import cc.mallet.pipe.Pipe;
+import cc.mallet.pipe.SerialPipes;
+import cc.mallet.pipe.tsf.RegexMatches;
+import cc.mallet.types.Instance;
+import cc.mallet.types.Token;
+import cc.mallet.types.TokenSequence;
+import cc.mallet.util.PropertyList;
+import de.julielab.jnet.tagger.TokenShapePipe.CharClasses;
+import de.julielab.jnet.tagger.TokenShapePipe.Shape;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TokenShapePipeTest {
+
+	private static final String CHARACTERS = "aAzZéÉäÄßΣσǄ019-.,()/_:;!?IVXCMDL \n ";
+
+	private static final String[] WORDS = { "alpha", "kappa", "(beta)", "II", "IL-2", "mu.", "3.5" };
+
+	private static Pipe createRegexMatchesPipes(CharClasses charClasses) {
+		final List<Pipe> pipes = new ArrayList<>();
+		for (final Shape shape : TokenShapePipe.getDefaultShapes(true))
+			pipes.add(new RegexMatches(shape.getFeatureName(), Pattern.compile(shape.getPattern(charClasses))));
+		return new SerialPipes(pipes.toArray(new Pipe[0]));
+	}
+
+	private static List<String> getFeatures(Pipe pipe, String text) {
+		final TokenSequence ts = new TokenSequence();
+		ts.add(new Token(text));
+		pipe.instanceFrom(new Instance(ts, null, null, null));
+		final List<String> features = new ArrayList<>();
+		final PropertyList featureList = ts.get(0).getFeatures();
+		if (featureList != null) {
+			final PropertyList.Iterator it = featureList.iterator();
+			while (it.hasNext()) {
+				it.next();
+				features.add(it.getKey());
+			}
+		}
+		return features;
+	}
+
+	@Test
+	public void testSameFeaturesAsRegexMatches() {
+		final Random random = new Random(1);
+		for (final CharClasses charClasses : CharClasses.values()) {
+			final Pipe regexPipe = createRegexMatchesPipes(charClasses);
+			final Pipe shapePipe = new TokenShapePipe(charClasses, TokenShapePipe.getDefaultShapes(true));
+			for (int i = 0; i < 20000; i++) {
+				final StringBuilder sb = new StringBuilder();
+				final int length = random.nextInt(7);
+				for (int j = 0; j < length; j++) {
+					if (random.nextInt(6) == 0)
+						sb.append(WORDS[random.nextInt(WORDS.length)]);
+					else
+						sb.append(CHARACTERS.charAt(random.nextInt(CHARACTERS.length())));
+				}
+				final String text = sb.toString();
+				// twice to also check the cached result
+				assertThat(getFeatures(shapePipe, text)).as(charClasses + " \"" + text + "\"").isEqualTo(getFeatures(regexPipe, text));
+				assertThat(getFeatures(shapePipe, text)).as(charClasses + " \"" + text + "\"").isEqualTo(getFeatures(regexPipe, text));
+			}
+		}
+	}
+
+	@Test
+	public void testReplaceRegexMatches() {
+		final Pipe unknownPipe = new RegexMatches("INITCAPS", Pattern.compile("[A-Z].*"));
+		final SerialPipes pipes = new SerialPipes(new Pipe[] {
+				new RegexMatches("HASDIGIT", Pattern.compile(".*[0-9].*")),
+				new RegexMatches("ALLCAPS", Pattern.compile("[\\p{Lu}]+")),
+				unknownPipe,
+				new RegexMatches("ALLCAPS", Pattern.compile("[A-ZÁÉÍÓÚÀÈÌÒÙÇÑÏÄÖÜ]+")),
+				new RegexMatches("ROMAN", Pattern.compile("[IVXDLCM]+")) });
+		assertThat(TokenShapePipe.replaceRegexMatches(pipes)).isEqualTo(4);
+		assertThat(pipes.pipes()).hasSize(3);
+		assertThat(pipes.pipes().get(0)).isInstanceOf(TokenShapePipe.class);
+		assertThat(pipes.pipes().get(1)).isSameAs(unknownPipe);
+		assertThat(pipes.pipes().get(2)).isInstanceOf(TokenShapePipe.class);
+		assertThat(getFeatures(pipes, "Ä12")).containsOnly("HASDIGIT");
+		assertThat(getFeatures(pipes, "ÄII")).containsOnly("ALLCAPS");
+		assertThat(Arrays.asList(TokenShapePipe.getDefaultShapes(false))).doesNotContain(Shape.ROMAN, Shape.HASGREEK);
+	}
+}
@@ -237,7 +237,8 @@ class BasePipe extends Pipe {
     }
 
     /**
-     * wrapper around stemmer implementation
+     * wrapper around stemmer implementation. A model may be shared by multiple threads, thus each thread gets its own
+     * snowball stemmer and the UEALite stemmer is used by one thread at a time.
      *
      * @author hellrich
      *
@@ -246,7 +247,7 @@ class BasePipe extends Pipe {
 
         private static final long serialVersionUID = 666999L;
         private UEALite UEAstemmer = null;
-        private SnowballProgram snowStemmer = null;
+        private transient ThreadLocal<SnowballProgram> snowStemmer = null;
 
         Stemmer(final UEALite stemmer) {
             UEAstemmer = stemmer;
@@ -254,8 +255,14 @@ class BasePipe extends Pipe {
 
         Stemmer(final String lang) {
             try {
-                final Class<?> stemClass = Class.forName("org.tartarus.snowball.ext." + lang + "Stemmer");
-                snowStemmer = (SnowballProgram) stemClass.newInstance();
+                final Class<? extends SnowballProgram> stemClass = Class.forName("org.tartarus.snowball.ext." + lang + "Stemmer").asSubclass(SnowballProgram.class);
+                snowStemmer = ThreadLocal.withInitial(() -> {
+                    try {
+                        return stemClass.newInstance();
+                    } catch (final ReflectiveOperationException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
             } catch (final Exception e) {
                 e.printStackTrace();
             }
@@ -263,11 +270,14 @@ class BasePipe extends Pipe {
 
         String stem(final String word) {
             if (UEAstemmer != null) {
-                return UEAstemmer.stem(word).getWord();
+                synchronized (UEAstemmer) {
+                    return UEAstemmer.stem(word).getWord();
+                }
             } else if (snowStemmer != null) {
-                snowStemmer.setCurrent(word);
-                snowStemmer.stem();
-                return snowStemmer.getCurrent();
+                final SnowballProgram snowballProgram = snowStemmer.get();
+                snowballProgram.setCurrent(word);
+                snowballProgram.stem();
+                return snowballProgram.getCurrent();
             } else {
                 return null;
             }
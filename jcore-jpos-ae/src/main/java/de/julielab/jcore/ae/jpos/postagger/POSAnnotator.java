@@ -42,6 +42,7 @@ import org.apache.uima.analysis_engine.annotator.AnnotatorInitializationExceptio
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.jcas.JFSIndexRepository;
 import org.apache.uima.jcas.cas.FSArray;
+import org.apache.uima.resource.ResourceAccessException;
 import org.apache.uima.resource.ResourceInitializationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -58,6 +59,12 @@ public class POSAnnotator extends JCasAnnotator_ImplBase {
 
     private static final String COMPONENT_ID = "de.julielab.jcore.ae.jpos.postagger.POSAnnotator";
 
+    /**
+     * Key of the optional {@link POSTaggerModelProvider} resource. When bound, the model is loaded once and shared
+     * by all annotator instances bound to the resource. Takes precedence over the ModelFilename parameter.
+     */
+    public static final String RES_KEY_MODEL = "JposModel";
+
     /**
      * Logger for this class
      */
@@ -110,6 +117,19 @@ public class POSAnnotator extends JCasAnnotator_ImplBase {
     private void setModel(final UimaContext aContext)
             throws AnnotatorConfigurationException, AnnotatorContextException, AnnotatorInitializationException {
 
+        // use the shared model, if given
+        try {
+            final POSTaggerModelProvider modelProvider = (POSTaggerModelProvider) aContext.getResourceObject(RES_KEY_MODEL);
+            if (modelProvider != null) {
+                LOGGER.info("setModel() - using the shared model given by the external resource {}", RES_KEY_MODEL);
+                tagger = modelProvider.getTagger();
+                return;
+            }
+        } catch (final ResourceAccessException e) {
+            LOGGER.error("setModel() - Could not access the JPOS model resource: " + e.getMessage(), e);
+            throw new AnnotatorInitializationException();
+        }
+
         // get model filename
         String modelFilename = "";
         final Object o = aContext.getConfigParameterValue("ModelFilename");
@@ -0,0 +1,13 @@
+package de.julielab.jcore.ae.jpos.postagger;
+
+import de.julielab.jcore.ae.jpos.tagger.POSTagger;
+import org.apache.uima.resource.SharedResourceObject;
+
+/**
+ * A shared resource that loads a JPOS model once and hands it out to all {@link POSAnnotator} instances bound to
+ * it. The serialized JPOS model is a complete {@link POSTagger} whose prediction methods only read the model, thus
+ * the same tagger is used by all annotators.
+ */
+public interface POSTaggerModelProvider extends SharedResourceObject {
+    POSTagger getTagger();
+}
@@ -0,0 +1,39 @@
+package de.julielab.jcore.ae.jpos.postagger;
+
+import de.julielab.jcore.ae.jpos.tagger.POSTagger;
+import org.apache.uima.resource.DataResource;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class POSTaggerModelProviderImpl implements POSTaggerModelProvider {
+    private final static Logger log = LoggerFactory.getLogger(POSTaggerModelProviderImpl.class);
+    private final AtomicInteger numClients = new AtomicInteger();
+    private POSTagger tagger;
+    private String modelLocation;
+
+    @Override
+    public POSTagger getTagger() {
+        log.debug("JPOS model from {} is now shared by {} annotators.", modelLocation, numClients.incrementAndGet());
+        return tagger;
+    }
+
+    @Override
+    public void load(DataResource aData) throws ResourceInitializationException {
+        modelLocation = String.valueOf(aData.getUri());
+        long time = System.nanoTime();
+        try (InputStream is = aData.getInputStream()) {
+            if (is == null)
+                throw new ResourceInitializationException(new IllegalArgumentException("The JPOS model could not be found at " + modelLocation));
+            tagger = POSTagger.readModel(is);
+        } catch (IOException | ClassNotFoundException e) {
+            throw new ResourceInitializationException(e);
+        }
+        time = System.nanoTime() - time;
+        log.info("Loaded shared JPOS model from {} in {}ms.", modelLocation, time / 1000000);
+    }
+}
@@ -21,6 +21,7 @@ import cc.mallet.classify.Classification;
 import cc.mallet.classify.Classifier;
 import cc.mallet.classify.MaxEntTrainer;
 import cc.mallet.pipe.Pipe;
+import cc.mallet.types.Alphabet;
 import cc.mallet.types.Instance;
 import cc.mallet.types.InstanceList;
 import de.julielab.jcore.ae.jpos.pipes.FeatureGenerator;
@@ -300,9 +301,32 @@ public class POSTagger implements Serializable {
 		final ObjectInputStream ois = new ObjectInputStream(gin);
 		final POSTagger pos = (POSTagger) ois.readObject();
 		ois.close();
+		pos.stopAlphabetGrowth();
 		return pos;
 	}
 
+	/**
+	 * Prediction must not add unseen features or labels to the alphabets of
+	 * a loaded model. Otherwise, the alphabets would be written to
+	 * concurrently when the model is shared by multiple threads.
+	 */
+	private void stopAlphabetGrowth() {
+		if (generalPipe != null) {
+			stopGrowth(generalPipe.getDataAlphabet());
+			stopGrowth(generalPipe.getTargetAlphabet());
+		}
+		if (model instanceof Classifier) {
+			final Pipe instancePipe = ((Classifier) model).getInstancePipe();
+			stopGrowth(instancePipe.getDataAlphabet());
+			stopGrowth(instancePipe.getTargetAlphabet());
+		}
+	}
+
+	private static void stopGrowth(final Alphabet alphabet) {
+		if (alphabet != null)
+			alphabet.stopGrowth();
+	}
+
 	/**
 	 * load a previously trained FeatureSubsetModel (CRF4+Properties) which was
 	 * stored as serialized object to disk.
@@ -11,15 +11,28 @@ import de.julielab.jcore.types.Sentence;
 import de.julielab.jcore.types.Token;
 import org.apache.uima.UIMAFramework;
 import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
 import org.apache.uima.cas.FSIterator;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.fit.factory.ExternalResourceFactory;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.jcas.JFSIndexRepository;
 import org.apache.uima.jcas.tcas.Annotation;
+import org.apache.uima.resource.ExternalResourceDescription;
+import org.apache.uima.resource.ResourceManager;
 import org.apache.uima.resource.ResourceSpecifier;
 import org.apache.uima.util.XMLInputSource;
 import org.junit.jupiter.api.Test;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 public class POSAnnotatorTest {
 
@@ -112,4 +125,49 @@ public class POSAnnotatorTest {
 		assertEquals(postags, predictedPOSTags);
 
 	}
+
+	/**
+	 * Test that annotators sharing one model resource tag concurrently with the same result as a single annotator.
+	 */
+	@Test
+	public void testSharedModelConcurrently() throws Exception {
+		final ExternalResourceDescription modelResource = ExternalResourceFactory.createExternalResourceDescription(
+				POSTaggerModelProviderImpl.class, new File("src/test/resources/testModel"));
+		final ResourceManager resourceManager = UIMAFramework.newDefaultResourceManager();
+		final AnalysisEngine[] posAnnotators = new AnalysisEngine[4];
+		for (int i = 0; i < posAnnotators.length; i++) {
+			final AnalysisEngineDescription desc = AnalysisEngineFactory.createEngineDescriptionFromPath(
+					"src/main/resources/de/julielab/jcore/ae/jpos/desc/jcore-jpos.xml",
+					"ModelFilename", "src/test/resources/testModel",
+					"tagset", STTSMedPOSTag.class.getName());
+			ExternalResourceFactory.bindResource(desc, POSAnnotator.RES_KEY_MODEL, modelResource);
+			posAnnotators[i] = UIMAFramework.produceAnalysisEngine(desc, resourceManager, null);
+		}
+		assertSame(posAnnotators[0].getUimaContext().getResourceObject(POSAnnotator.RES_KEY_MODEL),
+				posAnnotators[1].getUimaContext().getResourceObject(POSAnnotator.RES_KEY_MODEL));
+
+		final ExecutorService executor = Executors.newFixedThreadPool(posAnnotators.length);
+		try {
+			final List<Future<?>> futures = new ArrayList<>();
+			for (final AnalysisEngine posAnnotator : posAnnotators) {
+				futures.add(executor.submit(() -> {
+					final JCas jcas = posAnnotator.newJCas();
+					for (int i = 0; i < 200; i++) {
+						initCas(jcas);
+						posAnnotator.process(jcas);
+						final FSIterator<Annotation> tokIter = jcas.getAnnotationIndex(Token.type).iterator();
+						String predictedPOSTags = "";
+						while (tokIter.hasNext())
+							predictedPOSTags = predictedPOSTags + ((Token) tokIter.next()).getPosTag(0).getValue() + ";";
+						assertEquals(postags, predictedPOSTags);
+					}
+					return null;
+				}));
+			}
+			for (final Future<?> future : futures)
+				future.get();
+		} finally {
+			executor.shutdown();
+		}
+	}
 }
@@ -268,7 +268,7 @@ public class SentenceSplitter {
 		return model;
 	}
 
-	void setModel(CRF crf) {
+	public void setModel(CRF crf) {
 		trained = true;
 		this.model = crf;
 	}
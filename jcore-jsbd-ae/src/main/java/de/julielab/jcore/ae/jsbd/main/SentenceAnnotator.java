@@ -31,8 +31,10 @@ import org.apache.uima.analysis_component.JCasAnnotator_ImplBase;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.cas.text.AnnotationIndex;
 import org.apache.uima.fit.descriptor.ConfigurationParameter;
+import org.apache.uima.fit.descriptor.ExternalResource;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.jcas.tcas.Annotation;
+import org.apache.uima.resource.ResourceAccessException;
 import org.apache.uima.resource.ResourceInitializationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -57,6 +59,7 @@ public class SentenceAnnotator extends JCasAnnotator_ImplBase {
     public static final String PARAM_CUT_AWAY_TYPES = "CutAwayTypes";
     public static final String PARAM_MAX_SENTENCE_LENGTH = "MaximumSentenceLength";
     public static final String PARAM_ALWAYS_SPLIT_NEWLINE = "AlwaysSplitAtNewlines";
+    public static final String RES_KEY_MODEL = "SentenceSplitterModel";
     /**
      * Logger for this class
      */
@@ -83,6 +86,8 @@ public class SentenceAnnotator extends JCasAnnotator_ImplBase {
     private int maxSentenceLength;
     @ConfigurationParameter(name = PARAM_ALWAYS_SPLIT_NEWLINE, mandatory = false, description = "Optional. If true, newlines are also used as sentence boundaries.")
     private boolean alwaysSplitAtNewlines;
+    @ExternalResource(key = RES_KEY_MODEL, mandatory = false, description = "Optional. A SentenceSplitterModelProvider resource pointing to a JSBD model. When given, the model is loaded once and shared by all annotator instances bound to the resource. Takes precedence over the " + PARAM_MODEL_FILE + " parameter.")
+    private SentenceSplitterModelProvider modelProvider;
     private SentenceSplitter sentenceSplitter;
 
     /**
@@ -102,20 +107,26 @@ public class SentenceAnnotator extends JCasAnnotator_ImplBase {
             // Get configuration parameter values
             modelFilename = (String) aContext.getConfigParameterValue(PARAM_MODEL_FILE);
 
-            InputStream modelIs;
-            File modelFile = new File(modelFilename);
-            if (modelFile.exists()) {
-                modelIs = new FileInputStream(modelFile);
+            modelProvider = (SentenceSplitterModelProvider) aContext.getResourceObject(RES_KEY_MODEL);
+            if (modelProvider != null) {
+                LOGGER.info("Using the shared JSBD model given by the external resource {}.", RES_KEY_MODEL);
+                sentenceSplitter.setModel(modelProvider.getModel());
             } else {
-                LOGGER.debug("File \"{}\" does not exist. Searching for the model as a classpath resource.",
-                        modelFilename);
-                modelIs = this.getClass()
-                        .getResourceAsStream(modelFilename.startsWith("/") ? modelFilename : "/" + modelFilename);
-                if (null == modelIs)
-                    throw new IllegalArgumentException("The model file \"" + modelFilename
-                            + "\" could be found neither in the file system nor in the classpath.");
+                InputStream modelIs;
+                File modelFile = new File(modelFilename);
+                if (modelFile.exists()) {
+                    modelIs = new FileInputStream(modelFile);
+                } else {
+                    LOGGER.debug("File \"{}\" does not exist. Searching for the model as a classpath resource.",
+                            modelFilename);
+                    modelIs = this.getClass()
+                            .getResourceAsStream(modelFilename.startsWith("/") ? modelFilename : "/" + modelFilename);
+                    if (null == modelIs)
+                        throw new IllegalArgumentException("The model file \"" + modelFilename
+                                + "\" could be found neither in the file system nor in the classpath.");
+                }
+                sentenceSplitter.readModel(modelIs);
             }
-            sentenceSplitter.readModel(modelIs);
 
             // this parameter is not mandatory, so first check whether it is there
             Object pp = aContext.getConfigParameterValue(PARAM_POSTPROCESSING);
@@ -133,7 +144,7 @@ public class SentenceAnnotator extends JCasAnnotator_ImplBase {
                 cutAwayTypes = Stream.of(ignoredTypesArray).collect(toSet());
             maxSentenceLength = Optional.ofNullable((Integer) aContext.getConfigParameterValue(PARAM_MAX_SENTENCE_LENGTH)).orElse(0);
             alwaysSplitAtNewlines = Optional.ofNullable((Boolean) aContext.getConfigParameterValue(PARAM_ALWAYS_SPLIT_NEWLINE)).orElse(false);
-        } catch (ClassNotFoundException | IOException e) {
+        } catch (ClassNotFoundException | IOException | ResourceAccessException e) {
             throw new ResourceInitializationException(e);
         }
     }
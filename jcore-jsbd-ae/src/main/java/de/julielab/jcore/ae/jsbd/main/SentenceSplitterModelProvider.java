@@ -0,0 +1,13 @@
+package de.julielab.jcore.ae.jsbd.main;
+
+import cc.mallet.fst.CRF;
+import org.apache.uima.resource.SharedResourceObject;
+
+/**
+ * A shared resource that loads a JSBD model once and hands it out to all {@link SentenceAnnotator} instances
+ * bound to it. The model is read-only after loading; each annotator wraps it into its own
+ * {@link de.julielab.jcore.ae.jsbd.SentenceSplitter}.
+ */
+public interface SentenceSplitterModelProvider extends SharedResourceObject {
+    CRF getModel();
+}
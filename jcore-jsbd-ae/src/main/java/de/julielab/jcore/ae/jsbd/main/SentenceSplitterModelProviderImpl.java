@@ -0,0 +1,42 @@
+package de.julielab.jcore.ae.jsbd.main;
+
+import cc.mallet.fst.CRF;
+import de.julielab.jcore.ae.jsbd.SentenceSplitter;
+import org.apache.uima.resource.DataResource;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SentenceSplitterModelProviderImpl implements SentenceSplitterModelProvider {
+    private final static Logger log = LoggerFactory.getLogger(SentenceSplitterModelProviderImpl.class);
+    private final AtomicInteger numClients = new AtomicInteger();
+    private CRF model;
+    private String modelLocation;
+
+    @Override
+    public CRF getModel() {
+        log.debug("JSBD model from {} is now shared by {} annotators.", modelLocation, numClients.incrementAndGet());
+        return model;
+    }
+
+    @Override
+    public void load(DataResource aData) throws ResourceInitializationException {
+        modelLocation = String.valueOf(aData.getUri());
+        long time = System.nanoTime();
+        try (InputStream is = aData.getInputStream()) {
+            if (is == null)
+                throw new ResourceInitializationException(new IllegalArgumentException("The JSBD model could not be found at " + modelLocation));
+            SentenceSplitter sentenceSplitter = new SentenceSplitter();
+            sentenceSplitter.readModel(is);
+            model = sentenceSplitter.getModel();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new ResourceInitializationException(e);
+        }
+        time = System.nanoTime() - time;
+        log.info("Loaded shared JSBD model from {} in {}ms.", modelLocation, time / 1000000);
+    }
+}
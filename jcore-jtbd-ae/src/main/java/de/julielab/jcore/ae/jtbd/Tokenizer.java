@@ -251,7 +251,7 @@ public class Tokenizer {
 		ois.close();
 	}
 
-	void setModel(final CRF crf) {
+	public void setModel(final CRF crf) {
 		trained = true;
 		model = crf;
 	}
@@ -31,6 +31,7 @@ import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_component.JCasAnnotator_ImplBase;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.fit.descriptor.ConfigurationParameter;
+import org.apache.uima.fit.descriptor.ExternalResource;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.jcas.JFSIndexRepository;
 import org.apache.uima.jcas.tcas.Annotation;
@@ -48,6 +49,7 @@ public class TokenAnnotator extends JCasAnnotator_ImplBase {
 
     public static final String PARAM_MODEL = "ModelFilename";
     public static final String USE_DOC_TEXT_PARAM = "UseDocText";
+    public static final String RES_KEY_MODEL = "TokenizerModel";
     /**
      * Logger for this class
      */
@@ -55,6 +57,8 @@ public class TokenAnnotator extends JCasAnnotator_ImplBase {
     private static final String COMPONENT_ID = "JULIE Token Boundary Detector";
     @ConfigurationParameter(name = USE_DOC_TEXT_PARAM, defaultValue = "false")
     private static boolean useCompleteDocText = false;
+    @ExternalResource(key = RES_KEY_MODEL, mandatory = false, description = "Optional. A TokenizerModelProvider resource pointing to a JTBD model. When given, the model is loaded once and shared by all annotator instances bound to the resource. Takes precedence over the " + PARAM_MODEL + " parameter.")
+    private TokenizerModelProvider modelProvider;
     private Tokenizer tokenizer;
     private int tokenNumber; // used as token ID
 
@@ -96,18 +100,24 @@ public class TokenAnnotator extends JCasAnnotator_ImplBase {
             // get model file name from parameters
             modelFilename = (String) aContext.getConfigParameterValue(PARAM_MODEL);
 
-            try {
-                is = new FileInputStream(modelFilename);
-            } catch (IOException e) {
-                LOGGER.debug("File \"{}\" does not exist. Searching for the model as a classpath resource.",
-                        modelFilename);
-                is = getClass().getResourceAsStream(modelFilename.startsWith("/") ? modelFilename : "/" + modelFilename);
-                if (null == is)
-                    throw new IllegalArgumentException("The model file \"" + modelFilename
-                            + "\" could be found neither in the file system nor in the classpath.");
-                LOGGER.info("Loading model as classpathresource");
+            modelProvider = (TokenizerModelProvider) aContext.getResourceObject(RES_KEY_MODEL);
+            if (modelProvider != null) {
+                LOGGER.info("[JTBD] using the shared model given by the external resource {}", RES_KEY_MODEL);
+                tokenizer.setModel(modelProvider.getModel());
+            } else {
+                try {
+                    is = new FileInputStream(modelFilename);
+                } catch (IOException e) {
+                    LOGGER.debug("File \"{}\" does not exist. Searching for the model as a classpath resource.",
+                            modelFilename);
+                    is = getClass().getResourceAsStream(modelFilename.startsWith("/") ? modelFilename : "/" + modelFilename);
+                    if (null == is)
+                        throw new IllegalArgumentException("The model file \"" + modelFilename
+                                + "\" could be found neither in the file system nor in the classpath.");
+                    LOGGER.info("Loading model as classpathresource");
+                }
+                tokenizer.readModel(is);
             }
-            tokenizer.readModel(is);
         } catch (Exception e) {
             throw new ResourceInitializationException(e);
         } finally {
@@ -0,0 +1,42 @@
+package de.julielab.jcore.ae.jtbd.main;
+
+import cc.mallet.fst.CRF;
+import de.julielab.jcore.ae.jtbd.Tokenizer;
+import org.apache.uima.resource.DataResource;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TokenizerModelProviderImpl implements TokenizerModelProvider {
+    private final static Logger log = LoggerFactory.getLogger(TokenizerModelProviderImpl.class);
+    private final AtomicInteger numClients = new AtomicInteger();
+    private CRF model;
+    private String modelLocation;
+
+    @Override
+    public CRF getModel() {
+        log.debug("JTBD model from {} is now shared by {} annotators.", modelLocation, numClients.incrementAndGet());
+        return model;
+    }
+
+    @Override
+    public void load(DataResource aData) throws ResourceInitializationException {
+        modelLocation = String.valueOf(aData.getUri());
+        long time = System.nanoTime();
+        try (InputStream is = aData.getInputStream()) {
+            if (is == null)
+                throw new ResourceInitializationException(new IllegalArgumentException("The JTBD model could not be found at " + modelLocation));
+            Tokenizer tokenizer = new Tokenizer();
+            tokenizer.readModel(is);
+            model = tokenizer.getModel();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new ResourceInitializationException(e);
+        }
+        time = System.nanoTime() - time;
+        log.info("Loaded shared JTBD model from {} in {}ms.", modelLocation, time / 1000000);
+    }
+}
@@ -20,18 +20,25 @@ import de.julielab.jcore.types.Sentence;
 import de.julielab.jcore.types.Token;
 import org.apache.uima.UIMAFramework;
 import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.fit.factory.ExternalResourceFactory;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.jcas.JFSIndexRepository;
+import org.apache.uima.resource.ExternalResourceDescription;
 import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.resource.ResourceManager;
 import org.apache.uima.resource.ResourceSpecifier;
 import org.apache.uima.util.XMLInputSource;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.util.Iterator;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 public class TokenAnnotatorTest {
 
@@ -250,4 +257,32 @@ public class TokenAnnotatorTest {
 
 	}
 
+	/**
+	 * Test that two annotators bound to the same model resource share the model and produce the same tokens.
+	 */
+	@Test
+	public void testSharedModelResource() throws Exception {
+		final ExternalResourceDescription modelResource = ExternalResourceFactory.createExternalResourceDescription(
+				TokenizerModelProviderImpl.class, new File("src/test/resources/de/julielab/jcore/ae/jtbd/model/test-model.gz"));
+		final ResourceManager resourceManager = UIMAFramework.newDefaultResourceManager();
+		final AnalysisEngine[] tokenAnnotators = new AnalysisEngine[2];
+		for (int i = 0; i < tokenAnnotators.length; i++) {
+			final AnalysisEngineDescription desc = AnalysisEngineFactory.createEngineDescription(TokenAnnotator.class,
+					TokenAnnotator.PARAM_MODEL, "de/julielab/jcore/ae/jtbd/model/test-model.gz",
+					TokenAnnotator.USE_DOC_TEXT_PARAM, false,
+					TokenAnnotator.RES_KEY_MODEL, modelResource);
+			tokenAnnotators[i] = UIMAFramework.produceAnalysisEngine(desc, resourceManager, null);
+		}
+		assertSame(tokenAnnotators[0].getUimaContext().getResourceObject(TokenAnnotator.RES_KEY_MODEL),
+				tokenAnnotators[1].getUimaContext().getResourceObject(TokenAnnotator.RES_KEY_MODEL));
+
+		for (AnalysisEngine tokenAnnotator : tokenAnnotators) {
+			final JCas jcas = tokenAnnotator.newJCas();
+			initSentenceCas(jcas);
+			tokenAnnotator.process(jcas);
+			final Iterator<?> tokIter = jcas.getJFSIndexRepository().getAnnotationIndex(Token.type).iterator();
+			assertEquals(TEST_SENTENCES_OFFSETS, getPredictedOffsets(tokIter));
+		}
+	}
+
 }
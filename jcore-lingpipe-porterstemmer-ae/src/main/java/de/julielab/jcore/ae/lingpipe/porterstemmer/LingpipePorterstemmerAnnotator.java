@@ -13,19 +13,41 @@ package de.julielab.jcore.ae.lingpipe.porterstemmer;
 import com.aliasi.tokenizer.PorterStemmerTokenizerFactory;
 import de.julielab.jcore.types.StemmedForm;
 import de.julielab.jcore.types.Token;
+import de.julielab.jcore.utility.cache.MemoizationCache;
+import de.julielab.jcore.utility.cache.MemoizationCacheProvider;
 import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_component.JCasAnnotator_ImplBase;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.cas.FSIterator;
+import org.apache.uima.fit.descriptor.ExternalResource;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.jcas.tcas.Annotation;
+import org.apache.uima.resource.ResourceAccessException;
 import org.apache.uima.resource.ResourceInitializationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class LingpipePorterstemmerAnnotator extends JCasAnnotator_ImplBase {
 
+	public static final String RES_KEY_MEMOIZATION_CACHE = "MemoizationCache";
+
+	private static final Logger log = LoggerFactory.getLogger(LingpipePorterstemmerAnnotator.class);
+
+	@ExternalResource(key = RES_KEY_MEMOIZATION_CACHE, mandatory = false, description = "Optional. A MemoizationCacheProvider resource. When given, the stems are cached by word form in a JVM-wide cache shared by all stemmer instances.")
+	private MemoizationCacheProvider cacheProvider;
+
+	private MemoizationCache cache;
+
 	@Override
 	public void initialize(UimaContext aContext) throws ResourceInitializationException {
 		super.initialize(aContext);
+		try {
+			cacheProvider = (MemoizationCacheProvider) aContext.getResourceObject(RES_KEY_MEMOIZATION_CACHE);
+		} catch (ResourceAccessException e) {
+			throw new ResourceInitializationException(e);
+		}
+		if (cacheProvider != null)
+			cache = cacheProvider.getCache("porter-stemmer");
 	}
 
 	@Override
@@ -33,7 +55,7 @@ public class LingpipePorterstemmerAnnotator extends JCasAnnotator_ImplBase {
 		FSIterator<Annotation> tokenIt = aJCas.getAnnotationIndex(Token.type).iterator();
 		while (tokenIt.hasNext()) {
 			Token token = (Token) tokenIt.next();
-			String stem = PorterStemmerTokenizerFactory.stem(token.getCoveredText());
+			String stem = cache != null ? cache.get(token.getCoveredText(), null, (form, pos) -> PorterStemmerTokenizerFactory.stem(form)) : PorterStemmerTokenizerFactory.stem(token.getCoveredText());
 			StemmedForm stemmedForm = new StemmedForm(aJCas);
 			// Stemming might change characters (bushy -> bushi) and thus the
 			// stem has to be set to the value feature. We use the offsets to
@@ -45,4 +67,11 @@ public class LingpipePorterstemmerAnnotator extends JCasAnnotator_ImplBase {
 		}
 	}
 
+	@Override
+	public void collectionProcessComplete() throws AnalysisEngineProcessException {
+		super.collectionProcessComplete();
+		if (cache != null)
+			log.info("{}", cache);
+	}
+
 }
@@ -11,21 +11,47 @@
 package de.julielab.jcore.ae.lingpipe.porterstemmer;
 
 import de.julielab.jcore.types.Token;
+import de.julielab.jcore.utility.cache.MemoizationCache;
+import de.julielab.jcore.utility.cache.MemoizationCacheProvider;
+import de.julielab.jcore.utility.cache.MemoizationCacheProviderImpl;
 import org.apache.uima.analysis_engine.AnalysisEngine;
 import org.apache.uima.cas.FSIterator;
 import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.fit.factory.ExternalResourceFactory;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.jcas.tcas.Annotation;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class LingpipePorterstemmerAnnotatorTest {
 	@Test
 	public void testAnnotator() throws Exception {
 		AnalysisEngine stemmerAnnotator = AnalysisEngineFactory
 				.createEngine("de.julielab.jcore.ae.lingpipe.porterstemmer.desc.jcore-lingpipe-porterstemmer-ae");
+		assertStems(stemmerAnnotator);
+	}
+
+	/**
+	 * Test that the stems are the same with the memoization cache, also when they are taken from the cache.
+	 */
+	@Test
+	public void testMemoizationCache() throws Exception {
+		AnalysisEngine stemmerAnnotator = AnalysisEngineFactory.createEngine(LingpipePorterstemmerAnnotator.class,
+				LingpipePorterstemmerAnnotator.RES_KEY_MEMOIZATION_CACHE,
+				ExternalResourceFactory.createExternalResourceDescription(MemoizationCacheProviderImpl.class,
+						"file:memoization-cache", MemoizationCacheProviderImpl.PARAM_MAXIMUM_SIZE, 1000));
+		MemoizationCache cache = ((MemoizationCacheProvider) stemmerAnnotator.getUimaContext()
+				.getResourceObject(LingpipePorterstemmerAnnotator.RES_KEY_MEMOIZATION_CACHE)).getCache("porter-stemmer");
+		long hits = cache.getHitCount();
+		assertStems(stemmerAnnotator);
+		assertStems(stemmerAnnotator);
+		assertTrue(cache.getHitCount() - hits >= 9);
+	}
+
+	private void assertStems(AnalysisEngine stemmerAnnotator) throws Exception {
 		JCas jCas = stemmerAnnotator.newJCas();
 		jCas.setDocumentText("Three horses were going contemplatively around bushy bushes.");
 		Token t;
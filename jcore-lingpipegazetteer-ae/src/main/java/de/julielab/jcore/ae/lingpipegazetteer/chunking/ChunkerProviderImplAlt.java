@@ -54,6 +54,13 @@ public class ChunkerProviderImplAlt implements ChunkerProvider, SharedResourceOb
 	 * on in the descriptor of the annotator itself!
 	 */
 	public final static String PARAM_TRANSLITERATE_TEXT = "TransliterateText";
+	/**
+	 * Parameter to specify a dictionary snapshot created by {@link DictionarySnapshotCompiler}. If given, the
+	 * dictionary file and the stop word file are not read. Instead, the memory-mapped snapshot is used for exact
+	 * matching. The snapshot determines the case sensitivity, normalization, transliteration and the stop words.
+	 * Snapshots are limited to a size of 2GB.
+	 */
+	public final static String PARAM_DICTIONARY_SNAPSHOT = "DictionarySnapshot";
 
 	private boolean generateVariants;
 	private boolean caseSensitive;
@@ -109,6 +116,12 @@ public class ChunkerProviderImplAlt implements ChunkerProvider, SharedResourceOb
 
 		LOGGER.info("Creating dictionary chunker with " + resource.getUrl() + " properties file.");
 
+		String dictionarySnapshotPath = properties.getProperty(PARAM_DICTIONARY_SNAPSHOT);
+		if (dictionarySnapshotPath != null) {
+			loadSnapshot(dictionarySnapshotPath, properties);
+			return;
+		}
+
 		dictionaryFilePath = properties.getProperty(PARAM_DICTIONARY_FILE);
 		if (dictionaryFilePath == null)
 			throw new ResourceInitializationException(ResourceInitializationException.CONFIG_SETTING_ABSENT,
@@ -257,6 +270,28 @@ public class ChunkerProviderImplAlt implements ChunkerProvider, SharedResourceOb
 		}
 	}
 
+	private void loadSnapshot(String dictionarySnapshotPath, Properties properties) throws ResourceInitializationException {
+		if (Boolean.parseBoolean(properties.getProperty(PARAM_USE_APPROXIMATE_MATCHING, "false")))
+			throw new ResourceInitializationException(new IllegalArgumentException(
+					"Dictionary snapshots only support exact matching but " + PARAM_USE_APPROXIMATE_MATCHING + " is activated."));
+		try {
+			DictionarySnapshot snapshot = DictionarySnapshot.getSnapshot(dictionarySnapshotPath);
+			caseSensitive = snapshot.getCaseSensitive();
+			normalize = snapshot.getNormalize();
+			transliterate = snapshot.getTransliterate();
+			normalizePlural = Boolean.parseBoolean(properties.getProperty(PARAM_NORMALIZE_PLURAL, "false")) && normalize;
+			useApproximateMatching = false;
+			generateVariants = false;
+			stopWords = snapshot.getStopWords();
+			dictChunker = snapshot;
+			LOGGER.info("Using the dictionary snapshot {} (case sensitive: {}, normalize: {}, normalize plural: {}, transliterate: {}).",
+					dictionarySnapshotPath, caseSensitive, normalize, normalizePlural, transliterate);
+		} catch (IOException e) {
+			LOGGER.error("Could not load the dictionary snapshot {}", dictionarySnapshotPath, e);
+			throw new ResourceInitializationException(e);
+		}
+	}
+
 	private void readDictionary(InputStream dictFileStream) throws IOException, AnalysisEngineProcessException {
 		long time = System.currentTimeMillis();
 		if (useApproximateMatching) {
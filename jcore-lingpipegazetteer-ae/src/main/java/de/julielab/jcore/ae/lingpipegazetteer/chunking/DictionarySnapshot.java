@@ -0,0 +1,288 @@
+package de.julielab.jcore.ae.lingpipegazetteer.chunking;
+
+import com.aliasi.chunk.Chunk;
+import com.aliasi.chunk.ChunkFactory;
+import com.aliasi.chunk.Chunker;
+import com.aliasi.chunk.Chunking;
+import com.aliasi.chunk.ChunkingImpl;
+import com.aliasi.tokenizer.IndoEuropeanTokenizerFactory;
+import com.aliasi.tokenizer.Tokenizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * <p>
+ * A precompiled, read-only dictionary created by {@link DictionarySnapshotCompiler}. The dictionary entries have
+ * already been filtered for stop words, normalized and transliterated as configured at compile time. They are stored
+ * as a ternary search tree over the tokens of the entries, flattened into an array of fixed-size nodes. Snapshot files
+ * are memory-mapped and shared by all users in the JVM (see {@link #getSnapshot(String)}) so that the dictionary does
+ * not occupy the Java heap. Since the file is mapped into a single buffer, snapshots are limited to 2GB.
+ * </p>
+ * <p>
+ * This class is a {@link Chunker} itself that behaves like LingPipe's <tt>ExactDictionaryChunker</tt> with
+ * <tt>returnAllMatches=false</tt>: The text is tokenized with the {@link IndoEuropeanTokenizerFactory} and the
+ * leftmost-longest, non-overlapping token sequences matching an entry are returned. If the same entry was given with
+ * multiple labels, the first label in the dictionary file is used. It is thread safe.
+ * </p>
+ * <p>File layout, all numbers big endian:</p>
+ * <pre>
+ * int magic, int version, int flags (see FLAG_* constants)
+ * int numNodes, int numLabels, int numStopWords
+ * numNodes times: int splitChar | HAS_EQ_KID, int loKid, int hiKid, int label
+ * numLabels times: int byte offset of the label string
+ * numLabels times: string label
+ * numStopWords times: string stop word
+ * </pre>
+ * <p>
+ * Strings are given as their length in bytes followed by their UTF-8 encoding. The nodes are stored in pre-order with
+ * the equal kid directly following its parent. The key of an entry consists of its tokens separated by a single
+ * space; the tokens are lower cased if the dictionary is not case sensitive.
+ * </p>
+ */
+public class DictionarySnapshot implements Chunker {
+    public static final int MAGIC = 0x4A474453;
+    public static final int VERSION = 1;
+    public static final int FLAG_CASE_SENSITIVE = 1;
+    public static final int FLAG_NORMALIZE = 2;
+    public static final int FLAG_TRANSLITERATE = 4;
+    static final int HEADER_BYTES = 24;
+    static final int NODE_INTS = 4;
+    static final int HAS_EQ_KID = 1 << 16;
+    static final char TOKEN_SEPARATOR = ' ';
+    private static final Logger LOGGER = LoggerFactory.getLogger(DictionarySnapshot.class);
+    private static final double CHUNK_SCORE = 1.0;
+    private static final Map<String, DictionarySnapshot> snapshots = new ConcurrentHashMap<>();
+    private final ByteBuffer buffer;
+    private final int flags;
+    private final int numNodes;
+    private final int numLabels;
+    private final int labelOffsetsStart;
+    private final Set<String> stopWords;
+
+    DictionarySnapshot(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC)
+            throw new IOException("The given data is not a gazetteer dictionary snapshot.");
+        final int version = buffer.getInt(4);
+        if (version != VERSION)
+            throw new IOException("The dictionary snapshot has version " + version + " but this version of the gazetteer reads version " + VERSION + ". Please compile the snapshot again.");
+        flags = buffer.getInt(8);
+        numNodes = buffer.getInt(12);
+        numLabels = buffer.getInt(16);
+        final int numStopWords = buffer.getInt(20);
+        labelOffsetsStart = HEADER_BYTES + numNodes * NODE_INTS * 4;
+        int pos = numLabels > 0 ? buffer.getInt(labelOffsetsStart + (numLabels - 1) * 4) : labelOffsetsStart;
+        if (numLabels > 0)
+            pos += 4 + buffer.getInt(pos);
+        stopWords = new HashSet<>(numStopWords);
+        for (int i = 0; i < numStopWords; i++) {
+            final int length = buffer.getInt(pos);
+            stopWords.add(readString(pos));
+            pos += 4 + length;
+        }
+    }
+
+    /**
+     * Returns the snapshot at the given location. Snapshots on the file system are memory-mapped, snapshots only found
+     * on the classpath are read into memory. Each snapshot is only loaded once and then shared.
+     *
+     * @param snapshotPath A file path or a classpath address.
+     * @return The shared snapshot.
+     * @throws IOException If the snapshot cannot be read.
+     */
+    public static DictionarySnapshot getSnapshot(String snapshotPath) throws IOException {
+        final File file = new File(snapshotPath);
+        final String key = file.exists() ? file.getCanonicalPath() : snapshotPath;
+        try {
+            return snapshots.computeIfAbsent(key, k -> {
+                try {
+                    return load(file, snapshotPath);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static DictionarySnapshot load(File file, String snapshotPath) throws IOException {
+        long time = System.currentTimeMillis();
+        final ByteBuffer buffer;
+        if (file.exists() && !snapshotPath.endsWith(".gz") && !snapshotPath.endsWith(".gzip")) {
+            if (file.length() > Integer.MAX_VALUE)
+                throw new IOException("The dictionary snapshot " + file + " is larger than 2GB which is not supported.");
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            LOGGER.info("Memory-mapped the dictionary snapshot {}", file);
+        } else {
+            InputStream is = file.exists() ? new FileInputStream(file) : DictionarySnapshot.class.getResourceAsStream(snapshotPath.startsWith("/") ? snapshotPath : "/" + snapshotPath);
+            if (is == null)
+                throw new FileNotFoundException("Could not find the dictionary snapshot " + snapshotPath + " neither as file nor as classpath resource.");
+            if (snapshotPath.endsWith(".gz") || snapshotPath.endsWith(".gzip"))
+                is = new GZIPInputStream(is);
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            try (InputStream in = is) {
+                final byte[] bytes = new byte[8192];
+                int read;
+                while ((read = in.read(bytes)) != -1)
+                    baos.write(bytes, 0, read);
+            }
+            buffer = ByteBuffer.wrap(baos.toByteArray());
+            LOGGER.info("Read the dictionary snapshot {} into memory because it is not an uncompressed file.", snapshotPath);
+        }
+        final DictionarySnapshot snapshot = new DictionarySnapshot(buffer);
+        time = System.currentTimeMillis() - time;
+        LOGGER.info("Loading the dictionary snapshot with {} nodes and {} labels took {}ms.", snapshot.numNodes, snapshot.numLabels, time);
+        return snapshot;
+    }
+
+    public boolean getCaseSensitive() {
+        return (flags & FLAG_CASE_SENSITIVE) != 0;
+    }
+
+    public boolean getNormalize() {
+        return (flags & FLAG_NORMALIZE) != 0;
+    }
+
+    public boolean getTransliterate() {
+        return (flags & FLAG_TRANSLITERATE) != 0;
+    }
+
+    /**
+     * @return The stop words the dictionary was compiled with.
+     */
+    public Set<String> getStopWords() {
+        return stopWords;
+    }
+
+    /**
+     * @param entry A dictionary entry after normalization.
+     * @return The label of the entry or <tt>null</tt> if the entry is not contained in the dictionary.
+     */
+    public String getLabel(String entry) {
+        final char[] cs = entry.toCharArray();
+        final int[] tokenBoundaries = tokenize(cs);
+        if (tokenBoundaries.length == 0 || numNodes == 0)
+            return null;
+        int node = 0;
+        for (int t = 0; t < tokenBoundaries.length && node >= 0; t += 2) {
+            if (t > 0)
+                node = match(eqKid(node), TOKEN_SEPARATOR);
+            for (int i = tokenBoundaries[t]; i < tokenBoundaries[t + 1] && node >= 0; i++)
+                node = match(i == tokenBoundaries[t] && t == 0 ? 0 : eqKid(node), cs[i]);
+        }
+        if (node < 0)
+            return null;
+        final int label = buffer.getInt(nodeStart(node) + 12);
+        return label >= 0 ? getLabel(label) : null;
+    }
+
+    @Override
+    public Chunking chunk(CharSequence cSeq) {
+        final ChunkingImpl chunking = new ChunkingImpl(cSeq);
+        if (numNodes == 0)
+            return chunking;
+        final char[] cs = cSeq.toString().toCharArray();
+        final int[] tokenBoundaries = tokenize(cs);
+        int t = 0;
+        while (t < tokenBoundaries.length) {
+            int longestMatchEnd = -1;
+            int longestMatchLabel = -1;
+            int node = -1;
+            for (int u = t; u < tokenBoundaries.length; u += 2) {
+                node = u == t ? 0 : match(eqKid(node), TOKEN_SEPARATOR);
+                for (int i = tokenBoundaries[u]; i < tokenBoundaries[u + 1] && node >= 0; i++)
+                    node = match(i == tokenBoundaries[u] && u == t ? 0 : eqKid(node), cs[i]);
+                if (node < 0)
+                    break;
+                final int label = buffer.getInt(nodeStart(node) + 12);
+                if (label >= 0) {
+                    longestMatchEnd = u;
+                    longestMatchLabel = label;
+                }
+            }
+            if (longestMatchEnd >= 0) {
+                final Chunk chunk = ChunkFactory.createChunk(tokenBoundaries[t], tokenBoundaries[longestMatchEnd + 1], getLabel(longestMatchLabel), CHUNK_SCORE);
+                chunking.add(chunk);
+                t = longestMatchEnd + 2;
+            } else {
+                t += 2;
+            }
+        }
+        return chunking;
+    }
+
+    @Override
+    public Chunking chunk(char[] cs, int start, int end) {
+        return chunk(new String(cs, start, end - start));
+    }
+
+    /**
+     * @return The begin and end offsets of all tokens in alternation.
+     */
+    private int[] tokenize(char[] cs) {
+        int[] tokenBoundaries = new int[Math.min(64, cs.length * 2 + 2)];
+        int numBoundaries = 0;
+        final Tokenizer tokenizer = IndoEuropeanTokenizerFactory.INSTANCE.tokenizer(cs, 0, cs.length);
+        while (tokenizer.nextToken() != null) {
+            if (numBoundaries + 2 > tokenBoundaries.length)
+                tokenBoundaries = Arrays.copyOf(tokenBoundaries, tokenBoundaries.length * 2);
+            tokenBoundaries[numBoundaries++] = tokenizer.lastTokenStartPosition();
+            tokenBoundaries[numBoundaries++] = tokenizer.lastTokenEndPosition();
+        }
+        return numBoundaries == tokenBoundaries.length ? tokenBoundaries : Arrays.copyOf(tokenBoundaries, numBoundaries);
+    }
+
+    /**
+     * Searches the character among the node and its low and high siblings.
+     *
+     * @return The node matching the character or -1 if there is none.
+     */
+    private int match(int node, char c) {
+        if (!getCaseSensitive())
+            c = Character.toLowerCase(c);
+        while (node >= 0) {
+            final int nodeStart = nodeStart(node);
+            final int splitChar = buffer.getInt(nodeStart) & 0xFFFF;
+            if (c < splitChar)
+                node = buffer.getInt(nodeStart + 4);
+            else if (c > splitChar)
+                node = buffer.getInt(nodeStart + 8);
+            else
+                return node;
+        }
+        return -1;
+    }
+
+    private int eqKid(int node) {
+        return (buffer.getInt(nodeStart(node)) & HAS_EQ_KID) != 0 ? node + 1 : -1;
+    }
+
+    private int nodeStart(int node) {
+        return HEADER_BYTES + node * NODE_INTS * 4;
+    }
+
+    private String getLabel(int label) {
+        return readString(buffer.getInt(labelOffsetsStart + label * 4));
+    }
+
+    private String readString(int pos) {
+        final byte[] bytes = new byte[buffer.getInt(pos)];
+        // a duplicate has its own position so that concurrent reads do not interfere
+        final ByteBuffer bb = buffer.duplicate();
+        bb.position(pos + 4);
+        bb.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,246 @@
+package de.julielab.jcore.ae.lingpipegazetteer.chunking;
+
+import com.aliasi.tokenizer.IndoEuropeanTokenizerFactory;
+import com.aliasi.tokenizer.Tokenizer;
+import com.aliasi.tokenizer.TokenizerFactory;
+import com.ibm.icu.text.Transliterator;
+import de.julielab.jcore.ae.lingpipegazetteer.utils.StringNormalizerForChunking;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * <p>
+ * Compiles a gazetteer dictionary into a {@link DictionarySnapshot} file. This is an offline step that performs the
+ * stop word filtering, normalization and transliteration of the dictionary entries once, exactly like
+ * {@link ChunkerProviderImplAlt} does on each load. The resulting file can then be given to the
+ * {@link ChunkerProviderImplAlt} with the {@link ChunkerProviderImplAlt#PARAM_DICTIONARY_SNAPSHOT} parameter.
+ * </p>
+ * <p>
+ * Usage: <tt>DictionarySnapshotCompiler &lt;gazetteer properties file&gt; &lt;snapshot output file&gt;</tt>
+ * </p>
+ * <p>
+ * The properties file is the one used for the {@link ChunkerProviderImplAlt}. Only exact matching is supported by
+ * snapshots; variant generation is not supported, as in the {@link ChunkerProviderImplAlt}.
+ * </p>
+ */
+public class DictionarySnapshotCompiler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DictionarySnapshotCompiler.class);
+    private static final int MIN_TERM_LENGTH = 3;
+    private int[] nodes = new int[1024];
+    private int numNodes;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: " + DictionarySnapshotCompiler.class.getSimpleName() + " <gazetteer properties file> <snapshot output file>");
+            System.exit(1);
+        }
+        final Properties properties = new Properties();
+        try (InputStream is = new FileInputStream(args[0])) {
+            properties.load(is);
+        }
+        final String dictionaryFilePath = properties.getProperty(ChunkerProviderImplAlt.PARAM_DICTIONARY_FILE);
+        final String stopwordFilePath = properties.getProperty(ChunkerProviderImplAlt.PARAM_STOPWORD_FILE);
+        if (dictionaryFilePath == null || stopwordFilePath == null)
+            throw new IllegalArgumentException("The properties file must specify the " + ChunkerProviderImplAlt.PARAM_DICTIONARY_FILE + " and the " + ChunkerProviderImplAlt.PARAM_STOPWORD_FILE + ".");
+        if (Boolean.parseBoolean(properties.getProperty(ChunkerProviderImplAlt.PARAM_USE_APPROXIMATE_MATCHING, "false")))
+            throw new IllegalArgumentException("Dictionary snapshots only support exact matching but " + ChunkerProviderImplAlt.PARAM_USE_APPROXIMATE_MATCHING + " is activated.");
+        if (Boolean.parseBoolean(properties.getProperty(ChunkerProviderImplAlt.PARAM_MAKE_VARIANTS, "true")))
+            throw new IllegalArgumentException("Dictionary snapshots do not support variant generation, set " + ChunkerProviderImplAlt.PARAM_MAKE_VARIANTS + " to false.");
+        final boolean caseSensitive = Boolean.parseBoolean(properties.getProperty(ChunkerProviderImplAlt.PARAM_CASE_SENSITIVE, "false"));
+        final boolean normalize = Boolean.parseBoolean(properties.getProperty(ChunkerProviderImplAlt.PARAM_NORMALIZE_TEXT, "false"));
+        final boolean transliterate = Boolean.parseBoolean(properties.getProperty(ChunkerProviderImplAlt.PARAM_TRANSLITERATE_TEXT, "false"));
+
+        final Set<String> stopWords = new HashSet<>();
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(openFile(stopwordFilePath), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (!line.startsWith("#"))
+                    stopWords.add(line.trim().toLowerCase());
+            }
+        }
+        long time = System.currentTimeMillis();
+        try (InputStream dictionary = openFile(dictionaryFilePath)) {
+            new DictionarySnapshotCompiler().compile(dictionary, stopWords, caseSensitive, normalize, transliterate, new File(args[1]));
+        }
+        time = System.currentTimeMillis() - time;
+        LOGGER.info("Compiling the dictionary {} into the snapshot {} took {}ms.", dictionaryFilePath, args[1], time);
+    }
+
+    private static InputStream openFile(String path) throws IOException {
+        InputStream is = new FileInputStream(path);
+        if (path.endsWith(".gz") || path.endsWith(".gzip"))
+            is = new GZIPInputStream(is);
+        return is;
+    }
+
+    /**
+     * Reads the dictionary and writes the snapshot.
+     *
+     * @param dictionary    The dictionary with two tab-separated columns, the entry and its label.
+     * @param stopWords     Lower cased stop words that are omitted from the dictionary and stored with the snapshot.
+     * @param caseSensitive Whether the dictionary should be matched case sensitively.
+     * @param normalize     Whether the entries should be normalized, see {@link ChunkerProviderImplAlt#PARAM_NORMALIZE_TEXT}.
+     * @param transliterate Whether the entries should be transliterated, see {@link ChunkerProviderImplAlt#PARAM_TRANSLITERATE_TEXT}.
+     * @param output        The snapshot file to write.
+     * @throws IOException If reading the dictionary or writing the snapshot fails.
+     */
+    public void compile(InputStream dictionary, Set<String> stopWords, boolean caseSensitive, boolean normalize, boolean transliterate, File output) throws IOException {
+        final Map<String, String> entries = readDictionary(dictionary, stopWords, caseSensitive, normalize, transliterate);
+        final String[] keys = entries.keySet().toArray(new String[0]);
+        Arrays.sort(keys);
+        final Map<String, Integer> labelIds = new HashMap<>();
+        final List<String> labels = new ArrayList<>();
+        final int[] keyLabels = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            keyLabels[i] = labelIds.computeIfAbsent(entries.get(keys[i]), label -> {
+                labels.add(label);
+                return labels.size() - 1;
+            });
+        }
+        numNodes = 0;
+        if (keys.length > 0)
+            buildLevel(keys, keyLabels, 0, keys.length, 0);
+        LOGGER.info("Compiled {} dictionary entries with {} distinct labels into {} nodes.", keys.length, labels.size(), numNodes);
+
+        int flags = 0;
+        if (caseSensitive)
+            flags |= DictionarySnapshot.FLAG_CASE_SENSITIVE;
+        if (normalize)
+            flags |= DictionarySnapshot.FLAG_NORMALIZE;
+        if (transliterate)
+            flags |= DictionarySnapshot.FLAG_TRANSLITERATE;
+        try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(output)))) {
+            dos.writeInt(DictionarySnapshot.MAGIC);
+            dos.writeInt(DictionarySnapshot.VERSION);
+            dos.writeInt(flags);
+            dos.writeInt(numNodes);
+            dos.writeInt(labels.size());
+            dos.writeInt(stopWords.size());
+            for (int i = 0; i < numNodes * DictionarySnapshot.NODE_INTS; i++)
+                dos.writeInt(nodes[i]);
+            final List<byte[]> labelBytes = new ArrayList<>(labels.size());
+            long offset = DictionarySnapshot.HEADER_BYTES + (long) numNodes * DictionarySnapshot.NODE_INTS * 4 + labels.size() * 4L;
+            for (String label : labels) {
+                final byte[] bytes = label.getBytes(StandardCharsets.UTF_8);
+                labelBytes.add(bytes);
+                if (offset > Integer.MAX_VALUE)
+                    throw new IOException("The dictionary is too large for a snapshot, the snapshot size is limited to 2GB.");
+                dos.writeInt((int) offset);
+                offset += 4 + bytes.length;
+            }
+            for (byte[] bytes : labelBytes)
+                writeBytes(dos, bytes);
+            for (String stopWord : stopWords)
+                writeBytes(dos, stopWord.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void writeBytes(DataOutputStream dos, byte[] bytes) throws IOException {
+        dos.writeInt(bytes.length);
+        dos.write(bytes);
+    }
+
+    /**
+     * Reads the dictionary entries the same way as {@link ChunkerProviderImplAlt} and converts them into the snapshot
+     * keys.
+     *
+     * @return A map from the snapshot keys to the first label given for them.
+     */
+    private Map<String, String> readDictionary(InputStream dictionary, Set<String> stopWords, boolean caseSensitive, boolean normalize, boolean transliterate) throws IOException {
+        final Map<String, String> entries = new HashMap<>();
+        final Transliterator transliterator = Transliterator.getInstance("NFD; [:Nonspacing Mark:] Remove; NFC");
+        final TokenizerFactory tokenizerFactory = new IndoEuropeanTokenizerFactory();
+        final BufferedReader br = new BufferedReader(new InputStreamReader(dictionary, StandardCharsets.UTF_8));
+        final StringBuilder key = new StringBuilder();
+        String line;
+        while ((line = br.readLine()) != null) {
+            if (line.startsWith("#"))
+                continue;
+            String[] values = line.split("\t");
+            if (values.length != 2)
+                throw new IOException("Wrong format of dictionary line: " + line);
+
+            String term = values[0].trim();
+            if (stopWords.contains(term.toLowerCase()))
+                continue;
+            if (normalize)
+                term = StringNormalizerForChunking.normalizeString(term, tokenizerFactory, transliterator).string;
+            if (transliterate)
+                term = transliterator.transform(term);
+            if (term.length() < MIN_TERM_LENGTH || stopWords.contains(term.toLowerCase()))
+                continue;
+
+            key.setLength(0);
+            final char[] cs = term.toCharArray();
+            final Tokenizer tokenizer = IndoEuropeanTokenizerFactory.INSTANCE.tokenizer(cs, 0, cs.length);
+            while (tokenizer.nextToken() != null) {
+                if (key.length() > 0)
+                    key.append(DictionarySnapshot.TOKEN_SEPARATOR);
+                for (int i = tokenizer.lastTokenStartPosition(); i < tokenizer.lastTokenEndPosition(); i++)
+                    key.append(caseSensitive ? cs[i] : Character.toLowerCase(cs[i]));
+            }
+            if (key.length() > 0)
+                entries.putIfAbsent(key.toString(), values[1].trim());
+        }
+        return entries;
+    }
+
+    /**
+     * Builds the nodes for the characters at position <tt>depth</tt> of the given sorted keys which all share their
+     * first <tt>depth</tt> characters and are longer than <tt>depth</tt>.
+     *
+     * @return The index of the root node of the level.
+     */
+    private int buildLevel(String[] keys, int[] keyLabels, int from, int to, int depth) {
+        final List<Integer> groupStarts = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            if (i == from || keys[i].charAt(depth) != keys[i - 1].charAt(depth))
+                groupStarts.add(i);
+        }
+        groupStarts.add(to);
+        return buildBalancedTree(keys, keyLabels, groupStarts, 0, groupStarts.size() - 1, depth);
+    }
+
+    /**
+     * Builds a balanced binary tree of the low and high kids over the character groups in
+     * <tt>[groupFrom, groupTo)</tt>. Each node is immediately followed by the nodes of its equal kid.
+     */
+    private int buildBalancedTree(String[] keys, int[] keyLabels, List<Integer> groupStarts, int groupFrom, int groupTo, int depth) {
+        if (groupFrom >= groupTo)
+            return -1;
+        final int group = (groupFrom + groupTo) >>> 1;
+        int from = groupStarts.get(group);
+        final int to = groupStarts.get(group + 1);
+        final int node = addNode(keys[from].charAt(depth));
+        // the keys are sorted so a key ending at this character comes first in its group
+        if (keys[from].length() == depth + 1) {
+            nodes[node * DictionarySnapshot.NODE_INTS + 3] = keyLabels[from];
+            ++from;
+        }
+        if (from < to) {
+            nodes[node * DictionarySnapshot.NODE_INTS] |= DictionarySnapshot.HAS_EQ_KID;
+            buildLevel(keys, keyLabels, from, to, depth + 1);
+        }
+        final int loKid = buildBalancedTree(keys, keyLabels, groupStarts, groupFrom, group, depth);
+        final int hiKid = buildBalancedTree(keys, keyLabels, groupStarts, group + 1, groupTo, depth);
+        nodes[node * DictionarySnapshot.NODE_INTS + 1] = loKid;
+        nodes[node * DictionarySnapshot.NODE_INTS + 2] = hiKid;
+        return node;
+    }
+
+    private int addNode(char splitChar) {
+        if ((numNodes + 1) * DictionarySnapshot.NODE_INTS > nodes.length)
+            nodes = Arrays.copyOf(nodes, nodes.length * 2);
+        final int offset = numNodes * DictionarySnapshot.NODE_INTS;
+        nodes[offset] = splitChar;
+        nodes[offset + 1] = -1;
+        nodes[offset + 2] = -1;
+        nodes[offset + 3] = -1;
+        return numNodes++;
+    }
+}
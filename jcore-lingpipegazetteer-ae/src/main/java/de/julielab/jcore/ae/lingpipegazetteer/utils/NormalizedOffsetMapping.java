@@ -0,0 +1,153 @@
+package de.julielab.jcore.ae.lingpipegazetteer.utils;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * Maps offsets of a normalized string to the offsets of the original string and vice versa. The mapping is given by
+ * anchor points, i.e. pairs of a normalized and an original offset. Offsets between two anchors are shifted by the
+ * same amount as the left anchor. Since the shift only changes where characters were deleted or inserted by the
+ * normalization, anchors that do not change the shift are redundant and are dropped. Thus, the mapping is run-length
+ * encoded in two <tt>int</tt> arrays and lookups are done by binary search.
+ * </p>
+ * <p>
+ * Anchors are added with {@link #put(int, int)}. A later anchor for the same normalized offset replaces the earlier
+ * one. The first lookup compacts the anchors; afterwards, no anchors can be added.
+ * </p>
+ */
+public class NormalizedOffsetMapping {
+    private int[] normalizedOffsets = new int[16];
+    private int[] originalOffsets = new int[16];
+    private int size;
+    private boolean sorted = true;
+    private boolean compacted;
+
+    /**
+     * Adds an anchor point.
+     *
+     * @param normalizedOffset An offset in the normalized string.
+     * @param originalOffset   The corresponding offset in the original string.
+     */
+    public void put(int normalizedOffset, int originalOffset) {
+        if (compacted)
+            throw new IllegalStateException("The offset mapping has already been used for lookups and cannot be changed any more.");
+        if (size > 0 && normalizedOffsets[size - 1] == normalizedOffset) {
+            originalOffsets[size - 1] = originalOffset;
+            return;
+        }
+        if (size > 0 && normalizedOffsets[size - 1] > normalizedOffset)
+            sorted = false;
+        if (size == normalizedOffsets.length) {
+            normalizedOffsets = Arrays.copyOf(normalizedOffsets, size * 2);
+            originalOffsets = Arrays.copyOf(originalOffsets, size * 2);
+        }
+        normalizedOffsets[size] = normalizedOffset;
+        originalOffsets[size] = originalOffset;
+        ++size;
+    }
+
+    /**
+     * @return The normalized offset of the last anchor or -1 if there is no anchor yet.
+     */
+    public int getLastNormalizedOffset() {
+        return size > 0 ? normalizedOffsets[size - 1] : -1;
+    }
+
+    public int getOriginalOffset(int normalizedOffset) {
+        compact();
+        final int index = floor(normalizedOffsets, normalizedOffset);
+        if (index < 0)
+            return normalizedOffset;
+        return normalizedOffset + originalOffsets[index] - normalizedOffsets[index];
+    }
+
+    /**
+     * Maps an original offset to the normalized string. An offset within a deleted stretch of the original string is
+     * mapped to the position where the stretch was deleted.
+     *
+     * @param originalOffset An offset in the original string.
+     * @return The corresponding offset in the normalized string.
+     */
+    public int getNormalizedOffset(int originalOffset) {
+        compact();
+        final int index = floor(originalOffsets, originalOffset);
+        if (index < 0)
+            return originalOffset;
+        final int normalizedOffset = originalOffset - originalOffsets[index] + normalizedOffsets[index];
+        if (index + 1 < size)
+            return Math.min(normalizedOffset, normalizedOffsets[index + 1]);
+        return normalizedOffset;
+    }
+
+    /**
+     * @return The number of anchors after compaction.
+     */
+    public int size() {
+        compact();
+        return size;
+    }
+
+    /**
+     * @return The anchors of this mapping as a map from normalized to original offsets.
+     */
+    public Map<Integer, Integer> toMap() {
+        compact();
+        final Map<Integer, Integer> map = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++)
+            map.put(normalizedOffsets[i], originalOffsets[i]);
+        return map;
+    }
+
+    /**
+     * @return The index of the last element in the first <tt>size</tt> elements of <tt>offsets</tt> that is less than or equal to <tt>offset</tt> or -1 if there is none.
+     */
+    private int floor(int[] offsets, int offset) {
+        int index = Arrays.binarySearch(offsets, 0, size, offset);
+        if (index < 0)
+            return -index - 2;
+        // there may be multiple anchors with the same original offset; use the last one
+        while (index + 1 < size && offsets[index + 1] == offset)
+            ++index;
+        return index;
+    }
+
+    private void compact() {
+        if (compacted)
+            return;
+        if (!sorted) {
+            // sort the anchors by normalized offset while keeping the insertion order for equal offsets
+            final long[] order = new long[size];
+            for (int i = 0; i < size; i++)
+                order[i] = ((long) normalizedOffsets[i] << 32) | i;
+            Arrays.sort(order);
+            final int[] sortedNormalized = new int[size];
+            final int[] sortedOriginal = new int[size];
+            int newSize = 0;
+            for (int i = 0; i < size; i++) {
+                final int index = (int) order[i];
+                if (newSize > 0 && sortedNormalized[newSize - 1] == normalizedOffsets[index])
+                    --newSize;
+                sortedNormalized[newSize] = normalizedOffsets[index];
+                sortedOriginal[newSize] = originalOffsets[index];
+                ++newSize;
+            }
+            normalizedOffsets = sortedNormalized;
+            originalOffsets = sortedOriginal;
+            size = newSize;
+        }
+        int newSize = 0;
+        for (int i = 0; i < size; i++) {
+            if (newSize > 0 && originalOffsets[i] - normalizedOffsets[i] == originalOffsets[newSize - 1] - normalizedOffsets[newSize - 1])
+                continue;
+            normalizedOffsets[newSize] = normalizedOffsets[i];
+            originalOffsets[newSize] = originalOffsets[i];
+            ++newSize;
+        }
+        size = newSize;
+        normalizedOffsets = Arrays.copyOf(normalizedOffsets, size);
+        originalOffsets = Arrays.copyOf(originalOffsets, size);
+        compacted = true;
+    }
+}
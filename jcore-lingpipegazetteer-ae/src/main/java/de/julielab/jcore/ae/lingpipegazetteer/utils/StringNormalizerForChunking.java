@@ -90,8 +90,9 @@ public class StringNormalizerForChunking {
                 sb.append(c);
             }
             int newOffset = Math.max(0, i - deletedChars);
-            if (null == ns.offsetMap.get(newOffset))
-                ns.offsetMap.put(newOffset, i);
+            // the new offsets are non-decreasing, only keep the first mapping for each of them
+            if (newOffset > ns.offsetMapping.getLastNormalizedOffset())
+                ns.offsetMapping.put(newOffset, i);
         }
         ns.string = sb.toString();
         return ns;
@@ -121,11 +122,11 @@ public class StringNormalizerForChunking {
         Tokenizer tokenizer = tokenizerFactory.tokenizer(strChars, 0, strChars.length);
         StringBuilder sb = new StringBuilder();
         ArrayDeque<String> tokenS = new ArrayDeque<>();
-        Map<Integer, Integer> deleteCandidateOffsetMap = new HashMap<>();
+        Map<Integer, Integer> deleteCandidateOffsetMap = new LinkedHashMap<>();
         // According to the lingpipe API documentation, one starts with the next
         // whitespace.
         sb.append(tokenizer.nextWhitespace());
-        ns.offsetMap.put(0, 0);
+        ns.offsetMapping.put(0, 0);
         String token;
         while ((token = tokenizer.nextToken()) != null) {
             // Handle possessive 's (like Parkinson's). It will be deleted. In
@@ -157,7 +158,8 @@ public class StringNormalizerForChunking {
                         sb.append(s);
                     }
                     tokenS.clear();
-                    ns.offsetMap.putAll(deleteCandidateOffsetMap);
+                    for (Map.Entry<Integer, Integer> candidateOffsets : deleteCandidateOffsetMap.entrySet())
+                        ns.offsetMapping.put(candidateOffsets.getKey(), candidateOffsets.getValue());
                     deleteCandidateOffsetMap.clear();
                 }
                 token = transliterator.transform(token);
@@ -180,8 +182,8 @@ public class StringNormalizerForChunking {
                 sb.append(token);
                 int newStartOffset = sb.length() - token.length();
                 int newEndOffset = sb.length();
-                ns.offsetMap.put(newStartOffset, tokenizer.lastTokenStartPosition());
-                ns.offsetMap.put(newEndOffset, tokenizer.lastTokenEndPosition());
+                ns.offsetMapping.put(newStartOffset, tokenizer.lastTokenStartPosition());
+                ns.offsetMapping.put(newEndOffset, tokenizer.lastTokenEndPosition());
                 sb.append(tokenizer.nextWhitespace());
             }
         }
@@ -217,36 +219,27 @@ public class StringNormalizerForChunking {
 
     public static class NormalizedString {
         public String string;
-        private Map<Integer, Integer> offsetMap = new HashMap<>();
-        private TreeSet<Integer> normalizedOffsetSet;
+        private NormalizedOffsetMapping offsetMapping = new NormalizedOffsetMapping();
 
+        /**
+         * @return The anchor points of the offset mapping from the normalized string to the original string.
+         * @deprecated Creates a new map on each call, use {@link #getOffsetMapping()} instead.
+         */
+        @Deprecated
         public Map<Integer, Integer> getOffsetMap() {
-            return offsetMap;
+            return offsetMapping.toMap();
+        }
+
+        public NormalizedOffsetMapping getOffsetMapping() {
+            return offsetMapping;
         }
 
         public Integer getOriginalOffset(int normalizedOffset) {
-            Integer originalOffset = offsetMap.get(normalizedOffset);
-            if (originalOffset == null) {
-                originalOffset = deriveOriginalOffset(normalizedOffset);
-                offsetMap.put(normalizedOffset, originalOffset);
-            }
-            return originalOffset;
+            return offsetMapping.getOriginalOffset(normalizedOffset);
         }
 
-        private Integer deriveOriginalOffset(int normalizedOffset) {
-            if (normalizedOffsetSet == null)
-                normalizedOffsetSet = new TreeSet<>(offsetMap.keySet());
-            Integer previousNormalizedOffset = normalizedOffsetSet.floor(normalizedOffset);
-            Integer originalPreviousOffset = offsetMap.get(previousNormalizedOffset);
-            int offsetShift = Math.abs(originalPreviousOffset - previousNormalizedOffset);
-            // Typically, the normalized string will be shorter than the
-            // original, thus the original offset would be larger.
-            if (originalPreviousOffset > previousNormalizedOffset)
-                return normalizedOffset + offsetShift;
-            // But if, for some reason, the normalized string is longer than the
-            // original, we would have to subtract the difference from the
-            // normalized offset.
-            return normalizedOffset - offsetShift;
+        public int getNormalizedOffset(int originalOffset) {
+            return offsetMapping.getNormalizedOffset(originalOffset);
         }
     }
 }
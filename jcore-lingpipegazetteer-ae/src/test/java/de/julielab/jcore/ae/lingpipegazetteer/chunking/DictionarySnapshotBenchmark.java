@@ -0,0 +1,78 @@
+package de.julielab.jcore.ae.lingpipegazetteer.chunking;
+
+import com.aliasi.chunk.Chunker;
+import org.apache.uima.resource.FileResourceSpecifier;
+import org.apache.uima.resource.impl.DataResource_impl;
+import org.apache.uima.resource.impl.FileResourceSpecifier_impl;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * <p>
+ * Measures the load time, the heap usage, the resident set size and the chunking speed of a
+ * {@link ChunkerProviderImplAlt} that is loaded from a gazetteer properties file. Run it once with the properties that
+ * specify the dictionary file and once with the same properties plus <tt>DictionarySnapshot</tt> pointing to the
+ * output of {@link DictionarySnapshotCompiler} to compare building the chunker on each load with the memory-mapped
+ * {@link DictionarySnapshot}. Each run should have its own JVM so that the resident set sizes are comparable.
+ * </p>
+ * <p>
+ * Arguments: <tt>&lt;gazetteer properties file&gt; &lt;text file&gt;</tt>. The resident set size is read from
+ * <tt>/proc/self/status</tt> and is only available on Linux.
+ * </p>
+ */
+public class DictionarySnapshotBenchmark {
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("Usage: " + DictionarySnapshotBenchmark.class.getSimpleName() + " <gazetteer properties file> <text file>");
+            System.exit(1);
+        }
+        final String text = Files.readString(Path.of(args[1]));
+        final FileResourceSpecifier spec = new FileResourceSpecifier_impl();
+        spec.setFileUrl(new File(args[0]).toURI().toURL().toString());
+        final DataResource_impl resource = new DataResource_impl();
+        resource.initialize(spec, null);
+
+        final long rssBefore = residentSetSize();
+        final long heapBefore = usedMemory();
+        long time = System.nanoTime();
+        final ChunkerProviderImplAlt provider = new ChunkerProviderImplAlt();
+        provider.load(resource);
+        time = System.nanoTime() - time;
+        final long heap = usedMemory() - heapBefore;
+        final Chunker chunker = provider.getChunker();
+        System.out.printf("%s: load %d ms, heap %d MB, resident set size %d MB (%d MB before loading)%n", chunker.getClass().getSimpleName(), time / 1000000, heap / (1 << 20), residentSetSize() / 1024, rssBefore / 1024);
+
+        int numChunks = 0;
+        for (int i = 0; i < 5; i++)
+            numChunks = chunker.chunk(text).chunkSet().size();
+        final int rounds = 20;
+        time = System.nanoTime();
+        for (int i = 0; i < rounds; i++)
+            chunker.chunk(text);
+        time = System.nanoTime() - time;
+        System.out.printf("%s: %d chunks, %.2f ms per text, resident set size after chunking %d MB%n", chunker.getClass().getSimpleName(), numChunks, time / 1000000d / rounds, residentSetSize() / 1024);
+    }
+
+    private static long usedMemory() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * @return The resident set size of this process in KB or -1 if it is not available.
+     */
+    private static long residentSetSize() throws Exception {
+        final Path status = Path.of("/proc/self/status");
+        if (!Files.exists(status))
+            return -1;
+        for (String line : Files.readAllLines(status)) {
+            if (line.startsWith("VmRSS:"))
+                return Long.parseLong(line.replaceAll("[^0-9]", ""));
+        }
+        return -1;
+    }
+}
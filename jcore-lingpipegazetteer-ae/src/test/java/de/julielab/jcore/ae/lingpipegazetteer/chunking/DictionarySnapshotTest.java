@@ -0,0 +1,93 @@
+package de.julielab.jcore.ae.lingpipegazetteer.chunking;
+
+import com.aliasi.chunk.Chunk;
+import com.aliasi.chunk.Chunker;
+import com.aliasi.dict.DictionaryEntry;
+import com.aliasi.dict.ExactDictionaryChunker;
+import com.aliasi.dict.MapDictionary;
+import com.aliasi.tokenizer.IndoEuropeanTokenizerFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class DictionarySnapshotTest {
+
+    private static final String DICTIONARY = "src/test/resources/dictionary.tst";
+    private static final String STOPWORDS = "src/test/resources/general_english_words";
+    private static final String TEXT = "src/test/resources/bio_text.txt";
+
+    private Set<String> readStopWords() throws Exception {
+        return Files.readAllLines(Path.of(STOPWORDS)).stream().filter(l -> !l.startsWith("#")).map(l -> l.trim().toLowerCase()).collect(Collectors.toSet());
+    }
+
+    private File compile(Path dir, String name, boolean caseSensitive) throws Exception {
+        final File snapshotFile = dir.resolve(name).toFile();
+        try (InputStream is = new FileInputStream(DICTIONARY)) {
+            new DictionarySnapshotCompiler().compile(is, readStopWords(), caseSensitive, false, false, snapshotFile);
+        }
+        return snapshotFile;
+    }
+
+    private Set<String> toStrings(Set<Chunk> chunks) {
+        return chunks.stream().map(c -> c.start() + "-" + c.end() + ":" + c.type()).collect(Collectors.toSet());
+    }
+
+    @Test
+    public void testSameChunksAsExactDictionaryChunker(@TempDir Path dir) throws Exception {
+        final Set<String> stopWords = readStopWords();
+        final MapDictionary<String> dict = new MapDictionary<>();
+        for (String line : Files.readAllLines(Path.of(DICTIONARY))) {
+            final String[] values = line.split("\t");
+            final String term = values[0].trim();
+            if (term.length() >= 3 && !stopWords.contains(term.toLowerCase()))
+                dict.addEntry(new DictionaryEntry<>(term, values[1].trim(), 1.0));
+        }
+        final Chunker exactChunker = new ExactDictionaryChunker(dict, IndoEuropeanTokenizerFactory.INSTANCE, false, false);
+        final DictionarySnapshot snapshot = DictionarySnapshot.getSnapshot(compile(dir, "dictionary.snapshot", false).getAbsolutePath());
+
+        final String text = Files.readString(Path.of(TEXT)) + " klrg2 Beacon, PK and the Test Dosing Unit";
+        final Set<String> expected = toStrings(exactChunker.chunk(text).chunkSet());
+        assertThat(expected).isNotEmpty();
+        assertThat(toStrings(snapshot.chunk(text).chunkSet())).isEqualTo(expected);
+        assertThat(snapshot.getCaseSensitive()).isFalse();
+        assertThat(snapshot.getStopWords()).isEqualTo(stopWords);
+    }
+
+    @Test
+    public void testLongestMatchAndCaseSensitivity(@TempDir Path dir) throws Exception {
+        final DictionarySnapshot snapshot = DictionarySnapshot.getSnapshot(compile(dir, "casesensitive.snapshot", true).getAbsolutePath());
+        assertThat(snapshot.getCaseSensitive()).isTrue();
+        assertThat(snapshot.getLabel("KLRG2")).isEqualTo("KLRG2");
+        assertThat(snapshot.getLabel("klrg2")).isNull();
+        assertThat(snapshot.getLabel("killer cell lectin-like receptor G2")).isEqualTo("KLRG2");
+        assertThat(snapshot.getLabel("killer cell")).isNull();
+
+        final String text = "The killer cell lectin-like receptor G2 and IFI16 but not klrg1.";
+        final List<String> chunks = snapshot.chunk(text).chunkSet().stream().map(c -> text.substring(c.start(), c.end()) + ":" + c.type()).collect(Collectors.toList());
+        assertThat(chunks).containsExactlyInAnyOrder("killer cell lectin-like receptor G2:KLRG2", "IFI16:3428(2.)");
+    }
+
+    @Test
+    public void testSnapshotIsShared(@TempDir Path dir) throws Exception {
+        final String path = compile(dir, "shared.snapshot", false).getAbsolutePath();
+        assertThat(DictionarySnapshot.getSnapshot(path)).isSameAs(DictionarySnapshot.getSnapshot(path));
+    }
+
+    @Test
+    public void testInvalidSnapshot() {
+        assertThatThrownBy(() -> new DictionarySnapshot(ByteBuffer.wrap("no snapshot at all".getBytes(StandardCharsets.UTF_8)))).hasMessageContaining("not a gazetteer dictionary snapshot");
+    }
+}
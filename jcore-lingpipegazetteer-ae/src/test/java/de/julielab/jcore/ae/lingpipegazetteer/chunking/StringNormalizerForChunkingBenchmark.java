@@ -0,0 +1,66 @@
+package de.julielab.jcore.ae.lingpipegazetteer.chunking;
+
+import com.aliasi.tokenizer.IndoEuropeanTokenizerFactory;
+import com.ibm.icu.text.Transliterator;
+import de.julielab.jcore.ae.lingpipegazetteer.utils.StringNormalizerForChunking;
+import de.julielab.jcore.ae.lingpipegazetteer.utils.StringNormalizerForChunking.NormalizedString;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * <p>
+ * Measures the time and the allocated memory of the text normalization of {@link StringNormalizerForChunking} and of
+ * the offset lookups on a large document. For comparison, the boxed <tt>Map&lt;Integer,Integer&gt;</tt> with one
+ * entry per character that was used before is built for the same document.
+ * </p>
+ * <p>
+ * Arguments: <tt>[text file]</tt>. Without a file, a 500 KB document is built from <tt>src/test/resources/bio_text.txt</tt>.
+ * </p>
+ */
+public class StringNormalizerForChunkingBenchmark {
+    public static void main(String[] args) throws Exception {
+        String text;
+        if (args.length > 0) {
+            text = Files.readString(Path.of(args[0]));
+        } else {
+            final String bioText = Files.readString(Path.of("src/test/resources/bio_text.txt"));
+            final StringBuilder sb = new StringBuilder();
+            while (sb.length() < 500 * 1024)
+                sb.append(bioText).append(" Parkinson's disease ");
+            text = sb.toString();
+        }
+        final Transliterator transliterator = Transliterator.getInstance("NFD; [:Nonspacing Mark:] Remove; NFC");
+        final IndoEuropeanTokenizerFactory tokenizerFactory = new IndoEuropeanTokenizerFactory();
+        final Random random = new Random(1);
+        final int[] lookups = new int[100000];
+
+        for (int round = 0; round < 5; round++) {
+            long allocated = allocatedBytes();
+            long time = System.nanoTime();
+            final NormalizedString ns = StringNormalizerForChunking.normalizeString(text, tokenizerFactory, transliterator);
+            for (int i = 0; i < lookups.length; i++)
+                lookups[i] = ns.getOriginalOffset(random.nextInt(ns.string.length()));
+            time = System.nanoTime() - time;
+            allocated = allocatedBytes() - allocated;
+            System.out.printf("Normalized %d characters with %d offset anchors and %d lookups: %d ms, %d KB allocated%n", text.length(), ns.getOffsetMapping().size(), lookups.length, time / 1000000, allocated / 1024);
+
+            allocated = allocatedBytes();
+            time = System.nanoTime();
+            final Map<Integer, Integer> boxedMap = new HashMap<>();
+            for (int i = 0; i < ns.string.length(); i++)
+                boxedMap.put(i, ns.getOriginalOffset(i));
+            time = System.nanoTime() - time;
+            allocated = allocatedBytes() - allocated;
+            System.out.printf("Boxed per-character map for comparison: %d entries, %d ms, %d KB allocated%n", boxedMap.size(), time / 1000000, allocated / 1024);
+        }
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
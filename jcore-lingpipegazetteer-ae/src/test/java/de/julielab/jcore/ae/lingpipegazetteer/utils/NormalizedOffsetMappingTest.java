@@ -0,0 +1,192 @@
+package de.julielab.jcore.ae.lingpipegazetteer.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NormalizedOffsetMappingTest {
+
+    /**
+     * Creates the anchors of a normalization of an original string of the given length. Each original character is
+     * kept, deleted or expanded into two or three normalized characters. Like {@link StringNormalizerForChunking},
+     * each normalized character is anchored to its original character and the end offsets are anchored to each other.
+     *
+     * @return The anchors as pairs of normalized and original offsets.
+     */
+    private List<int[]> createAnchors(long seed, int originalLength) {
+        final Random random = new Random(seed);
+        final List<int[]> anchors = new ArrayList<>();
+        int normalizedOffset = 0;
+        for (int i = 0; i < originalLength; i++) {
+            final int r = random.nextInt(10);
+            // the first character is always kept so that there is an anchor for offset 0
+            int emitted = 1;
+            if (i > 0 && r < 2)
+                emitted = 0;
+            else if (i > 0 && r < 3)
+                emitted = 2 + random.nextInt(2);
+            for (int j = 0; j < emitted; j++)
+                anchors.add(new int[]{normalizedOffset + j, i});
+            normalizedOffset += emitted;
+        }
+        anchors.add(new int[]{normalizedOffset, originalLength});
+        return anchors;
+    }
+
+    private NormalizedOffsetMapping createMapping(List<int[]> anchors) {
+        final NormalizedOffsetMapping mapping = new NormalizedOffsetMapping();
+        for (int[] anchor : anchors)
+            mapping.put(anchor[0], anchor[1]);
+        return mapping;
+    }
+
+    private PerCharacterOffsetMap createPerCharacterMap(List<int[]> anchors) {
+        final PerCharacterOffsetMap map = new PerCharacterOffsetMap();
+        for (int[] anchor : anchors)
+            map.offsetMap.put(anchor[0], anchor[1]);
+        return map;
+    }
+
+    @Test
+    public void testOriginalOffsetsMatchPerCharacterMap() {
+        for (long seed = 0; seed < 10; seed++) {
+            final List<int[]> anchors = createAnchors(seed, 2000);
+            final NormalizedOffsetMapping mapping = createMapping(anchors);
+            final PerCharacterOffsetMap expected = createPerCharacterMap(anchors);
+            final int normalizedLength = anchors.get(anchors.size() - 1)[0];
+            for (int n = 0; n <= normalizedLength + 5; n++)
+                assertEquals(expected.getOriginalOffset(n), mapping.getOriginalOffset(n), "Wrong original offset for normalized offset " + n + " with seed " + seed);
+        }
+    }
+
+    @Test
+    public void testUnsortedAndRepeatedAnchors() {
+        final List<int[]> anchors = createAnchors(42, 500);
+        // overwrite some anchors and add them out of order; a later anchor replaces an earlier one in both mappings
+        for (int i = 0; i < 50; i++) {
+            final int[] anchor = anchors.get(i * 7);
+            anchors.add(new int[]{anchor[0], anchor[1] + 1});
+        }
+        Collections.shuffle(anchors.subList(1, anchors.size()), new Random(42));
+        final NormalizedOffsetMapping mapping = createMapping(anchors);
+        final PerCharacterOffsetMap expected = createPerCharacterMap(anchors);
+        final int normalizedLength = anchors.stream().mapToInt(a -> a[0]).max().getAsInt();
+        for (int n = 0; n <= normalizedLength; n++)
+            assertEquals(expected.getOriginalOffset(n), mapping.getOriginalOffset(n), "Wrong original offset for normalized offset " + n);
+    }
+
+    @Test
+    public void testNormalizedOffsetsMatchPerCharacterMap() {
+        for (long seed = 0; seed < 10; seed++) {
+            final List<int[]> anchors = createAnchors(seed, 1000);
+            final NormalizedOffsetMapping mapping = createMapping(anchors);
+            final PerCharacterOffsetMap expected = createPerCharacterMap(anchors);
+            final int normalizedLength = anchors.get(anchors.size() - 1)[0];
+            final int originalLength = anchors.get(anchors.size() - 1)[1];
+            for (int o = 0; o <= originalLength; o++)
+                assertEquals(expected.getNormalizedOffset(o, normalizedLength), mapping.getNormalizedOffset(o), "Wrong normalized offset for original offset " + o + " with seed " + seed);
+        }
+    }
+
+    @Test
+    public void testNormalizedOffsets() {
+        // original "a--bc" normalized to "abcc" where "--" is deleted and "c" is expanded to "cc"
+        final NormalizedOffsetMapping mapping = createMapping(Arrays.asList(new int[]{0, 0}, new int[]{1, 3}, new int[]{2, 4}, new int[]{3, 4}, new int[]{4, 5}));
+        assertEquals(0, mapping.getNormalizedOffset(0));
+        // the deleted characters are mapped to the position of the deletion
+        assertEquals(1, mapping.getNormalizedOffset(1));
+        assertEquals(1, mapping.getNormalizedOffset(2));
+        assertEquals(1, mapping.getNormalizedOffset(3));
+        // the expanded character is mapped to the last of its normalized characters
+        assertEquals(3, mapping.getNormalizedOffset(4));
+        assertEquals(4, mapping.getNormalizedOffset(5));
+    }
+
+    @Test
+    public void testAnchorCompaction() {
+        NormalizedOffsetMapping mapping = new NormalizedOffsetMapping();
+        for (int i = 0; i <= 1000; i++)
+            mapping.put(i, i);
+        // the shift never changes, one anchor suffices
+        assertEquals(1, mapping.size());
+        assertEquals(Collections.singletonMap(0, 0), mapping.toMap());
+        assertEquals(500, mapping.getOriginalOffset(500));
+
+        // delete the original characters 10-14 and 20
+        mapping = new NormalizedOffsetMapping();
+        int normalizedOffset = 0;
+        for (int i = 0; i <= 100; i++) {
+            if ((i >= 10 && i < 15) || i == 20)
+                continue;
+            mapping.put(normalizedOffset++, i);
+        }
+        final Map<Integer, Integer> expectedAnchors = new LinkedHashMap<>();
+        expectedAnchors.put(0, 0);
+        expectedAnchors.put(10, 15);
+        expectedAnchors.put(15, 21);
+        assertEquals(expectedAnchors, mapping.toMap());
+        assertEquals(3, mapping.size());
+
+        final NormalizedOffsetMapping compactedMapping = mapping;
+        assertThrows(IllegalStateException.class, () -> compactedMapping.put(200, 200));
+    }
+
+    @Test
+    public void testAnchorCompactionOfRandomMappings() {
+        for (long seed = 0; seed < 10; seed++) {
+            final List<int[]> anchors = createAnchors(seed, 2000);
+            final NormalizedOffsetMapping mapping = createMapping(anchors);
+            // an anchor is only kept where the shift between the offsets changes
+            int expectedSize = 0;
+            int lastShift = Integer.MIN_VALUE;
+            for (int[] anchor : anchors) {
+                final int shift = anchor[1] - anchor[0];
+                if (shift != lastShift)
+                    ++expectedSize;
+                lastShift = shift;
+            }
+            assertEquals(expectedSize, mapping.size(), "Wrong number of anchors with seed " + seed);
+            assertTrue(mapping.size() < anchors.size());
+        }
+    }
+
+    /**
+     * The boxed map with one entry per normalized character that was used by {@link StringNormalizerForChunking}
+     * before, including its former offset derivation.
+     */
+    private static class PerCharacterOffsetMap {
+        private final Map<Integer, Integer> offsetMap = new HashMap<>();
+
+        private int getOriginalOffset(int normalizedOffset) {
+            Integer originalOffset = offsetMap.get(normalizedOffset);
+            if (originalOffset != null)
+                return originalOffset;
+            final TreeSet<Integer> normalizedOffsetSet = new TreeSet<>(offsetMap.keySet());
+            final Integer previousNormalizedOffset = normalizedOffsetSet.floor(normalizedOffset);
+            final Integer originalPreviousOffset = offsetMap.get(previousNormalizedOffset);
+            final int offsetShift = Math.abs(originalPreviousOffset - previousNormalizedOffset);
+            if (originalPreviousOffset > previousNormalizedOffset)
+                return normalizedOffset + offsetShift;
+            return normalizedOffset - offsetShift;
+        }
+
+        /**
+         * Inverts {@link #getOriginalOffset(int)} by trying all normalized offsets. If multiple normalized offsets
+         * map to the original offset, the last of them is returned. Deleted original offsets are mapped to the first
+         * normalized offset after the deletion.
+         */
+        private int getNormalizedOffset(int originalOffset, int normalizedLength) {
+            int match = -1;
+            for (int n = 0; n <= normalizedLength; n++) {
+                final int o = getOriginalOffset(n);
+                if (o == originalOffset)
+                    match = n;
+                else if (o > originalOffset)
+                    return match >= 0 ? match : n;
+            }
+            return match >= 0 ? match : normalizedLength;
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package de.julielab.jcore.ae.mstparser.main;
 
 import de.julielab.jcore.types.*;
+import edu.upenn.seas.mstparser.DependencyInstance;
 import edu.upenn.seas.mstparser.DependencyParser;
 import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_component.JCasAnnotator_ImplBase;
@@ -32,9 +33,9 @@ import org.apache.uima.resource.ResourceInitializationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
 import java.util.concurrent.*;
 
@@ -54,6 +55,11 @@ public class MSTParserAnnotator extends JCasAnnotator_ImplBase {
     @ConfigurationParameter(name = PARAM_MAX_NUM_TOKENS, description = "The maximum number of tokens a sentence may have to be subject to parsing. If a sentence has more tokens, it will be skipped by the component. If no value is given, no restriction of the number of tokens is imposed.")
     private Integer maxNumTokens;
 
+    public static final String PARAM_NUM_THREADS = "NumThreads";
+
+    @ConfigurationParameter(name = PARAM_NUM_THREADS, mandatory = false, defaultValue = "1", description = "The number of threads that parse the sentences of a document concurrently. Defaults to 1, i.e. the sentences are parsed one after the other and parallel parsing must be enabled explicitly. Each instance of this component has its own threads, so the value should only be raised when the pipeline does not already run multiple instances of this component.")
+    private Integer numThreads;
+
     @ExternalResource(key = RESOURCE_MODEL, mandatory = true)
     private MSTParserWrapper mstParserWrapper;
 
@@ -71,24 +77,12 @@ public class MSTParserAnnotator extends JCasAnnotator_ImplBase {
 
     private static final String NON_PROJECTIVE = "non-proj";
 
-    private static final String LABEL_DUMMY = "<no-type>";
-
-    private static final String DEPENDENCY_DUMMY = "0";
-
     static final String FORMAT = "format";
 
     static final String FORMAT_MST = "MST";
 
     static final String FORMAT_CONLL = "CONLL";
 
-    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
-
-    private static final String TABULATOR = "\t";
-
-    private static final String PLACEHOLDER = "_";
-
-    private static final String EMPTY_STRING = "";
-
     private static final boolean defaultProjective = true;
 
     public static final String RESOURCE_MODEL = "SharedModel";
@@ -127,17 +121,25 @@ public class MSTParserAnnotator extends JCasAnnotator_ImplBase {
                 LOGGER.info("Skipping sentences with more than " + maxNumTokens + " tokens");
             }
 
-            // This isn't like a shared resource should be used in UIMA. The
-            // MSTParserWrapperImpl keeps the loaded data as static member
-            // variables. I think it works (at least as long as there is only
-            // one parser or one configuration used) but isn't quite the
-            // canonical way.
-            aContext.getResourceObject(RESOURCE_MODEL);
-            mstParserWrapper = new MSTParserWrapperImpl();
+            numThreads = (Integer) aContext.getConfigParameterValue(PARAM_NUM_THREADS);
+            if (numThreads == null) {
+                numThreads = 1;
+            }
+
+            // The model is loaded once by the shared resource and only read
+            // by the parsers, thus all instances of this component share it.
+            mstParserWrapper = (MSTParserWrapper) aContext.getResourceObject(RESOURCE_MODEL);
 
             mstParser = mstParserWrapper.loadModel();
 
-            executor = Executors.newCachedThreadPool();
+            // The worker threads must not keep the JVM alive when a parse
+            // that timed out does not react to the interruption.
+            ThreadFactory threadFactory = Executors.defaultThreadFactory();
+            executor = Executors.newFixedThreadPool(numThreads, r -> {
+                Thread thread = threadFactory.newThread(r);
+                thread.setDaemon(true);
+                return thread;
+            });
         } catch (Exception e) {
             e.printStackTrace();
             LOGGER.error("Cannot innitialize MST Parser " + e.getMessage());
@@ -160,21 +162,18 @@ public class MSTParserAnnotator extends JCasAnnotator_ImplBase {
             AnnotationIndex<Annotation> tokenIndex = jcas.getJFSIndexRepository().getAnnotationIndex(Token.type);
             FSIterator<Annotation> sentenceIterator = sentenceIndex.iterator();
 
+            // Up to two sentences per thread are parsed or waiting to be parsed
+            // while the results of the preceding sentences are written to the CAS
+            // in the order of the sentences.
+            Deque<SentenceParse> pendingParses = new ArrayDeque<>();
             while (sentenceIterator.hasNext()) {
                 Sentence casSentence = (Sentence) sentenceIterator.next();
                 FSIterator<Annotation> tokenIterator = tokenIndex.subiterator(casSentence);
                 List<Token> tokenList = new ArrayList<Token>();
-                List<String> tokenTextList = new ArrayList<String>();
-                List<POSTag> posTagList = new ArrayList<POSTag>();
-                List<String> posTagTextList = new ArrayList<String>();
 
-                int i = 0;
                 while (tokenIterator.hasNext()) {
                     Token token = (Token) tokenIterator.next();
-                    i++;
-                    String tokenText = token.getCoveredText();
                     tokenList.add(token);
-                    tokenTextList.add(tokenText);
 
                     if (token.getPosTag() == null || token.getPosTag().size() == 0 || token.getPosTag(0) == null) {
                         String docId = getDocId(jcas);
@@ -184,78 +183,98 @@ public class MSTParserAnnotator extends JCasAnnotator_ImplBase {
                                         + token.getEnd() + " of document " + docId
                                         + " does not appear to have a POS tag.");
                     }
-
-                    POSTag posTag = token.getPosTag(0);
-                    String posText = posTag.getValue();
-                    posTagList.add(posTag);
-                    posTagTextList.add(posText);
                 }
-                if (maxNumTokens != null && i > maxNumTokens) {
+                if (tokenList.isEmpty()) {
+                    continue;
+                }
+                if (maxNumTokens != null && tokenList.size() > maxNumTokens) {
                     LOGGER.warn(
                             "Skipping sentence with > " + maxNumTokens + " tokens: " + casSentence.getCoveredText());
-                    break;
-                }
-                final String inputSentence = getSentence(tokenTextList, posTagTextList, null, null);
-                /**
-                 * set temporary file to the Random file name
-                 */
-                String parsedSentence = null;
-                try {
-                    Callable<String> task = new Callable<String>() {
-                        @Override
-                        public String call() throws IOException {
-                            return mstParserWrapper.predict(mstParser, inputSentence);
-                        }
-                    };
-                    Future<String> future = executor.submit(task);
-                    try {
-                        parsedSentence = future.get(TIMEOUT, TimeUnit.SECONDS);
-                    } catch (TimeoutException ex) {
-                        LOGGER.warn(
-                                "The processing of a sentence was cancelled because it took too long (more than {} seconds). The actual sentence is put out below.",
-                                TIMEOUT);
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                        // handle the interrupts
-                    } catch (ExecutionException e) {
-                        e.printStackTrace();
-                        // handle other exceptions
-                    } finally {
-                        future.cancel(true); // may or may not desire this
-                    }
+                    continue;
                 }
-                // catch (IOException e) {
-                // LOGGER.error("[MST Parser Exception]" + e.getMessage());
-                // }
-                catch (OutOfMemoryError e) {
-                    String docId = getDocId(jcas);
-                    LOGGER.warn(
-                            "OutOfMemory error occured when parsing the sentence \"{}\" of document \"{}\". "
-                                    + "This does not mean necessarely your application has too less allocated memory. "
-                                    + "On rare occasions (very rare: it seems there is only one document in the whole of MEDLINE "
-                                    + "causing this error, (PMID: 23717185) which contains a ridiculous large enumeration "
-                                    + "of terms), the parser seems to consume arbitrary amounts of memory without actually being"
-                                    + " able to parse the input. In such a case you would observe a sudden pike in memory consumption "
-                                    + "(e.g. from constantly around 10GB to suddenly 20GB then 30GB, depending on the maximum "
-                                    + "available amount of memory set by the -Xmx option). Only if the memory consumption is constantly "
-                                    + "near the maximum, you should consider to increase the amount of allocated memory.",
-                            casSentence.getCoveredText(), docId);
+                String[] forms = new String[tokenList.size()];
+                String[] posTags = new String[tokenList.size()];
+                for (int i = 0; i < tokenList.size(); i++) {
+                    Token token = tokenList.get(i);
+                    // Tabs and line breaks were not allowed in the text format
+                    // formerly passed to the parser.
+                    forms[i] = token.getCoveredText().replace('\n', ' ').replace('\t', ' ');
+                    posTags[i] = token.getPosTag(0).getValue();
                 }
-
-                // When the parser had an error, we will only notice here when
-                // something is null which shouldn't be.
-                try {
-                    writeCas(mstParser, jcas, parsedSentence, tokenList);
-                } catch (Exception e) {
-                    LOGGER.error("Sentence could not be parsed and will not have syntactic annotations in the CAS: "
-                            + casSentence.getCoveredText());
+                SentenceParse sentenceParse = new SentenceParse(casSentence, tokenList);
+                sentenceParse.parse = executor.submit(() -> {
+                    sentenceParse.startNanos = System.nanoTime();
+                    sentenceParse.started.countDown();
+                    return mstParserWrapper.predict(mstParser, forms, posTags);
+                });
+                pendingParses.add(sentenceParse);
+                if (pendingParses.size() >= 2 * numThreads) {
+                    writeParse(jcas, pendingParses.poll());
                 }
             } // of while
+            while (!pendingParses.isEmpty()) {
+                writeParse(jcas, pendingParses.poll());
+            } // of while
         } else {
             LOGGER.warn("Cannot continue parsing. Please check the parameters!");
         } // of if
     } // of process
 
+    /**
+     * Waits for the parse of a sentence and writes it to the CAS. Parses that take longer than {@link #TIMEOUT}
+     * seconds are cancelled. The timeout is measured from the moment a pool thread starts parsing the sentence, not
+     * from its submission, so that the time a sentence waits for the parses of preceding sentences does not count.
+     *
+     * @param jcas
+     *            JCas which the parse will be written to
+     * @param sentenceParse
+     *            The sentence and its pending parse
+     */
+    private void writeParse(JCas jcas, SentenceParse sentenceParse) {
+        DependencyInstance parse = null;
+        try {
+            if (!sentenceParse.started.await(TIMEOUT, TimeUnit.SECONDS))
+                throw new TimeoutException();
+            long remainingNanos = sentenceParse.startNanos + TimeUnit.SECONDS.toNanos(TIMEOUT) - System.nanoTime();
+            parse = sentenceParse.parse.get(remainingNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            LOGGER.warn(
+                    "The processing of a sentence was cancelled because it took too long (more than {} seconds). The actual sentence is: {}",
+                    TIMEOUT, sentenceParse.sentence.getCoveredText());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.warn("Interrupted while waiting for the parse of the sentence: {}",
+                    sentenceParse.sentence.getCoveredText());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof OutOfMemoryError) {
+                String docId = getDocId(jcas);
+                LOGGER.warn(
+                        "OutOfMemory error occured when parsing the sentence \"{}\" of document \"{}\". "
+                                + "This does not mean necessarely your application has too less allocated memory. "
+                                + "On rare occasions (very rare: it seems there is only one document in the whole of MEDLINE "
+                                + "causing this error, (PMID: 23717185) which contains a ridiculous large enumeration "
+                                + "of terms), the parser seems to consume arbitrary amounts of memory without actually being"
+                                + " able to parse the input. In such a case you would observe a sudden pike in memory consumption "
+                                + "(e.g. from constantly around 10GB to suddenly 20GB then 30GB, depending on the maximum "
+                                + "available amount of memory set by the -Xmx option). Only if the memory consumption is constantly "
+                                + "near the maximum, you should consider to increase the amount of allocated memory.",
+                        sentenceParse.sentence.getCoveredText(), docId);
+            } else {
+                LOGGER.error("Error while parsing the sentence: " + sentenceParse.sentence.getCoveredText(),
+                        e.getCause());
+            }
+        } finally {
+            sentenceParse.parse.cancel(true);
+        }
+
+        if (parse == null) {
+            LOGGER.error("Sentence could not be parsed and will not have syntactic annotations in the CAS: "
+                    + sentenceParse.sentence.getCoveredText());
+            return;
+        }
+        writeCas(mstParser, jcas, parse, sentenceParse.tokens);
+    }
+
     protected String getDocId(JCas jcas) {
         FSIterator<Annotation> it = jcas.getJFSIndexRepository().getAnnotationIndex(Header.type).iterator();
         String docId = "<unknown>";
@@ -285,20 +304,18 @@ public class MSTParserAnnotator extends JCasAnnotator_ImplBase {
      *            DependencyParser which will be checked for toe used format (MST or CONLL)
      * @param jcas
      *            JCas which the parsed info will be written to
-     * @param parsedSentence
-     *            String which contain the parsed information
+     * @param parse
+     *            DependencyInstance with the heads and labels of the tokens, preceded by the root
      * @param tokenList
      *            ArrayList which contain Tokens
      */
-    private void writeCas(DependencyParser mstParser, JCas jcas, String parsedSentence, List<Token> tokenList) {
+    private void writeCas(DependencyParser mstParser, JCas jcas, DependencyInstance parse, List<Token> tokenList) {
         Token token;
         int dependencyIndex = 0;
-        List<Integer> depList = getDependencyRelations(parsedSentence);
-        List<String> labelsList = getLabels(parsedSentence);
 
         for (int i = 0; i < tokenList.size(); i++) {
             token = tokenList.get(i);
-            dependencyIndex = depList.get(i) - 1;
+            dependencyIndex = parse.heads[i + 1] - 1;
             Token headToken = null;
 
             if (dependencyIndex >= 0) {
@@ -307,7 +324,7 @@ public class MSTParserAnnotator extends JCasAnnotator_ImplBase {
                 DependencyRelation depRelation = new DependencyRelation(jcas);
                 depRelation.setHead(headToken);
                 setProjective(depRelation, mstParser);
-                depRelation.setLabel(labelsList.get(i));
+                depRelation.setLabel(parse.deprels[i + 1]);
 
                 // TODO: This works, but if you experience problems with
                 // dependency relations, here is the first place to look
@@ -330,60 +347,6 @@ public class MSTParserAnnotator extends JCasAnnotator_ImplBase {
         } // of for
     } // of writeCas
 
-    /**
-     * Construct an input sentence for the MST parser using the tokenTextList and the posTagList. If the sentence will
-     * be in MST or CONLL format depends on the value of mstParser.options.format
-     *
-     * @param tokens
-     *            List which contains Strings which represent the tokens
-     * @param posTags
-     *            List which contains Strings which in turn represent the POS Tags
-     * @param labels
-     *            List containing Strings which represent the labels
-     * @param depRelations
-     *            List containing Strings which represent dependencies
-     * @return sentence String which contain the input sentence for the MST parser
-     */
-    private String getSentence(List<String> tokens, List<String> posTags, List<String> labels,
-            List<String> depRelations) {
-        if (labels == null || labels.size() != tokens.size()) {
-            labels = createList(LABEL_DUMMY, tokens.size());
-        }
-        if (depRelations == null || depRelations.size() != tokens.size()) {
-            depRelations = createList(DEPENDENCY_DUMMY, tokens.size());
-        }
-        StringBuffer sentence = new StringBuffer();
-        if (mstParser.options.format.equals("MST")) {
-            sentence.append(addListElements(tokens));
-            sentence.append(addListElements(posTags));
-            sentence.append(addListElements(labels));
-            sentence.append(addListElements(depRelations));
-        } else if (mstParser.options.format.equals("CONLL")) {
-            for (int i = 0; i < tokens.size(); i++) {
-                sentence.append(i + 1); // 1. ID
-                sentence.append(TABULATOR + tokens.get(i).replaceAll("\n", " ").replaceAll("\t", " ")); // 2.
-                                                                                                        // TEXT
-                sentence.append(TABULATOR + PLACEHOLDER); // 3. LEMMA TODO:
-                                                          // warum wird token
-                                                          // text ohne
-                                                          // Lemmatisierung
-                                                          // verwendet??
-                sentence.append(TABULATOR + posTags.get(i));// 4. Coarse POS
-                sentence.append(TABULATOR + posTags.get(i));// 5. POS
-                sentence.append(TABULATOR + PLACEHOLDER); // 6. FEATURES ("|"-
-                                                          // or
-                // "_"-separated)
-                sentence.append(TABULATOR + depRelations.get(i));// 7. HEAD
-                sentence.append(TABULATOR + labels.get(i)); // 8. Dep.Rel. (9.
-                                                            // Head of Phrase,
-                                                            // 10. Dep.Rel. to
-                                                            // head of phrase)
-                sentence.append(LINE_SEPARATOR);
-            }
-        }
-        return sentence.toString();
-    }
-
     /*--------------------------------------------------------------------------------------------*/
     /**
      * Set projective in the dependency relation using the decode type in the mstparser's options
@@ -408,91 +371,25 @@ public class MSTParserAnnotator extends JCasAnnotator_ImplBase {
     } // of setProjective
 
     /**
-     * Compute the dependency list using the parsed sentence information.
-     *
-     * @param parsedSentence
-     *            String which represents the parsed sentence information
-     * @return outputList ArrayList which contains the dependency index for each element (each token)
-     */
-    private List<Integer> getDependencyRelations(String parsedSentence) {
-        List<Integer> depRels = new ArrayList<Integer>();
-        try {
-            if (mstParser.options.format.equals("MST")) {
-                String depRelLine = parsedSentence.split(LINE_SEPARATOR)[3];
-                for (String depRel : depRelLine.split(TABULATOR)) {
-                    depRels.add(Integer.parseInt(depRel));
-                }
-            } else if (mstParser.options.format.equals("CONLL")) {
-                for (String line : parsedSentence.split(LINE_SEPARATOR)) {
-                    depRels.add(Integer.parseInt(line.split(TABULATOR)[6]));
-                }
-            }
-        } catch (Exception e) {
-            LOGGER.error("The parsed sentence has unexpected format (no 8th. column exists).");
-        }
-        return depRels;
-    }
-
-    /**
-     * Compute the labels list using the parsed sentence information.
-     *
-     * @param parsedSentence
-     *            String which represents the parsed sentence information
-     * @return labels ArrayList which contains the labels
-     */
-    private List<String> getLabels(String parsedSentence) {
-        List<String> labels = new ArrayList<String>();
-        try {
-            if (mstParser.options.format.equals("MST")) {
-                String labelLine = parsedSentence.split(LINE_SEPARATOR)[2];
-                labels = Arrays.asList(labelLine.split(TABULATOR));
-            } else if (mstParser.options.format.equals("CONLL")) {
-                for (String line : parsedSentence.split(LINE_SEPARATOR)) {
-                    labels.add(line.split(TABULATOR)[7]);
-                }
-            }
-        } catch (Exception e) {
-            LOGGER.error("Unexpected format of parsed sentence.");
-        }
-        return labels;
-    }
-
-    /**
-     * Create a list of a specified size and fill it with specified String
-     *
-     * @param labelDummy
-     *            String which will be put into every element of the created list
-     * @param listSize
-     *            Integer which specifies the size of the list to be created
-     * @return outputList ArrayList which was created and filled with specified String
+     * A sentence, its tokens and the pending parse of the sentence.
      */
-    private List<String> createList(String element, int listSize) {
-        List<String> outputList = new ArrayList<String>();
-        for (int i = 0; i < listSize; i++) {
-            outputList.add(element);
-        }
-        return outputList;
-    }
-
-    /**
-     * Add to the sentence new elements from the elementTextList
-     *
-     * @param list
-     *            ArrayList containing elements which will be added to the sentence
-     * @return sentence String which new elements will be added to
-     */
-    private String addListElements(List<String> list) {
-        StringBuffer sentence = new StringBuffer();
-        if (!list.isEmpty()) {
-            for (String element : list) {
-                if (sentence.length() > 0) {
-                    sentence.append(TABULATOR);
-                }
-                sentence.append(element);
-            }
-            sentence.append(LINE_SEPARATOR);
+    private static class SentenceParse {
+        private final Sentence sentence;
+        private final List<Token> tokens;
+        /**
+         * Counted down by the pool thread when it starts to parse the sentence.
+         */
+        private final CountDownLatch started = new CountDownLatch(1);
+        /**
+         * The {@link System#nanoTime()} at which the parse started, published by {@link #started}.
+         */
+        private long startNanos;
+        private Future<DependencyInstance> parse;
+
+        private SentenceParse(Sentence sentence, List<Token> tokens) {
+            this.sentence = sentence;
+            this.tokens = tokens;
         }
-        return sentence.toString();
     }
 }
 
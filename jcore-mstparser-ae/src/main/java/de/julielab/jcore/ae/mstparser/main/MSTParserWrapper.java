@@ -6,6 +6,7 @@
 
 package de.julielab.jcore.ae.mstparser.main;
 
+import edu.upenn.seas.mstparser.DependencyInstance;
 import edu.upenn.seas.mstparser.DependencyParser;
 
 import java.io.IOException;
@@ -13,4 +14,5 @@ import java.io.IOException;
 public interface MSTParserWrapper {
 	public DependencyParser loadModel();
 	public String predict(DependencyParser mstParser, String inputSentence) throws IOException;
+	public DependencyInstance predict(DependencyParser mstParser, String[] tokens, String[] posTags);
 }
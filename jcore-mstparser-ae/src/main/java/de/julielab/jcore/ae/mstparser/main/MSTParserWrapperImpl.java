@@ -17,6 +17,7 @@
 package de.julielab.jcore.ae.mstparser.main;
 
 import edu.upenn.seas.mstparser.Alphabet;
+import edu.upenn.seas.mstparser.DependencyInstance;
 import edu.upenn.seas.mstparser.DependencyParser;
 import edu.upenn.seas.mstparser.DependencyPipe;
 import edu.upenn.seas.mstparser.ParserOptions;
@@ -44,82 +45,48 @@ public class MSTParserWrapperImpl implements MSTParserWrapper, SharedResourceObj
 	public final static String PARAM_FORMAT = "format";
     public static final String COMPONENT_ID = "de.julielab.jcore.ae.mstparser.main.MSTParserWrapper";
 
-    private static Alphabet dataAlphabet;
-
-    private static double[] parameters;
-
     private static final Logger LOGGER = LoggerFactory.getLogger(MSTParserWrapperImpl.class);
 
     private static final String EMPTY_STRING = "";
 
-    private static boolean first = false;
+    /*
+     * The model, loaded once by load(DataResource). It is only read by the parsers, thus all parsers created by
+     * loadModel() share it.
+     */
+    private Alphabet dataAlphabet;
+
+    private double[] parameters;
 
-    private static Alphabet typeAlphabet;
+    private Alphabet typeAlphabet;
 
-    private static String format;
+    private String format;
 
-    private static String modelFilename;
+    private String modelFilename;
 
     /**
-     * Load the parser model and to set up some parameters.
+     * Creates a parser for the model loaded by this resource. The parsers share the model.
      * 
-     * @param modelFilename
-     *            String which specifies the path to the model file
-     * @param temporaryPath
-     *            String which specifies the path to the directory where temporary files will be stored
-     * @param projective
-     *            Boolean which determines whether the dependency relations are projective
-     * @param format
-     *            String which specifies the format of test sentences (allowed values: MST, CONLL)
-     * @return parser DependencyParser which was properly set up using the configuration input parameters
-     * @throws Exception
+     * @return parser DependencyParser which was properly set up using the model and the format of this resource
      */
-    // This isn't like a shared resource should be used in UIMA. The
-    // MSTParserWrapperImpl keeps the loaded data as static member
-    // variables. I think it works (at least as long as there is only
-    // one parser or one configuration used) but isn't quite the
-    // canonical way.
     @Override
     public DependencyParser loadModel() {
+        if (parameters == null) {
+            throw new IllegalStateException("The MST parser model has not been loaded.");
+        }
         ParserOptions options = new ParserOptions(new String[] { "model-name:" + modelFilename, "format:" + format });
         try {
             DependencyPipe pipe = new DependencyPipe(options);
-            loadModelToPipe(pipe, options.modelName);
-            DependencyParser parser = new DependencyParser(pipe, options);
-            parser.setParameters(parameters);
-            return parser;
+            pipe.dataAlphabet = dataAlphabet;
+            pipe.typeAlphabet = typeAlphabet;
+            pipe.closeAlphabets();
+            // The readers report labeled input for each non-empty sentence; the
+            // instances created from the CAS are parsed the same way.
+            pipe.labeled = true;
+            return new DependencyParser(pipe, options, parameters);
         } catch (IOException e) {
             LOGGER.error("loadModel - Could not read from file. Message: " + e.getMessage());
             throw new RuntimeException(e);
-        } catch (Exception e) {
-            LOGGER.error("loadModel - An Error occurred. Message: " + e.getMessage());
-        }
-        return null;
-    }
-
-    private synchronized static boolean checkFirst() {
-        if (!first) {
-            first = true;
-            return true;
         }
-        return false;
-    }
-
-    private static synchronized void loadModelToPipe(DependencyPipe pipe, String file) {
-        pipe.dataAlphabet = dataAlphabet;
-        pipe.typeAlphabet = typeAlphabet;
-        while (pipe.dataAlphabet == null && pipe.typeAlphabet == null) {
-            try {
-                // System.out.println(pipe.testint + " waiting");
-                Thread.sleep(1000);
-            } catch (InterruptedException e) {
-                // TODO Auto-generated catch block
-                e.printStackTrace();
-            }
-            pipe.dataAlphabet = dataAlphabet;
-            pipe.typeAlphabet = typeAlphabet;
-        }
-        pipe.closeAlphabets();
     }
 
     /**
@@ -150,6 +117,23 @@ public class MSTParserWrapperImpl implements MSTParserWrapper, SharedResourceObj
         return parsedSentence;
     }
 
+    /**
+     * Let the parser parse a sentence given by its tokens and their part of speech tags. In contrast to
+     * {@link #predict(DependencyParser, String)}, this may be called concurrently with the same parser.
+     * 
+     * @param parser
+     *            - DependencyParser which will be parsing the sentence
+     * @param tokens
+     *            - The texts of the tokens of the sentence
+     * @param posTags
+     *            - The part of speech tags of the tokens
+     * @return The parsed sentence, preceded by the root
+     */
+    @Override
+    public DependencyInstance predict(DependencyParser parser, String[] tokens, String[] posTags) {
+        return parser.parse(tokens, posTags);
+    }
+
     @Override
     public void load(DataResource resource) throws ResourceInitializationException {
 //        //File configFile = new File(resource.getUri());
@@ -207,33 +191,23 @@ public class MSTParserWrapperImpl implements MSTParserWrapper, SharedResourceObj
 		loadModelParts(value_modelFileName, value_format);
     }
 
-    private static synchronized void loadModelParts(String modelFilename, String format) {
-        MSTParserWrapperImpl.modelFilename = modelFilename;
-        MSTParserWrapperImpl.format = format;
-        if (checkFirst()) {
-            GZIPInputStream gzin;
-            ObjectInputStream in;
-            try {
-                LOGGER.info("Loading model...");
-//                gzin = new GZIPInputStream(new FileInputStream(modelFilename));
-                gzin = new GZIPInputStream(readStreamFromFileSystemOrClassPath(modelFilename));
-                in = new ObjectInputStream(gzin);
-                parameters = (double[]) in.readObject();
-                dataAlphabet = (Alphabet) in.readObject();
-                typeAlphabet = (Alphabet) in.readObject();
-                in.close();
-            } catch (FileNotFoundException e) {
-                LOGGER.error("Model could not be loaded");
-                e.printStackTrace();
-            } catch (IOException e) {
-                LOGGER.error("Model could not be loaded");
-                e.printStackTrace();
-            } catch (ClassNotFoundException e) {
-                LOGGER.error("Model could not be loaded");
-                e.printStackTrace();
-            }
-        } else {
-            LOGGER.info("Model already loaded");
+    private void loadModelParts(String modelFilename, String format) throws ResourceInitializationException {
+        this.modelFilename = modelFilename;
+        this.format = format;
+        LOGGER.info("Loading model...");
+        InputStream is = readStreamFromFileSystemOrClassPath(modelFilename);
+        if (is == null) {
+            LOGGER.error("Model could not be loaded");
+            throw new ResourceInitializationException(
+                    new FileNotFoundException("The MST parser model " + modelFilename + " could not be found."));
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new GZIPInputStream(is))) {
+            parameters = (double[]) in.readObject();
+            dataAlphabet = (Alphabet) in.readObject();
+            typeAlphabet = (Alphabet) in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            LOGGER.error("Model could not be loaded");
+            throw new ResourceInitializationException(e);
         }
     }
 
@@ -7,7 +7,6 @@
 package edu.upenn.seas.mstparser;
 
 import java.io.*;
-import java.util.Arrays;
 
 public class DependencyParser {
 
@@ -17,12 +16,30 @@ public class DependencyParser {
     private DependencyDecoder decoder;
     private Parameters params;
 
+    /**
+     * Sentences up to this length, including the root, are parsed with the chart kept by the parsing thread. Longer
+     * sentences get their own chart so that their memory is released after parsing.
+     */
+    private static final int MAX_RETAINED_CHART_LENGTH = 256;
+
+    private final ThreadLocal<FirstOrderChart> charts = ThreadLocal.withInitial(FirstOrderChart::new);
+
     public DependencyParser(DependencyPipe pipe, ParserOptions options) {
+        this(pipe, options, new Parameters(pipe.dataAlphabet.size()));
+    }
+
+    /**
+     * Creates a parser for a trained model. The parameters are not copied and are never changed by parsing, so the
+     * model may be shared by several parsers.
+     */
+    public DependencyParser(DependencyPipe pipe, ParserOptions options, double[] parameters) {
+        this(pipe, options, new Parameters(parameters));
+    }
+
+    private DependencyParser(DependencyPipe pipe, ParserOptions options, Parameters params) {
         this.pipe = pipe;
         this.options = options;
-
-        // Set up arrays
-        params = new Parameters(pipe.dataAlphabet.size());
+        this.params = params;
         decoder = options.secondOrder ? new DependencyDecoder2O(pipe) : new DependencyDecoder(pipe);
     }
 
@@ -177,43 +194,7 @@ public class DependencyParser {
             // System.out.print(cnt+" ");
             String[] forms = instance.forms;
 
-            int length = forms.length;
-
-            FeatureVector[][][] fvs = new FeatureVector[forms.length][forms.length][2];
-            double[][][] probs = new double[forms.length][forms.length][2];
-            FeatureVector[][][][] nt_fvs = new FeatureVector[forms.length][pipe.types.length][2][2];
-            double[][][][] nt_probs = new double[forms.length][pipe.types.length][2][2];
-            FeatureVector[][][] fvs_trips = new FeatureVector[length][length][length];
-            double[][][] probs_trips = new double[length][length][length];
-            FeatureVector[][][] fvs_sibs = new FeatureVector[length][length][2];
-            double[][][] probs_sibs = new double[length][length][2];
-            if (options.secondOrder) {
-                ((DependencyPipe2O) pipe).fillFeatureVectors(instance, fvs, probs, fvs_trips, probs_trips, fvs_sibs,
-                        probs_sibs, nt_fvs, nt_probs, params);
-            } else {
-                pipe.fillFeatureVectors(instance, fvs, probs, nt_fvs, nt_probs, params);
-            }
-
-            int K = options.testK;
-            Object[][] d = null;
-            if (options.decodeType.equals("proj")) {
-                if (options.secondOrder) {
-                    d = ((DependencyDecoder2O) decoder).decodeProjective(instance, fvs, probs, fvs_trips, probs_trips,
-                            fvs_sibs, probs_sibs, nt_fvs, nt_probs, K);
-                } else {
-                    d = decoder.decodeProjective(instance, fvs, probs, nt_fvs, nt_probs, K);
-                }
-            }
-            if (options.decodeType.equals("non-proj")) {
-                if (options.secondOrder) {
-                    d = ((DependencyDecoder2O) decoder).decodeNonProjective(instance, fvs, probs, fvs_trips,
-                            probs_trips, fvs_sibs, probs_sibs, nt_fvs, nt_probs, K);
-                } else {
-                    d = decoder.decodeNonProjective(instance, fvs, probs, nt_fvs, nt_probs, K);
-                }
-            }
-
-            String[] res = ((String) d[0][1]).split(" ");
+            parse(instance);
 
             String[] pos = instance.cpostags;
 
@@ -222,15 +203,11 @@ public class DependencyParser {
             String[] labels = new String[formsNoRoot.length];
             int[] heads = new int[formsNoRoot.length];
 
-            Arrays.toString(forms);
-            Arrays.toString(res);
             for (int j = 0; j < formsNoRoot.length; j++) {
                 formsNoRoot[j] = forms[j + 1];
                 posNoRoot[j] = pos[j + 1];
-
-                String[] trip = res[j].split("[\\|:]");
-                labels[j] = pipe.types[Integer.parseInt(trip[2])];
-                heads[j] = Integer.parseInt(trip[0]);
+                labels[j] = instance.deprels[j + 1];
+                heads[j] = instance.heads[j + 1];
             }
 
             result = pipe.outputInstance(new DependencyInstance(formsNoRoot, posNoRoot, labels, heads), fileAccess);
@@ -255,6 +232,101 @@ public class DependencyParser {
         return result;
     }
 
+    /**
+     * Parses a single instance, e.g. one created by {@link DependencyPipe#createInstance(String[], String[])}, and sets
+     * its heads and dependency relations to those of the best parse. In contrast to {@link #outputParses(String)}, no
+     * input or output format is involved and the state of this parser is not changed, so several threads may parse
+     * with the same parser concurrently. First-order projective parsing for the best parse only - the default options
+     * for parsing - is done with a {@link FirstOrderChart} that is reused by the calling thread. All other options are
+     * handled by the decoders, just as in {@link #outputParses(String)}.
+     *
+     * @param instance
+     *            The instance to parse, including the root at index 0.
+     * @return <tt>instance</tt>
+     */
+    public DependencyInstance parse(DependencyInstance instance) {
+        int length = instance.length();
+        int[] heads = new int[length];
+        int[] types = new int[length];
+        if (!options.secondOrder && options.testK == 1 && options.decodeType.equals("proj")
+                && FirstOrderChart.canParse(length)) {
+            FirstOrderChart chart = length <= MAX_RETAINED_CHART_LENGTH ? charts.get() : new FirstOrderChart();
+            chart.parse(pipe, params, instance, heads, types);
+        } else {
+            String[] res = decode(instance).split(" ");
+            heads[0] = -1;
+            for (int j = 1; j < length; j++) {
+                String[] trip = res[j - 1].split("[\\|:]");
+                heads[j] = Integer.parseInt(trip[0]);
+                types[j] = Integer.parseInt(trip[2]);
+            }
+        }
+        String[] labels = new String[length];
+        labels[0] = "<no-type>";
+        for (int j = 1; j < length; j++) {
+            labels[j] = pipe.types[types[j]];
+        }
+        instance.heads = heads;
+        instance.deprels = labels;
+        return instance;
+    }
+
+    /**
+     * Parses a sentence given by its forms and part-of-speech tags, see {@link #parse(DependencyInstance)}.
+     *
+     * @return The parsed instance, including the root at index 0.
+     */
+    public DependencyInstance parse(String[] forms, String[] postags) {
+        return parse(pipe.createInstance(forms, postags));
+    }
+
+    /**
+     * @return The best parse of <tt>instance</tt> as found by the decoder, in the form of
+     *         {@link KBestParseForest#getDepString(ParseForestItem)}.
+     */
+    String decode(DependencyInstance instance) {
+        int length = instance.length();
+
+        FeatureVector[][][] fvs = new FeatureVector[length][length][2];
+        double[][][] probs = new double[length][length][2];
+        FeatureVector[][][][] nt_fvs = new FeatureVector[length][pipe.types.length][2][2];
+        double[][][][] nt_probs = new double[length][pipe.types.length][2][2];
+        FeatureVector[][][] fvs_trips = null;
+        double[][][] probs_trips = null;
+        FeatureVector[][][] fvs_sibs = null;
+        double[][][] probs_sibs = null;
+        if (options.secondOrder) {
+            fvs_trips = new FeatureVector[length][length][length];
+            probs_trips = new double[length][length][length];
+            fvs_sibs = new FeatureVector[length][length][2];
+            probs_sibs = new double[length][length][2];
+            ((DependencyPipe2O) pipe).fillFeatureVectors(instance, fvs, probs, fvs_trips, probs_trips, fvs_sibs,
+                    probs_sibs, nt_fvs, nt_probs, params);
+        } else {
+            pipe.fillFeatureVectors(instance, fvs, probs, nt_fvs, nt_probs, params);
+        }
+
+        int K = options.testK;
+        Object[][] d = null;
+        if (options.decodeType.equals("proj")) {
+            if (options.secondOrder) {
+                d = ((DependencyDecoder2O) decoder).decodeProjective(instance, fvs, probs, fvs_trips, probs_trips,
+                        fvs_sibs, probs_sibs, nt_fvs, nt_probs, K);
+            } else {
+                d = decoder.decodeProjective(instance, fvs, probs, nt_fvs, nt_probs, K);
+            }
+        }
+        if (options.decodeType.equals("non-proj")) {
+            if (options.secondOrder) {
+                d = ((DependencyDecoder2O) decoder).decodeNonProjective(instance, fvs, probs, fvs_trips,
+                        probs_trips, fvs_sibs, probs_sibs, nt_fvs, nt_probs, K);
+            } else {
+                d = decoder.decodeNonProjective(instance, fvs, probs, nt_fvs, nt_probs, K);
+            }
+        }
+        return (String) d[0][1];
+    }
+
     /////////////////////////////////////////////////////
     // RUNNING THE PARSER
     ////////////////////////////////////////////////////
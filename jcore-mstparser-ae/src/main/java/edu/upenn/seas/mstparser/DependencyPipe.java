@@ -67,6 +67,14 @@ public class DependencyPipe {
         }
     }
 
+    /**
+     * Creates the instance for a sentence with the given forms and part-of-speech tags as it would be read from the
+     * input in the format of this pipe. This does not change the state of the pipe and may be called concurrently.
+     */
+    public DependencyInstance createInstance(String[] forms, String[] postags) {
+        return depReader.createInstance(forms, postags);
+    }
+
     public String getType(int typeIndex) {
         return types[typeIndex];
     }
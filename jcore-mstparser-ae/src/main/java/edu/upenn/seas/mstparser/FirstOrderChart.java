@@ -0,0 +1,277 @@
+/**
+ * Copyright (c) 2026, JULIE Lab.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the  Eclipse Public License (EPL) v3.0
+ */
+
+package edu.upenn.seas.mstparser;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+
+/**
+ * <p>
+ * Finds the best projective parse of a sentence with a first-order model. This is what
+ * {@link DependencyDecoder#decodeProjective(DependencyInstance, FeatureVector[][][], double[][][], FeatureVector[][][][], double[][][][], int)}
+ * does for K = 1, with the same scores, the same tie breaking and thus the same result. The decoder is also used for
+ * training and therefore keeps the feature vectors of all edges and builds a k-best parse forest of
+ * {@link ParseForestItem}s. For parsing, only the edge and label scores and the best split point of each chart cell are
+ * needed.
+ * </p>
+ * <p>
+ * All arrays are flat, indexed by the sentence length, and kept for the next sentence. They only grow when a longer
+ * sentence comes along. Thus, a chart must only be used by one thread at a time.
+ * </p>
+ * <p>
+ * Parsing very long sentences takes a while. The chart stops with a {@link CancellationException} when the parsing
+ * thread is interrupted, e.g. because the parse was cancelled after a timeout.
+ * </p>
+ */
+class FirstOrderChart {
+
+    /**
+     * The scores of the edges, indexed by <tt>(small * n + large) * 2 + ph</tt> as in
+     * {@link DependencyPipe#fillFeatureVectors}.
+     */
+    private double[] probs = new double[0];
+    /**
+     * The scores of the labels, indexed by <tt>((word * numTypes + type) * 2 + ph) * 2 + ch</tt>.
+     */
+    private double[] ntProbs = new double[0];
+    /**
+     * The best label of the edge from head to child, indexed by <tt>head * n + child</tt>.
+     */
+    private int[] staticTypes = new int[0];
+    /**
+     * The scores and split points of the chart cells, indexed by <tt>((s * n + t) * 2 + dir) * 2 + comp</tt>.
+     */
+    private double[] scores = new double[0];
+    private int[] splits = new int[0];
+    private int[] stack = new int[0];
+
+    /**
+     * @return Whether a sentence of this length, including the root, can be indexed by the chart arrays.
+     */
+    static boolean canParse(int length) {
+        return 4L * length * length < Integer.MAX_VALUE;
+    }
+
+    /**
+     * Parses <tt>instance</tt> and writes the head and the type index of each word to <tt>heads</tt> and
+     * <tt>types</tt>. The root at index 0 gets head -1.
+     */
+    void parse(DependencyPipe pipe, Parameters params, DependencyInstance instance, int[] heads, int[] types) {
+        final int n = instance.length();
+        final int numTypes = pipe.types.length;
+        final boolean labeled = pipe.labeled;
+        heads[0] = -1;
+        types[0] = 0;
+        if (n < 2) {
+            return;
+        }
+        ensureCapacity(n, numTypes);
+        fillScores(pipe, params, instance, n, numTypes, labeled);
+
+        for (int s = 0; s < n; s++) {
+            scores[cell(n, s, s, 0, 0)] = 0.0;
+            scores[cell(n, s, s, 1, 0)] = 0.0;
+        }
+        for (int j = 1; j < n; j++) {
+            checkInterrupted();
+            for (int s = 0; s + j < n; s++) {
+                int t = s + j;
+
+                double prodProb_st = probs[(s * n + t) * 2];
+                double prodProb_ts = probs[(s * n + t) * 2 + 1];
+                int type1 = labeled ? staticTypes[s * n + t] : 0;
+                int type2 = labeled ? staticTypes[t * n + s] : 0;
+                double nt_prob_s_01 = 0.0;
+                double nt_prob_s_10 = 0.0;
+                double nt_prob_t_00 = 0.0;
+                double nt_prob_t_11 = 0.0;
+                if (labeled) {
+                    nt_prob_s_01 = ntProbs[((s * numTypes + type1) * 2) * 2 + 1];
+                    nt_prob_s_10 = ntProbs[((s * numTypes + type2) * 2 + 1) * 2];
+                    nt_prob_t_00 = ntProbs[((t * numTypes + type1) * 2) * 2];
+                    nt_prob_t_11 = ntProbs[((t * numTypes + type2) * 2 + 1) * 2 + 1];
+                }
+
+                // incomplete items: an edge between s and t
+                double best_st = Double.NEGATIVE_INFINITY;
+                double best_ts = Double.NEGATIVE_INFINITY;
+                int split_st = s;
+                int split_ts = s;
+                for (int r = s; r < t; r++) {
+                    double bc = scores[cell(n, s, r, 0, 0)] + scores[cell(n, r + 1, t, 1, 0)];
+
+                    double prob_fin = bc + prodProb_st;
+                    if (labeled) {
+                        prob_fin += nt_prob_s_01 + nt_prob_t_00;
+                    }
+                    if (prob_fin > best_st) {
+                        best_st = prob_fin;
+                        split_st = r;
+                    }
+
+                    prob_fin = bc + prodProb_ts;
+                    if (labeled) {
+                        prob_fin += nt_prob_t_11 + nt_prob_s_10;
+                    }
+                    if (prob_fin > best_ts) {
+                        best_ts = prob_fin;
+                        split_ts = r;
+                    }
+                }
+                setCell(cell(n, s, t, 0, 1), best_st, split_st);
+                setCell(cell(n, s, t, 1, 1), best_ts, split_ts);
+
+                // complete items
+                best_st = Double.NEGATIVE_INFINITY;
+                best_ts = Double.NEGATIVE_INFINITY;
+                split_st = s + 1;
+                split_ts = s;
+                for (int r = s; r <= t; r++) {
+                    if (r != s) {
+                        double bc = scores[cell(n, s, r, 0, 1)] + scores[cell(n, r, t, 0, 0)];
+                        if (bc > best_st) {
+                            best_st = bc;
+                            split_st = r;
+                        }
+                    }
+                    if (r != t) {
+                        double bc = scores[cell(n, s, r, 1, 0)] + scores[cell(n, r, t, 1, 1)];
+                        if (bc > best_ts) {
+                            best_ts = bc;
+                            split_ts = r;
+                        }
+                    }
+                }
+                setCell(cell(n, s, t, 0, 0), best_st, split_st);
+                setCell(cell(n, s, t, 1, 0), best_ts, split_ts);
+            }
+        }
+
+        readParse(n, labeled, heads, types);
+    }
+
+    /**
+     * The same scores as computed by {@link DependencyPipe#fillFeatureVectors}, without keeping the feature vectors.
+     */
+    private void fillScores(DependencyPipe pipe, Parameters params, DependencyInstance instance, int n, int numTypes,
+            boolean labeled) {
+        for (int w1 = 0; w1 < n; w1++) {
+            checkInterrupted();
+            for (int w2 = w1 + 1; w2 < n; w2++) {
+                for (int ph = 0; ph < 2; ph++) {
+                    FeatureVector prodFV = new FeatureVector();
+                    pipe.addCoreFeatures(instance, w1, w2, ph == 0, prodFV);
+                    probs[(w1 * n + w2) * 2 + ph] = params.getScore(prodFV);
+                }
+            }
+        }
+
+        if (labeled) {
+            for (int w1 = 0; w1 < n; w1++) {
+                for (int t = 0; t < numTypes; t++) {
+                    for (int ph = 0; ph < 2; ph++) {
+                        for (int ch = 0; ch < 2; ch++) {
+                            FeatureVector prodFV = new FeatureVector();
+                            pipe.addLabeledFeatures(instance, w1, pipe.types[t], ph == 0, ch == 0, prodFV);
+                            ntProbs[((w1 * numTypes + t) * 2 + ph) * 2 + ch] = params.getScore(prodFV);
+                        }
+                    }
+                }
+            }
+
+            // the best type of each edge, see DependencyDecoder#getTypes
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    if (i == j) {
+                        staticTypes[i * n + j] = 0;
+                        continue;
+                    }
+                    int ph = i < j ? 0 : 1;
+                    int wh = -1;
+                    double best = Double.NEGATIVE_INFINITY;
+                    for (int t = 0; t < numTypes; t++) {
+                        double score = ntProbs[((i * numTypes + t) * 2 + ph) * 2 + 1]
+                                + ntProbs[((j * numTypes + t) * 2 + ph) * 2];
+                        if (score > best) {
+                            wh = t;
+                            best = score;
+                        }
+                    }
+                    staticTypes[i * n + j] = wh;
+                }
+            }
+        }
+    }
+
+    /**
+     * Follows the split points from the complete item spanning the whole sentence and collects the edges of the
+     * incomplete items on the way.
+     */
+    private void readParse(int n, boolean labeled, int[] heads, int[] types) {
+        int size = 0;
+        stack[size++] = cell(n, 0, n - 1, 0, 0);
+        while (size > 0) {
+            int c = stack[--size];
+            int comp = c & 1;
+            int dir = (c >> 1) & 1;
+            int s = (c >> 2) / n;
+            int t = (c >> 2) % n;
+            if (s == t) {
+                continue;
+            }
+            int r = splits[c];
+            if (size + 2 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            if (comp == 1) {
+                if (dir == 0) {
+                    heads[t] = s;
+                    types[t] = labeled ? staticTypes[s * n + t] : 0;
+                } else {
+                    heads[s] = t;
+                    types[s] = labeled ? staticTypes[t * n + s] : 0;
+                }
+                stack[size++] = cell(n, s, r, 0, 0);
+                stack[size++] = cell(n, r + 1, t, 1, 0);
+            } else if (dir == 0) {
+                stack[size++] = cell(n, s, r, 0, 1);
+                stack[size++] = cell(n, r, t, 0, 0);
+            } else {
+                stack[size++] = cell(n, s, r, 1, 0);
+                stack[size++] = cell(n, r, t, 1, 1);
+            }
+        }
+    }
+
+    private static void checkInterrupted() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Parsing was interrupted.");
+        }
+    }
+
+    private void setCell(int cell, double score, int split) {
+        scores[cell] = score;
+        splits[cell] = split;
+    }
+
+    private static int cell(int n, int s, int t, int dir, int comp) {
+        return ((s * n + t) * 2 + dir) * 2 + comp;
+    }
+
+    private void ensureCapacity(int n, int numTypes) {
+        if (scores.length < 4 * n * n) {
+            scores = new double[4 * n * n];
+            splits = new int[4 * n * n];
+            probs = new double[2 * n * n];
+            staticTypes = new int[n * n];
+            stack = new int[4 * n];
+        }
+        if (ntProbs.length < 4 * n * numTypes) {
+            ntProbs = new double[4 * n * numTypes];
+        }
+    }
+}
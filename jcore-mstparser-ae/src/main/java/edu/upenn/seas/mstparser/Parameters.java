@@ -24,6 +24,13 @@ public class Parameters {
         lossType = "punc";
     }
 
+    /**
+     * Parameters for parsing only, i.e. the parameters of a trained model without the arrays needed for training.
+     */
+    public Parameters(double[] parameters) {
+        this.parameters = parameters;
+    }
+
     public void setLoss(String lt) {
         lossType = lt;
     }
@@ -57,6 +57,40 @@ public class CONLLReader extends DependencyReader {
 	    return null;
 	}
 
+	ArrayList<RelationalFeature> rfeats = 
+	    new ArrayList<RelationalFeature>();
+	
+	while (line != null && !line.equals("")) {
+	    rfeats.add(new RelationalFeature(length, line, inputReader));
+	    line = inputReader.readLine();
+	}
+
+	RelationalFeature[] rfeatsList = new RelationalFeature[rfeats.size()];
+	rfeats.toArray(rfeatsList);
+
+	// End of discourse stuff.
+
+	return createInstance(lineList, rfeatsList);
+
+    }
+
+    /**
+     * Creates the instance for a sentence to be parsed, exactly as {@link #getNext()} would
+     * read it from CoNLL lines without lemmas, features, heads and labels.
+     */
+    public DependencyInstance createInstance(String[] forms, String[] postags) {
+
+	ArrayList<String[]> lineList = new ArrayList<String[]>(forms.length);
+	for(int i = 0; i < forms.length; i++)
+	    lineList.add(new String[] {Integer.toString(i+1), forms[i], "_", postags[i], postags[i], "_", "0", "<no-type>"});
+
+	return createInstance(lineList, new RelationalFeature[0]);
+    }
+
+    private DependencyInstance createInstance(ArrayList<String[]> lineList, RelationalFeature[] rfeatsList) {
+
+	int length = lineList.size();
+
 	String[] forms = new String[length+1];
 	String[] lemmas = new String[length+1];
 	String[] cpos = new String[length+1];
@@ -100,19 +134,6 @@ public class CONLLReader extends DependencyReader {
 	    feats = extended_feats;
 	}
 
-	ArrayList<RelationalFeature> rfeats = 
-	    new ArrayList<RelationalFeature>();
-	
-	while (line != null && !line.equals("")) {
-	    rfeats.add(new RelationalFeature(length, line, inputReader));
-	    line = inputReader.readLine();
-	}
-
-	RelationalFeature[] rfeatsList = new RelationalFeature[rfeats.size()];
-	rfeats.toArray(rfeatsList);
-
-	// End of discourse stuff.
-
 	return new DependencyInstance(forms, lemmas, cpos, pos, feats, deprels, heads, rfeatsList);
 
     }
@@ -13,6 +13,7 @@
 package edu.upenn.seas.mstparser.io;
 
 import java.io.*;
+import java.util.regex.Pattern;
 
 /**
  * A class that defines common behavior and abstract methods for
@@ -27,6 +28,8 @@ import java.io.*;
  */
 public abstract class DependencyReader {
 
+	private static final Pattern NUMBER = Pattern.compile("[0-9]+|[0-9]+\\.[0-9]+|[0-9]+[0-9,]+");
+
 	protected BufferedReader inputReader;
 	protected boolean labeled = true;
 
@@ -76,11 +79,19 @@ public abstract class DependencyReader {
 
 	public abstract edu.upenn.seas.mstparser.DependencyInstance getNext() throws IOException;
 
+	/**
+	 * Creates the instance that {@link #getNext()} would read for a sentence with the given
+	 * forms and part-of-speech tags, without going through the text format. Used to parse
+	 * sentences that are already tokenized and tagged. This method does not use the input
+	 * reader and may be called concurrently.
+	 */
+	public abstract edu.upenn.seas.mstparser.DependencyInstance createInstance(String[] forms, String[] postags);
+
 	protected abstract boolean fileContainsLabels(String filename, boolean fileAccess) throws IOException;
 
 
 	protected String normalize (String s) {
-		if(s.matches("[0-9]+|[0-9]+\\.[0-9]+|[0-9]+[0-9,]+"))
+		if(NUMBER.matcher(s).matches())
 			return "<num>";
 
 		return s;
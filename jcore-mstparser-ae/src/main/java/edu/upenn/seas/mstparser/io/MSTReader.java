@@ -17,6 +17,7 @@ import edu.upenn.seas.mstparser.Util;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * A reader for files in MST format.
@@ -50,6 +51,22 @@ public class MSTReader extends DependencyReader {
 	String[] deprels = deprel_line.split("\t");
 	int[] heads = Util.stringsToInts(heads_line.split("\t"));
 
+	return createInstance(forms, pos, deprels, heads);
+    }
+
+    /**
+     * Creates the instance for a sentence to be parsed, exactly as {@link #getNext()} would
+     * read it from MST lines without heads and labels.
+     */
+    public DependencyInstance createInstance(String[] forms, String[] postags) {
+
+	String[] deprels = new String[forms.length];
+	Arrays.fill(deprels, "<no-type>");
+	return createInstance(forms, postags, deprels, new int[forms.length]);
+    }
+
+    private DependencyInstance createInstance(String[] forms, String[] pos, String[] deprels, int[] heads) {
+
 	String[] forms_new = new String[forms.length+1];
 	String[] pos_new = new String[pos.length+1];
 	String[] deprels_new = new String[deprels.length+1];
@@ -0,0 +1,158 @@
+/**
+ * Copyright (c) 2026, JULIE Lab.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the  Eclipse Public License (EPL) v3.0
+ */
+
+package edu.upenn.seas.mstparser;
+
+import edu.upenn.seas.mstparser.io.DependencyReader;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.ObjectInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class DependencyParserTest {
+
+    private static final String MODEL = "src/test/resources/de/julielab/jcore/ae/mstparser/model/test.model.gz";
+
+    private static final String DATA = "src/main/resources/de/julielab/jcore/ae/mstparser/data/geniaRmCood.conll";
+
+    private static final int NUM_SENTENCES = 20;
+
+    private static double[] parameters;
+    private static Alphabet dataAlphabet;
+    private static Alphabet typeAlphabet;
+    private static List<String[][]> sentences;
+
+    @BeforeAll
+    public static void setup() throws Exception {
+        try (ObjectInputStream in = new ObjectInputStream(new GZIPInputStream(new FileInputStream(MODEL)))) {
+            parameters = (double[]) in.readObject();
+            dataAlphabet = (Alphabet) in.readObject();
+            typeAlphabet = (Alphabet) in.readObject();
+        }
+        sentences = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(
+                new InputStreamReader(new FileInputStream(DATA), StandardCharsets.UTF_8))) {
+            List<String> forms = new ArrayList<>();
+            List<String> postags = new ArrayList<>();
+            String line;
+            while ((line = br.readLine()) != null && sentences.size() < NUM_SENTENCES) {
+                if (line.trim().isEmpty()) {
+                    if (!forms.isEmpty()) {
+                        sentences.add(new String[][] { forms.toArray(new String[0]), postags.toArray(new String[0]) });
+                        forms.clear();
+                        postags.clear();
+                    }
+                } else {
+                    String[] columns = line.split("\t");
+                    forms.add(columns[1]);
+                    postags.add(columns[4]);
+                }
+            }
+        }
+    }
+
+    private DependencyPipe createPipe(String format) throws Exception {
+        DependencyPipe pipe = new DependencyPipe(
+                new ParserOptions(new String[] { "model-name:" + MODEL, "format:" + format }));
+        pipe.dataAlphabet = dataAlphabet;
+        pipe.typeAlphabet = typeAlphabet;
+        pipe.closeAlphabets();
+        pipe.labeled = true;
+        return pipe;
+    }
+
+    private DependencyParser createParser(String format) throws Exception {
+        ParserOptions options = new ParserOptions(new String[] { "model-name:" + MODEL, "format:" + format });
+        DependencyPipe pipe = createPipe(format);
+        return new DependencyParser(pipe, options, parameters);
+    }
+
+    @Test
+    public void testCreateInstanceAsReadFromConll() throws Exception {
+        DependencyPipe pipe = createPipe("CONLL");
+        DependencyReader reader = DependencyReader.createDependencyReader("CONLL");
+        for (String[][] sentence : sentences) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < sentence[0].length; i++) {
+                sb.append(i + 1).append('\t').append(sentence[0][i]).append("\t_\t").append(sentence[1][i]).append('\t')
+                        .append(sentence[1][i]).append("\t_\t0\t<no-type>\n");
+            }
+            reader.startReading(sb.toString(), false);
+            assertInstanceEquals(reader.getNext(), pipe.createInstance(sentence[0], sentence[1]));
+        }
+    }
+
+    @Test
+    public void testCreateInstanceAsReadFromMst() throws Exception {
+        DependencyPipe pipe = createPipe("MST");
+        DependencyReader reader = DependencyReader.createDependencyReader("MST");
+        for (String[][] sentence : sentences) {
+            String[] labels = new String[sentence[0].length];
+            String[] heads = new String[sentence[0].length];
+            Arrays.fill(labels, "<no-type>");
+            Arrays.fill(heads, "0");
+            reader.startReading(String.join("\t", sentence[0]) + "\n" + String.join("\t", sentence[1]) + "\n"
+                    + String.join("\t", labels) + "\n" + String.join("\t", heads) + "\n", false);
+            assertInstanceEquals(reader.getNext(), pipe.createInstance(sentence[0], sentence[1]));
+        }
+    }
+
+    @Test
+    public void testFirstOrderChartFindsTheParseOfTheDecoder() throws Exception {
+        DependencyParser parser = createParser("CONLL");
+        for (String[][] sentence : sentences) {
+            DependencyInstance instance = parser.parse(sentence[0], sentence[1]);
+            String[] res = parser.decode(instance).split(" ");
+            for (int j = 1; j < instance.length(); j++) {
+                String[] trip = res[j - 1].split("[\\|:]");
+                assertEquals(Integer.parseInt(trip[0]), instance.heads[j]);
+                assertEquals(Integer.parseInt(trip[2]), typeAlphabet.lookupIndex(instance.deprels[j]));
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentParsing() throws Exception {
+        DependencyParser parser = createParser("CONLL");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<DependencyInstance>> futures = new ArrayList<>();
+            for (String[][] sentence : sentences) {
+                futures.add(executor.submit(() -> parser.parse(sentence[0], sentence[1])));
+            }
+            for (int i = 0; i < sentences.size(); i++) {
+                DependencyInstance expected = parser.parse(sentences.get(i)[0], sentences.get(i)[1]);
+                DependencyInstance actual = futures.get(i).get();
+                assertArrayEquals(expected.heads, actual.heads);
+                assertArrayEquals(expected.deprels, actual.deprels);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void assertInstanceEquals(DependencyInstance expected, DependencyInstance actual) {
+        assertArrayEquals(expected.forms, actual.forms);
+        assertArrayEquals(expected.lemmas, actual.lemmas);
+        assertArrayEquals(expected.cpostags, actual.cpostags);
+        assertArrayEquals(expected.postags, actual.postags);
+        assertArrayEquals(expected.feats, actual.feats);
+    }
+}
@@ -107,6 +107,27 @@ public class CasPopulator {
         truncateTextAndAnnotations(documentText, cas);
     }
 
+    /**
+     * Populates the CAS with the given document. Unlike {@link #populateCas(URI, JCas)}, this method does not skip to
+     * the next document if the given one cannot be parsed.
+     *
+     * @param nxml The uncompressed NXML document.
+     * @param cas  The CAS to populate.
+     * @throws ElementParsingException  If an element of the document cannot be parsed.
+     * @throws NoDataAvailableException If the document cannot be parsed.
+     */
+    public void populateCas(byte[] nxml, JCas cas) throws ElementParsingException, NoDataAvailableException {
+        ElementParsingResult result;
+        try {
+            nxmlDocumentParser.reset(nxml, cas);
+            result = nxmlDocumentParser.parse();
+        } catch (DocumentParsingException e) {
+            throw new NoDataAvailableException(e);
+        }
+        String documentText = populateCas(result, new StringBuilder()).toString();
+        truncateTextAndAnnotations(documentText, cas);
+    }
+
     /**
      * This is the actual method that reads the parsing results, created the CAS document text and adds
      * the annotations from the parsing results.
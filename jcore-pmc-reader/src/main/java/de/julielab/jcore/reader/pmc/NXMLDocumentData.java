@@ -0,0 +1,26 @@
+package de.julielab.jcore.reader.pmc;
+
+import java.net.URI;
+
+/**
+ * The raw, uncompressed contents of an NXML document together with the URI it was read from. For documents from
+ * within archives, the URI has the form <tt>jar:file:/path/archive.zip!/entry</tt> or
+ * <tt>tar:file:/path/archive.tar.gz!/entry</tt>.
+ */
+public class NXMLDocumentData {
+    private final URI uri;
+    private final byte[] data;
+
+    public NXMLDocumentData(URI uri, byte[] data) {
+        this.uri = uri;
+        this.data = data;
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+}
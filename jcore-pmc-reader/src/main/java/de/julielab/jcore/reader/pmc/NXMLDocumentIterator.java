@@ -0,0 +1,253 @@
+package de.julielab.jcore.reader.pmc;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * <p>
+ * Searches over directories and, optionally, the contents of ZIP and tar archives for files with an (n)xml extension
+ * and returns their contents. In contrast to the {@link NXMLURIIterator}, the documents are already read by a bounded
+ * number of background threads. Each thread walks a directory and reads its documents. Subdirectories are handed to
+ * the other threads. Archives are streamed once from beginning to end by one thread instead of opening every entry on
+ * its own, which would re-read the archive index each time. GZIP compressed documents are decompressed. Thus, the
+ * returned data is always plain NXML.
+ * </p>
+ * <p>
+ * The order of the documents is not deterministic.
+ * </p>
+ */
+public class NXMLDocumentIterator implements Iterator<NXMLDocumentData> {
+    private final static Logger log = LoggerFactory.getLogger(NXMLDocumentIterator.class);
+    private final File basePath;
+    private final Set<String> whitelist;
+    private final boolean searchRecursively;
+    private final boolean searchArchives;
+    private final int numThreads;
+    private final BlockingQueue<NXMLDocumentData> documents = new ArrayBlockingQueue<>(500);
+    /**
+     * The number of directories and archives that are waiting to be read or are currently read.
+     */
+    private final AtomicInteger pendingTasks = new AtomicInteger();
+    private final AtomicLong numDocuments = new AtomicLong();
+    private final AtomicLong numBytes = new AtomicLong();
+    private ExecutorService executor;
+    private volatile Throwable error;
+    private NXMLDocumentData currentDocument;
+    private long startTime;
+    private boolean finished;
+
+    public NXMLDocumentIterator(File basePath, Set<String> whitelist, boolean searchRecursively, boolean searchArchives, int numThreads) throws FileNotFoundException {
+        this.whitelist = whitelist != null ? whitelist : new HashSet<>(Collections.singletonList("all"));
+        if (!basePath.exists())
+            throw new FileNotFoundException("The path " + basePath.getAbsolutePath() + " does not exist.");
+        if (numThreads <= 0)
+            throw new IllegalArgumentException("The number of threads must be positive but was " + numThreads);
+        this.basePath = basePath;
+        this.searchRecursively = searchRecursively;
+        this.searchArchives = searchArchives;
+        this.numThreads = numThreads;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (executor == null && !finished) {
+            log.debug("Starting {} background threads to read PMC (.xml) files at {}", numThreads, basePath);
+            executor = Executors.newFixedThreadPool(numThreads, r -> {
+                Thread t = new Thread(r, "PMC file reader");
+                t.setDaemon(true);
+                return t;
+            });
+            startTime = System.nanoTime();
+            submit(() -> read(basePath));
+        }
+        try {
+            while (currentDocument == null && !finished) {
+                currentDocument = documents.poll(100, TimeUnit.MILLISECONDS);
+                if (error != null) {
+                    close();
+                    throw new UncheckedPmcReaderException(error);
+                }
+                if (currentDocument == null && pendingTasks.get() == 0) {
+                    // All tasks are done, only the queue remains
+                    currentDocument = documents.poll();
+                    if (currentDocument == null) {
+                        close();
+                        logThroughput();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            log.error("Interrupted while waiting for the next PMC document.");
+            throw new UncheckedPmcReaderException(e);
+        }
+        return currentDocument != null;
+    }
+
+    @Override
+    public NXMLDocumentData next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        NXMLDocumentData ret = currentDocument;
+        currentDocument = null;
+        return ret;
+    }
+
+    /**
+     * Stops the background threads.
+     */
+    public void close() {
+        finished = true;
+        if (executor != null)
+            executor.shutdownNow();
+    }
+
+    /**
+     * @return The number of documents read so far.
+     */
+    public long getNumDocuments() {
+        return numDocuments.get();
+    }
+
+    /**
+     * @return The number of bytes of the (uncompressed) documents read so far.
+     */
+    public long getNumBytes() {
+        return numBytes.get();
+    }
+
+    private void logThroughput() {
+        final double seconds = (System.nanoTime() - startTime) / 1000000000d;
+        final double megabytes = numBytes.get() / (1024d * 1024d);
+        log.info("Read {} PMC documents with {} MB in {} s: {} files/s, {} MB/s", numDocuments.get(), String.format("%.2f", megabytes), String.format("%.2f", seconds), String.format("%.2f", numDocuments.get() / seconds), String.format("%.2f", megabytes / seconds));
+    }
+
+    private void submit(IOTask task) {
+        pendingTasks.incrementAndGet();
+        executor.execute(() -> {
+            try {
+                task.run();
+            } catch (Throwable t) {
+                log.error("Error while reading PMC documents", t);
+                error = t;
+            } finally {
+                pendingTasks.decrementAndGet();
+            }
+        });
+    }
+
+    private void read(File file) throws IOException, InterruptedException {
+        if (file.isDirectory()) {
+            readDirectory(file);
+        } else if (isZipFile(file)) {
+            readZipArchive(file);
+        } else if (isTarFile(file)) {
+            readTarArchive(file);
+        } else {
+            put(file.toURI(), file.getName(), Files.readAllBytes(file.toPath()));
+        }
+    }
+
+    private void readDirectory(File directory) throws IOException, InterruptedException {
+        log.debug("Reading directory {}", directory);
+        List<File> archives = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory.toPath())) {
+            for (Path entry : entries) {
+                final File file = entry.toFile();
+                if (Files.isDirectory(entry)) {
+                    if (searchRecursively)
+                        submit(() -> readDirectory(file));
+                } else if (isZipFile(file) || isTarFile(file)) {
+                    if (searchArchives)
+                        archives.add(file);
+                } else if (isNxmlFile(file.getName()) && isInWhitelist(file.getName())) {
+                    put(file.toURI(), file.getName(), Files.readAllBytes(entry));
+                }
+            }
+        }
+        // Archives are large, let each be streamed by its own thread
+        for (File archive : archives)
+            submit(() -> read(archive));
+    }
+
+    private void readZipArchive(File archive) throws IOException, InterruptedException {
+        log.debug("Streaming ZIP archive {}", archive);
+        try (ZipInputStream zis = new ZipInputStream(new BufferedInputStream(Files.newInputStream(archive.toPath()), 65536))) {
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                final String name = entry.getName();
+                if (!entry.isDirectory() && isNxmlFile(name) && isInWhitelist(getFileName(name)))
+                    put(URI.create(NXMLURIIterator.getArchiveEntryUriString("jar", archive, name)), name, zis.readAllBytes());
+            }
+        }
+    }
+
+    private void readTarArchive(File archive) throws IOException, InterruptedException {
+        log.debug("Streaming tar archive {}", archive);
+        InputStream is = new BufferedInputStream(Files.newInputStream(archive.toPath()), 65536);
+        if (!archive.getName().toLowerCase().endsWith(".tar"))
+            is = new BufferedInputStream(new GZIPInputStream(is, 65536), 65536);
+        try (InputStream tis = is) {
+            final TarEntryStream tar = new TarEntryStream(tis);
+            while (tar.nextEntry()) {
+                final String name = tar.getName();
+                if (tar.isFile() && isNxmlFile(name) && isInWhitelist(getFileName(name)))
+                    put(URI.create(NXMLURIIterator.getArchiveEntryUriString("tar", archive, name)), name, tar.readContent());
+            }
+        }
+    }
+
+    private void put(URI uri, String name, byte[] data) throws IOException, InterruptedException {
+        if (name.endsWith(".gz") || name.endsWith(".gzip")) {
+            try (InputStream is = new GZIPInputStream(new ByteArrayInputStream(data))) {
+                data = is.readAllBytes();
+            }
+        }
+        documents.put(new NXMLDocumentData(uri, data));
+        numDocuments.incrementAndGet();
+        numBytes.addAndGet(data.length);
+    }
+
+    private boolean isInWhitelist(String fileName) {
+        return NXMLURIIterator.isInWhitelist(whitelist, fileName.substring(0, fileName.indexOf('.')));
+    }
+
+    private static String getFileName(String entryName) {
+        return entryName.substring(entryName.lastIndexOf('/') + 1);
+    }
+
+    private static boolean isNxmlFile(String name) {
+        return name.contains(".xml") || name.contains(".nxml");
+    }
+
+    private static boolean isZipFile(File file) {
+        return file.getName().toLowerCase().endsWith(".zip");
+    }
+
+    private static boolean isTarFile(File file) {
+        final String name = file.getName().toLowerCase();
+        return name.endsWith(".tar") || name.endsWith(".tar.gz") || name.endsWith(".tgz");
+    }
+
+    @FunctionalInterface
+    private interface IOTask {
+        void run() throws IOException, InterruptedException;
+    }
+}
@@ -107,10 +107,7 @@ public class NXMLURIIterator implements Iterator<URI> {
                     while (entries.hasMoreElements()) {
                         final ZipEntry e = entries.nextElement();
                         if (!e.isDirectory() && (e.getName().contains(".xml") || e.getName().contains(".nxml")) && isInWhitelist(new File(e.getName()))) {
-                            final String urlStr = "jar:" + directory.toURI() + "!/" + e.getName();
-                            int exclamationIndex = urlStr.indexOf('!');
-                            final String urlEncodedStr = urlStr.substring(0, exclamationIndex + 2) + Stream.of(urlStr.substring(exclamationIndex + 2).split("/")).map(x -> URLEncoder.encode(x, UTF_8)).collect(Collectors.joining("/"));
-                            URL url = new URL(urlEncodedStr);
+                            URL url = new URL(getArchiveEntryUriString("jar", directory, e.getName()));
                             try {
                                 final URI uri = url.toURI();
                                 logFileSearch.trace("Waiting to put URI {} into queue", uri);
@@ -169,6 +166,13 @@ public class NXMLURIIterator implements Iterator<URI> {
         logFileSearch.trace("A file search method call for {} has finished. This was a {} call.", directory, (recursiveCall ? "recursive" : "non-recursive"));
     }
 
+    /**
+     * @return A string of the form <tt>scheme:file:/path/archive!/entry</tt> with the URL-encoded entry path.
+     */
+    static String getArchiveEntryUriString(String scheme, File archive, String entryName) {
+        return scheme + ":" + archive.toURI() + "!/" + Stream.of(entryName.split("/")).map(x -> URLEncoder.encode(x, UTF_8)).collect(Collectors.joining("/"));
+    }
+
     private boolean isZipFile(File directory) {
         return directory.getName().toLowerCase().endsWith(".zip");
     }
@@ -182,6 +186,15 @@ public class NXMLURIIterator implements Iterator<URI> {
     }
 
     private boolean isInWhitelist(String name) {
+        return isInWhitelist(whitelist, name);
+    }
+
+    /**
+     * @param whitelist The document names to read or a set only containing <tt>all</tt>.
+     * @param name      A file name without extensions.
+     * @return Whether the document with the given name should be read.
+     */
+    static boolean isInWhitelist(Set<String> whitelist, String name) {
         boolean inWhitelist = whitelist.contains(name) || (whitelist.size() == 1 && whitelist.contains("all"));
         if (!inWhitelist)
             logFileSearch.trace("Skipping document with name/id {} because it is not contained in the white list.", name);
@@ -14,6 +14,7 @@ import de.julielab.jcore.reader.pmc.parser.ElementParsingException;
 import de.julielab.jcore.types.Header;
 import org.apache.uima.UimaContext;
 import org.apache.uima.collection.CollectionException;
+import org.apache.uima.fit.descriptor.ConfigurationParameter;
 import org.apache.uima.fit.descriptor.ResourceMetaData;
 import org.apache.uima.fit.descriptor.TypeCapability;
 import org.apache.uima.jcas.JCas;
@@ -23,6 +24,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.Optional;
 
 @ResourceMetaData(name = "JCoRe Pubmed Central Reader", description = "Reads Pubmed Central documents from the NXML format")
 @TypeCapability(outputs = {"de.julielab.jcore.types.TitleType", "de.julielab.jcore.types.Title", "de.julielab.jcore.types.TextObject", "de.julielab.jcore.types.Table", "de.julielab.jcore.types.SectionTitle", "de.julielab.jcore.types.Section", "de.julielab.jcore.types.PubType", "de.julielab.jcore.types.Paragraph", "de.julielab.jcore.types.OtherPub", "de.julielab.jcore.types.pubmed.OtherID", "de.julielab.jcore.types.pubmed.ManualDescriptor", "de.julielab.jcore.types.Keyword", "de.julielab.jcore.types.Journal", "de.julielab.jcore.types.pubmed.Header", "de.julielab.jcore.types.Footnote", "de.julielab.jcore.types.Figure", "de.julielab.jcore.types.Date", "de.julielab.jcore.types.CaptionType", "de.julielab.jcore.types.Caption", "de.julielab.jcore.types.AutoDescriptor", "de.julielab.jcore.types.AuthorInfo", "de.julielab.jcore.types.AbstractText", "de.julielab.jcore.types.AbstractSectionHeading", "de.julielab.jcore.types.AbstractSection"})
@@ -34,13 +36,24 @@ public class PMCReader extends PMCReaderBase {
     public static final String PARAM_WHITELIST = PMCReaderBase.PARAM_WHITELIST;
     public static final String PARAM_EXTRACT_ID_FROM_FILENAME = PMCReaderBase.PARAM_EXTRACT_ID_FROM_FILENAME;
     public static final String PARAM_OMIT_BIB_REFERENCES = PMCReaderBase.PARAM_OMIT_BIB_REFERENCES;
+    public static final String PARAM_READ_IN_BACKGROUND = "ReadInBackground";
+    public static final String PARAM_NUM_READ_THREADS = "NumReadThreads";
     private static final Logger log = LoggerFactory.getLogger(PMCReader.class);
+    @ConfigurationParameter(name = PARAM_READ_IN_BACKGROUND, mandatory = false, defaultValue = "false", description = "If set to true, the documents are read from disk by background threads and handed to the parser in memory. Directories are then walked in parallel and ZIP archives are read from beginning to end once instead of opening each entry separately. In this mode, tar archives (.tar, .tar.gz, .tgz) are also searched if " + PARAM_SEARCH_ZIP + " is set to true. The order of the documents is not deterministic. Defaults to false.")
+    private boolean readInBackground;
+    @ConfigurationParameter(name = PARAM_NUM_READ_THREADS, mandatory = false, defaultValue = "4", description = "The number of threads reading documents if " + PARAM_READ_IN_BACKGROUND + " is set to true. Defaults to 4.")
+    private int numReadThreads;
     private CasPopulator casPopulator;
+    private NXMLDocumentIterator pmcDocuments;
 
     @Override
     public void initialize(UimaContext context) throws ResourceInitializationException {
         super.initialize(context);
+        readInBackground = Optional.ofNullable((Boolean) getConfigParameterValue(PARAM_READ_IN_BACKGROUND)).orElse(false);
+        numReadThreads = Optional.ofNullable((Integer) getConfigParameterValue(PARAM_NUM_READ_THREADS)).orElse(4);
         try {
+            if (readInBackground)
+                pmcDocuments = new NXMLDocumentIterator(input, whitelist, searchRecursively, searchZip, numReadThreads);
             casPopulator = new CasPopulator(pmcFiles, omitBibReferences);
         } catch (IOException e) {
             log.error("Exception occurred when trying to initialize NXML parser", e);
@@ -48,8 +61,17 @@ public class PMCReader extends PMCReaderBase {
         }
     }
 
+    @Override
+    public boolean hasNext() {
+        return readInBackground ? pmcDocuments.hasNext() : super.hasNext();
+    }
+
     @Override
     public void getNext(JCas cas) throws CollectionException {
+        if (readInBackground) {
+            getNextFromBackground(cas);
+            return;
+        }
         URI next = null;
         try {
             next = pmcFiles.next();
@@ -64,4 +86,36 @@ public class PMCReader extends PMCReaderBase {
         }
         completed++;
     }
+
+    private void getNextFromBackground(JCas cas) throws CollectionException {
+        NXMLDocumentData next = null;
+        boolean populated = false;
+        // skip documents that cannot be parsed as long as there are more documents
+        while (!populated && pmcDocuments.hasNext()) {
+            next = pmcDocuments.next();
+            try {
+                casPopulator.populateCas(next.getData(), cas);
+                populated = true;
+            } catch (ElementParsingException e) {
+                log.error("Exception occurred when trying to parse {}", next.getUri(), e);
+                throw new CollectionException(e);
+            } catch (NoDataAvailableException e) {
+                log.warn("Error occurred when trying to read from URI {}: {}. Skipping document.", next.getUri(), e.getMessage());
+                cas.reset();
+            }
+        }
+        if (!populated) {
+            log.error("Could not populate CAS due to preceding error.");
+        } else if (extractIdFromFilename) {
+            ((Header) cas.getAnnotationIndex(Header.type).iterator().next()).setDocId(getIdFromFilename(next.getUri()));
+        }
+        completed++;
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        if (pmcDocuments != null)
+            pmcDocuments.close();
+    }
 }
@@ -50,6 +50,8 @@ public abstract class PMCReaderBase extends JCasCollectionReader_ImplBase {
 
     protected Iterator<URI> pmcFiles;
 
+    protected Set<String> whitelist;
+
     protected int completed;
 
     @Override
@@ -67,7 +69,7 @@ public abstract class PMCReaderBase extends JCasCollectionReader_ImplBase {
         omitBibReferences = Optional.ofNullable((Boolean) getConfigParameterValue(PARAM_OMIT_BIB_REFERENCES)).orElse(false);
         log.info("Reading PubmedCentral NXML file(s) from {}", input);
         try {
-            Set<String> whitelist = readWhitelist(whitelistFile);
+            whitelist = readWhitelist(whitelistFile);
             pmcFiles = new NXMLURIIterator(input, whitelist, searchRecursively, searchZip);
         } catch (IOException e) {
             throw new ResourceInitializationException(e);
@@ -0,0 +1,192 @@
+package de.julielab.jcore.reader.pmc;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the entries of a tar archive sequentially from a stream. This covers the ustar format with the GNU and PAX
+ * extensions for long file names as they occur in the PMC OA bulk packages. Other extension headers are skipped.
+ */
+class TarEntryStream {
+    private static final int BLOCK_SIZE = 512;
+    private final InputStream is;
+    private final byte[] header = new byte[BLOCK_SIZE];
+    private String name;
+    private long size;
+    private boolean isFile;
+    /**
+     * The number of bytes of the current entry, including the padding to the block size, not yet read.
+     */
+    private long remaining;
+
+    TarEntryStream(InputStream is) {
+        this.is = is;
+    }
+
+    /**
+     * Moves to the next entry of the archive.
+     *
+     * @return False if the end of the archive has been reached, true otherwise.
+     * @throws IOException If the archive cannot be read or is malformed.
+     */
+    boolean nextEntry() throws IOException {
+        String longName = null;
+        while (true) {
+            skip(remaining);
+            remaining = 0;
+            if (!readBlock(header))
+                return false;
+            if (isZeroBlock(header))
+                return false;
+            size = parseSize();
+            final char type = (char) header[156];
+            final long paddedSize = (size + BLOCK_SIZE - 1) / BLOCK_SIZE * BLOCK_SIZE;
+            if (type == 'L') {
+                // GNU tar: the data of this entry is the name of the next entry
+                longName = trimAtNul(new String(readData(), StandardCharsets.UTF_8));
+                skip(paddedSize - size);
+            } else if (type == 'x') {
+                // PAX: the extended header of the next entry, possibly with its path
+                final String path = parsePaxPath(readData());
+                if (path != null)
+                    longName = path;
+                skip(paddedSize - size);
+            } else if (type == 'g' || type == 'K') {
+                // global PAX headers and GNU long link names are not needed
+                skip(paddedSize);
+            } else {
+                name = longName != null ? longName : parseName();
+                isFile = type == '0' || type == 0 || type == '7';
+                remaining = paddedSize;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return The path of the current entry within the archive.
+     */
+    String getName() {
+        return name;
+    }
+
+    /**
+     * @return Whether the current entry is a regular file.
+     */
+    boolean isFile() {
+        return isFile;
+    }
+
+    /**
+     * Reads the contents of the current entry. Must only be called once per entry.
+     *
+     * @return The contents of the current entry.
+     * @throws IOException If the archive cannot be read.
+     */
+    byte[] readContent() throws IOException {
+        final byte[] content = readData();
+        remaining -= size;
+        return content;
+    }
+
+    private byte[] readData() throws IOException {
+        if (size > Integer.MAX_VALUE - 8)
+            throw new IOException("The tar entry " + name + " is too large to be read into memory: " + size + " bytes");
+        final byte[] data = is.readNBytes((int) size);
+        if (data.length < size)
+            throw new EOFException("Unexpected end of tar archive in entry " + name);
+        return data;
+    }
+
+    private String parseName() {
+        String entryName = trimAtNul(new String(header, 0, 100, StandardCharsets.UTF_8));
+        // ustar splits long names into a prefix and the name
+        if (header[257] == 'u' && header[258] == 's' && header[259] == 't' && header[260] == 'a' && header[261] == 'r') {
+            final String prefix = trimAtNul(new String(header, 345, 155, StandardCharsets.UTF_8));
+            if (!prefix.isEmpty())
+                entryName = prefix + "/" + entryName;
+        }
+        return entryName;
+    }
+
+    private long parseSize() throws IOException {
+        // base-256 encoding for large sizes
+        if ((header[124] & 0x80) != 0) {
+            long value = header[124] & 0x7f;
+            for (int i = 125; i < 136; i++)
+                value = (value << 8) | (header[i] & 0xff);
+            return value;
+        }
+        long value = 0;
+        for (int i = 124; i < 136; i++) {
+            final byte b = header[i];
+            if (b == 0 || b == ' ') {
+                if (value > 0)
+                    break;
+                continue;
+            }
+            if (b < '0' || b > '7')
+                throw new IOException("Malformed tar header: invalid size field");
+            value = (value << 3) + (b - '0');
+        }
+        return value;
+    }
+
+    private static String parsePaxPath(byte[] data) {
+        // records of the form "<length> <key>=<value>\n"
+        String path = null;
+        int pos = 0;
+        while (pos < data.length) {
+            int space = pos;
+            while (space < data.length && data[space] != ' ')
+                ++space;
+            if (space == data.length)
+                break;
+            final int length = Integer.parseInt(new String(data, pos, space - pos, StandardCharsets.US_ASCII));
+            if (length <= 0 || pos + length > data.length)
+                break;
+            final String record = new String(data, space + 1, pos + length - space - 2, StandardCharsets.UTF_8);
+            if (record.startsWith("path="))
+                path = record.substring(5);
+            pos += length;
+        }
+        return path;
+    }
+
+    private static String trimAtNul(String s) {
+        final int nul = s.indexOf(0);
+        return nul >= 0 ? s.substring(0, nul) : s;
+    }
+
+    private static boolean isZeroBlock(byte[] block) {
+        for (byte b : block) {
+            if (b != 0)
+                return false;
+        }
+        return true;
+    }
+
+    private boolean readBlock(byte[] block) throws IOException {
+        final int read = is.readNBytes(block, 0, block.length);
+        if (read == 0)
+            return false;
+        if (read < block.length)
+            throw new EOFException("Unexpected end of tar archive");
+        return true;
+    }
+
+    private void skip(long n) throws IOException {
+        while (n > 0) {
+            final long skipped = is.skip(n);
+            if (skipped <= 0) {
+                if (is.read() < 0)
+                    throw new EOFException("Unexpected end of tar archive");
+                --n;
+            } else {
+                n -= skipped;
+            }
+        }
+    }
+}
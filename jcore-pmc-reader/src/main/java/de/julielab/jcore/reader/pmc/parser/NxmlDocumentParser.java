@@ -66,10 +66,24 @@ public class NxmlDocumentParser extends NxmlParser {
     }
 
     public void reset(InputStream is, JCas cas) throws DocumentParsingException {
-        this.cas = cas;
         try {
-            byte[] bytes = JulieXMLTools.readStream(is, 8192);
+            reset(JulieXMLTools.readStream(is, 8192), cas);
+        } catch (IOException e) {
+            throw new DocumentParsingException(e);
+        }
+    }
 
+    /**
+     * Parses the given NXML document. The byte array is used by the parser as it is and must not be changed
+     * while the document is processed.
+     *
+     * @param bytes The uncompressed NXML document.
+     * @param cas   The CAS to populate.
+     * @throws DocumentParsingException If the document cannot be parsed.
+     */
+    public void reset(byte[] bytes, JCas cas) throws DocumentParsingException {
+        this.cas = cas;
+        try {
             VTDGen vg = new VTDGen();
             vg.setDoc(bytes);
             // If we don't set this to true, some whitespaces, for example
@@ -81,7 +95,7 @@ public class NxmlDocumentParser extends NxmlParser {
             setTagset();
             setupParserRegistry();
             currentSource = "<input stream>";
-        } catch (IOException | VTDException e) {
+        } catch (VTDException e) {
             throw new DocumentParsingException(e);
         }
 
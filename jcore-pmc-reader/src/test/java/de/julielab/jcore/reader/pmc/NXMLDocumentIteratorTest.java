@@ -0,0 +1,95 @@
+package de.julielab.jcore.reader.pmc;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NXMLDocumentIteratorTest {
+    @Test
+    public void testRecursive() throws Exception {
+        Map<String, byte[]> documents = readAll(new NXMLDocumentIterator(new File("src/test/resources/documents-recursive"), null, true, false, 2));
+        assertThat(documents).containsOnlyKeys("PMC2847692", "PMC2758189", "PMC2970367", "PMC3201365", "PMC4257438");
+        // the documents are decompressed
+        assertThat(documents.get("PMC2847692")).isEqualTo(gunzip(Path.of("src/test/resources/documents-recursive/PMC2847692.nxml.gz")));
+    }
+
+    @Test
+    public void testNotRecursive() throws Exception {
+        Map<String, byte[]> documents = readAll(new NXMLDocumentIterator(new File("src/test/resources/documents-recursive"), null, false, false, 2));
+        assertThat(documents).containsOnlyKeys("PMC2847692");
+    }
+
+    @Test
+    public void testZipAndWhitelist() throws Exception {
+        Map<String, byte[]> documents = readAll(new NXMLDocumentIterator(new File("src/test/resources/documents-zip"), null, true, true, 4));
+        assertThat(documents).containsOnlyKeys("PMC2847692", "PMC3201365", "PMC4257438", "PMC2758189", "PMC2970367");
+
+        documents = readAll(new NXMLDocumentIterator(new File("src/test/resources/documents-zip"), new HashSet<>(Arrays.asList("PMC2847692", "PMC2758189")), true, true, 4));
+        assertThat(documents).containsOnlyKeys("PMC2847692", "PMC2758189");
+    }
+
+    @Test
+    public void testTarGz(@TempDir Path tmpDir) throws Exception {
+        // a tar archive with an entry name that is too long for the ustar name field
+        String longDir = "a".repeat(120);
+        Path archive = tmpDir.resolve("archive.tar.gz");
+        byte[] doc1 = gunzip(Path.of("src/test/resources/documents-recursive/PMC2847692.nxml.gz"));
+        byte[] doc2 = Files.readAllBytes(Path.of("src/test/resources/documents-recursive/subfolder2/PMC3201365.nxml.gz"));
+        try (OutputStream os = new GZIPOutputStream(Files.newOutputStream(archive))) {
+            writeTarEntry(os, "articles/", '5', new byte[0]);
+            writeTarEntry(os, "articles/PMC2847692.nxml", '0', doc1);
+            writeTarEntry(os, "articles/README.txt", '0', "readme".getBytes(StandardCharsets.UTF_8));
+            writeTarEntry(os, "././@LongLink", 'L', (longDir + "/PMC3201365.nxml.gz\0").getBytes(StandardCharsets.UTF_8));
+            writeTarEntry(os, longDir.substring(0, 99), '0', doc2);
+            os.write(new byte[1024]);
+        }
+        List<NXMLDocumentData> documents = new ArrayList<>();
+        new NXMLDocumentIterator(tmpDir.toFile(), null, false, true, 1).forEachRemaining(documents::add);
+        assertThat(documents).hasSize(2);
+        assertThat(documents.get(0).getUri().toString()).startsWith("tar:file:").endsWith("archive.tar.gz!/articles/PMC2847692.nxml");
+        assertThat(documents.get(0).getData()).isEqualTo(doc1);
+        assertThat(documents.get(1).getUri().toString()).endsWith(longDir + "/PMC3201365.nxml.gz");
+        assertThat(documents.get(1).getData()).isEqualTo(gunzip(Path.of("src/test/resources/documents-recursive/subfolder2/PMC3201365.nxml.gz")));
+    }
+
+    private Map<String, byte[]> readAll(NXMLDocumentIterator it) {
+        Map<String, byte[]> documents = new HashMap<>();
+        while (it.hasNext()) {
+            NXMLDocumentData document = it.next();
+            String path = document.getUri().toString();
+            String name = path.substring(path.lastIndexOf('/') + 1, path.indexOf('.', path.lastIndexOf('/')));
+            assertThat(documents.put(name, document.getData())).isNull();
+        }
+        assertThat(it.getNumDocuments()).isEqualTo(documents.size());
+        return documents;
+    }
+
+    private byte[] gunzip(Path path) throws Exception {
+        try (GZIPInputStream is = new GZIPInputStream(Files.newInputStream(path))) {
+            return is.readAllBytes();
+        }
+    }
+
+    private void writeTarEntry(OutputStream os, String name, char type, byte[] data) throws Exception {
+        byte[] header = new byte[512];
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(nameBytes, 0, header, 0, nameBytes.length);
+        byte[] size = String.format("%011o", data.length).getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(size, 0, header, 124, size.length);
+        header[156] = (byte) type;
+        System.arraycopy("ustar\0".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 6);
+        os.write(header);
+        os.write(data);
+        os.write(new byte[(512 - data.length % 512) % 512]);
+    }
+}
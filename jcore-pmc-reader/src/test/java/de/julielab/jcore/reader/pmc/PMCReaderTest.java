@@ -128,6 +128,35 @@ public class PMCReaderTest {
         assertThat(foundDocuments).containsExactlyInAnyOrder("PMC2847692", "PMC3201365", "PMC4257438", "PMC2758189", "PMC2970367");
     }
 
+    @Test
+    public void testPmcReaderReadInBackground() throws Exception {
+        JCas cas = JCasFactory.createJCas("de.julielab.jcore.types.jcore-document-meta-pubmed-types",
+                "de.julielab.jcore.types.jcore-document-structure-pubmed-types");
+        CollectionReader reader = CollectionReaderFactory.createReader(PMCReader.class, PMCReader.PARAM_INPUT,
+                "src/test/resources/documents-zip", PMCReader.PARAM_RECURSIVELY, true, PMCReader.PARAM_SEARCH_ZIP, true,
+                PMCReader.PARAM_READ_IN_BACKGROUND, true, PMCReader.PARAM_NUM_READ_THREADS, 2);
+        Map<String, String> documentTexts = new HashMap<>();
+        while (reader.hasNext()) {
+            reader.getNext(cas.getCas());
+            Header header = (Header) CasUtil.selectSingle(cas.getCas(),
+                    CasUtil.getAnnotationType(cas.getCas(), Header.class));
+            documentTexts.put(header.getDocId(), cas.getDocumentText());
+            cas.reset();
+        }
+        assertThat(documentTexts).containsOnlyKeys("PMC2847692", "PMC3201365", "PMC4257438", "PMC2758189", "PMC2970367");
+
+        // the documents must be the same as when read by URI
+        reader = CollectionReaderFactory.createReader(PMCReader.class, PMCReader.PARAM_INPUT,
+                "src/test/resources/documents-zip", PMCReader.PARAM_RECURSIVELY, true, PMCReader.PARAM_SEARCH_ZIP, true);
+        while (reader.hasNext()) {
+            reader.getNext(cas.getCas());
+            Header header = (Header) CasUtil.selectSingle(cas.getCas(),
+                    CasUtil.getAnnotationType(cas.getCas(), Header.class));
+            assertEquals(documentTexts.get(header.getDocId()), cas.getDocumentText());
+            cas.reset();
+        }
+    }
+
     @Test
     public void testPmcReaderWhitelist() throws Exception {
         // read a whole directory with subdirectories
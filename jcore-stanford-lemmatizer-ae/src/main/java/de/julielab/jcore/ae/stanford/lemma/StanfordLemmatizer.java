@@ -13,17 +13,25 @@ package de.julielab.jcore.ae.stanford.lemma;
 import de.julielab.jcore.types.Lemma;
 import de.julielab.jcore.types.POSTag;
 import de.julielab.jcore.types.Token;
+import de.julielab.jcore.utility.cache.MemoizationCache;
+import de.julielab.jcore.utility.cache.MemoizationCacheProvider;
 import edu.stanford.nlp.process.Morphology;
+import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_component.JCasAnnotator_ImplBase;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.cas.FSIterator;
+import org.apache.uima.fit.descriptor.ExternalResource;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.jcas.cas.FSArray;
+import org.apache.uima.resource.ResourceAccessException;
+import org.apache.uima.resource.ResourceInitializationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class StanfordLemmatizer extends JCasAnnotator_ImplBase {
 
+	public static final String RES_KEY_MEMOIZATION_CACHE = "MemoizationCache";
+
 	private static final Logger LOGGER = LoggerFactory
 			.getLogger(StanfordLemmatizer.class);
 
@@ -32,8 +40,27 @@ public class StanfordLemmatizer extends JCasAnnotator_ImplBase {
 	 * MorphaAnnotator requires the whole CoreNLP pipeline (sentence splitting,
 	 * tokenization, POS tagging) to run beforehand. We therefore use this class
 	 * instead to integrate lemmatization in our own pipeline.
+	 * Morphology keeps the state of its lexer and is not thread safe. Thus,
+	 * the instances are shared by all lemmatizers running in the same thread.
 	 */
-	private Morphology lemmatizer = new Morphology();
+	private static final ThreadLocal<Morphology> lemmatizer = ThreadLocal.withInitial(Morphology::new);
+
+	@ExternalResource(key = RES_KEY_MEMOIZATION_CACHE, mandatory = false, description = "Optional. A MemoizationCacheProvider resource. When given, the lemmas are cached by word form and POS tag in a JVM-wide cache shared by all lemmatizer instances.")
+	private MemoizationCacheProvider cacheProvider;
+
+	private MemoizationCache cache;
+
+	@Override
+	public void initialize(UimaContext aContext) throws ResourceInitializationException {
+		super.initialize(aContext);
+		try {
+			cacheProvider = (MemoizationCacheProvider) aContext.getResourceObject(RES_KEY_MEMOIZATION_CACHE);
+		} catch (ResourceAccessException e) {
+			throw new ResourceInitializationException(e);
+		}
+		if (cacheProvider != null)
+			cache = cacheProvider.getCache("stanford-lemmatizer");
+	}
 
 	@SuppressWarnings("rawtypes")
 	@Override
@@ -58,7 +85,8 @@ public class StanfordLemmatizer extends JCasAnnotator_ImplBase {
 						posTagStr = posTag.getValue();
 					}
 				}
-				String lemmaStr = lemmatizer.lemma(tokenStr, posTagStr);
+				Morphology morphology = lemmatizer.get();
+				String lemmaStr = cache != null ? cache.get(tokenStr, posTagStr, morphology::lemma) : morphology.lemma(tokenStr, posTagStr);
 				Lemma lemma = new Lemma(aJCas);
 				lemma.setBegin(start);
 				lemma.setEnd(end);
@@ -68,4 +96,11 @@ public class StanfordLemmatizer extends JCasAnnotator_ImplBase {
 			}
 		}
 	}
+
+	@Override
+	public void collectionProcessComplete() throws AnalysisEngineProcessException {
+		super.collectionProcessComplete();
+		if (cache != null)
+			LOGGER.info("[JCoRe Stanford Lemmatizer] {}", cache);
+	}
 }
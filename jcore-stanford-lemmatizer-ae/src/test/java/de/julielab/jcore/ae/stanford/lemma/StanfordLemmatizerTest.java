@@ -13,8 +13,13 @@ package de.julielab.jcore.ae.stanford.lemma;
 import de.julielab.jcore.types.PennBioIEPOSTag;
 import de.julielab.jcore.types.Sentence;
 import de.julielab.jcore.types.Token;
+import de.julielab.jcore.utility.cache.MemoizationCache;
+import de.julielab.jcore.utility.cache.MemoizationCacheProvider;
+import de.julielab.jcore.utility.cache.MemoizationCacheProviderImpl;
 import org.apache.uima.UIMAFramework;
 import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.fit.factory.ExternalResourceFactory;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.jcas.JFSIndexRepository;
 import org.apache.uima.jcas.cas.FSArray;
@@ -28,6 +33,7 @@ import org.slf4j.LoggerFactory;
 import java.util.Iterator;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class StanfordLemmatizerTest  {
 
@@ -105,6 +111,37 @@ public class StanfordLemmatizerTest  {
 		assertEquals(TEST_LEMMAS, predictedLemmas);
 	}
 
+	/**
+	 * Tests that the lemmas are the same with and without the memoization cache, also when they are taken from the
+	 * cache.
+	 */
+	@Test
+	public void testMemoizationCache() throws Exception {
+		AnalysisEngine uncachedLemmatizer = UIMAFramework.produceAnalysisEngine(
+				UIMAFramework.getXMLParser().parseResourceSpecifier(new XMLInputSource(DESCRIPTOR)));
+		AnalysisEngine cachedLemmatizer = AnalysisEngineFactory.createEngine(StanfordLemmatizer.class,
+				StanfordLemmatizer.RES_KEY_MEMOIZATION_CACHE,
+				ExternalResourceFactory.createExternalResourceDescription(MemoizationCacheProviderImpl.class,
+						"file:memoization-cache", MemoizationCacheProviderImpl.PARAM_MAXIMUM_SIZE, 1000));
+		MemoizationCache cache = ((MemoizationCacheProvider) cachedLemmatizer.getUimaContext()
+				.getResourceObject(StanfordLemmatizer.RES_KEY_MEMOIZATION_CACHE)).getCache("stanford-lemmatizer");
+
+		String expectedLemmas = lemmatize(uncachedLemmatizer);
+		assertEquals(TEST_LEMMAS, expectedLemmas);
+		assertEquals(expectedLemmas, lemmatize(cachedLemmatizer));
+		long hits = cache.getHitCount();
+		// all lemmas of the second run are taken from the cache
+		assertEquals(expectedLemmas, lemmatize(cachedLemmatizer));
+		assertTrue(cache.getHitCount() - hits >= tokenBegins.length);
+	}
+
+	private String lemmatize(AnalysisEngine lemmaAnnotator) throws Exception {
+		JCas aJCas = lemmaAnnotator.newJCas();
+		initCas(aJCas);
+		lemmaAnnotator.process(aJCas);
+		return getPredictedLemmas(aJCas.getJFSIndexRepository().getAnnotationIndex(Token.type).iterator());
+	}
+
 	@SuppressWarnings("rawtypes")
 	public String getPredictedLemmas(Iterator tokIter) {
 		String predictedLemmas = "";
@@ -37,6 +37,8 @@ import java.util.stream.IntStream;
  * Most of this functionality is found in UIMAfit nowadays and should be used from there.
  * Some very specific methods like {@link #getOverlappingAnnotation(JCas, String, int, int)}  do not have a
  * direct correspondent, however, and might still be useful.
+ * The lookups by offsets search the live annotation index on each call. For many lookups in a CAS that is not
+ * modified in between, e.g. one per token, use a {@link de.julielab.jcore.utility.index.JCoReIntervalIndex}.
  */
 public class JCoReAnnotationTools {
 
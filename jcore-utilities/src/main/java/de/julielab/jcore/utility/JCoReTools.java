@@ -416,6 +416,56 @@ public class JCoReTools {
         System.clearProperty("julielab.xerces.attributebuffersize");
     }
 
+    /**
+     * <p>
+     * Does the same as {@link #deserializeXmi(CAS, InputStream, int)} but with a given deserializer and XML reader.
+     * Creating the {@link XmiCasDeserializer} builds lookup tables for the whole type system. Thus, when many
+     * documents with the same type system are read, the deserializer and the reader should be created once and passed
+     * to this method for each document. The XML reader should be created with {@link #createXmiReader(int)}.
+     * </p>
+     * <p>
+     * Neither the deserializer nor the reader may be used by multiple threads at the same time. After a failed parse,
+     * the reader should not be used any more.
+     * </p>
+     *
+     * @param cas          The CAS to populate.
+     * @param is           The XMI data stream to populate the CAS with.
+     * @param deserializer A deserializer for the type system of <tt>cas</tt>.
+     * @param xmlReader    The XML reader to parse the XMI data with.
+     * @throws SAXException
+     * @throws IOException
+     */
+    public static void deserializeXmi(CAS cas, InputStream is, XmiCasDeserializer deserializer, XMLReader xmlReader)
+            throws SAXException, IOException {
+        Reader reader = new InputStreamReader(is, "UTF-8");
+        InputSource source = new InputSource(reader);
+        source.setEncoding("UTF-8");
+
+        xmlReader.setContentHandler(deserializer.getXmiCasHandler(cas, false, null, -1));
+        xmlReader.parse(source);
+    }
+
+    /**
+     * Creates an XML reader for {@link #deserializeXmi(CAS, InputStream, XmiCasDeserializer, XMLReader)}. The
+     * julielab Xerces version sizes the attribute buffers of the reader when the reader is created, see
+     * {@link #deserializeXmi(CAS, InputStream, int)}. The system property for the size is only set while the reader
+     * is created. This method is synchronized so that concurrent calls do not clear the property for each other.
+     *
+     * @param attributeBufferSize The initial size of the attribute buffers. Has no effect if not positive.
+     * @return A new XML reader.
+     * @throws SAXException If the reader cannot be created.
+     */
+    public static synchronized XMLReader createXmiReader(int attributeBufferSize) throws SAXException {
+        if (attributeBufferSize <= 0)
+            return XMLReaderFactory.createXMLReader();
+        System.setProperty("julielab.xerces.attributebuffersize", String.valueOf(attributeBufferSize));
+        try {
+            return XMLReaderFactory.createXMLReader();
+        } finally {
+            System.clearProperty("julielab.xerces.attributebuffersize");
+        }
+    }
+
     public static <T extends Annotation, R extends Comparable<R>> int binarySearch(List<T> annotations,
                                                                                    Function<T, R> comparisonValueFunction, R searchValue) {
         return binarySearch(annotations, comparisonValueFunction, searchValue, 0, annotations.size() - 1);
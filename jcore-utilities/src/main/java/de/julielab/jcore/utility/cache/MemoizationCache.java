@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) 2026, JULIE Lab.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the BSD-2-Clause License
+ **/
+package de.julielab.jcore.utility.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * <p>
+ * A thread-safe, size-bounded cache for the results of a deterministic function of a word form and a part of speech
+ * tag, e.g. a lemmatizer or a stemmer. Since word forms and their tags repeat a lot in natural language text, most
+ * results can be taken from the cache instead of being computed again.
+ * </p>
+ * <p>
+ * The entries are distributed over a number of segments by the hash of their key. Each segment is locked on its own
+ * and evicts its least recently used entry when it is full. The function is computed outside of the locks. Thus, two
+ * threads missing the same key at the same time may both compute the value; this is harmless since the function must
+ * return the same value anyway.
+ * </p>
+ * <p>
+ * The numbers of hits and misses are recorded for {@link #getHitRatio()}.
+ * </p>
+ */
+public class MemoizationCache {
+    private static final int NUM_SEGMENTS = 16;
+    private final String name;
+    private final int maximumSize;
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param name        A name for the cache, used for logging.
+     * @param maximumSize The maximum number of entries of the cache.
+     */
+    public MemoizationCache(String name, int maximumSize) {
+        if (maximumSize <= 0)
+            throw new IllegalArgumentException("The maximum size of the cache must be positive but was " + maximumSize);
+        this.name = name;
+        this.maximumSize = maximumSize;
+        final int numSegments = Math.min(NUM_SEGMENTS, maximumSize);
+        segments = new Segment[numSegments];
+        for (int i = 0; i < numSegments; i++)
+            segments[i] = new Segment(maximumSize / numSegments + (i < maximumSize % numSegments ? 1 : 0));
+    }
+
+    /**
+     * Returns the cached value for <tt>form</tt> and <tt>pos</tt> or computes, caches and returns it if it is not
+     * cached.
+     *
+     * @param form     The word form.
+     * @param pos      The part of speech tag, may be null.
+     * @param function The function computing the value from <tt>form</tt> and <tt>pos</tt>. It must not return null.
+     * @return The value for <tt>form</tt> and <tt>pos</tt>.
+     */
+    public String get(String form, String pos, BiFunction<String, String, String> function) {
+        final Key key = new Key(form, pos);
+        final Segment segment = segments[(key.hashCode() & Integer.MAX_VALUE) % segments.length];
+        String value;
+        synchronized (segment) {
+            value = segment.get(key);
+        }
+        if (value != null) {
+            hits.increment();
+            return value;
+        }
+        misses.increment();
+        value = Objects.requireNonNull(function.apply(form, pos), () -> "The function returned null for " + key);
+        synchronized (segment) {
+            segment.put(key, value);
+        }
+        return value;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * @return The current number of entries.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return The fraction of the requests that could be answered from the cache, 0 if there were no requests yet.
+     */
+    public double getHitRatio() {
+        final long hitCount = hits.sum();
+        final long requestCount = hitCount + misses.sum();
+        return requestCount == 0 ? 0 : hitCount / (double) requestCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MemoizationCache %s: %d of %d entries, %d hits, %d misses, hit ratio %.3f", name, size(),
+                maximumSize, getHitCount(), getMissCount(), getHitRatio());
+    }
+
+    private static class Segment extends LinkedHashMap<Key, String> {
+        private final int maximumSize;
+
+        private Segment(int maximumSize) {
+            super(16, 0.75f, true);
+            this.maximumSize = maximumSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, String> eldest) {
+            return size() > maximumSize;
+        }
+    }
+
+    private static class Key {
+        private final String form;
+        private final String pos;
+        private final int hashCode;
+
+        private Key(String form, String pos) {
+            this.form = form;
+            this.pos = pos;
+            hashCode = 31 * form.hashCode() + Objects.hashCode(pos);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            final Key key = (Key) o;
+            return form.equals(key.form) && Objects.equals(pos, key.pos);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public String toString() {
+            return form + "/" + pos;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+/**
+ * Copyright (c) 2026, JULIE Lab.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the BSD-2-Clause License
+ **/
+package de.julielab.jcore.utility.cache;
+
+import org.apache.uima.resource.SharedResourceObject;
+
+/**
+ * A shared resource handing out {@link MemoizationCache}s to lemmatizers, stemmers and similar components. The caches
+ * are identified by name so that the results of different functions do not get mixed up.
+ */
+public interface MemoizationCacheProvider extends SharedResourceObject {
+    /**
+     * @param name The name of the cache, e.g. the name of the lemmatizer whose results are cached.
+     * @return The cache with the given name.
+     */
+    MemoizationCache getCache(String name);
+}
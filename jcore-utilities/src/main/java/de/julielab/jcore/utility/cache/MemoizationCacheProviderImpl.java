@@ -0,0 +1,52 @@
+/**
+ * Copyright (c) 2026, JULIE Lab.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the BSD-2-Clause License
+ **/
+package de.julielab.jcore.utility.cache;
+
+import org.apache.uima.resource.DataResource;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.resource.metadata.ConfigurationParameterSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * Hands out JVM-wide {@link MemoizationCache}s: all instances of this resource, also from different UIMA resource
+ * managers, return the same cache for the same name. The maximum size of a cache is given by the
+ * {@link #PARAM_MAXIMUM_SIZE} parameter of the resource that first requests it.
+ * </p>
+ * <p>
+ * The resource does not read any data. Its URL is required by UIMA but is not used.
+ * </p>
+ */
+public class MemoizationCacheProviderImpl implements MemoizationCacheProvider {
+    public static final String PARAM_MAXIMUM_SIZE = "MaximumSize";
+    public static final int DEFAULT_MAXIMUM_SIZE = 500000;
+    private final static Logger log = LoggerFactory.getLogger(MemoizationCacheProviderImpl.class);
+    private static final Map<String, MemoizationCache> caches = new ConcurrentHashMap<>();
+    private int maximumSize = DEFAULT_MAXIMUM_SIZE;
+
+    @Override
+    public MemoizationCache getCache(String name) {
+        return caches.computeIfAbsent(name, n -> {
+            log.info("Creating memoization cache {} with a maximum size of {} entries.", n, maximumSize);
+            return new MemoizationCache(n, maximumSize);
+        });
+    }
+
+    @Override
+    public void load(DataResource aData) throws ResourceInitializationException {
+        if (aData.getMetaData() != null) {
+            final ConfigurationParameterSettings settings = aData.getMetaData().getConfigurationParameterSettings();
+            maximumSize = Optional.ofNullable((Integer) settings.getParameterValue(PARAM_MAXIMUM_SIZE)).orElse(DEFAULT_MAXIMUM_SIZE);
+        }
+        if (maximumSize <= 0)
+            throw new ResourceInitializationException(new IllegalArgumentException("The " + PARAM_MAXIMUM_SIZE + " of the memoization cache must be positive but was " + maximumSize));
+    }
+}
@@ -0,0 +1,329 @@
+/**
+ * Copyright (c) 2026, JULIE Lab.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the BSD-2-Clause License
+ * <p>
+ * Author:
+ * <p>
+ * Description:
+ **/
+package de.julielab.jcore.utility.index;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.text.AnnotationIndex;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
+
+import java.lang.ref.SoftReference;
+import java.util.*;
+
+/**
+ * <p>
+ * Use when: You need to look up annotations of a type at, overlapping, covering or covered by many offset spans
+ * of the same document, e.g. once per token.
+ * </p>
+ * <p>
+ * This is an immutable interval index over the annotations of a type. The annotations are sorted by begin offset
+ * (ascending) and end offset (descending), i.e. in the order of the UIMA annotation index, and organized as an implicit
+ * balanced search tree where each node stores the maximum end offset of its subtree. A search for the annotations
+ * intersecting an offset span thus has the complexity O(log n + k) where n is the size of the index and k the
+ * number of intersecting annotations. In contrast, a {@link JCoReOverlapAnnotationIndex} requires O(n/2) per search.
+ * </p>
+ * <p>
+ * Use {@link #get(JCas, Type)} to obtain an index that is built once per CAS and type and is reused for subsequent
+ * calls. The cached index is rebuilt automatically when the CAS has been reset or when the number of annotations
+ * of the type has changed. This does not detect all modifications: when annotations of the type are removed and
+ * added in equal numbers or when their offsets are changed, {@link #invalidate(JCas)} must be called. Thus, only use
+ * the cached index in code that knows about all modifications of the CAS between the lookups.
+ * </p>
+ *
+ * @param <E> The annotation type the index should be over.
+ */
+public class JCoReIntervalIndex<E extends Annotation> {
+    private static final Map<CAS, SoftReference<CasIndexes>> cache = Collections.synchronizedMap(new WeakHashMap<>());
+    private final List<E> annotations;
+    private final int[] begins;
+    private final int[] ends;
+    /**
+     * The maximum end offset of the subtree rooted at the respective position of the implicit search tree.
+     */
+    private final int[] maxEnds;
+
+    public JCoReIntervalIndex(JCas jCas, int type) {
+        this(jCas, jCas.getCasType(type));
+    }
+
+    /**
+     * Creates an index over all annotations of <tt>type</tt> in <tt>jCas</tt>. Annotations of subtypes are included.
+     *
+     * @param jCas The CAS.
+     * @param type The annotation type to index.
+     */
+    @SuppressWarnings("unchecked")
+    public JCoReIntervalIndex(JCas jCas, Type type) {
+        List<E> annotations = new ArrayList<>();
+        FSIterator<Annotation> it = jCas.getAnnotationIndex(type).iterator();
+        while (it.hasNext())
+            annotations.add((E) it.next());
+        // the annotation index already delivers the correct order, no sorting required
+        this.annotations = annotations;
+        begins = new int[annotations.size()];
+        ends = new int[annotations.size()];
+        maxEnds = new int[annotations.size()];
+        build();
+    }
+
+    /**
+     * Creates an index over the given annotations.
+     *
+     * @param annotations The annotations to index.
+     */
+    public JCoReIntervalIndex(Collection<E> annotations) {
+        List<E> sortedAnnotations = new ArrayList<>(annotations);
+        sortedAnnotations.sort(Comparator.comparingInt(Annotation::getBegin).thenComparing(Comparator.comparingInt(Annotation::getEnd).reversed()));
+        this.annotations = sortedAnnotations;
+        begins = new int[annotations.size()];
+        ends = new int[annotations.size()];
+        maxEnds = new int[annotations.size()];
+        build();
+    }
+
+    /**
+     * Returns the index over the annotations of <tt>type</tt> in <tt>jCas</tt>, building it only if there is no
+     * up-to-date index for the CAS and type yet.
+     *
+     * @param jCas The CAS.
+     * @param type The annotation type.
+     * @return The index over the annotations of <tt>type</tt>.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Annotation> JCoReIntervalIndex<T> get(JCas jCas, Type type) {
+        CAS cas = jCas.getCas();
+        CasIndexes casIndexes;
+        synchronized (cache) {
+            SoftReference<CasIndexes> reference = cache.get(cas);
+            casIndexes = reference != null ? reference.get() : null;
+            // the document text is set anew after a reset of the CAS
+            if (casIndexes == null || casIndexes.documentText != jCas.getDocumentText()) {
+                casIndexes = new CasIndexes(jCas.getDocumentText());
+                cache.put(cas, new SoftReference<>(casIndexes));
+            }
+        }
+        JCoReIntervalIndex<T> index = (JCoReIntervalIndex<T>) casIndexes.indexes.get(type);
+        AnnotationIndex<Annotation> casIndex = jCas.getAnnotationIndex(type);
+        // Cheap staleness checks: the number of annotations and the identity of the first annotation which is a new
+        // object after a CAS reset, even if the same document text object is set again.
+        if (index == null || index.size() != casIndex.size() || (index.size() > 0 && index.annotations.get(0) != casIndex.iterator().get())) {
+            index = new JCoReIntervalIndex<>(jCas, type);
+            casIndexes.indexes.put(type, index);
+        }
+        return index;
+    }
+
+    /**
+     * @see #get(JCas, Type)
+     */
+    public static <T extends Annotation> JCoReIntervalIndex<T> get(JCas jCas, Class<T> cls) {
+        Type type = jCas.getTypeSystem().getType(cls.getCanonicalName());
+        if (type == null)
+            throw new IllegalArgumentException("The type " + cls.getCanonicalName() + " is not contained in the type system of the given CAS.");
+        return get(jCas, type);
+    }
+
+    /**
+     * Removes all cached indexes of <tt>jCas</tt> so that they are built anew with the next call to
+     * {@link #get(JCas, Type)}.
+     *
+     * @param jCas The CAS to remove the cached indexes for.
+     */
+    public static void invalidate(JCas jCas) {
+        cache.remove(jCas.getCas());
+    }
+
+    private void build() {
+        for (int i = 0; i < annotations.size(); i++) {
+            E annotation = annotations.get(i);
+            begins[i] = annotation.getBegin();
+            ends[i] = annotation.getEnd();
+        }
+        buildMaxEnds(0, annotations.size());
+    }
+
+    private int buildMaxEnds(int from, int to) {
+        if (from >= to)
+            return Integer.MIN_VALUE;
+        int mid = (from + to) >>> 1;
+        maxEnds[mid] = Math.max(ends[mid], Math.max(buildMaxEnds(from, mid), buildMaxEnds(mid + 1, to)));
+        return maxEnds[mid];
+    }
+
+    public int size() {
+        return annotations.size();
+    }
+
+    /**
+     * @return The indexed annotations sorted by begin offset (ascending) and end offset (descending).
+     */
+    public List<E> getAnnotations() {
+        return Collections.unmodifiableList(annotations);
+    }
+
+    /**
+     * @return The first annotation with exactly the given offsets or <tt>null</tt> if there is none.
+     */
+    public E getAtOffsets(int begin, int end) {
+        // find the first annotation with the given begin by binary search, the end offsets are descending from there
+        int low = 0;
+        int high = begins.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (begins[mid] < begin)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        for (int i = low; i < begins.length && begins[i] == begin && ends[i] >= end; i++) {
+            if (ends[i] == end)
+                return annotations.get(i);
+        }
+        return null;
+    }
+
+    /**
+     * Returns all annotations that overlap the given span in any way: annotations that cover the span, that are
+     * covered by the span or that partially overlap the span. Annotations merely touching the span, i.e. ending at
+     * <tt>begin</tt> or beginning at <tt>end</tt>, are not included unless they have zero length.
+     *
+     * @return The overlapping annotations in index order.
+     */
+    public List<E> getOverlapping(int begin, int end) {
+        List<E> result = new ArrayList<>();
+        search(begin, end, Predicate.OVERLAPPING, false, result);
+        return result;
+    }
+
+    /**
+     * @return The first annotation that overlaps the given span as defined by {@link #getOverlapping(int, int)} or
+     * <tt>null</tt> if there is none.
+     */
+    public E getFirstOverlapping(int begin, int end) {
+        return first(begin, end, Predicate.OVERLAPPING);
+    }
+
+    /**
+     * Returns all annotations that cross a border of the given span, i.e. that contain <tt>begin</tt> or
+     * <tt>end</tt> and extend beyond it.
+     *
+     * @return The partially overlapping annotations in index order.
+     */
+    public List<E> getPartiallyOverlapping(int begin, int end) {
+        List<E> result = new ArrayList<>();
+        search(begin, end, Predicate.PARTIALLY_OVERLAPPING, false, result);
+        return result;
+    }
+
+    /**
+     * @return The first annotation that partially overlaps the given span as defined by
+     * {@link #getPartiallyOverlapping(int, int)} or <tt>null</tt> if there is none.
+     */
+    public E getFirstPartiallyOverlapping(int begin, int end) {
+        return first(begin, end, Predicate.PARTIALLY_OVERLAPPING);
+    }
+
+    /**
+     * @return All annotations that completely cover the given span in index order.
+     */
+    public List<E> getCovering(int begin, int end) {
+        List<E> result = new ArrayList<>();
+        search(begin, end, Predicate.COVERING, false, result);
+        return result;
+    }
+
+    /**
+     * @return All annotations that are completely covered by the given span in index order.
+     */
+    public List<E> getCovered(int begin, int end) {
+        List<E> result = new ArrayList<>();
+        search(begin, end, Predicate.COVERED, false, result);
+        return result;
+    }
+
+    private E first(int begin, int end, Predicate predicate) {
+        List<E> result = new ArrayList<>(1);
+        search(begin, end, predicate, true, result);
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    /**
+     * Visits, in index order, all annotations whose begin is not greater than <tt>end</tt> and whose end is not
+     * lower than <tt>begin</tt>, which is a necessary condition of all predicates, and adds those satisfying
+     * <tt>predicate</tt> to <tt>result</tt>. Subtrees whose maximum end offset lies before <tt>begin</tt> and right
+     * subtrees of nodes beginning after <tt>end</tt> are pruned.
+     *
+     * @return Whether the search should be stopped because the first match was found.
+     */
+    private boolean search(int begin, int end, Predicate predicate, boolean firstOnly, List<E> result) {
+        return search(0, begins.length, begin, end, predicate, firstOnly, result);
+    }
+
+    private boolean search(int from, int to, int begin, int end, Predicate predicate, boolean firstOnly, List<E> result) {
+        if (from >= to)
+            return false;
+        int mid = (from + to) >>> 1;
+        if (maxEnds[mid] < begin)
+            return false;
+        if (search(from, mid, begin, end, predicate, firstOnly, result))
+            return true;
+        if (begins[mid] > end)
+            return false;
+        if (predicate.test(begins[mid], ends[mid], begin, end)) {
+            result.add(annotations.get(mid));
+            if (firstOnly)
+                return true;
+        }
+        return search(mid + 1, to, begin, end, predicate, firstOnly, result);
+    }
+
+    private enum Predicate {
+        OVERLAPPING {
+            @Override
+            boolean test(int aBegin, int aEnd, int begin, int end) {
+                return COVERING.test(aBegin, aEnd, begin, end) || COVERED.test(aBegin, aEnd, begin, end) || (aBegin < end && aEnd > begin);
+            }
+        },
+        PARTIALLY_OVERLAPPING {
+            @Override
+            boolean test(int aBegin, int aEnd, int begin, int end) {
+                return (aBegin < end && aEnd > end) || (aBegin < begin && aEnd > begin);
+            }
+        },
+        COVERING {
+            @Override
+            boolean test(int aBegin, int aEnd, int begin, int end) {
+                return aBegin <= begin && aEnd >= end;
+            }
+        },
+        COVERED {
+            @Override
+            boolean test(int aBegin, int aEnd, int begin, int end) {
+                return aBegin >= begin && aEnd <= end;
+            }
+        };
+
+        abstract boolean test(int aBegin, int aEnd, int begin, int end);
+    }
+
+    /**
+     * The cached indexes of one CAS for the document text they were built for.
+     */
+    private static class CasIndexes {
+        private final String documentText;
+        private final Map<Type, JCoReIntervalIndex<?>> indexes = new HashMap<>();
+
+        private CasIndexes(String documentText) {
+            this.documentText = documentText;
+        }
+    }
+}
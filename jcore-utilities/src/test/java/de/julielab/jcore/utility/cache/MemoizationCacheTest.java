@@ -0,0 +1,65 @@
+package de.julielab.jcore.utility.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MemoizationCacheTest {
+
+    @Test
+    public void testGet() {
+        MemoizationCache cache = new MemoizationCache("test", 10);
+        AtomicInteger calls = new AtomicInteger();
+        assertEquals("run1VBZ", cache.get("runs", "VBZ", (f, p) -> "run" + calls.incrementAndGet() + p));
+        assertEquals("run1VBZ", cache.get("runs", "VBZ", (f, p) -> "run" + calls.incrementAndGet() + p));
+        assertEquals("run2NNS", cache.get("runs", "NNS", (f, p) -> "run" + calls.incrementAndGet() + p));
+        assertEquals("run3null", cache.get("runs", null, (f, p) -> "run" + calls.incrementAndGet() + p));
+        assertEquals("run3null", cache.get("runs", null, (f, p) -> "run" + calls.incrementAndGet() + p));
+        assertEquals(3, calls.get());
+        assertEquals(2, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+        assertEquals(0.4, cache.getHitRatio(), 0.0001);
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void testSizeBound() {
+        MemoizationCache cache = new MemoizationCache("test", 100);
+        for (int i = 0; i < 1000; i++)
+            cache.get("form" + i, "NN", (f, p) -> f);
+        assertTrue(cache.size() <= 100);
+        assertTrue(cache.size() > 0);
+        // a recently used entry is still there
+        cache.get("form999", "NN", (f, p) -> fail("form999 should be cached"));
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        MemoizationCache cache = new MemoizationCache("test", 50);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10000; i++) {
+                        String form = "form" + (i % 200);
+                        assertEquals(form.toUpperCase(), cache.get(form, "NN", (f, p) -> f.toUpperCase()));
+                    }
+                }));
+            }
+            for (Future<?> future : futures)
+                future.get();
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(40000, cache.getHitCount() + cache.getMissCount());
+        assertTrue(cache.size() <= 50);
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright (c) 2026, JULIE Lab.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the BSD-2-Clause License
+ *
+ * Author:
+ *
+ * Description:
+ **/
+package de.julielab.jcore.utility.index;
+
+import de.julielab.jcore.types.Gene;
+import de.julielab.jcore.types.Token;
+import de.julielab.jcore.utility.JCoReAnnotationTools;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * <p>Compares the per-token lookup of overlapping gene annotations via
+ * {@link JCoReAnnotationTools#getOverlappingAnnotation(JCas, String, int, int)}, which scans the annotation index,
+ * with the cached {@link JCoReIntervalIndex} on a document of the size of a PubMed Central full text.</p>
+ * <p>Arguments: [number of tokens, default 50000] [number of genes, default 2000]</p>
+ */
+public class JCoReIntervalIndexBenchmark {
+    public static void main(String[] args) throws Exception {
+        int numTokens = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+        int numGenes = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        JCas jcas = JCasFactory.createJCas("de.julielab.jcore.types.jcore-all-types");
+        StringBuilder sb = new StringBuilder();
+        List<Token> tokens = new ArrayList<>();
+        for (int i = 0; i < numTokens; i++) {
+            Token token = new Token(jcas, sb.length(), sb.length() + 5);
+            token.addToIndexes();
+            tokens.add(token);
+            sb.append("token ");
+        }
+        jcas.setDocumentText(sb.toString());
+        Random random = new Random(1);
+        for (int i = 0; i < numGenes; i++) {
+            Token token = tokens.get(random.nextInt(numTokens));
+            new Gene(jcas, token.getBegin(), token.getEnd() + random.nextInt(3) * 6).addToIndexes();
+        }
+
+        for (int run = 0; run < 3; run++) {
+            long time = System.nanoTime();
+            int found = 0;
+            for (Token token : tokens) {
+                if (JCoReAnnotationTools.getOverlappingAnnotation(jcas, Gene.class.getCanonicalName(), token.getBegin(), token.getEnd()) != null)
+                    ++found;
+            }
+            System.out.printf("Annotation index scan: %d tokens overlapping genes found in %dms%n", found, (System.nanoTime() - time) / 1000000);
+
+            JCoReIntervalIndex.invalidate(jcas);
+            time = System.nanoTime();
+            found = 0;
+            for (Token token : tokens) {
+                if (JCoReIntervalIndex.get(jcas, Gene.class).getFirstOverlapping(token.getBegin(), token.getEnd()) != null)
+                    ++found;
+            }
+            System.out.printf("Interval index: %d tokens overlapping genes found in %dms%n", found, (System.nanoTime() - time) / 1000000);
+        }
+    }
+}
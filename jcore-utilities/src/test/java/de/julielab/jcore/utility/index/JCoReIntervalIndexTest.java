@@ -0,0 +1,133 @@
+/**
+ * Copyright (c) 2026, JULIE Lab.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the BSD-2-Clause License
+ *
+ * Author:
+ *
+ * Description:
+ **/
+package de.julielab.jcore.utility.index;
+
+import de.julielab.jcore.types.Token;
+import de.julielab.jcore.utility.JCoReAnnotationTools;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JCoReIntervalIndexTest {
+	@Test
+	public void testIntervalIndex() throws Exception {
+		JCas jcas = JCasFactory.createJCas("de.julielab.jcore.types.jcore-all-types");
+		Token t1 = new Token(jcas, 0, 3);
+		Token t2 = new Token(jcas, 2, 8);
+		Token t3 = new Token(jcas, 7, 10);
+		Token t4 = new Token(jcas, 11, 18);
+		Token t5 = new Token(jcas, 15, 21);
+		Token t6 = new Token(jcas, 22, 27);
+		Token t7 = new Token(jcas, 11, 11);
+		for (Token t : List.of(t1, t2, t3, t4, t5, t6, t7))
+			t.addToIndexes();
+
+		JCoReIntervalIndex<Token> index = new JCoReIntervalIndex<>(jcas, Token.type);
+		assertEquals(List.of(t1, t2, t3), index.getOverlapping(2, 8));
+		assertEquals(List.of(t1, t2), index.getOverlapping(0, 3));
+		// t3 ends where the span begins and is thus not overlapping; the empty t7 lies within the span
+		assertEquals(List.of(t4, t7, t5), index.getOverlapping(10, 18));
+		assertEquals(List.of(t2, t3), index.getPartiallyOverlapping(3, 9));
+		assertEquals(List.of(t4), index.getCovering(12, 14));
+		assertEquals(List.of(t4, t7), index.getCovered(11, 18));
+		assertEquals(t5, index.getAtOffsets(15, 21));
+		assertNull(index.getAtOffsets(15, 20));
+		assertEquals(t4, index.getFirstOverlapping(11, 12));
+		assertNull(index.getFirstOverlapping(28, 30));
+	}
+
+	@Test
+	public void testRandomAgainstLinearSearch() throws Exception {
+		JCas jcas = JCasFactory.createJCas("de.julielab.jcore.types.jcore-all-types");
+		Random random = new Random(1);
+		List<Token> tokens = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			int begin = random.nextInt(1000);
+			Token token = new Token(jcas, begin, begin + random.nextInt(random.nextBoolean() ? 5 : 100));
+			token.addToIndexes();
+		}
+		for (Annotation a : jcas.getAnnotationIndex(Token.type))
+			tokens.add((Token) a);
+		JCoReIntervalIndex<Token> index = new JCoReIntervalIndex<>(jcas, Token.type);
+		for (int i = 0; i < 1000; i++) {
+			int begin = random.nextInt(1100);
+			int end = begin + random.nextInt(50);
+			List<Token> overlapping = new ArrayList<>();
+			List<Token> partiallyOverlapping = new ArrayList<>();
+			for (Token t : tokens) {
+				if ((t.getBegin() <= begin && t.getEnd() >= end) || (t.getBegin() >= begin && t.getEnd() <= end) || (t.getBegin() < end && t.getEnd() > begin))
+					overlapping.add(t);
+				if ((t.getBegin() < end && t.getEnd() > end) || (t.getBegin() < begin && t.getEnd() > begin))
+					partiallyOverlapping.add(t);
+			}
+			assertEquals(overlapping, index.getOverlapping(begin, end));
+			assertEquals(partiallyOverlapping, index.getPartiallyOverlapping(begin, end));
+		}
+	}
+
+	@Test
+	public void testCachedIndex() throws Exception {
+		JCas jcas = JCasFactory.createJCas("de.julielab.jcore.types.jcore-all-types");
+		jcas.setDocumentText("One two three.");
+		Token t1 = new Token(jcas, 0, 3);
+		t1.addToIndexes();
+		JCoReIntervalIndex<Token> index = JCoReIntervalIndex.get(jcas, Token.class);
+		assertSame(index, JCoReIntervalIndex.get(jcas, Token.class));
+		assertEquals(t1, index.getFirstOverlapping(1, 2));
+
+		// new annotations are recognized
+		Token t2 = new Token(jcas, 4, 7);
+		t2.addToIndexes();
+		index = JCoReIntervalIndex.get(jcas, Token.class);
+		assertEquals(t2, index.getAtOffsets(4, 7));
+
+		// removing and adding an annotation keeps the number of annotations; this requires an explicit invalidation
+		t2.removeFromIndexes();
+		Token t3 = new Token(jcas, 8, 13);
+		t3.addToIndexes();
+		JCoReIntervalIndex.invalidate(jcas);
+		index = JCoReIntervalIndex.get(jcas, Token.class);
+		assertNull(index.getAtOffsets(4, 7));
+		assertEquals(t3, index.getFirstPartiallyOverlapping(7, 10));
+
+		// a reset of the CAS is recognized, even if there are again two tokens
+		jcas.reset();
+		jcas.setDocumentText("One two three.");
+		Token t4 = new Token(jcas, 4, 7);
+		t4.addToIndexes();
+		new Token(jcas, 0, 3).addToIndexes();
+		index = JCoReIntervalIndex.get(jcas, Token.class);
+		assertEquals(t4, index.getAtOffsets(4, 7));
+		assertNull(index.getFirstPartiallyOverlapping(7, 10));
+	}
+
+	@Test
+	public void testAnnotationToolsUseLiveIndex() throws Exception {
+		JCas jcas = JCasFactory.createJCas("de.julielab.jcore.types.jcore-all-types");
+		jcas.setDocumentText("One two three.");
+		Token t1 = new Token(jcas, 4, 7);
+		t1.addToIndexes();
+		JCoReIntervalIndex.get(jcas, Token.class);
+		assertEquals(t1, JCoReAnnotationTools.getAnnotationAtOffset(jcas, Token.class.getCanonicalName(), 4, 7));
+		// the number of tokens stays the same, the cached interval index would not notice the modification
+		t1.removeFromIndexes();
+		Token t2 = new Token(jcas, 8, 13);
+		t2.addToIndexes();
+		assertNull(JCoReAnnotationTools.getAnnotationAtOffset(jcas, Token.class.getCanonicalName(), 4, 7));
+		assertEquals(t2, JCoReAnnotationTools.getOverlappingAnnotation(jcas, Token.class.getCanonicalName(), 9, 10));
+	}
+}
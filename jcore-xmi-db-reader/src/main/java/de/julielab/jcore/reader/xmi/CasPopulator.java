@@ -14,7 +14,9 @@ import de.julielab.xml.binary.BinaryDecodingResult;
 import de.julielab.xml.binary.BinaryJeDISNodeDecoder;
 import de.julielab.xml.binary.BinaryXmiBuilder;
 import org.apache.commons.lang.StringUtils;
+import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.FSIterator;
+import org.apache.uima.cas.TypeSystem;
 import org.apache.uima.cas.impl.XmiCasDeserializer;
 import org.apache.uima.collection.CollectionException;
 import org.apache.uima.fit.util.JCasUtil;
@@ -24,9 +26,11 @@ import org.apache.uima.jcas.tcas.Annotation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.LinkedHashMap;
@@ -54,6 +58,13 @@ public class CasPopulator {
     private final boolean useBinaryFormat;
     private final BinaryJeDISNodeDecoder binaryJeDISNodeDecoder;
     private boolean joinTables;
+    /**
+     * The deserializer is bound to a type system and relatively expensive to create. Since all CASes handed to a
+     * reader instance share the same type system, we create it once and reuse it for all documents.
+     */
+    private XmiCasDeserializer xmiCasDeserializer;
+    private TypeSystem deserializerTypeSystem;
+    private XMLReader xmlReader;
 
     /**
      * Takes document and annotation data from a XMI reader or XMI multiplier. Assembles a complete XMI document from
@@ -159,7 +170,7 @@ public class CasPopulator {
                 try {
                     log.trace("Deserializing XMI data into the CAS.");
 
-                    JCoReTools.deserializeXmi(jCas.getCas(), new ByteArrayInputStream(xmiByteData), xercesAttributeBufferSize);
+                    deserializeXmi(jCas.getCas(), new ByteArrayInputStream(xmiByteData));
                 } catch (SAXException e) {
                     String docData = new String(xmiByteData, StandardCharsets.UTF_8);
                     if (!docData.contains("xmi:XMI xmlns:xmi=\"http://www.omg.org/XMI\""))
@@ -197,6 +208,32 @@ public class CasPopulator {
         }
     }
 
+    /**
+     * Deserializes the given XMI data into the CAS with the deserializer and the XML reader of this instance. Both are
+     * created for the first document and then reused. Since a <tt>CasPopulator</tt> instance is owned by exactly one
+     * reader or multiplier instance, they are never accessed concurrently.
+     *
+     * @param cas The CAS to populate.
+     * @param is  The XMI data.
+     * @throws SAXException If parsing the XMI data fails.
+     * @throws IOException  If reading the data fails.
+     */
+    private void deserializeXmi(CAS cas, InputStream is) throws SAXException, IOException {
+        if (xmiCasDeserializer == null || deserializerTypeSystem != cas.getTypeSystem()) {
+            deserializerTypeSystem = cas.getTypeSystem();
+            xmiCasDeserializer = new XmiCasDeserializer(deserializerTypeSystem);
+        }
+        if (xmlReader == null)
+            xmlReader = JCoReTools.createXmiReader(xercesAttributeBufferSize);
+        try {
+            JCoReTools.deserializeXmi(cas, is, xmiCasDeserializer, xmlReader);
+        } catch (SAXException | IOException e) {
+            // The reader might be left in an inconsistent state, create a new one for the next document
+            xmlReader = null;
+            throw e;
+        }
+    }
+
     /**
      * Sets the primary key of this document to the document's header if not
      * already existent. If there is no header, also the header is created and
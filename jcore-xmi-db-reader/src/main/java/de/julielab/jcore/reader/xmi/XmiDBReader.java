@@ -22,6 +22,7 @@ import de.julielab.costosys.configuration.FieldConfig;
 import de.julielab.costosys.dbconnection.CoStoSysConnection;
 import de.julielab.costosys.dbconnection.DataBaseConnector;
 import de.julielab.jcore.reader.db.DBReader;
+import de.julielab.jcore.reader.db.SubsetReaderConstants;
 import de.julielab.xml.JulieXMLConstants;
 import de.julielab.xml.XmiSplitConstants;
 import de.julielab.xml.binary.BinaryJeDISNodeEncoder;
@@ -69,6 +70,10 @@ public class XmiDBReader extends DBReader implements Initializable {
     protected String[] qualifiedAnnotationColumnNames;
     private Boolean doGzip;
     private Boolean useBinaryFormat;
+    /**
+     * The columns that are decompressed by {@link #decodeArtifactData(byte[][])} instead of by CoStoSys.
+     */
+    private int[] gzippedColumns = new int[0];
     @ConfigurationParameter(name = PARAM_READS_BASE_DOCUMENT, description = "Indicates if this reader reads segmented " +
             "annotation data. If set to false, the XMI data is expected to represent complete annotated documents. " +
             "If it is set to true, a segmented annotation graph is expected and the table given with the 'Table' parameter " +
@@ -155,12 +160,14 @@ public class XmiDBReader extends DBReader implements Initializable {
                 dbc.setActiveTableSchema(xmiDocumentTableSchema.getName());
 
                 XmiReaderUtils.checkXmiTableSchema(dbc, tableName, xmiDocumentTableSchema, getMetaData().getName());
+                deferDecompressionToDecodeThreads(table, xmiDocumentTableSchema);
             } else {
                 // Complete XMI reading mode
                 String table = (String) getConfigParameterValue(PARAM_TABLE);
                 determineDataFormat(table);
                 FieldConfig xmiDocumentFieldConfiguration = dbc.addXmiDocumentFieldConfiguration(primaryKeyFields, doGzip);
                 dbc.setActiveTableSchema(xmiDocumentFieldConfiguration.getName());
+                deferDecompressionToDecodeThreads(table, xmiDocumentFieldConfiguration);
             }
         }
     }
@@ -192,6 +199,42 @@ public class XmiDBReader extends DBReader implements Initializable {
         }
     }
 
+    /**
+     * CoStoSys decompresses the fields marked as gzipped while a batch is read from the database, i.e. in the single
+     * thread fetching the batch. If decode threads are configured for reading a subset table, the mark is removed from
+     * the given schema and the fields are decompressed in {@link #decodeArtifactData(byte[][])} instead.
+     *
+     * @param table       The table to read.
+     * @param fieldConfig The active table schema.
+     */
+    private void deferDecompressionToDecodeThreads(String table, FieldConfig fieldConfig) {
+        final Integer decodeThreads = (Integer) getConfigParameterValue(SubsetReaderConstants.PARAM_DECODE_THREADS);
+        if (!doGzip || decodeThreads == null || decodeThreads <= 0 || dbc.isDataTable(table))
+            return;
+        final List<Map<String, String>> fields = fieldConfig.getFields();
+        List<Integer> columns = new ArrayList<>();
+        for (int i = 0; i < fields.size(); i++) {
+            if (Boolean.parseBoolean(fields.get(i).get(JulieXMLConstants.GZIP))) {
+                fields.get(i).put(JulieXMLConstants.GZIP, "false");
+                columns.add(i);
+            }
+        }
+        gzippedColumns = columns.stream().mapToInt(Integer::intValue).toArray();
+        log.debug("Decompressing the columns {} of schema {} in {} decode threads.", columns, fieldConfig.getName(), decodeThreads);
+    }
+
+    @Override
+    protected byte[][] decodeArtifactData(byte[][] data) throws IOException {
+        for (int column : gzippedColumns) {
+            if (data[column] != null) {
+                try (GZIPInputStream gzis = new GZIPInputStream(new ByteArrayInputStream(data[column]))) {
+                    data[column] = gzis.readAllBytes();
+                }
+            }
+        }
+        return data;
+    }
+
     private void checkForJeDISBinaryFormat(byte[] firstTwoBytes) {
         short header = (short) ((firstTwoBytes[0] << 8) | (0xff & firstTwoBytes[1]));
         if (header != BinaryJeDISNodeEncoder.JEDIS_BINARY_MAGIC) {
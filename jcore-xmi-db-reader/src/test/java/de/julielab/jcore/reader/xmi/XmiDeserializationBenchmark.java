@@ -0,0 +1,94 @@
+package de.julielab.jcore.reader.xmi;
+
+import de.julielab.jcore.types.Gene;
+import de.julielab.jcore.types.PennBioIEPOSTag;
+import de.julielab.jcore.types.Sentence;
+import de.julielab.jcore.types.Token;
+import de.julielab.jcore.utility.JCoReTools;
+import org.apache.uima.cas.impl.XmiCasDeserializer;
+import org.apache.uima.cas.impl.XmiCasSerializer;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.cas.FSArray;
+import org.xml.sax.XMLReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+
+/**
+ * <p>
+ * Measures the documents per second and the allocated memory of the XMI deserialization done by the
+ * {@link CasPopulator}. A synthetic abstract with sentences, tokens, POS tags and genes is serialized to XMI once and
+ * then deserialized repeatedly. A new {@link XmiCasDeserializer} and XML reader for each document, as the populator
+ * did before, is compared with the deserializer and reader that the populator now creates once and reuses.
+ * </p>
+ * <p>
+ * Arguments: <tt>[number of documents] [rounds]</tt>, defaulting to 5000 documents and 10 rounds.
+ * </p>
+ */
+public class XmiDeserializationBenchmark {
+    private static final String SENTENCE = "Binding of IL-2 to its receptors activates the T-cells and induces the expression of NF-kappaB target genes . ";
+
+    public static void main(String[] args) throws Exception {
+        final int numDocuments = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        final int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        final JCas jCas = XmiDBSetupHelper.getJCasWithRequiredTypes();
+        final StringBuilder sb = new StringBuilder();
+        while (sb.length() < 1500)
+            sb.append(SENTENCE);
+        jCas.setDocumentText(sb.toString());
+        int numAnnotations = 0;
+        for (int sentenceBegin = 0; sentenceBegin < sb.length(); sentenceBegin += SENTENCE.length()) {
+            new Sentence(jCas, sentenceBegin, sentenceBegin + SENTENCE.length() - 1).addToIndexes();
+            ++numAnnotations;
+            int tokenBegin = sentenceBegin;
+            for (String tokenText : SENTENCE.trim().split(" ")) {
+                final Token token = new Token(jCas, tokenBegin, tokenBegin + tokenText.length());
+                final PennBioIEPOSTag tag = new PennBioIEPOSTag(jCas, token.getBegin(), token.getEnd());
+                tag.setValue("NN");
+                final FSArray posTags = new FSArray(jCas, 1);
+                posTags.set(0, tag);
+                token.setPosTag(posTags);
+                token.addToIndexes();
+                numAnnotations += 2;
+                if (tokenText.equals("IL-2") || tokenText.equals("NF-kappaB")) {
+                    new Gene(jCas, token.getBegin(), token.getEnd()).addToIndexes();
+                    ++numAnnotations;
+                }
+                tokenBegin += tokenText.length() + 1;
+            }
+        }
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        XmiCasSerializer.serialize(jCas.getCas(), baos);
+        final byte[] xmi = baos.toByteArray();
+        System.out.printf("Document with %d characters, %d annotations and %d bytes of XMI%n", sb.length(), numAnnotations, xmi.length);
+
+        final XmiCasDeserializer deserializer = new XmiCasDeserializer(jCas.getTypeSystem());
+        final XMLReader xmlReader = JCoReTools.createXmiReader(0);
+        for (int round = 0; round < rounds; round++) {
+            long allocated = allocatedBytes();
+            long time = System.nanoTime();
+            for (int i = 0; i < numDocuments; i++) {
+                jCas.reset();
+                JCoReTools.deserializeXmi(jCas.getCas(), new ByteArrayInputStream(xmi), 0);
+            }
+            time = System.nanoTime() - time;
+            allocated = allocatedBytes() - allocated;
+            System.out.printf("New deserializer and reader per document: %.0f docs/s, %d KB allocated per document%n", numDocuments / (time / 1e9), allocated / numDocuments / 1024);
+
+            allocated = allocatedBytes();
+            time = System.nanoTime();
+            for (int i = 0; i < numDocuments; i++) {
+                jCas.reset();
+                JCoReTools.deserializeXmi(jCas.getCas(), new ByteArrayInputStream(xmi), deserializer, xmlReader);
+            }
+            time = System.nanoTime() - time;
+            allocated = allocatedBytes() - allocated;
+            System.out.printf("Reused deserializer and reader: %.0f docs/s, %d KB allocated per document%n", numDocuments / (time / 1e9), allocated / numDocuments / 1024);
+        }
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
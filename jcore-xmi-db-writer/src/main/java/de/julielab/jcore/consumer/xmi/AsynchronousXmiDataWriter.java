@@ -0,0 +1,141 @@
+package de.julielab.jcore.consumer.xmi;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * <p>
+ * Write-behind for the {@link XMIDBWriter}. Batches of XMI data are put into a bounded queue and written to the
+ * database by a dedicated thread so that the pipeline thread does not wait for the database. When the queue is full,
+ * {@link #submit(XmiWriteBatch, Runnable)} blocks until the writer thread has taken a batch.
+ * </p>
+ * <p>
+ * For each batch, a callback is run after the data has been committed. The {@link XMIDBWriter} uses this to release
+ * the documents to the {@link de.julielab.jcore.ae.checkpoint.DocumentReleaseCheckpoint}. If writing a batch fails,
+ * the callback is not run, all subsequent batches are discarded and the error is thrown by the next call to
+ * {@link #submit(XmiWriteBatch, Runnable)} or {@link #flush()}.
+ * </p>
+ */
+public class AsynchronousXmiDataWriter {
+    private final static Logger log = LoggerFactory.getLogger(AsynchronousXmiDataWriter.class);
+    private static final Job END = new Job(null, null);
+    private final XmiDataInserter inserter;
+    private final BlockingQueue<Job> queue;
+    private final Thread writerThread;
+    private volatile Throwable error;
+    /**
+     * The number of submitted batches that have not yet been written. Guarded by <tt>this</tt>.
+     */
+    private int pendingBatches;
+
+    /**
+     * @param inserter  The inserter to write the batches with. It is exclusively used by the writer thread.
+     * @param queueSize The number of batches that may wait for being written.
+     */
+    public AsynchronousXmiDataWriter(XmiDataInserter inserter, int queueSize) {
+        this.inserter = inserter;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueSize));
+        writerThread = new Thread(this::run, "XMIDBWriter WritingThread");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    private void run() {
+        try {
+            Job job;
+            while ((job = queue.take()) != END) {
+                try {
+                    if (error == null) {
+                        inserter.sendXmiDataToDatabase(job.batch);
+                        job.onCommit.run();
+                    } else {
+                        log.debug("Discarding a batch of XMI data due to a previous error.");
+                    }
+                } catch (Throwable t) {
+                    log.error("Error while writing XMI data to the database", t);
+                    error = t;
+                } finally {
+                    synchronized (this) {
+                        --pendingBatches;
+                        notifyAll();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            log.debug("The XMI data writing thread has been interrupted.");
+        }
+    }
+
+    /**
+     * Adds a batch to the queue of batches to be written, waiting for free space if necessary.
+     *
+     * @param batch    The batch to write.
+     * @param onCommit Run after the batch has been committed.
+     * @throws XmiDataInsertionException If writing a previously submitted batch failed.
+     */
+    public void submit(XmiWriteBatch batch, Runnable onCommit) throws XmiDataInsertionException {
+        checkError();
+        synchronized (this) {
+            ++pendingBatches;
+        }
+        try {
+            queue.put(new Job(batch, onCommit));
+        } catch (InterruptedException e) {
+            synchronized (this) {
+                --pendingBatches;
+            }
+            Thread.currentThread().interrupt();
+            throw new XmiDataInsertionException(e);
+        }
+    }
+
+    /**
+     * Blocks until all submitted batches have been written.
+     *
+     * @throws XmiDataInsertionException If writing a batch failed.
+     */
+    public void flush() throws XmiDataInsertionException {
+        synchronized (this) {
+            while (pendingBatches > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new XmiDataInsertionException(e);
+                }
+            }
+        }
+        checkError();
+    }
+
+    /**
+     * Writes all submitted batches and stops the writer thread.
+     *
+     * @throws XmiDataInsertionException If writing a batch failed.
+     */
+    public void close() throws XmiDataInsertionException {
+        try {
+            flush();
+        } finally {
+            queue.offer(END);
+        }
+    }
+
+    private void checkError() throws XmiDataInsertionException {
+        if (error != null)
+            throw new XmiDataInsertionException("Writing XMI data to the database failed in the background thread", error);
+    }
+
+    private static class Job {
+        private final XmiWriteBatch batch;
+        private final Runnable onCommit;
+
+        private Job(XmiWriteBatch batch, Runnable onCommit) {
+            this.batch = batch;
+            this.onCommit = onCommit;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package de.julielab.jcore.consumer.xmi;
+
+import de.julielab.costosys.dbconnection.CoStoSysConnection;
+import org.apache.commons.lang3.StringUtils;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * <p>
+ * Writes rows into a PostgreSQL table by streaming them with <code>COPY ... FROM STDIN (FORMAT binary)</code> into
+ * a temporary staging table and then moving them into the target table with a single <code>INSERT ... SELECT</code>
+ * statement. In update mode, the statement is an upsert that overwrites the delivered columns of existing rows and
+ * leaves the other columns untouched. This avoids the per-row statement overhead of JDBC batches.
+ * </p>
+ * <p>
+ * The rows are given as maps from column name to value, as accepted by
+ * {@link de.julielab.costosys.dbconnection.DataBaseConnector#importFromRowIterator}. Rows with differing column sets
+ * are written in separate groups. The values are encoded according to the column types of the target table; types
+ * without a binary encoding here cause an {@link IllegalArgumentException} which can be checked beforehand
+ * with {@link #isSupportedType(String)}. Such an exception leaves the current transaction in an aborted state.
+ * </p>
+ * <p>
+ * The writer does not commit; that is up to the caller. The staging tables are dropped at commit.
+ * </p>
+ */
+public class BinaryCopyWriter {
+    private static final Logger log = LoggerFactory.getLogger(BinaryCopyWriter.class);
+    private static final byte[] COPY_SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0};
+    private static final int BUFFER_SIZE = 65536;
+    private static final Set<String> TEXT_TYPES = Set.of("text", "xml", "varchar", "bpchar", "name", "json");
+    private static final Set<String> BINARY_TYPES = Set.of("bytea");
+    private static final Set<String> INTEGER_TYPES = Set.of("int2", "int4", "int8", "bool");
+
+    private final String[] primaryKey;
+    /**
+     * Makes the staging table names unique within a transaction.
+     */
+    private int stagingTableCounter;
+
+    /**
+     * @param primaryKey The names of the primary key columns of the target table. Required for upserts.
+     */
+    public BinaryCopyWriter(String[] primaryKey) {
+        this.primaryKey = primaryKey;
+    }
+
+    /**
+     * @param typeName A type name as returned by {@link ResultSetMetaData#getColumnTypeName(int)}.
+     * @return Whether values of this type can be written by this class.
+     */
+    public static boolean isSupportedType(String typeName) {
+        return TEXT_TYPES.contains(typeName) || BINARY_TYPES.contains(typeName) || INTEGER_TYPES.contains(typeName);
+    }
+
+    /**
+     * Writes the given rows into <tt>targetTable</tt>.
+     *
+     * @param conn        The connection to use, with auto commit switched off.
+     * @param targetTable The table to write into.
+     * @param rows        The rows to write.
+     * @param upsert      If true, existing rows are updated. Otherwise, existing rows cause a primary key violation.
+     * @return The number of written rows.
+     * @throws SQLException If a database error occurs.
+     * @throws IOException  If the COPY data cannot be sent.
+     */
+    public int write(CoStoSysConnection conn, String targetTable, Iterator<Map<String, Object>> rows, boolean upsert) throws SQLException, IOException {
+        // The primary key columns come first in each group, the other columns are sorted for a canonical group key
+        final Map<List<String>, List<Map<String, Object>>> rowsByColumns = new LinkedHashMap<>();
+        while (rows.hasNext()) {
+            final Map<String, Object> row = rows.next();
+            final List<String> columns = new ArrayList<>(Arrays.asList(primaryKey));
+            row.keySet().stream().filter(c -> !columns.contains(c)).sorted().forEach(columns::add);
+            rowsByColumns.computeIfAbsent(columns, k -> new ArrayList<>()).add(row);
+        }
+        int numRows = 0;
+        for (List<String> columns : rowsByColumns.keySet()) {
+            final List<Map<String, Object>> groupRows = rowsByColumns.get(columns);
+            final String stagingTable = "xmi_copy_staging_" + stagingTableCounter++;
+            writeGroup(conn, targetTable, stagingTable, columns, groupRows, upsert);
+            numRows += groupRows.size();
+        }
+        return numRows;
+    }
+
+    private void writeGroup(CoStoSysConnection conn, String targetTable, String stagingTable, List<String> columns, List<Map<String, Object>> rows, boolean upsert) throws SQLException, IOException {
+        final String columnList = String.join(",", columns);
+        final String[] types = new String[columns.size()];
+        try (Statement stmt = conn.createStatement()) {
+            // The staging table gets exactly the column types of the target table
+            stmt.execute(String.format("CREATE TEMP TABLE %s ON COMMIT DROP AS SELECT %s FROM %s WITH NO DATA", stagingTable, columnList, targetTable));
+            try (ResultSet rs = stmt.executeQuery(String.format("SELECT %s FROM %s LIMIT 0", columnList, stagingTable))) {
+                final ResultSetMetaData metaData = rs.getMetaData();
+                for (int i = 0; i < types.length; i++) {
+                    types[i] = metaData.getColumnTypeName(i + 1);
+                    if (!isSupportedType(types[i]))
+                        throw new IllegalArgumentException("The column " + columns.get(i) + " of table " + targetTable + " has the type " + types[i] + " which is not supported for binary COPY.");
+                }
+            }
+        }
+
+        final long time = System.currentTimeMillis();
+        final PGConnection pgConn = conn.getConnection().unwrap(PGConnection.class);
+        try (DataOutputStream out = new DataOutputStream(new PGCopyOutputStream(pgConn, String.format("COPY %s (%s) FROM STDIN (FORMAT binary)", stagingTable, columnList), BUFFER_SIZE))) {
+            out.write(COPY_SIGNATURE);
+            // flags and header extension length
+            out.writeInt(0);
+            out.writeInt(0);
+            for (Map<String, Object> row : rows) {
+                out.writeShort(columns.size());
+                for (int i = 0; i < types.length; i++)
+                    writeValue(out, row.get(columns.get(i)), types[i]);
+            }
+            // file trailer
+            out.writeShort(-1);
+        }
+        log.debug("Copied {} rows into the staging table {} in {}ms", rows.size(), stagingTable, System.currentTimeMillis() - time);
+
+        final StringBuilder sql = new StringBuilder(String.format("INSERT INTO %s (%s) SELECT %s FROM %s", targetTable, columnList, columnList, stagingTable));
+        if (upsert) {
+            final List<String> nonKeyColumns = columns.subList(primaryKey.length, columns.size());
+            sql.append(" ON CONFLICT (").append(String.join(",", primaryKey)).append(") DO ");
+            if (nonKeyColumns.isEmpty())
+                sql.append("NOTHING");
+            else
+                sql.append("UPDATE SET ").append(nonKeyColumns.stream().map(c -> c + "=EXCLUDED." + c).collect(Collectors.joining(",")));
+        }
+        try (Statement stmt = conn.createStatement()) {
+            final int updated = stmt.executeUpdate(sql.toString());
+            log.debug("Merged {} rows from the staging table {} into {}", updated, stagingTable, targetTable);
+        }
+    }
+
+    private void writeValue(DataOutputStream out, Object value, String type) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        switch (type) {
+            case "int2":
+                out.writeInt(2);
+                out.writeShort(toNumber(value).shortValue());
+                break;
+            case "int4":
+                out.writeInt(4);
+                out.writeInt(toNumber(value).intValue());
+                break;
+            case "int8":
+                out.writeInt(8);
+                out.writeLong(toNumber(value).longValue());
+                break;
+            case "bool":
+                out.writeInt(1);
+                out.writeByte(value instanceof Boolean ? ((Boolean) value ? 1 : 0) : (Boolean.parseBoolean(value.toString()) ? 1 : 0));
+                break;
+            default:
+                // text, xml and bytea are all sent as raw bytes
+                final byte[] bytes = value instanceof byte[] ? (byte[]) value : value.toString().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+        }
+    }
+
+    private Number toNumber(Object value) {
+        if (value instanceof Number)
+            return (Number) value;
+        final String s = value.toString();
+        if (StringUtils.isBlank(s))
+            throw new IllegalArgumentException("Cannot write an empty string into an integer column.");
+        return Long.parseLong(s.trim());
+    }
+}
@@ -0,0 +1,180 @@
+package de.julielab.jcore.consumer.xmi;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <p>
+ * The in-memory state of the binary string mapping and the features to map, shared by all XMIDBWriter instances
+ * writing to the same database and XMI meta table schema. Both maps are append-only: an entry, once added, is never
+ * changed or removed. Thus, known strings can be looked up without any locking by the binary encoder while new
+ * strings are added concurrently.
+ * </p>
+ * <p>
+ * New strings are registered with {@link #addMissingItems(Collection, Map, MappingStore)}. Concurrent registrations
+ * are combined: the first thread that finds no update running becomes the updating thread. It collects the pending
+ * registrations of all threads and assigns the IDs of all their strings in a single call to the {@link MappingStore},
+ * i.e. in a single database transaction. The other threads wait until their strings have been added. The updating
+ * thread keeps taking pending registrations until there are none left.
+ * </p>
+ */
+public class BinaryMappingDictionary {
+    private final static Logger log = LoggerFactory.getLogger(BinaryMappingDictionary.class);
+    private final Map<String, Integer> mapping = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> mappedFeatures = new ConcurrentHashMap<>();
+    private final Queue<Registration> pendingRegistrations = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean updateRunning = new AtomicBoolean();
+
+    /**
+     * @param predefinedMappedFeatures Features whose mapping state is set beforehand, e.g. the features excluded from
+     *                                 mapping by the blacklist of the XMIDBWriter. May be <tt>null</tt>.
+     */
+    public BinaryMappingDictionary(Map<String, Boolean> predefinedMappedFeatures) {
+        if (predefinedMappedFeatures != null)
+            mappedFeatures.putAll(predefinedMappedFeatures);
+    }
+
+    /**
+     * @return The string to ID mapping. The map is safe for concurrent reading and must not be modified.
+     */
+    public Map<String, Integer> getMapping() {
+        return mapping;
+    }
+
+    /**
+     * @return The features with their mapping state. The map is safe for concurrent reading and must not be modified.
+     */
+    public Map<String, Boolean> getMappedFeatures() {
+        return mappedFeatures;
+    }
+
+    /**
+     * <p>
+     * Makes sure that the given values are mapped when this method returns. Values that are already mapped are
+     * ignored; if there are none left, this method returns immediately without any synchronization.
+     * </p>
+     * <p>
+     * The features to map are only stored along with missing values. A feature that already has a mapping state
+     * keeps it.
+     * </p>
+     *
+     * @param valuesToMap   The values that need a mapping ID.
+     * @param featuresToMap The features with their mapping state as determined by the binary encoder.
+     * @param store         Assigns the IDs if the current thread performs the update.
+     * @return Whether any of the values had been missing.
+     * @throws AnalysisEngineProcessException If the mapping could not be updated, either by the current thread or by
+     *                                        the thread that took over the values of the current thread.
+     */
+    public boolean addMissingItems(Collection<String> valuesToMap, Map<String, Boolean> featuresToMap, MappingStore store) throws AnalysisEngineProcessException {
+        Set<String> missingValues = null;
+        for (String value : valuesToMap) {
+            if (!mapping.containsKey(value)) {
+                if (missingValues == null)
+                    missingValues = new HashSet<>();
+                missingValues.add(value);
+            }
+        }
+        if (missingValues == null)
+            return false;
+
+        final Registration registration = new Registration(missingValues, featuresToMap);
+        pendingRegistrations.add(registration);
+        // If another thread is currently updating, it will either take our registration or check for remaining
+        // registrations after it has released the update flag, see performUpdates(). Thus, we do not need to retry.
+        if (updateRunning.compareAndSet(false, true))
+            performUpdates(store);
+        try {
+            registration.done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AnalysisEngineProcessException(e);
+        }
+        if (registration.error != null)
+            throw new AnalysisEngineProcessException(registration.error);
+        return true;
+    }
+
+    private void performUpdates(MappingStore store) {
+        do {
+            try {
+                final List<Registration> registrations = new ArrayList<>();
+                Registration registration;
+                while ((registration = pendingRegistrations.poll()) != null)
+                    registrations.add(registration);
+                if (!registrations.isEmpty())
+                    update(registrations, store);
+            } finally {
+                updateRunning.set(false);
+            }
+            // A registration might have been added after we emptied the queue but before we released the flag
+        } while (!pendingRegistrations.isEmpty() && updateRunning.compareAndSet(false, true));
+    }
+
+    private void update(List<Registration> registrations, MappingStore store) {
+        try {
+            final Set<String> missingValues = new HashSet<>();
+            final Map<String, Boolean> missingFeatures = new HashMap<>();
+            for (Registration registration : registrations) {
+                for (String value : registration.values) {
+                    if (!mapping.containsKey(value))
+                        missingValues.add(value);
+                }
+                registration.features.forEach((feature, map) -> {
+                    if (!mappedFeatures.containsKey(feature))
+                        missingFeatures.putIfAbsent(feature, map);
+                });
+            }
+            if (!missingValues.isEmpty()) {
+                log.debug("Adding {} values of {} threads to the binary mapping", missingValues.size(), registrations.size());
+                final Pair<Map<String, Integer>, Map<String, Boolean>> additions = store.addMappings(missingValues, missingFeatures, mapping, mappedFeatures);
+                // Features first so that a thread that sees a new value also sees the mapping state of its feature
+                additions.getRight().forEach(mappedFeatures::putIfAbsent);
+                additions.getLeft().forEach(mapping::putIfAbsent);
+            }
+        } catch (Throwable t) {
+            log.error("Could not update the binary mapping", t);
+            registrations.forEach(r -> r.error = t);
+        } finally {
+            registrations.forEach(r -> r.done.countDown());
+        }
+    }
+
+    /**
+     * Assigns the IDs to new values. In the XMIDBWriter, this is done by the {@link MetaTableManager} which
+     * synchronizes the assignment with the mapping table in the database.
+     */
+    @FunctionalInterface
+    public interface MappingStore {
+        /**
+         * Is only called by one thread at a time for a dictionary. The current state is not modified during the call.
+         *
+         * @param valuesToMap           Values that are not contained in <tt>currentMapping</tt>.
+         * @param featuresToMap         Features with their mapping state that are not contained in <tt>currentMappedFeatures</tt>.
+         * @param currentMapping        The mapping known so far.
+         * @param currentMappedFeatures The features to map known so far.
+         * @return The entries to add to the mapping and to the features to map, respectively.
+         * @throws AnalysisEngineProcessException If the assignment fails.
+         */
+        Pair<Map<String, Integer>, Map<String, Boolean>> addMappings(Set<String> valuesToMap, Map<String, Boolean> featuresToMap, Map<String, Integer> currentMapping, Map<String, Boolean> currentMappedFeatures) throws AnalysisEngineProcessException;
+    }
+
+    private static class Registration {
+        private final Collection<String> values;
+        private final Map<String, Boolean> features;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Throwable error;
+
+        private Registration(Collection<String> values, Map<String, Boolean> features) {
+            this.values = values;
+            this.features = features;
+        }
+    }
+}
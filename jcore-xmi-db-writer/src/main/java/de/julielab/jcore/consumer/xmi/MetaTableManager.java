@@ -4,7 +4,6 @@ import com.google.common.collect.Sets;
 import de.julielab.costosys.dbconnection.CoStoSysConnection;
 import de.julielab.costosys.dbconnection.DataBaseConnector;
 import de.julielab.xml.XmiSplitConstants;
-import de.julielab.xml.binary.BinaryStorageAnalysisResult;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
@@ -19,7 +18,6 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.*;
 import java.util.Map.Entry;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class MetaTableManager {
@@ -110,70 +108,79 @@ public class MetaTableManager {
      * values as determined by the {@link de.julielab.xml.binary.BinaryJeDISNodeEncoder#findMissingItemsForMapping(Collection, TypeSystem, Map, Map)} method. An attribute is assumed to
      * not have a lot of different values if it has at most half as many different values as there are occurrences of the attribute, and, thus, the respective UIMA type feature.
      * This strategy is currently only applied to string values.</p>
-     * <p>This method checks if there are items to be mapped which are not yet present in the current mapping which is passed from the <tt>XMIDBWriter</tt>. If there
-     * are new items, the mapping table is locked from concurrent access and updated with the new values. The updated
-     * mapping is returned to be kept for future applications.</p>
+     * <p>The mapping table is locked from concurrent access by other pipelines. Then, the mappings added to the table since
+     * the <tt>currentMapping</tt> has been read are retrieved and the values that are still missing are added with new IDs.
+     * Only the additions to the current state are returned, the current state itself is not modified.</p>
      *
-     * @param analysisResult     The analysis result of the documents to be encoded next.
-     * @param currentMappingState The mapping as it is currently known to the <tt>XMIDBWriter</tt> instance.
-     * @return The mapping with all known mappings from the database, potentially with updated elements from the current document.
+     * @param valuesToMap           The values that are not contained in <tt>currentMapping</tt>.
+     * @param featuresToMap         The features to map, as determined by the binary encoder, that are not contained in <tt>currentMappedFeatures</tt>.
+     * @param currentMapping        The mapping as it is currently known to the <tt>XMIDBWriter</tt>.
+     * @param currentMappedFeatures The features to map as they are currently known to the <tt>XMIDBWriter</tt>.
+     * @param writeToDatabase       Whether to insert the new mappings into the database.
+     * @return The mappings and the features to map that are not contained in the current state, either because they have been added by other pipelines or because they are new.
      * @throws AnalysisEngineProcessException If the database communication fails.
+     * @see BinaryMappingDictionary
      */
-    public Pair<Map<String, Integer>, Map<String, Boolean>> updateBinaryStringMappingTable(BinaryStorageAnalysisResult analysisResult, Map<String, Integer> currentMappingState, Map<String, Boolean> currentMappedAttributes, boolean writeToDatabase) throws AnalysisEngineProcessException {
-
-
-        final List<String> missingValuesToMap = analysisResult.getMissingValuesToMap().stream().filter(value -> !currentMappingState.containsKey(value)).collect(Collectors.toList());
-        Map<String, Boolean> missingFeaturesToMap = analysisResult.getMissingFeaturesToMap().keySet().stream().filter(key -> !currentMappedAttributes.containsKey(key)).collect(Collectors.toMap(Function.identity(), analysisResult.getMissingFeaturesToMap()::get));
-
-
-        Map<String, Integer> completeMapping = currentMappingState;
-        Map<String, Boolean> completeMappedAttributes = currentMappedAttributes;
-        if (!missingValuesToMap.isEmpty()) {
-            String mappingTableName = xmiMetaSchema + "." + BINARY_MAPPING_TABLE;
-            String featuresToMapTableName = xmiMetaSchema + "." + BINARY_FEATURES_TO_MAP_TABLE;
-            String sql = null;
-            try (CoStoSysConnection costoConn = dbc.obtainOrReserveConnection()) {
-                costoConn.getConnection().beginRequest();
-                boolean wasAutoCommit = costoConn.getAutoCommit();
-                costoConn.setAutoCommit(false);
-                final Statement stmt = costoConn.createStatement();
-
-                createBinaryMetaTables(mappingTableName, featuresToMapTableName, costoConn);
-
-                // Completely lock the tables. This is a synchronization mechanism: All mapping updates will wait at this
-                // exact location. On gaining access exclusive access, the table is first updated before it is
-                // released again (which happens on the end of the transaction).
-                long time = System.currentTimeMillis();
-                obtainLockToMappingTable(mappingTableName, stmt);
-                obtainLockToMappedFeaturesTable(featuresToMapTableName, stmt);
-                time = System.currentTimeMillis() - time;
-                log.debug("Thread {} obtained locks to the binary mapping tables after {}ms.", Thread.currentThread(), time);
-                time = System.currentTimeMillis();
-
-                // Read the mapping table
-                Map<String, Integer> existingMappingWithDbUpdate = updateMapping(mappingTableName, currentMappingState, stmt);
-                Map<String, Boolean> featuresToMapFromDatabase = readFeaturesToMapFromDatabase(featuresToMapTableName, stmt);
-
-                final ImmutablePair<Map<String, Integer>, Map<String, Boolean>> missing = performMappingUpdate(missingValuesToMap, missingFeaturesToMap, featuresToMapFromDatabase, currentMappedAttributes, existingMappingWithDbUpdate, mappingTableName, featuresToMapTableName, costoConn, wasAutoCommit, writeToDatabase);
-                time = System.currentTimeMillis() - time;
-                log.debug("Thread {} had the table lock for {}ms", Thread.currentThread().getName(), time);
-                final Map<String, Integer> missingItemsAfterDbComparison = missing.getLeft();
-                final Map<String, Boolean> missingFeaturesToMapAfterDbComparison = missing.getRight();
+    public Pair<Map<String, Integer>, Map<String, Boolean>> addBinaryMappings(Collection<String> valuesToMap, Map<String, Boolean> featuresToMap, Map<String, Integer> currentMapping, Map<String, Boolean> currentMappedFeatures, boolean writeToDatabase) throws AnalysisEngineProcessException {
+        if (valuesToMap.isEmpty())
+            return new ImmutablePair<>(Collections.emptyMap(), Collections.emptyMap());
+        String mappingTableName = xmiMetaSchema + "." + BINARY_MAPPING_TABLE;
+        String featuresToMapTableName = xmiMetaSchema + "." + BINARY_FEATURES_TO_MAP_TABLE;
+        try (CoStoSysConnection costoConn = dbc.obtainOrReserveConnection()) {
+            costoConn.getConnection().beginRequest();
+            boolean wasAutoCommit = costoConn.getAutoCommit();
+            costoConn.setAutoCommit(false);
+            final Statement stmt = costoConn.createStatement();
+
+            createBinaryMetaTables(mappingTableName, featuresToMapTableName, costoConn);
+
+            // Completely lock the tables. This is a synchronization mechanism: All mapping updates will wait at this
+            // exact location. On gaining access exclusive access, the table is first updated before it is
+            // released again (which happens on the end of the transaction).
+            long time = System.currentTimeMillis();
+            obtainLockToMappingTable(mappingTableName, stmt);
+            obtainLockToMappedFeaturesTable(featuresToMapTableName, stmt);
+            time = System.currentTimeMillis() - time;
+            log.debug("Thread {} obtained locks to the binary mapping tables after {}ms.", Thread.currentThread(), time);
+            time = System.currentTimeMillis();
 
-                completeMapping = existingMappingWithDbUpdate;
-                completeMapping.putAll(missingItemsAfterDbComparison);
+            final Map<String, Integer> mappingsFromDatabase = readNewMappings(mappingTableName, currentMapping.size(), stmt);
+            final Map<String, Boolean> featuresToMapFromDatabase = readFeaturesToMapFromDatabase(featuresToMapTableName, stmt);
 
-                completeMappedAttributes = featuresToMapFromDatabase;
-                completeMappedAttributes.putAll(missingFeaturesToMapAfterDbComparison);
-            } catch (SQLException e) {
-                log.error("Could not retrieve or update binary meta data tables. The last sent SQL query was {}", sql, e);
-                throw new AnalysisEngineProcessException(e);
+            Map<String, Integer> newMappings = new HashMap<>();
+            int id = currentMapping.size() + mappingsFromDatabase.size();
+            for (String value : valuesToMap) {
+                if (!currentMapping.containsKey(value) && !mappingsFromDatabase.containsKey(value))
+                    newMappings.put(value, id++);
+            }
+            // Different analysis results might actually override each other here. This could be handled if it turns out to be an issue
+            Map<String, Boolean> newFeaturesToMap = new HashMap<>();
+            featuresToMap.keySet().stream().filter(key -> !featuresToMapFromDatabase.containsKey(key)).forEach(feature -> newFeaturesToMap.put(feature, featuresToMap.get(feature)));
+
+            if (writeToDatabase) {
+                writeMappingsToDatabase(currentMappedFeatures, mappingTableName, featuresToMapTableName, costoConn, wasAutoCommit, featuresToMapFromDatabase, newMappings, newFeaturesToMap);
+            } else {
+                // release the table locks
+                costoConn.getConnection().rollback();
+                costoConn.setAutoCommit(wasAutoCommit);
+                costoConn.getConnection().endRequest();
             }
-        } else {
-            log.debug("Not actually updating anything because the missing mappings had been added while waiting for the lock." );
+            time = System.currentTimeMillis() - time;
+            log.debug("Thread {} had the table lock for {}ms", Thread.currentThread().getName(), time);
+
+            Map<String, Integer> addedMappings = new HashMap<>(mappingsFromDatabase);
+            addedMappings.putAll(newMappings);
+            Map<String, Boolean> addedFeaturesToMap = new HashMap<>();
+            featuresToMapFromDatabase.forEach((feature, map) -> {
+                if (!currentMappedFeatures.containsKey(feature))
+                    addedFeaturesToMap.put(feature, map);
+            });
+            addedFeaturesToMap.putAll(newFeaturesToMap);
+            return new ImmutablePair<>(addedMappings, addedFeaturesToMap);
+        } catch (SQLException e) {
+            log.error("Could not retrieve or update binary meta data tables.", e);
+            throw new AnalysisEngineProcessException(e);
         }
-
-        return new ImmutablePair(completeMapping, completeMappedAttributes);
     }
 
     private void writeMappingsToDatabase(Map<String, Boolean> currentMappedAttributes, String mappingTableName, String featuresToMapTableName, CoStoSysConnection costoConn, boolean wasAutoCommit, Map<String, Boolean> featuresToMapFromDatabase, Map<String, Integer> stillMissingValuesMap, Map<String, Boolean> stillMissingFeaturesToMap) throws SQLException {
@@ -187,24 +194,6 @@ public class MetaTableManager {
         costoConn.getConnection().endRequest();
     }
 
-    private ImmutablePair<Map<String, Integer>, Map<String, Boolean>> performMappingUpdate(List<String> missingValuesToMap, Map<String, Boolean> missingFeaturesToMap, Map<String, Boolean> featuresToMapFromDatabase, Map<String, Boolean> currentMappedAttributes, Map<String, Integer> existingMappingWithDbUpdate, String mappingTableName, String featuresToMapTableName, CoStoSysConnection costoConn, boolean wasAutoCommit, boolean writeToDatabase) throws SQLException {
-        final Set<String> stillMissingValuesToMap = new HashSet<>();
-        Map<String, Boolean> stillMissingFeaturesToMap = new HashMap<>();
-        missingValuesToMap.stream().filter(value -> !existingMappingWithDbUpdate.containsKey(value)).forEach(stillMissingValuesToMap::add);
-        // Different analysis results might actually override each other here. This could be handled if it turns out to be an issue
-        missingFeaturesToMap.keySet().stream().filter(key -> !featuresToMapFromDatabase.containsKey(key)).forEach(feature -> stillMissingFeaturesToMap.put(feature, missingFeaturesToMap.get(feature)));
-
-        Map<String, Integer> stillMissingValuesMap = new HashMap<>();
-        int id = existingMappingWithDbUpdate.size();
-        for (String value : stillMissingValuesToMap)
-            stillMissingValuesMap.put(value, id++);
-
-        if (writeToDatabase) {
-            writeMappingsToDatabase(currentMappedAttributes, mappingTableName, featuresToMapTableName, costoConn, wasAutoCommit, featuresToMapFromDatabase, stillMissingValuesMap, stillMissingFeaturesToMap);
-        }
-        return new ImmutablePair<>(stillMissingValuesMap, stillMissingFeaturesToMap);
-    }
-
     private void obtainLockToMappingTable(String mappingTableName, Statement stmt) throws AnalysisEngineProcessException {
         String sql = null;
         try {
@@ -227,29 +216,25 @@ public class MetaTableManager {
         }
     }
 
-    private Map<String, Integer> updateMapping(String mappingTableName, Map<String, Integer> currentMappingState, Statement stmt) throws AnalysisEngineProcessException {
+    private Map<String, Integer> readNewMappings(String mappingTableName, int numKnownMappings, Statement stmt) throws AnalysisEngineProcessException {
         long time = System.currentTimeMillis();
         String sql = null;
         try {
-            Map<String, Integer> existingMapping = new HashMap<>(currentMappingState);
-            // Only request what we don't already have. Since the mapping IDs are a enumeration,
-            // we can just order by them descendingly and get the head of this list. The remainder
-            // of size currentMappingState.size() is already known.
-            sql = String.format("SELECT %s,%s FROM %s ORDER BY %s DESC LIMIT (SELECT count(%s) FROM %s)-%d", BINARY_MAPPING_COL_STRING, BINARY_MAPPING_COL_ID, mappingTableName, BINARY_MAPPING_COL_ID, BINARY_MAPPING_COL_ID, mappingTableName, currentMappingState.size());
+            Map<String, Integer> newMappings = new HashMap<>();
+            // Only request what we don't already have. Since the mapping IDs are an enumeration,
+            // the known mappings are exactly those with an ID lower than their count.
+            sql = String.format("SELECT %s,%s FROM %s WHERE %s >= %d", BINARY_MAPPING_COL_STRING, BINARY_MAPPING_COL_ID, mappingTableName, BINARY_MAPPING_COL_ID, numKnownMappings);
             final ResultSet rs = stmt.executeQuery(sql);
-            int count = 0;
-            while (rs.next()) {
-                existingMapping.put(rs.getString(1), rs.getInt(2));
-                ++count;
-            }
-            log.debug("Received {} previously unknown mappings from the database", count);
-            return existingMapping;
+            while (rs.next())
+                newMappings.put(rs.getString(1), rs.getInt(2));
+            log.debug("Received {} previously unknown mappings from the database", newMappings.size());
+            return newMappings;
         } catch (SQLException e) {
             log.error("Could not retrieve mappings from the mapping table {}. SQL was: {}", mappingTableName, sql);
             throw new AnalysisEngineProcessException(e);
         } finally {
             time = System.currentTimeMillis() - time;
-            log.debug("Updating the mapping from the database took {}ms", time);
+            log.debug("Reading new mappings from the database took {}ms", time);
         }
     }
 
@@ -37,8 +37,6 @@ import de.julielab.xml.util.MissingBinaryMappingException;
 import de.julielab.xml.util.XMISplitterException;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.codec.digest.DigestUtils;
-import org.apache.commons.lang3.tuple.ImmutablePair;
-import org.apache.commons.lang3.tuple.Pair;
 import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_component.JCasAnnotator_ImplBase;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
@@ -67,10 +65,7 @@ import java.io.OutputStream;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
-import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.zip.GZIPOutputStream;
@@ -116,15 +111,13 @@ public class XMIDBWriter extends JCasAnnotator_ImplBase {
     public static final String PARAM_FEATURES_TO_MAP_DRYRUN = "BinaryFeaturesToMapDryRun";
     public static final String PARAM_BINARY_FEATURES_BLACKLIST = "BinaryFeaturesBlacklist";
     public static final String PARAM_ADD_SHA_HASH = "AddShaHash";
+    public static final String PARAM_USE_COPY = "UseCopy";
+    public static final String PARAM_ASYNCHRONOUS_WRITE = "AsynchronousWrite";
+    public static final String PARAM_WRITE_QUEUE_SIZE = "WriteQueueSize";
     private static final Logger log = LoggerFactory.getLogger(XMIDBWriter.class);
     // The mappings are keyed by the costosys.xml path and the table schema, see 'mappingCacheKey'.
     // The idea is to save costly database connections by sharing updating mapping across threads.
-    private static Map<String, Map<String, Integer>> binaryStringMapping = Collections.emptyMap();
-    private static Map<String, Map<String, Boolean>> binaryMappedFeatures = Collections.emptyMap();
-    private static Map<String, Map<DocumentId, XmiBufferItem>> splitterResultMap;
-    private static Map<String, Map<String, Pair<List<XmiBufferItem>, CountDownLatch>>> xmiBufferItemsToProcess;
-    private static CountDownLatch missingMappingsGatheringLatch = new CountDownLatch(0);
-    private static ReentrantLock mappingUpdateLock;
+    private static Map<String, BinaryMappingDictionary> binaryMappingDictionaries = new ConcurrentHashMap<>();
     private DataBaseConnector dbc;
     @ConfigurationParameter(name = PARAM_UPDATE_MODE, description = "If set to false, the attempt to write new data " +
             "into an XMI document or annotation table that already has data for the respective document, will result " +
@@ -250,6 +243,25 @@ public class XMIDBWriter extends JCasAnnotator_ImplBase {
     private String[] binaryFeaturesBlacklistParameter;
     @ConfigurationParameter(name = PARAM_ADD_SHA_HASH, mandatory = false, description = "Possible values: document_text. If this parameter is set to a valid value, the SHA256 hash for the given value will be calculated, base64 encoded and added to each document as a new column in the document table. The column will be named after the parameter value, suffixed by '_sha256'.")
     private String documentItemToHash;
+    @ConfigurationParameter(name = PARAM_USE_COPY, mandatory = false, defaultValue = "false", description = "If set to " +
+            "true, the XMI data is streamed into a temporary staging table with the PostgreSQL COPY command in binary " +
+            "format and then moved into the document table with a single INSERT or, in update mode, upsert statement. " +
+            "This is considerably faster than the default JDBC batch statements. Only text, XML, bytea, integer and " +
+            "boolean columns are supported. In update mode, documents whose entries in mirror subsets of the document " +
+            "table must be reset are still written with JDBC batches.")
+    private boolean useCopy;
+    @ConfigurationParameter(name = PARAM_ASYNCHRONOUS_WRITE, mandatory = false, defaultValue = "false", description =
+            "If set to true, the batches of XMI data are written to the database by a background thread while the " +
+            "pipeline continues to process the next documents. The documents of a batch are released to the " +
+            "JeDIS synchronization, see the '" + DocumentReleaseCheckpoint.PARAM_JEDIS_SYNCHRONIZATION_KEY + "' " +
+            "parameter, only after the batch has been committed. Errors are reported with the next batch.")
+    private boolean asynchronousWrite;
+    @ConfigurationParameter(name = PARAM_WRITE_QUEUE_SIZE, mandatory = false, defaultValue = "2", description = "Only " +
+            "in effect if '" + PARAM_ASYNCHRONOUS_WRITE + "' is set to true. The number of batches that may wait for " +
+            "being written to the database. When this number is reached, the pipeline waits for the database. " +
+            "Defaults to 2.")
+    private int writeQueueSize;
+    private AsynchronousXmiDataWriter asynchronousWriter;
     private Map<DocumentId, String> shaMap;
     private Set<DocumentId> mirrorResetIds;
     private Set<DocumentId> unchangedDocuments;
@@ -306,20 +318,14 @@ public class XMIDBWriter extends JCasAnnotator_ImplBase {
         useBinaryFormat = Optional.ofNullable((Boolean) aContext.getConfigParameterValue(PARAM_USE_BINARY_FORMAT)).orElse(false);
         featuresToMapDryRun = Optional.ofNullable((Boolean) aContext.getConfigParameterValue(PARAM_FEATURES_TO_MAP_DRYRUN)).orElse(false);
         binaryFeaturesBlacklistParameter = (String[]) aContext.getConfigParameterValue(PARAM_BINARY_FEATURES_BLACKLIST);
+        useCopy = Optional.ofNullable((Boolean) aContext.getConfigParameterValue(PARAM_USE_COPY)).orElse(false);
+        asynchronousWrite = Optional.ofNullable((Boolean) aContext.getConfigParameterValue(PARAM_ASYNCHRONOUS_WRITE)).orElse(false);
+        writeQueueSize = Optional.ofNullable((Integer) aContext.getConfigParameterValue(PARAM_WRITE_QUEUE_SIZE)).orElse(2);
         if (useBinaryFormat) {
             this.mappingCacheKey = dbcConfigPath + "_" + xmiMetaSchema;
-            binaryMappedFeatures = new ConcurrentHashMap<>();
-            binaryMappedFeatures.put(mappingCacheKey, new ConcurrentHashMap<>());
-            binaryStringMapping = new ConcurrentHashMap<>();
-            binaryStringMapping.put(mappingCacheKey, new ConcurrentHashMap<>());
-            splitterResultMap = new ConcurrentHashMap<>();
-            splitterResultMap.put(mappingCacheKey, new ConcurrentHashMap<>());
-            xmiBufferItemsToProcess = new ConcurrentHashMap<>();
-            xmiBufferItemsToProcess.put(mappingCacheKey, new ConcurrentHashMap<>(writeBatchSize));
-            mappingUpdateLock = new ReentrantLock();
-        }
-        if (useBinaryFormat && binaryFeaturesBlacklistParameter != null) {
-            binaryMappedFeatures.put(mappingCacheKey, Arrays.stream(binaryFeaturesBlacklistParameter).collect(Collectors.toMap(Function.identity(), x -> false, (x, y) -> x && y, ConcurrentHashMap::new)));
+            final Map<String, Boolean> blacklistedFeatures = binaryFeaturesBlacklistParameter != null ? Arrays.stream(binaryFeaturesBlacklistParameter).collect(Collectors.toMap(Function.identity(), x -> false, (x, y) -> x && y)) : null;
+            // Writers initialized later must not replace the dictionary other threads are already encoding with.
+            binaryMappingDictionaries.computeIfAbsent(mappingCacheKey, k -> new BinaryMappingDictionary(blacklistedFeatures));
         }
 
         if (xmiMetaSchema.isBlank())
@@ -442,11 +448,15 @@ public class XMIDBWriter extends JCasAnnotator_ImplBase {
         log.info("Base document table schema: {}", schemaDocument);
         log.info("Batch size of cached documents sent to database: {}", writeBatchSize);
         log.info("Do a dry run and output binary features to map: {}", featuresToMapDryRun);
+        log.info("Write with COPY: {}", useCopy);
+        log.info("Write asynchronously: {}", asynchronousWrite);
 
 
         metaTableManager = new MetaTableManager(dbc, xmiMetaSchema);
         annotationInserter = new XmiDataInserter(annotationModulesColumnNames, dbc,
-                schemaDocument, storeAll, updateMode, componentDbName, hashColumnName);
+                schemaDocument, storeAll, updateMode, componentDbName, hashColumnName, useCopy);
+        if (asynchronousWrite)
+            asynchronousWriter = new AsynchronousXmiDataWriter(annotationInserter, writeQueueSize);
         dbc.releaseConnections();
 
         jedisSyncKey = (String) aContext.getConfigParameterValue(DocumentReleaseCheckpoint.PARAM_JEDIS_SYNCHRONIZATION_KEY);
@@ -622,70 +632,22 @@ public class XMIDBWriter extends JCasAnnotator_ImplBase {
             }
         } else {
             if (useBinaryFormat) {
-                // We will now, first, find missing mapping items relative to the currently known binary string mapping.
-                // If we have missing items, we will add the XmiBufferItems that we currently have and in which we
-                // found missing mapping items, to the 'xmiBufferItemsToProcess' map.
-                // This map is open for processing to other threads, but may also end up being processed
-                // by the current thread.
+                // Find the mapping items that are missing relative to the currently known binary string mapping and
+                // add them to the mapping. Concurrent additions of other threads are combined into a single database
+                // update by the dictionary. Lookups of known items do not require any synchronization.
                 TypeSystem ts = xmiItemBuffer.get(0).getTypeSystem();
-                // Note the merging function at the end: If a document ID occurrs multiple times in the xmiItemBuffer (which actually can happen for
-                // PubMed, for example, where the baseline may include some IDs multiple times in different versions), we take the latter one.
-                // The hope is that this is the newer document or more recent version.
-                final Map<DocumentId, XmiSplitterResult> splitterResultsToProcess = xmiItemBuffer.stream().collect(Collectors.toMap(XmiBufferItem::getDocId, XmiBufferItem::getSplitterResult, (res1, res2) -> res2));
-                final BinaryStorageAnalysisResult requiredMappingAnalysisResult;
-                // Check if we need new mappings at all
-                final Pair<List<XmiBufferItem>, CountDownLatch> unanalyzedItems;
-                boolean hasMissingMappingItems;
-                synchronized (binaryMappedFeatures) {
-                    unanalyzedItems = new ImmutablePair<>(xmiItemBuffer.stream().filter(Predicate.not(XmiBufferItem::isProcessedForBinaryMappings)).collect(Collectors.toList()), new CountDownLatch(2));
-                    requiredMappingAnalysisResult = binaryEncoder.findMissingItemsForMapping(unanalyzedItems.getLeft().stream().flatMap(item -> item.getSplitterResult().jedisNodesInAnnotationModules.stream()).collect(Collectors.toList()), ts, binaryStringMapping.get(mappingCacheKey), binaryMappedFeatures.get(mappingCacheKey), featuresToMapDryRun);
-                    // Here we add a list of XmiBufferItems that this thread needs processed to encode its annotation modules into the binary format.
-                    hasMissingMappingItems = !requiredMappingAnalysisResult.getMissingValuesToMap().isEmpty();
-                    if (hasMissingMappingItems)
-                        xmiBufferItemsToProcess.compute(mappingCacheKey, (k, v) -> v != null ? v : new ConcurrentHashMap<>()).put(Thread.currentThread().getName(), unanalyzedItems);
-                }
-                if (hasMissingMappingItems) {
+                final BinaryMappingDictionary dictionary = binaryMappingDictionaries.get(mappingCacheKey);
+                final List<JeDISVTDGraphNode> nodes = xmiItemBuffer.stream().flatMap(item -> item.getSplitterResult().jedisNodesInAnnotationModules.stream()).collect(Collectors.toList());
+                BinaryStorageAnalysisResult requiredMappingAnalysisResult = binaryEncoder.findMissingItemsForMapping(nodes, ts, dictionary.getMapping(), dictionary.getMappedFeatures(), featuresToMapDryRun);
+                // Another thread might have determined a different mapping state for some features in the meantime.
+                // Then, the analysis result changes after the update. Repeat until nothing is missing.
+                while (!requiredMappingAnalysisResult.getMissingValuesToMap().isEmpty()) {
                     log.trace("Required mappings: {}", requiredMappingAnalysisResult.getMissingValuesToMap());
-                    try {
-                        while (unanalyzedItems.getRight().getCount() == 2) {
-                            // Try to do the update with the current thread
-                            if (!updateBinaryMapping(requiredMappingAnalysisResult, splitterResultsToProcess, ts)) {
-                                // Wait if another thread is currently assembling the missing items, perhaps it will also get those of this thread
-                                missingMappingsGatheringLatch.await();
-                                // Now check if the items of this thread have been gotten by another thread
-                                if (unanalyzedItems.getRight().getCount() == 2) {
-                                    // If we couldn't do the update with this thread (return value false) and
-                                    // this thread's missing items are not currently in process, wait for the current
-                                    // update to finish and then do it with the current thread by waiting for the update lock
-                                    mappingUpdateLock.lock();
-                                }
-                            }
-                        }
-                    } catch (InterruptedException e) {
-                        log.error("Interruption happened while waiting for another thread to gather the missing items of this thread ({}).", Thread.currentThread().getName());
-                        throw new AnalysisEngineProcessException(e);
-                    }
-                    // It is possible that the current thread aquired the lock in the while loop above despite the
-                    // fact that another thread had processed its items (another thread could get the lock and
-                    // process this thread's missing items). In that case the while loop will be exited without
-                    // calling the updateBinaryMapping() method and the lock wouldn't be unlocked so do it here.
-                    if (mappingUpdateLock.isHeldByCurrentThread())
-                        mappingUpdateLock.unlock();
-                    try {
-                        // Wait for this thread's items to be finished with the update. The current thread will
-                        // actually wait here if another thread has promised to process the items by counting
-                        // down the latch to 1. If the current thread did the update itself, the latch will
-                        // already by at 0 here and there will be no wait time.
-                        unanalyzedItems.getRight().await();
-                    } catch (InterruptedException e) {
-                        log.error("Interruption happened while waiting for another thread to update the missing binary mapping items for this thread ({}).", Thread.currentThread().getName());
-                        throw new AnalysisEngineProcessException(e);
-                    }
-                } else {
-                    // No mappings are missed, don't perform a mapping update.
-                    // But remove the XmiBufferItems from the waiting list so that no unneeded work is done
-                    // and also the waiting list does not grow to eternity.
-                    unanalyzedItems.getLeft().stream().map(XmiBufferItem::getDocId).forEach(splitterResultMap.get(mappingCacheKey)::remove);
+                    final boolean added = dictionary.addMissingItems(requiredMappingAnalysisResult.getMissingValuesToMap(), requiredMappingAnalysisResult.getMissingFeaturesToMap(),
+                            (values, features, mapping, mappedFeatures) -> metaTableManager.addBinaryMappings(values, features, mapping, mappedFeatures, !featuresToMapDryRun));
+                    if (!added)
+                        break;
+                    requiredMappingAnalysisResult = binaryEncoder.findMissingItemsForMapping(nodes, ts, dictionary.getMapping(), dictionary.getMappedFeatures(), featuresToMapDryRun);
                 }
             }
 
@@ -695,49 +657,9 @@ public class XMIDBWriter extends JCasAnnotator_ImplBase {
         return true;
     }
 
-    private boolean updateBinaryMapping(BinaryStorageAnalysisResult requiredMappingAnalysisResult, Map<DocumentId, XmiSplitterResult> splitterResultsToProcess, TypeSystem ts) throws AnalysisEngineProcessException {
-        if (mappingUpdateLock.tryLock()) {
-            try {
-                // Here, we check for missing mappings for the whole buffers of all threads. This is important for performance
-                // because each binary mapping update requires exclusive read/write access to the mapping table
-                // in the database which is a potential bottleneck. Doing it batchwise alleviates this.
-                missingMappingsGatheringLatch = new CountDownLatch(1);
-                final List<XmiBufferItem> splitterResults = splitterResultMap.get(mappingCacheKey).keySet().stream().map(splitterResultMap.get(mappingCacheKey)::remove).filter(Objects::nonNull).collect(Collectors.toList());
-                final List<XmiBufferItem> xmiBufferItemsFromOtherThreads = splitterResults.stream().filter(i -> !splitterResultsToProcess.containsKey(i.getDocId())).collect(Collectors.toList());
-                final Collection<Pair<List<XmiBufferItem>, CountDownLatch>> xmiBufferItemsWaitedFor = new ArrayList<>(xmiBufferItemsToProcess.get(mappingCacheKey).values());
-                xmiBufferItemsWaitedFor.stream().map(Pair::getLeft).flatMap(Collection::stream).forEach(xmiBufferItemsFromOtherThreads::add);
-                xmiBufferItemsWaitedFor.stream().map(Pair::getRight).forEach(CountDownLatch::countDown);
-                missingMappingsGatheringLatch.countDown();
-
-                final List<JeDISVTDGraphNode> nodesFromOtherThreads = xmiBufferItemsFromOtherThreads.stream().flatMap(i -> i.getSplitterResult().jedisNodesInAnnotationModules.stream()).collect(Collectors.toList());
-                log.trace("Got {} XmiBufferItems from other threads to check for missing mappings", xmiBufferItemsFromOtherThreads.size());
-                final BinaryStorageAnalysisResult missingItemsForMapping = binaryEncoder.findMissingItemsForMapping(nodesFromOtherThreads, ts, binaryStringMapping.get(mappingCacheKey), binaryMappedFeatures.get(mappingCacheKey), featuresToMapDryRun);
-                missingItemsForMapping.getMissingValuesToMap().addAll(requiredMappingAnalysisResult.getMissingValuesToMap());
-                missingItemsForMapping.getMissingFeaturesToMap().putAll(requiredMappingAnalysisResult.getMissingFeaturesToMap());
-                final Pair<Map<String, Integer>, Map<String, Boolean>> updatedMappingAndMappedFeatures = metaTableManager.updateBinaryStringMappingTable(missingItemsForMapping, binaryStringMapping.get(mappingCacheKey), binaryMappedFeatures.get(mappingCacheKey), !featuresToMapDryRun);
-                synchronized (binaryMappedFeatures) {
-                    binaryStringMapping.put(mappingCacheKey, Collections.synchronizedMap(updatedMappingAndMappedFeatures.getLeft()));
-                    binaryMappedFeatures.put(mappingCacheKey, Collections.synchronizedMap(updatedMappingAndMappedFeatures.getRight()));
-                }
-                // Mark all the items as processed for other threads which might wait for them, otherwise.
-                xmiBufferItemsFromOtherThreads.forEach(item -> item.setProcessedForBinaryMappings(true));
-                log.debug("Releasing the locks of {} lists of XmiBufferItems to process", xmiBufferItemsWaitedFor.size());
-                for (Pair<List<XmiBufferItem>, CountDownLatch> itemsWaitedFor : xmiBufferItemsWaitedFor) {
-                    itemsWaitedFor.getLeft().forEach(item -> item.setProcessedForBinaryMappings(true));
-                    itemsWaitedFor.getLeft().clear();
-                    // Indicate that this list of items has been processed and the mapping is updated
-                    itemsWaitedFor.getRight().countDown();
-                }
-                return true;
-            } finally {
-                mappingUpdateLock.unlock();
-            }
-        }
-        return false;
-    }
-
     private void createAnnotationModules() throws AnalysisEngineProcessException {
         log.debug("Creating annotation modules for {} items in the XMI buffer", xmiItemBuffer.size());
+        final BinaryMappingDictionary dictionary = useBinaryFormat ? binaryMappingDictionaries.get(mappingCacheKey) : null;
         for (int i = 0; i < xmiItemBuffer.size(); i++) {
             final XmiBufferItem item = xmiItemBuffer.get(i);
             DocumentId docId = item.getDocId();
@@ -751,7 +673,7 @@ public class XMIDBWriter extends JCasAnnotator_ImplBase {
 
                 if (useBinaryFormat) {
                     try {
-                        final Map<String, ByteArrayOutputStream> encodedXmiData = binaryEncoder.encode(result.jedisNodesInAnnotationModules, item.getTypeSystem(), binaryStringMapping.get(mappingCacheKey), binaryMappedFeatures.get(mappingCacheKey));
+                        final Map<String, ByteArrayOutputStream> encodedXmiData = binaryEncoder.encode(result.jedisNodesInAnnotationModules, item.getTypeSystem(), dictionary.getMapping(), dictionary.getMappedFeatures());
                         splitXmiData = encodedXmiData;
                     } catch (MissingBinaryMappingException e) {
                         throw new AnalysisEngineProcessException(e);
@@ -812,11 +734,6 @@ public class XMIDBWriter extends JCasAnnotator_ImplBase {
                 XmiSplitterResult result = splitter.process(baos.toByteArray(), aJCas.getTypeSystem(), nextXmiId, baseDocumentSofaIdMap);
                 final XmiBufferItem xmiBufferItem = new XmiBufferItem(result, docId, baseDocumentSofaIdMap, nextXmiId, aJCas.getTypeSystem());
                 xmiItemBuffer.add(xmiBufferItem);
-                if (useBinaryFormat) {
-                    synchronized (splitterResultMap.get(mappingCacheKey)) {
-                        splitterResultMap.get(mappingCacheKey).put(xmiBufferItem.getDocId(), xmiBufferItem);
-                    }
-                }
 
                 if (!(featuresToMapDryRun && useBinaryFormat))
                     metaTableManager.manageXMINamespaces(result.namespaces);
@@ -1013,39 +930,54 @@ public class XMIDBWriter extends JCasAnnotator_ImplBase {
     public void batchProcessComplete() throws AnalysisEngineProcessException {
         super.batchProcessComplete();
         log.debug("Running batchProcessComplete.");
-        if (splitterResultMap != null && splitterResultMap.get(mappingCacheKey).size() > 10000) {
-            log.warn("The 'splitterResultMap' field has size {}. If this number does not shrink again, there is a memory leak.", splitterResultMap.get(mappingCacheKey).size());
-        }
-        if (xmiBufferItemsToProcess != null && xmiBufferItemsToProcess.get(mappingCacheKey).size() > 10000) {
-            log.trace("Current size of 'xmiBufferItemsToProcess': {}", xmiBufferItemsToProcess.get(mappingCacheKey).size());
-            log.warn("The 'xmiBufferITemsToProcess' field has size {}. If this number does not shrink again, there is a memory leak.", xmiBufferItemsToProcess.get(mappingCacheKey).size());
-        }
         if (xmiItemBuffer.size() > 100000)
             log.warn("The 'xmiItemBuffer' field has size {}. If this number does not shrink again, there is a memory leak.", xmiItemBuffer.size());
         if (annotationModules.size() > 10000)
             log.warn("The 'annotationModules' field has size {}. If this number does not shrink again, there is a memory leak.", annotationModules.size());
         try {
             final boolean readyToSendData = processXmiBuffer();
-            if (readyToSendData) {
-                if (!(featuresToMapDryRun && useBinaryFormat))
-                    annotationInserter.sendXmiDataToDatabase(effectiveDocTableName, annotationModules, subsetTable, mirrorResetIds, unchangedDocuments, deleteObsolete, shaMap);
-                else
-                    log.info("The dry run to see details about features to be mapped in the binary format is activated. No contents are written into the database.");
-                log.trace("Clearing {} annotation modules", annotationModules.size());
-                annotationModules.clear();
-                if (shaMap != null)
-                    shaMap.clear();
-                if (docReleaseCheckpoint != null)
-                    docReleaseCheckpoint.release(jedisSyncKey, currentDocumentIdBatch.stream());
-                currentDocumentIdBatch.clear();
-                mirrorResetIds.clear();
-                unchangedDocuments.clear();
-            }
+            if (readyToSendData)
+                sendDataToDatabase();
         } catch (XmiDataInsertionException e) {
             throw new AnalysisEngineProcessException(e);
         }
     }
 
+    /**
+     * Sends the XMI data of the current batch to the database, directly or via the {@link AsynchronousXmiDataWriter},
+     * and clears the batch. The documents of the batch are released to the {@link DocumentReleaseCheckpoint} after
+     * their data has been committed.
+     *
+     * @throws XmiDataInsertionException If writing the current or, in asynchronous mode, a previous batch failed.
+     */
+    private void sendDataToDatabase() throws XmiDataInsertionException {
+        final List<DocumentId> documentIdsToRelease = new ArrayList<>(currentDocumentIdBatch);
+        if (!(featuresToMapDryRun && useBinaryFormat)) {
+            final XmiWriteBatch batch = annotationInserter.createWriteBatch(effectiveDocTableName, annotationModules, subsetTable, mirrorResetIds, unchangedDocuments, deleteObsolete, shaMap);
+            if (asynchronousWriter != null) {
+                asynchronousWriter.submit(batch, () -> releaseDocuments(documentIdsToRelease));
+            } else {
+                annotationInserter.sendXmiDataToDatabase(batch);
+                releaseDocuments(documentIdsToRelease);
+            }
+        } else {
+            log.info("The dry run to see details about features to be mapped in the binary format is activated. No contents are written into the database.");
+            releaseDocuments(documentIdsToRelease);
+        }
+        log.trace("Clearing {} annotation modules", annotationModules.size());
+        annotationModules.clear();
+        if (shaMap != null)
+            shaMap.clear();
+        currentDocumentIdBatch.clear();
+        mirrorResetIds.clear();
+        unchangedDocuments.clear();
+    }
+
+    private void releaseDocuments(List<DocumentId> documentIds) {
+        if (docReleaseCheckpoint != null)
+            docReleaseCheckpoint.release(jedisSyncKey, documentIds.stream());
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -1058,18 +990,9 @@ public class XMIDBWriter extends JCasAnnotator_ImplBase {
         log.debug("Running collectionProcessComplete.");
         try {
             processXmiBuffer();
-            if (!(featuresToMapDryRun && useBinaryFormat))
-                annotationInserter.sendXmiDataToDatabase(effectiveDocTableName, annotationModules, subsetTable, mirrorResetIds, unchangedDocuments, deleteObsolete, shaMap);
-            else
-                log.info("The dry run to see details about features to be mapped in the binary format is activated. No contents are written into the database.");
-            annotationModules.clear();
-            if (shaMap != null)
-                shaMap.clear();
-            if (docReleaseCheckpoint != null)
-                docReleaseCheckpoint.release(jedisSyncKey, currentDocumentIdBatch.stream());
-            currentDocumentIdBatch.clear();
-            mirrorResetIds.clear();
-            unchangedDocuments.clear();
+            sendDataToDatabase();
+            if (asynchronousWriter != null)
+                asynchronousWriter.close();
         } catch (XmiDataInsertionException e) {
             throw new AnalysisEngineProcessException(e);
         }
@@ -17,7 +17,6 @@ public class XmiBufferItem {
     private int nextXmiId;
     private TypeSystem typeSystem;
     private XmiSplitterResult splitterResult;
-    private boolean isProcessedForBinaryMappings;
 
     public XmiBufferItem(XmiSplitterResult splitterResult, DocumentId docId, Map<String, Integer> baseDocumentSofaIdMap, int nextXmiId, TypeSystem typeSystem) {
 
@@ -27,7 +26,6 @@ public class XmiBufferItem {
         this.sofaIdMap = baseDocumentSofaIdMap;
         this.nextXmiId = nextXmiId;
         this.typeSystem = typeSystem;
-        this.isProcessedForBinaryMappings = false;
     }
 
     public XmiBufferItem(byte[] xmiData, DocumentId docId, Map<String, Integer> sofaIdMap, int nextXmiId, TypeSystem typeSystem) {
@@ -43,10 +41,6 @@ public class XmiBufferItem {
         return splitterResult;
     }
 
-    public boolean isProcessedForBinaryMappings() {
-        return isProcessedForBinaryMappings;
-    }
-
     public TypeSystem getTypeSystem() {
         return typeSystem;
     }
@@ -66,8 +60,4 @@ public class XmiBufferItem {
     public int getNextXmiId() {
         return nextXmiId;
     }
-
-    public void setProcessedForBinaryMappings(boolean processedForBinaryMappings) {
-        isProcessedForBinaryMappings = processedForBinaryMappings;
-    }
 }
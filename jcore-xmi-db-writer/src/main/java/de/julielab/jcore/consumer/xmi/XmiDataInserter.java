@@ -1,5 +1,6 @@
 package de.julielab.jcore.consumer.xmi;
 
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Sets;
 import de.julielab.costosys.Constants;
 import de.julielab.costosys.configuration.FieldConfig;
@@ -13,6 +14,7 @@ import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.sql.BatchUpdateException;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
@@ -38,10 +40,21 @@ public class XmiDataInserter {
     private DecimalFormat df = new DecimalFormat();
 
     private List<DocumentId> processedDocumentIds;
+    private BinaryCopyWriter copyWriter;
+    private Map<String, Boolean> hasMirrorSubsets = new HashMap<>();
 
     public XmiDataInserter(Set<String> annotationModuleColumnNames,
                            DataBaseConnector dbc, String schemaDocument, Boolean storeAll,
                            Boolean updateMode, String componentDbName, String hashColumnName) {
+        this(annotationModuleColumnNames, dbc, schemaDocument, storeAll, updateMode, componentDbName, hashColumnName, false);
+    }
+
+    /**
+     * @param useCopy If true, the data is written with the {@link BinaryCopyWriter} instead of JDBC batches.
+     */
+    public XmiDataInserter(Set<String> annotationModuleColumnNames,
+                           DataBaseConnector dbc, String schemaDocument, Boolean storeAll,
+                           Boolean updateMode, String componentDbName, String hashColumnName, boolean useCopy) {
         super();
         this.annotationModuleColumnNames = annotationModuleColumnNames;
         this.dbc = dbc;
@@ -52,6 +65,30 @@ public class XmiDataInserter {
         this.hashColumnName = hashColumnName;
         this.maxXmiIdMap = new HashMap<>();
         this.processedDocumentIds = new ArrayList<>();
+        if (useCopy)
+            this.copyWriter = new BinaryCopyWriter(dbc.getFieldConfiguration(schemaDocument).getPrimaryKey());
+    }
+
+    /**
+     * Creates a snapshot of the given data together with the max XMI IDs and processed document IDs collected by
+     * this inserter since the last batch. The latter are reset for the next batch.
+     *
+     * @return The batch to pass to {@link #sendXmiDataToDatabase(XmiWriteBatch)}.
+     */
+    public XmiWriteBatch createWriteBatch(String xmiTableName, List<XmiData> annotationModules, String subsetTableName, Set<DocumentId> mirrorResetIds, Set<DocumentId> unchangedDocuments, Boolean deleteObsolete, Map<DocumentId, String> shaMap) {
+        XmiWriteBatch batch = new XmiWriteBatch(xmiTableName, new ArrayList<>(annotationModules), subsetTableName,
+                new HashSet<>(mirrorResetIds), new HashSet<>(unchangedDocuments), deleteObsolete,
+                shaMap != null ? new HashMap<>(shaMap) : null, maxXmiIdMap, processedDocumentIds);
+        maxXmiIdMap = new HashMap<>();
+        processedDocumentIds = new ArrayList<>();
+        return batch;
+    }
+
+    /**
+     * @see #sendXmiDataToDatabase(XmiWriteBatch)
+     */
+    public void sendXmiDataToDatabase(String xmiTableName, List<XmiData> annotationModules, String subsetTableName, Set<DocumentId> mirrorResetIds, Set<DocumentId> unchangedDocuments, Boolean deleteObsolete, Map<DocumentId, String> shaMap) throws XmiDataInsertionException {
+        sendXmiDataToDatabase(createWriteBatch(xmiTableName, annotationModules, subsetTableName, mirrorResetIds, unchangedDocuments, deleteObsolete, shaMap));
     }
 
     /**
@@ -60,16 +97,19 @@ public class XmiDataInserter {
      * If update mode is <code>true</code>, the CAS data will be added as an
      * update. It will just be inserted otherwise (throwing an error if there
      * will be a primary key constraint violation, i.e. duplicates).
+     * The data is committed when this method returns without an exception.
      *
-     * @param annotationModules
-     * @param mirrorResetIds
-     * @param unchangedDocuments
-     * @param deleteObsolete
-     * @param shaMap
-     * @throws XmiDataInsertionException
-     * @throws AnalysisEngineProcessException
+     * @param batch The data to write.
+     * @throws XmiDataInsertionException If writing or committing the data fails.
      */
-    public void sendXmiDataToDatabase(String xmiTableName, List<XmiData> annotationModules, String subsetTableName, Set<DocumentId> mirrorResetIds, Set<DocumentId> unchangedDocuments, Boolean deleteObsolete, Map<DocumentId, String> shaMap) throws XmiDataInsertionException {
+    public void sendXmiDataToDatabase(XmiWriteBatch batch) throws XmiDataInsertionException {
+        final String xmiTableName = batch.getXmiTableName();
+        final List<XmiData> annotationModules = batch.getAnnotationModules();
+        final Set<DocumentId> unchangedDocuments = batch.getUnchangedDocuments();
+        final Boolean deleteObsolete = batch.getDeleteObsolete();
+        final Map<DocumentId, String> shaMap = batch.getShaMap();
+        final Map<DocumentId, Integer> maxXmiIdMap = batch.getMaxXmiIdMap();
+        final List<DocumentId> processedDocumentIds = batch.getProcessedDocumentIds();
         log.trace("Sending {} XMI data items", annotationModules.size());
         final Map<DocumentId, List<XmiData>> dataByDoc = annotationModules.stream().collect(Collectors.groupingBy(XmiData::getDocId));
         // Collect all document IDs we want to add something for into the database. This can be annotations or the hash.
@@ -188,7 +228,9 @@ public class XmiDataInserter {
             // definition.
             RowIterator iterator = new RowIterator(true);
             try {
-                if (updateMode) {
+                if (copyWriter != null) {
+                    sendWithCopy(conn, xmiTableName, iterator, new RowIterator(false));
+                } else if (updateMode) {
                     log.debug("Updating {} XMI CAS data in database table '{}' for documents with mirror subset resets.",
                             processedDocumentIds.size() - unchangedDocuments.size(), xmiTableName);
                     dbc.updateFromRowIterator(iterator, xmiTableName, false, true, schemaDocument);
@@ -204,17 +246,15 @@ public class XmiDataInserter {
                 log.error("Error occurred while sending data to database. Exception:", e);
                 throw new XmiDataInsertionException(e);
             }
-            setLastComponent(conn, subsetTableName);
-            processedDocumentIds.clear();
+            setLastComponent(conn, batch.getSubsetTableName(), processedDocumentIds);
             log.debug("Committing XMI data to database.");
             conn.commit();
-            maxXmiIdMap.clear();
         } catch (SQLException e) {
-            log.error("Database error occurred while updating max-xmi-IDs: {}", e);
-            e.printStackTrace();
+            log.error("Database error occurred while committing XMI data: {}", e);
             SQLException ne = e.getNextException();
             if (null != ne)
-                ne.printStackTrace();
+                log.error("Next exception:", ne);
+            throw new XmiDataInsertionException(e);
         }
         if (log.isDebugEnabled()) {
             time = System.currentTimeMillis() - time;
@@ -222,13 +262,39 @@ public class XmiDataInserter {
         }
     }
 
+    /**
+     * Writes the rows with the {@link BinaryCopyWriter}. When updating a document table that has mirror subsets, the
+     * rows of documents whose mirror subset entries must be reset are written by the CoStoSys API since it manages
+     * the mirror subsets.
+     */
+    private void sendWithCopy(CoStoSysConnection conn, String xmiTableName, Iterator<Map<String, Object>> rowsWithMirrorReset, Iterator<Map<String, Object>> rowsWithoutMirrorReset) throws SQLException, IOException {
+        if (!updateMode) {
+            log.debug("Inserting XMI CAS data into database table '{}' with COPY.", xmiTableName);
+            copyWriter.write(conn, xmiTableName, rowsWithMirrorReset, false);
+            return;
+        }
+        Boolean mirrors = hasMirrorSubsets.get(xmiTableName);
+        if (mirrors == null) {
+            mirrors = !dbc.getMirrorSubsetNames(conn, xmiTableName).isEmpty();
+            hasMirrorSubsets.put(xmiTableName, mirrors);
+        }
+        if (mirrors) {
+            log.debug("Updating XMI CAS data in database table '{}' for documents with mirror subset resets.", xmiTableName);
+            dbc.updateFromRowIterator(rowsWithMirrorReset, xmiTableName, false, true, schemaDocument);
+        } else {
+            rowsWithoutMirrorReset = Iterators.concat(rowsWithMirrorReset, rowsWithoutMirrorReset);
+        }
+        log.debug("Upserting XMI CAS data into database table '{}' with COPY.", xmiTableName);
+        copyWriter.write(conn, xmiTableName, rowsWithoutMirrorReset, true);
+    }
+
     /**
      * Writes the component name to the database subset
      *
      * @param conn
      * @throws XmiDataInsertionException
      */
-    private void setLastComponent(CoStoSysConnection conn, String subsetTableName) throws XmiDataInsertionException {
+    private void setLastComponent(CoStoSysConnection conn, String subsetTableName, List<DocumentId> processedDocumentIds) throws XmiDataInsertionException {
         if (processedDocumentIds.isEmpty() || StringUtils.isBlank(subsetTableName))
             return;
 
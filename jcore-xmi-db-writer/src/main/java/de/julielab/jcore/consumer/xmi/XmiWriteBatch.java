@@ -0,0 +1,74 @@
+package de.julielab.jcore.consumer.xmi;
+
+import de.julielab.jcore.ae.checkpoint.DocumentId;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A snapshot of all data of one batch of documents to be sent to the database by the {@link XmiDataInserter}.
+ * The collections are copies that are not modified by the writer after the creation of the batch. Thus, a batch can be
+ * handed to another thread for writing while the writer continues to collect the data of the next batch.
+ *
+ * @see XmiDataInserter#createWriteBatch
+ */
+public class XmiWriteBatch {
+    private final String xmiTableName;
+    private final List<XmiData> annotationModules;
+    private final String subsetTableName;
+    private final Set<DocumentId> mirrorResetIds;
+    private final Set<DocumentId> unchangedDocuments;
+    private final Boolean deleteObsolete;
+    private final Map<DocumentId, String> shaMap;
+    private final Map<DocumentId, Integer> maxXmiIdMap;
+    private final List<DocumentId> processedDocumentIds;
+
+    XmiWriteBatch(String xmiTableName, List<XmiData> annotationModules, String subsetTableName, Set<DocumentId> mirrorResetIds, Set<DocumentId> unchangedDocuments, Boolean deleteObsolete, Map<DocumentId, String> shaMap, Map<DocumentId, Integer> maxXmiIdMap, List<DocumentId> processedDocumentIds) {
+        this.xmiTableName = xmiTableName;
+        this.annotationModules = annotationModules;
+        this.subsetTableName = subsetTableName;
+        this.mirrorResetIds = mirrorResetIds;
+        this.unchangedDocuments = unchangedDocuments;
+        this.deleteObsolete = deleteObsolete;
+        this.shaMap = shaMap;
+        this.maxXmiIdMap = maxXmiIdMap;
+        this.processedDocumentIds = processedDocumentIds;
+    }
+
+    public String getXmiTableName() {
+        return xmiTableName;
+    }
+
+    public List<XmiData> getAnnotationModules() {
+        return annotationModules;
+    }
+
+    public String getSubsetTableName() {
+        return subsetTableName;
+    }
+
+    public Set<DocumentId> getMirrorResetIds() {
+        return mirrorResetIds;
+    }
+
+    public Set<DocumentId> getUnchangedDocuments() {
+        return unchangedDocuments;
+    }
+
+    public Boolean getDeleteObsolete() {
+        return deleteObsolete;
+    }
+
+    public Map<DocumentId, String> getShaMap() {
+        return shaMap;
+    }
+
+    public Map<DocumentId, Integer> getMaxXmiIdMap() {
+        return maxXmiIdMap;
+    }
+
+    public List<DocumentId> getProcessedDocumentIds() {
+        return processedDocumentIds;
+    }
+}
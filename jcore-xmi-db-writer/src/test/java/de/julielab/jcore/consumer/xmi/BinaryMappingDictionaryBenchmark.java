@@ -0,0 +1,138 @@
+package de.julielab.jcore.consumer.xmi;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>Compares the {@link BinaryMappingDictionary} with the former scheme of the XMIDBWriter where the whole mapping
+ * update - analysis against the current mapping, database round trip and replacement of the mapping - happened under
+ * a global lock and the mapping was a synchronized map. Each thread repeatedly looks up a batch of Zipf distributed
+ * values, as the binary encoder does for a batch of documents, and registers the missing ones. The database round
+ * trip is simulated by a fixed latency.</p>
+ * <p>Arguments: [number of threads, default 16] [vocabulary size, default 200000] [simulated round trip ms, default 5]</p>
+ */
+public class BinaryMappingDictionaryBenchmark {
+    private static final int BATCHES_PER_THREAD = 200;
+    private static final int VALUES_PER_BATCH = 2000;
+
+    public static void main(String[] args) throws Exception {
+        int numThreads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int vocabularySize = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+        long latency = args.length > 2 ? Long.parseLong(args[2]) : 5;
+
+        for (int run = 0; run < 3; run++) {
+            for (int threads : new int[]{1, numThreads}) {
+                final LockBasedMapping lockBased = new LockBasedMapping(latency);
+                long time = runThreads(threads, vocabularySize, lockBased::addMissingItems);
+                System.out.printf("Lock-based, %d threads: %d batches in %dms (%.0f batches/s), %d database updates%n", threads, threads * BATCHES_PER_THREAD, time, threads * BATCHES_PER_THREAD * 1000d / Math.max(1, time), lockBased.updates);
+
+                final BinaryMappingDictionary dictionary = new BinaryMappingDictionary(null);
+                final SimulatedStore store = new SimulatedStore(latency);
+                time = runThreads(threads, vocabularySize, values -> dictionary.addMissingItems(values, Collections.emptyMap(), store));
+                System.out.printf("Dictionary, %d threads: %d batches in %dms (%.0f batches/s), %d database updates%n", threads, threads * BATCHES_PER_THREAD, time, threads * BATCHES_PER_THREAD * 1000d / Math.max(1, time), store.updates);
+            }
+        }
+    }
+
+    private static long runThreads(int numThreads, int vocabularySize, BatchConsumer consumer) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        final List<Future<?>> futures = new ArrayList<>();
+        final long time = System.nanoTime();
+        for (int t = 0; t < numThreads; t++) {
+            final Random random = new Random(t);
+            futures.add(executor.submit(() -> {
+                final List<String> values = new ArrayList<>(VALUES_PER_BATCH);
+                for (int batch = 0; batch < BATCHES_PER_THREAD; batch++) {
+                    values.clear();
+                    for (int i = 0; i < VALUES_PER_BATCH; i++)
+                        values.add("value" + zipf(random, vocabularySize));
+                    consumer.accept(values);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures)
+            future.get();
+        executor.shutdown();
+        return (System.nanoTime() - time) / 1000000;
+    }
+
+    /**
+     * An approximately Zipf distributed number in [0, n).
+     */
+    private static int zipf(Random random, int n) {
+        return (int) Math.min(n - 1, Math.floor(Math.pow(n + 1, random.nextDouble())) - 1);
+    }
+
+    @FunctionalInterface
+    private interface BatchConsumer {
+        void accept(List<String> values) throws Exception;
+    }
+
+    private static class SimulatedStore implements BinaryMappingDictionary.MappingStore {
+        private final long latency;
+        private int updates;
+
+        private SimulatedStore(long latency) {
+            this.latency = latency;
+        }
+
+        @Override
+        public Pair<Map<String, Integer>, Map<String, Boolean>> addMappings(Set<String> valuesToMap, Map<String, Boolean> featuresToMap, Map<String, Integer> currentMapping, Map<String, Boolean> currentMappedFeatures) {
+            ++updates;
+            sleep(latency);
+            final Map<String, Integer> newMappings = new HashMap<>();
+            int id = currentMapping.size();
+            for (String value : valuesToMap)
+                newMappings.put(value, id++);
+            return new ImmutablePair<>(newMappings, Collections.emptyMap());
+        }
+    }
+
+    /**
+     * The former update scheme: analysis and update under a global lock, the complete mapping is copied and replaced.
+     */
+    private static class LockBasedMapping {
+        private final ReentrantLock mappingUpdateLock = new ReentrantLock();
+        private final long latency;
+        private volatile Map<String, Integer> mapping = Collections.synchronizedMap(new HashMap<>());
+        private int updates;
+
+        private LockBasedMapping(long latency) {
+            this.latency = latency;
+        }
+
+        private void addMissingItems(List<String> values) {
+            mappingUpdateLock.lock();
+            try {
+                final Set<String> missing = new HashSet<>();
+                for (String value : values) {
+                    if (!mapping.containsKey(value))
+                        missing.add(value);
+                }
+                if (!missing.isEmpty()) {
+                    ++updates;
+                    sleep(latency);
+                    final Map<String, Integer> updatedMapping = new HashMap<>(mapping);
+                    for (String value : missing)
+                        updatedMapping.put(value, updatedMapping.size());
+                    mapping = Collections.synchronizedMap(updatedMapping);
+                }
+            } finally {
+                mappingUpdateLock.unlock();
+            }
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package de.julielab.jcore.consumer.xmi;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BinaryMappingDictionaryTest {
+
+    /**
+     * Many threads concurrently add overlapping sets of values. Afterwards, each value must have exactly one ID, the
+     * IDs must form an enumeration without gaps and the store must never have been called concurrently.
+     */
+    @Test
+    public void testConcurrentAdditions() throws Exception {
+        final BinaryMappingDictionary dictionary = new BinaryMappingDictionary(Map.of("blacklisted", false));
+        final SequentialStore store = new SequentialStore(1);
+        final int numThreads = 16;
+        final int rounds = 200;
+        final int vocabularySize = 5000;
+        final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        final CyclicBarrier barrier = new CyclicBarrier(numThreads);
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < numThreads; t++) {
+            final Random random = new Random(t);
+            futures.add(executor.submit(() -> {
+                barrier.await();
+                for (int round = 0; round < rounds; round++) {
+                    final List<String> values = new ArrayList<>();
+                    for (int i = 0; i < 20; i++)
+                        values.add("value" + random.nextInt(vocabularySize));
+                    dictionary.addMissingItems(values, Map.of("feature" + random.nextInt(10), random.nextBoolean()), store);
+                    // all values of this thread must be known as soon as the method returns
+                    for (String value : values)
+                        assertThat(dictionary.getMapping()).containsKey(value);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures)
+            future.get(60, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        final Map<String, Integer> mapping = dictionary.getMapping();
+        assertThat(new HashSet<>(mapping.values())).hasSize(mapping.size());
+        assertThat(Collections.max(mapping.values())).isEqualTo(mapping.size() - 1);
+        assertThat(store.maxConcurrentCalls.get()).isEqualTo(1);
+        // the additions of waiting threads are combined into common updates
+        assertThat(store.calls.get()).isLessThan(numThreads * rounds);
+        // predefined features keep their state
+        assertThat(dictionary.getMappedFeatures()).containsEntry("blacklisted", false);
+    }
+
+    @Test
+    public void testKnownValues() throws Exception {
+        final BinaryMappingDictionary dictionary = new BinaryMappingDictionary(null);
+        final SequentialStore store = new SequentialStore(0);
+        assertThat(dictionary.addMissingItems(List.of("a", "b"), Map.of("f", true), store)).isTrue();
+        assertThat(dictionary.addMissingItems(List.of("b", "a"), Map.of("f", false), store)).isFalse();
+        assertThat(dictionary.addMissingItems(List.of("b", "c"), Collections.emptyMap(), store)).isTrue();
+        assertThat(store.calls.get()).isEqualTo(2);
+        assertThat(dictionary.getMapping()).containsOnlyKeys("a", "b", "c");
+        assertThat(dictionary.getMapping().get("c")).isEqualTo(2);
+        assertThat(dictionary.getMappedFeatures()).containsExactly(Map.entry("f", true));
+    }
+
+    @Test
+    public void testStoreError() {
+        final BinaryMappingDictionary dictionary = new BinaryMappingDictionary(null);
+        assertThatThrownBy(() -> dictionary.addMissingItems(List.of("a"), Collections.emptyMap(), (values, features, mapping, mappedFeatures) -> {
+            throw new AnalysisEngineProcessException(new IllegalStateException("database unavailable"));
+        })).isInstanceOf(AnalysisEngineProcessException.class);
+        assertThat(dictionary.getMapping()).isEmpty();
+    }
+
+    /**
+     * Mimics the ID assignment of the {@link MetaTableManager} with some latency for the database round trip.
+     */
+    private static class SequentialStore implements BinaryMappingDictionary.MappingStore {
+        private final long latency;
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger concurrentCalls = new AtomicInteger();
+        private final AtomicInteger maxConcurrentCalls = new AtomicInteger();
+
+        private SequentialStore(long latency) {
+            this.latency = latency;
+        }
+
+        @Override
+        public Pair<Map<String, Integer>, Map<String, Boolean>> addMappings(Set<String> valuesToMap, Map<String, Boolean> featuresToMap, Map<String, Integer> currentMapping, Map<String, Boolean> currentMappedFeatures) {
+            maxConcurrentCalls.accumulateAndGet(concurrentCalls.incrementAndGet(), Math::max);
+            calls.incrementAndGet();
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            final Map<String, Integer> newMappings = new HashMap<>();
+            int id = currentMapping.size();
+            for (String value : valuesToMap) {
+                if (currentMapping.containsKey(value))
+                    throw new IllegalArgumentException("The value " + value + " is already mapped.");
+                newMappings.put(value, id++);
+            }
+            concurrentCalls.decrementAndGet();
+            return new ImmutablePair<>(newMappings, new HashMap<>(featuresToMap));
+        }
+    }
+}
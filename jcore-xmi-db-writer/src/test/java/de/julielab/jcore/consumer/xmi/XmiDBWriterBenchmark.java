@@ -0,0 +1,78 @@
+package de.julielab.jcore.consumer.xmi;
+
+import de.julielab.costosys.dbconnection.DataBaseConnector;
+import de.julielab.jcore.db.test.DBTestUtils;
+import de.julielab.jcore.types.Header;
+import de.julielab.jcore.types.Sentence;
+import de.julielab.jcore.types.Token;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.jcas.JCas;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * <p>Compares the document throughput of the XMIDBWriter with the default JDBC batch statements, with binary COPY and
+ * with binary COPY in a background thread. Each configuration writes the same generated documents into a table of its
+ * own, first inserting and then updating them. Requires Docker for the PostgreSQL test container.</p>
+ * <p>Arguments: [number of documents, default 5000] [sentences per document, default 20]</p>
+ */
+public class XmiDBWriterBenchmark {
+    public static void main(String[] args) throws Exception {
+        int numDocs = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int numSentences = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        try (PostgreSQLContainer postgres = new PostgreSQLContainer("postgres:" + DataBaseConnector.POSTGRES_VERSION)) {
+            postgres.start();
+            DataBaseConnector dbc = DBTestUtils.getDataBaseConnector(postgres);
+            dbc.reserveConnection();
+            String costosysConfig = DBTestUtils.createTestCostosysConfig("medline_2017", 1, postgres);
+            dbc.releaseConnections();
+            dbc.close();
+
+            String[] names = {"JDBC batches", "COPY", "asynchronous COPY"};
+            boolean[][] settings = {{false, false}, {true, false}, {true, true}};
+            for (int i = 0; i < names.length; i++) {
+                for (int round = 0; round < 2; round++) {
+                    long time = System.nanoTime();
+                    writeDocuments(costosysConfig, "_data.benchmark" + i, settings[i][0], settings[i][1], numDocs, numSentences, round);
+                    long ms = (System.nanoTime() - time) / 1000000;
+                    System.out.printf("%s, %s: %d documents in %dms (%.1f documents/s)%n", names[i], round == 0 ? "insert" : "update", numDocs, ms, numDocs * 1000d / Math.max(1, ms));
+                }
+            }
+        }
+    }
+
+    private static void writeDocuments(String costosysConfig, String table, boolean useCopy, boolean asynchronousWrite, int numDocs, int numSentences, int round) throws Exception {
+        AnalysisEngine xmiWriter = AnalysisEngineFactory.createEngine("de.julielab.jcore.consumer.xmi.desc.jcore-xmi-db-writer",
+                XMIDBWriter.PARAM_ANNOS_TO_STORE, new String[]{Token.class.getCanonicalName(), Sentence.class.getCanonicalName()},
+                XMIDBWriter.PARAM_COSTOSYS_CONFIG, costosysConfig,
+                XMIDBWriter.PARAM_STORE_ALL, false,
+                XMIDBWriter.PARAM_STORE_BASE_DOCUMENT, true,
+                XMIDBWriter.PARAM_TABLE_DOCUMENT, table,
+                XMIDBWriter.PARAM_DO_GZIP, false,
+                XMIDBWriter.PARAM_STORE_RECURSIVELY, true,
+                XMIDBWriter.PARAM_UPDATE_MODE, true,
+                XMIDBWriter.PARAM_WRITE_BATCH_SIZE, 100,
+                XMIDBWriter.PARAM_USE_COPY, useCopy,
+                XMIDBWriter.PARAM_ASYNCHRONOUS_WRITE, asynchronousWrite,
+                XMIDBWriter.PARAM_BASE_DOCUMENT_ANNOTATION_TYPES, new String[]{de.julielab.jcore.types.pubmed.Header.class.getCanonicalName()}
+        );
+        JCas jCas = XmiDBWriterTest.getJCasWithRequiredTypes();
+        for (int i = 0; i < numDocs; i++) {
+            Header header = new Header(jCas);
+            header.setDocId(String.valueOf(i));
+            header.addToIndexes();
+            StringBuilder sb = new StringBuilder();
+            for (int j = 0; j < numSentences; j++) {
+                int begin = sb.length();
+                sb.append("This is sentence ").append(j).append(" of document ").append(i).append(" in round ").append(round).append(". ");
+                new Sentence(jCas, begin, sb.length() - 1).addToIndexes();
+                new Token(jCas, begin, begin + 4).addToIndexes();
+            }
+            jCas.setDocumentText(sb.toString());
+            xmiWriter.process(jCas);
+            jCas.reset();
+        }
+        xmiWriter.collectionProcessComplete();
+        xmiWriter.destroy();
+    }
+}
@@ -185,6 +185,50 @@ public class XmiDBWriterTest {
         }
     }
 
+    @Test
+    public void testAsynchronousCopyWrite() throws Exception {
+        // Write the documents twice to exercise the insertion of new rows and the update of existing rows
+        for (int round = 0; round < 2; round++) {
+            AnalysisEngine xmiWriter = AnalysisEngineFactory.createEngine("de.julielab.jcore.consumer.xmi.desc.jcore-xmi-db-writer",
+                    XMIDBWriter.PARAM_ANNOS_TO_STORE, new String[]{Token.class.getCanonicalName(), Sentence.class.getCanonicalName()},
+                    XMIDBWriter.PARAM_COSTOSYS_CONFIG, costosysConfig,
+                    XMIDBWriter.PARAM_STORE_ALL, false,
+                    XMIDBWriter.PARAM_STORE_BASE_DOCUMENT, true,
+                    XMIDBWriter.PARAM_TABLE_DOCUMENT, "_data.documents4",
+                    XMIDBWriter.PARAM_DO_GZIP, false,
+                    XMIDBWriter.PARAM_STORE_RECURSIVELY, true,
+                    XMIDBWriter.PARAM_UPDATE_MODE, true,
+                    XMIDBWriter.PARAM_WRITE_BATCH_SIZE, 10,
+                    XMIDBWriter.PARAM_USE_COPY, true,
+                    XMIDBWriter.PARAM_ASYNCHRONOUS_WRITE, true,
+                    XMIDBWriter.PARAM_WRITE_QUEUE_SIZE, 1,
+                    XMIDBWriter.PARAM_BASE_DOCUMENT_ANNOTATION_TYPES, new String[]{de.julielab.jcore.types.pubmed.Header.class.getCanonicalName()}
+            );
+            JCas jCas = getJCasWithRequiredTypes();
+            for (int i = 0; i < 35; i++) {
+                final Header header = new Header(jCas);
+                header.setDocId(String.valueOf(1000 + i));
+                header.addToIndexes();
+                jCas.setDocumentText("This is sentence number " + i + " of round " + round + ".");
+                new Sentence(jCas, 0, jCas.getDocumentText().length()).addToIndexes();
+                new Token(jCas, 0, 4).addToIndexes();
+                assertThatCode(() -> xmiWriter.process(jCas)).doesNotThrowAnyException();
+                jCas.reset();
+            }
+            xmiWriter.collectionProcessComplete();
+        }
+
+        dbc = DBTestUtils.getDataBaseConnector(postgres);
+        try (CoStoSysConnection costoConn = dbc.obtainOrReserveConnection()) {
+            ResultSet rs = costoConn.createStatement().executeQuery("SELECT count(*) FROM _data.documents4 WHERE " + XmiSplitConstants.BASE_DOC_COLUMN + "::text LIKE '%of round 1.%' AND de_julielab_jcore_types_token IS NOT NULL AND de_julielab_jcore_types_sentence IS NOT NULL AND " + XmiDataInserter.FIELD_MAX_XMI_ID + " IS NOT NULL");
+            assertThat(rs.next()).isTrue();
+            assertThat(rs.getInt(1)).isEqualTo(35);
+            rs = costoConn.createStatement().executeQuery("SELECT count(*) FROM _data.documents4");
+            assertThat(rs.next()).isTrue();
+            assertThat(rs.getInt(1)).isEqualTo(35);
+        }
+    }
+
     @Nested
     class WriteWithMirrorSubsets {
         /**
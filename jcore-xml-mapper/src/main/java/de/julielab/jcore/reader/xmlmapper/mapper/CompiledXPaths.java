@@ -0,0 +1,70 @@
+/**
+ * CompiledXPaths.java
+ *
+ * Copyright (c) 2026, JULIE Lab.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the BSD-2-Clause License
+ **/
+
+package de.julielab.jcore.reader.xmlmapper.mapper;
+
+import com.ximpleware.AutoPilot;
+import com.ximpleware.VTDNav;
+import com.ximpleware.XPathParseException;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * Keeps the {@link AutoPilot}s of the XPaths of the mapping file so that each XPath is only compiled once instead of
+ * for every document. A compiled XPath keeps its evaluation state, thus an AutoPilot can only be used by one thread at
+ * a time. Because of this, the AutoPilots are kept per thread.
+ * </p>
+ * <p>
+ * An AutoPilot obtained by {@link #acquire(String, VTDNav)} must be handed back by
+ * {@link #release(String, AutoPilot)} when the evaluation of the XPath is done, even if it has not been evaluated to
+ * the end. The same XPath may be acquired again before it is released, e.g. by nested types; another AutoPilot is
+ * created in this case. An AutoPilot that is not released, e.g. due to an exception, is just not reused.
+ * </p>
+ */
+public final class CompiledXPaths {
+
+	private static final ThreadLocal<Map<String, Deque<AutoPilot>>> autoPilots = ThreadLocal.withInitial(HashMap::new);
+
+	private CompiledXPaths() {
+	}
+
+	/**
+	 * Returns an AutoPilot for <tt>xPath</tt> bound to <tt>vn</tt>.
+	 *
+	 * @param xPath The XPath to evaluate.
+	 * @param vn    The VTDNav to evaluate the XPath on.
+	 * @return An AutoPilot for <tt>xPath</tt>, ready for evaluation.
+	 * @throws XPathParseException If <tt>xPath</tt> is invalid.
+	 */
+	public static AutoPilot acquire(String xPath, VTDNav vn) throws XPathParseException {
+		final Deque<AutoPilot> available = autoPilots.get().get(xPath);
+		AutoPilot ap = available != null ? available.poll() : null;
+		if (ap == null) {
+			ap = new AutoPilot(vn);
+			ap.selectXPath(xPath);
+		} else {
+			ap.bind(vn);
+		}
+		return ap;
+	}
+
+	/**
+	 * Resets <tt>ap</tt> and makes it available for the next evaluation of <tt>xPath</tt> in the current thread.
+	 *
+	 * @param xPath The XPath <tt>ap</tt> has been acquired for.
+	 * @param ap    The AutoPilot to release.
+	 */
+	public static void release(String xPath, AutoPilot ap) {
+		ap.resetXPath();
+		autoPilots.get().computeIfAbsent(xPath, k -> new ArrayDeque<>()).push(ap);
+	}
+}
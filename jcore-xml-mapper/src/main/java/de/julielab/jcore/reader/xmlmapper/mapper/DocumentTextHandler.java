@@ -47,6 +47,9 @@ public class DocumentTextHandler {
     }
 
     public DocumentTextData parseAndAddToCas(VTDNav vn, JCas jcas, byte[] identifier) throws VTDException {
+        // The configured document text parts are shared by all documents and threads. The text and offsets of the
+        // current document are stored in copies.
+        DocumentTextData documentTextData = new DocumentTextData();
         List<String> textPartList = new ArrayList<String>(this.docTextData.size());
         int offset = 0;
         for (int i = 0; i < docTextData.size(); i++) {
@@ -55,6 +58,8 @@ public class DocumentTextHandler {
                 LOGGER.error("corrupted DocumentText Data in MappingFile! Not all Ids are set.");
                 continue;
             }
+            docTextPart = new PartOfDocument(docTextPart);
+            documentTextData.put(i, docTextPart);
 
             int[] beginOffsets;
             int[] endOffsets;
@@ -89,19 +94,18 @@ public class DocumentTextHandler {
 
         }
         String docTextStr = StringUtils.join(textPartList, "\n");
-        docTextData.setText(docTextStr);
+        documentTextData.setText(docTextStr);
         jcas.setDocumentText(docTextStr);
-        return this.docTextData;
+        return documentTextData;
     }
 
     private List<String> getTextPart(VTDNav vn, PartOfDocument part, byte[] identifier) throws XPathParseException, XPathEvalException, NavException {
         List<String> textParts = new ArrayList<>();
         vn.cloneNav();
-        AutoPilot ap = new AutoPilot(vn);
         String textPart;
         if (StringUtils.isBlank(part.getXPath()))
             throw new IllegalStateException("Document text part with ID " + part.getId() + " has no XPath specified.");
-        ap.selectXPath(part.getXPath());
+        AutoPilot ap = CompiledXPaths.acquire(part.getXPath(), vn);
 
         int i = ap.evalXPath();
         if (i < 0 && numNoDocTextFound.compute(part.getXPath(), (k, v) -> v != null ? v + 1 : 1) < 10)
@@ -116,6 +120,7 @@ public class DocumentTextHandler {
             textParts.add(textPart);
             i = ap.evalXPath();
         }
+        CompiledXPaths.release(part.getXPath(), ap);
         return textParts;
     }
 
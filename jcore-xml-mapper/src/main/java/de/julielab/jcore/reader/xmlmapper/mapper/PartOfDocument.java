@@ -24,6 +24,19 @@ public class PartOfDocument {
 		this.id = id;
 	}
 
+	/**
+	 * Creates a document part with the configuration of <tt>template</tt>,
+	 * i.e. its ID, XPath and parser, but without text and offsets.
+	 * 
+	 * @param template
+	 *            The configured document part.
+	 */
+	public PartOfDocument(PartOfDocument template) {
+		this.id = template.id;
+		this.xPath = template.xPath;
+		this.parser = template.parser;
+	}
+
 	public String getXPath() {
 		return xPath;
 	}
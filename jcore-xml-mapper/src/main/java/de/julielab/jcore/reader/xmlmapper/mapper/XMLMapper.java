@@ -52,6 +52,13 @@ public class XMLMapper {
 
 	private boolean ignoreTrivialWhitespaces = true;
 
+	/**
+	 * The parser is reused for all documents of a thread. In buffer reuse mode, the VTDNav of a document is only valid
+	 * until the next document is parsed, which is fine since the navigator is only used within
+	 * {@link #parse(byte[], byte[], JCas)}.
+	 */
+	private final ThreadLocal<VTDGen> vtdGen = ThreadLocal.withInitial(VTDGen::new);
+
 	/**
 	 * <p>
 	 * Whether or not to ignore trivial XML whitespaces and newlines according to {@link VTDGen#enableIgnoredWhiteSpace(boolean)}.
@@ -94,12 +101,12 @@ public class XMLMapper {
 
 	public void parse(byte[] data, byte[] identifier, JCas jcas) {
 		try {
-			VTDGen vg = new VTDGen();
+			VTDGen vg = vtdGen.get();
 			// needed for extraction of mixed-content-XML
 			// when there is a whitespace only between two
 			// tags, e.g. ...</s> <s id=".">...
 			vg.enableIgnoredWhiteSpace(!ignoreTrivialWhitespaces);
-			vg.setDoc(data);
+			vg.setDoc_BR(data);
 			vg.parse(true);
 			VTDNav vn = vg.getNav();
 
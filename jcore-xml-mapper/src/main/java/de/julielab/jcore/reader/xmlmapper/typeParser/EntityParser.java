@@ -24,6 +24,7 @@ package de.julielab.jcore.reader.xmlmapper.typeParser;
 import com.ximpleware.AutoPilot;
 import com.ximpleware.VTDNav;
 import de.julielab.jcore.reader.xmlmapper.genericTypes.ConcreteType;
+import de.julielab.jcore.reader.xmlmapper.mapper.CompiledXPaths;
 import de.julielab.jcore.reader.xmlmapper.mapper.DocumentTextData;
 import de.julielab.jcore.reader.xmlmapper.typeBuilder.MedlineTextSentenceBuilder;
 import de.julielab.jcore.reader.xmlmapper.typeBuilder.TypeBuilder;
@@ -121,8 +122,7 @@ public class EntityParser implements TypeParser {
 						.constructRowIterator(nav.cloneNav(), xPath, fields,
 								new String(identifier));
 				nav = nav.cloneNav();
-				AutoPilot pilot = new AutoPilot(nav);
-				pilot.selectXPath(xPath);
+				AutoPilot pilot = CompiledXPaths.acquire(xPath, nav);
 
 				while (entityIt.hasNext()) {
 					// System.out.println("----------------");
@@ -278,6 +278,7 @@ public class EntityParser implements TypeParser {
 								+ ". Document text is:\n" + docText.getText());
 					}
 				}
+				CompiledXPaths.release(xPath, pilot);
 			}
 		} catch (Exception e) {
 			LOGGER.error("Error while parsing entity", e);
@@ -19,6 +19,7 @@ import com.ximpleware.VTDNav;
 import de.julielab.jcore.reader.xmlmapper.genericTypes.ConcreteFeature;
 import de.julielab.jcore.reader.xmlmapper.genericTypes.ConcreteType;
 import de.julielab.jcore.reader.xmlmapper.genericTypes.FeatureTemplate;
+import de.julielab.jcore.reader.xmlmapper.mapper.CompiledXPaths;
 import de.julielab.jcore.reader.xmlmapper.mapper.DocumentTextData;
 import de.julielab.jcore.reader.xmlmapper.typeBuilder.FSArrayBuilder;
 import de.julielab.jcore.reader.xmlmapper.typeBuilder.TypeBuilder;
@@ -37,13 +38,13 @@ public class FSArrayParser extends StandardTypeParser {
 		VTDNav vn = nav.cloneNav();
 		for (FeatureTemplate featureTemplate : concreteType.getTypeTemplate().getFeatures()) {
 			for (String xPath : featureTemplate.getXPaths()) {
-				AutoPilot ap = new AutoPilot(vn);
-				ap.selectXPath(xPath);
+				AutoPilot ap = CompiledXPaths.acquire(xPath, vn);
 				while (ap.evalXPath() != -1) {
 					ConcreteFeature concreteFeature = new ConcreteFeature(featureTemplate);
 					parseSingleType(concreteFeature, vn, jcas, identifier, docText);
 					concreteType.addFeature(concreteFeature);
 				}
+				CompiledXPaths.release(xPath, ap);
 			}
 		}
 	}
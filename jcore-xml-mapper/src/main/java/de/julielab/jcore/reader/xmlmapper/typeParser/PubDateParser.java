@@ -19,6 +19,7 @@ import com.ximpleware.VTDNav;
 import de.julielab.jcore.reader.xmlmapper.genericTypes.ConcreteFeature;
 import de.julielab.jcore.reader.xmlmapper.genericTypes.ConcreteType;
 import de.julielab.jcore.reader.xmlmapper.genericTypes.FeatureTemplate;
+import de.julielab.jcore.reader.xmlmapper.mapper.CompiledXPaths;
 import de.julielab.jcore.reader.xmlmapper.mapper.DocumentTextData;
 import de.julielab.jcore.reader.xmlmapper.typeBuilder.StandardTypeBuilder;
 import de.julielab.jcore.reader.xmlmapper.typeBuilder.TypeBuilder;
@@ -88,8 +89,7 @@ public class PubDateParser implements TypeParser {
 		VTDNav vn = nav.cloneNav();
 
 		for (String xPath : concreteType.getTypeTemplate().getXPaths()) {
-			AutoPilot ap = new AutoPilot(vn);
-			ap.selectXPath(xPath);
+			AutoPilot ap = CompiledXPaths.acquire(xPath, vn);
 			while (ap.evalXPath() != -1) {
 				// ap.selectAttr("*");
 				if (vn.toElement(VTDNav.FIRST_CHILD, "*")) {
@@ -133,6 +133,7 @@ public class PubDateParser implements TypeParser {
 					concreteType.addFeature(concreteFeature);
 				}
 			}
+			CompiledXPaths.release(xPath, ap);
 		}
 	}
 
@@ -18,6 +18,7 @@ import com.ximpleware.*;
 import de.julielab.jcore.reader.xmlmapper.genericTypes.ConcreteFeature;
 import de.julielab.jcore.reader.xmlmapper.genericTypes.ConcreteType;
 import de.julielab.jcore.reader.xmlmapper.genericTypes.FeatureTemplate;
+import de.julielab.jcore.reader.xmlmapper.mapper.CompiledXPaths;
 import de.julielab.jcore.reader.xmlmapper.mapper.DocumentTextData;
 import de.julielab.jcore.reader.xmlmapper.mapper.MapperUtils;
 import de.julielab.jcore.reader.xmlmapper.typeBuilder.StandardTypeBuilder;
@@ -48,8 +49,7 @@ public class StandardTypeParser implements TypeParser {
 				String text = docText.getText();
 				for (String xPath : concreteType.getTypeTemplate().getXPaths()) {
 					// xpath auswerten
-					AutoPilot ap = new AutoPilot(vn);
-					ap.selectXPath(xPath);
+					AutoPilot ap = CompiledXPaths.acquire(xPath, vn);
 					while (ap.evalXPath() != -1) {
 						int begin = 0;
 						int end = 0;
@@ -75,6 +75,7 @@ public class StandardTypeParser implements TypeParser {
 							inlinePosition = end;
 						}
 					}
+					CompiledXPaths.release(xPath, ap);
 				}
 			} else {
 				LOGGER.warn("type is marked as Multiple Instance withoutxPath. parsing only one Instance insted");
@@ -131,8 +132,7 @@ public class StandardTypeParser implements TypeParser {
 			throws XPathParseException, XPathEvalException, NavException {
 		VTDNav vn = nav.cloneNav();
 		for (String xpath : featureTemplate.getXPaths()) {
-			AutoPilot ap = new AutoPilot(vn);
-			ap.selectXPath(xpath);
+			AutoPilot ap = CompiledXPaths.acquire(xpath, vn);
 			int i = ap.evalXPath();
 			while (i != -1) {
 				String value;
@@ -147,6 +147,7 @@ public class StandardTypeParser implements TypeParser {
 				concreteFeature = new ConcreteFeature(featureTemplate);
 				i = ap.evalXPath();
 			}
+			CompiledXPaths.release(xpath, ap);
 		}
 	}
 
@@ -19,6 +19,7 @@ import com.ximpleware.VTDNav;
 import de.julielab.jcore.reader.xmlmapper.genericTypes.ConcreteFeature;
 import de.julielab.jcore.reader.xmlmapper.genericTypes.ConcreteType;
 import de.julielab.jcore.reader.xmlmapper.genericTypes.FeatureTemplate;
+import de.julielab.jcore.reader.xmlmapper.mapper.CompiledXPaths;
 import de.julielab.jcore.reader.xmlmapper.mapper.DocumentTextData;
 import de.julielab.jcore.reader.xmlmapper.typeBuilder.StringArrayBuilder;
 import de.julielab.jcore.reader.xmlmapper.typeBuilder.TypeBuilder;
@@ -45,9 +46,8 @@ public class StringArrayParser implements TypeParser {
                           byte[] identifier, DocumentTextData docText) throws Exception {
         VTDNav vn = nav.cloneNav();
         for (String xPath : concreteType.getTypeTemplate().getXPaths()) {
-            AutoPilot ap = new AutoPilot(vn);
+            AutoPilot ap = CompiledXPaths.acquire(xPath, vn);
             Matcher m = p.matcher("");
-            ap.selectXPath(xPath);
             while (ap.evalXPath() != -1) {
                 if (vn.toElement(VTDNav.FIRST_CHILD, "*")) {
                     do {
@@ -77,6 +77,7 @@ public class StringArrayParser implements TypeParser {
                     } while (vn.toElement(VTDNav.NEXT_SIBLING));
                 }
             }
+            CompiledXPaths.release(xPath, ap);
         }
     }
 
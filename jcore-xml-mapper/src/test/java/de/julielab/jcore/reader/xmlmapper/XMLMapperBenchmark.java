@@ -0,0 +1,76 @@
+package de.julielab.jcore.reader.xmlmapper;
+
+import de.julielab.jcore.reader.xmlmapper.mapper.XMLMapper;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * <p>
+ * Measures the number of PubMed documents per second the {@link XMLMapper} maps into a CAS with 1 and 4 threads that
+ * share one mapper. The documents are read into memory before, so only the XML parsing, the XPath evaluation and the
+ * CAS population are measured.
+ * </p>
+ * <p>
+ * Arguments: <tt>[directory with PubMed XML documents] [mapping file] [documents per thread]</tt>, defaults
+ * <tt>src/test/resources/medlineTest</tt>, <tt>src/test/resources/newMappingFile.xml</tt> and 20000.
+ * </p>
+ */
+public class XMLMapperBenchmark {
+	public static void main(String[] args) throws Exception {
+		File directory = new File(args.length > 0 ? args[0] : "src/test/resources/medlineTest");
+		String mappingFile = args.length > 1 ? args[1] : "src/test/resources/newMappingFile.xml";
+		int documentsPerThread = args.length > 2 ? Integer.parseInt(args[2]) : 20000;
+
+		File[] files = directory.listFiles((dir, name) -> name.endsWith(".xml"));
+		Arrays.sort(files);
+		List<byte[]> documents = new ArrayList<>();
+		for (File file : files)
+			documents.add(Files.readAllBytes(file.toPath()));
+		XMLMapper mapper;
+		try (InputStream is = new FileInputStream(mappingFile)) {
+			mapper = new XMLMapper(is);
+		}
+
+		for (int numThreads : new int[] { 1, 4 }) {
+			ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+			try {
+				// one warm-up round and one measured round
+				long time = 0;
+				for (int round = 0; round < 2; round++) {
+					time = System.nanoTime();
+					List<Future<?>> futures = new ArrayList<>();
+					for (int i = 0; i < numThreads; i++) {
+						futures.add(executor.submit(() -> {
+							JCas jCas = JCasFactory.createJCas("de.julielab.jcore.types.jcore-document-meta-pubmed-types",
+									"de.julielab.jcore.types.jcore-document-structure-types");
+							for (int j = 0; j < documentsPerThread; j++) {
+								jCas.reset();
+								mapper.parse(documents.get(j % documents.size()), files[j % files.length].getName().getBytes(), jCas);
+							}
+							return null;
+						}));
+					}
+					for (Future<?> future : futures)
+						future.get();
+					time = System.nanoTime() - time;
+				}
+				int numDocuments = numThreads * documentsPerThread;
+				System.out.printf("%d threads: %d documents in %.2f s, %.2f documents/s%n", numThreads, numDocuments,
+						time / 1000000000d, numDocuments / (time / 1000000000d));
+			} finally {
+				executor.shutdown();
+			}
+		}
+	}
+}
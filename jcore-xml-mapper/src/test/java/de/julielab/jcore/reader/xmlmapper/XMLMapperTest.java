@@ -15,7 +15,9 @@
 
 package de.julielab.jcore.reader.xmlmapper;
 
+import de.julielab.jcore.reader.xmlmapper.mapper.XMLMapper;
 import de.julielab.jcore.types.*;
+import de.julielab.jcore.types.Date;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.uima.ResourceSpecifierFactory;
 import org.apache.uima.UIMAException;
@@ -25,6 +27,8 @@ import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.FSIterator;
 import org.apache.uima.collection.CollectionReader;
 import org.apache.uima.collection.CollectionReaderDescription;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.fit.util.JCasUtil;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.jcas.tcas.Annotation;
 import org.apache.uima.resource.ExternalResourceDescription;
@@ -35,9 +39,17 @@ import org.apache.uima.util.CasCreationUtils;
 import org.apache.uima.util.XMLInputSource;
 import org.junit.jupiter.api.Test;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -288,6 +300,93 @@ public class XMLMapperTest {
 		assertFalse(it.hasNext());
 	}
 
+	@Test
+	public void testRepeatedAndConcurrentParsing() throws Exception {
+		XMLMapper mapper;
+		try (InputStream is = new FileInputStream("src/test/resources/newMappingFile.xml")) {
+			mapper = new XMLMapper(is);
+		}
+		// the expected values have been taken from the XML documents and do not depend on the mapper
+		String[] pmids = new String[] { "19536169", "23700993", "25556833", "27805344" };
+		File[] documents = new File[pmids.length];
+		List<String> expected = new ArrayList<>();
+		for (int i = 0; i < pmids.length; i++) {
+			documents[i] = new File("src/test/resources/medlineTest/" + pmids[i] + ".xml");
+			expected.add(new String(Files.readAllBytes(new File("src/test/resources/medlineTestExpected/" + pmids[i] + ".txt").toPath()), StandardCharsets.UTF_8));
+		}
+		// the compiled XPaths and the parser are reused, the result must not change
+		for (int round = 0; round < 3; round++) {
+			for (int i = 0; i < documents.length; i++)
+				assertEquals(expected.get(i), parseToString(mapper, documents[i]), documents[i].getName());
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<String>> futures = new ArrayList<>();
+			for (int round = 0; round < 5; round++) {
+				for (File document : documents)
+					futures.add(executor.submit(() -> parseToString(mapper, document)));
+			}
+			for (int i = 0; i < futures.size(); i++)
+				assertEquals(expected.get(i % documents.length), futures.get(i).get(), documents[i % documents.length].getName());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Parses <tt>document</tt> into a new CAS and returns one tab-separated line for the title, the header, each
+	 * author, each publication type, each MeSH heading and each chemical, including their feature values.
+	 */
+	private String parseToString(XMLMapper mapper, File document) throws Exception {
+		JCas jCas = JCasFactory.createJCas("de.julielab.jcore.types.jcore-document-meta-pubmed-types",
+				"de.julielab.jcore.types.jcore-document-structure-types");
+		mapper.parse(Files.readAllBytes(document.toPath()), document.getName().getBytes(), jCas);
+		StringBuilder sb = new StringBuilder();
+		for (Title title : JCasUtil.select(jCas, Title.class))
+			appendLine(sb, "Title", title.getBegin(), title.getEnd(), title.getTitleType(), title.getCoveredText());
+		for (de.julielab.jcore.types.pubmed.Header header : JCasUtil.select(jCas, de.julielab.jcore.types.pubmed.Header.class)) {
+			appendLine(sb, "Header", header.getDocId(), header.getCitationStatus());
+			if (header.getAuthors() != null) {
+				for (int i = 0; i < header.getAuthors().size(); i++) {
+					AuthorInfo author = (AuthorInfo) header.getAuthors().get(i);
+					appendLine(sb, "Author", author.getLastName(), author.getForeName(), author.getInitials());
+				}
+			}
+			if (header.getPubTypeList() != null) {
+				for (int i = 0; i < header.getPubTypeList().size(); i++) {
+					Journal journal = (Journal) header.getPubTypeList().get(i);
+					Date pubDate = journal.getPubDate();
+					appendLine(sb, "Journal", journal.getName(), journal.getISSN(), journal.getVolume(), journal.getIssue(),
+							journal.getTitle(), journal.getShortTitle(), journal.getPages(), pubDate.getYear(),
+							pubDate.getMonth(), pubDate.getDay());
+				}
+			}
+		}
+		for (de.julielab.jcore.types.pubmed.ManualDescriptor descriptor : JCasUtil.select(jCas, de.julielab.jcore.types.pubmed.ManualDescriptor.class)) {
+			if (descriptor.getMeSHList() != null) {
+				for (int i = 0; i < descriptor.getMeSHList().size(); i++) {
+					MeshHeading heading = (MeshHeading) descriptor.getMeSHList().get(i);
+					appendLine(sb, "MeshHeading", heading.getDescriptorName(), heading.getDescriptorNameMajorTopic());
+				}
+			}
+			if (descriptor.getChemicalList() != null) {
+				for (int i = 0; i < descriptor.getChemicalList().size(); i++) {
+					Chemical chemical = (Chemical) descriptor.getChemicalList().get(i);
+					appendLine(sb, "Chemical", chemical.getRegistryNumber(), chemical.getNameOfSubstance());
+				}
+			}
+		}
+		return sb.toString();
+	}
+
+	private void appendLine(StringBuilder sb, String label, Object... values) {
+		sb.append(label);
+		for (Object value : values)
+			sb.append("\t").append(value);
+		sb.append("\n");
+	}
+
 	/**
 	 * Creates a new CollectionReader with the given descriptor file and
 	 * configuration parameters.